@@ -24,6 +24,8 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import net.sourceforge.jwebunit.exception.TestingEngineResponseException;
 
@@ -369,5 +371,140 @@ public class FormSubmissionTest extends JWebUnitAPITestCase {
         assertTextPresent("hidden=[bar]");
     }
 
+    @Test
+    public void testSetFormFields() {
+        beginAt("/AllFieldsForm.html");
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        fields.put("text", "some text");
+        fields.put("password", "secret");
+        fields.put("hidden", "bar");
+        fields.put("area", "some lines");
+        fields.put("select", "Two");
+        fields.put("radio", "2");
+        fields.put("checkBox", "2");
+        fields.put("single", "true");
+        setFormFields(fields);
+        submit();
+        assertTextPresent("text=[some text]");
+        assertTextPresent("password=[secret]");
+        assertTextPresent("hidden=[bar]");
+        assertTextPresent("area=[some lines]");
+        assertTextPresent("select=[2]");
+        assertTextPresent("radio=[2]");
+        assertTextPresent("checkBox=[2]");
+        assertTextPresent("single=[on]");
+    }
+
+    @Test
+    public void testSetFormFieldsNotFound() {
+        beginAt("/AllFieldsForm.html");
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        fields.put("text", "some text");
+        fields.put("missing", "value");
+        fields.put("select", "Four");
+        try {
+            setFormFields(fields);
+            fail("Expected an assertion error");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains("[missing, select]"));
+        }
+    }
+
+    @Test
+    public void testSetFormFieldsOutsideWorkingForm() {
+        beginAt("/MultiFormPage.html");
+        setWorkingForm("form2");
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        fields.put("param2", "foo");
+        fields.put("param4", "bar");
+        setFormFields(fields);
+        setWorkingForm("form4");
+        submit();
+        assertTextPresent("param4=[bar]");
+    }
+
+    @Test
+    public void testSetFormFieldsSelectsByValueFirst() {
+        beginAt("/AllFieldsForm.html");
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        fields.put("select", "3");
+        // the value of the option labelled Delta, and the label of another option
+        fields.put("multiSelect", "Gamma");
+        setFormFields(fields);
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("select", "3");
+        expected.put("multiSelect", "Gamma");
+        assertFormEquals(expected);
+
+        fields.clear();
+        fields.put("multiSelect", "Beta");
+        setFormFields(fields);
+        expected.put("multiSelect", "b");
+        assertFormEquals(expected);
+    }
+
+    @Test
+    public void testSetFormFieldsNullValue() {
+        beginAt("/AllFieldsForm.html");
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        fields.put("text", "some text");
+        fields.put("area", null);
+        try {
+            setFormFields(fields);
+            fail("A null value must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[area]"));
+        }
+        assertTextFieldEquals("text", "");
+    }
+
+    @Test
+    public void testAssertFormEquals() {
+        beginAt("/AllFieldsForm.html");
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("text", "");
+        expected.put("hidden", "foo");
+        expected.put("area", "");
+        expected.put("select", "1");
+        expected.put("radio", "");
+        expected.put("checkBox", "1");
+        expected.put("single", "");
+        assertFormEquals(expected);
+
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        fields.put("text", "some text");
+        fields.put("select", "Three");
+        fields.put("radio", "2");
+        fields.put("checkBox", "2");
+        fields.put("single", "true");
+        setFormFields(fields);
+        checkCheckbox("checkBox", "1");
+        expected.put("text", "some text");
+        expected.put("select", "3");
+        expected.put("radio", "2");
+        expected.put("checkBox", "1,2");
+        expected.put("single", "on");
+        assertFormEquals(expected);
+    }
+
+    @Test
+    public void testAssertFormEqualsReportsAllDifferences() {
+        beginAt("/AllFieldsForm.html");
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("hidden", "bar");
+        expected.put("select", "1");
+        expected.put("checkBox", "2");
+        expected.put("missing", "");
+        try {
+            assertFormEquals(expected);
+            fail("Expected an assertion error");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("hidden: expected [bar] but was [foo]"));
+            assertTrue(e.getMessage(), e.getMessage().contains("checkBox: expected [2] but was [1]"));
+            assertTrue(e.getMessage(), e.getMessage().contains("missing: not found"));
+            assertFalse(e.getMessage(), e.getMessage().contains("select"));
+        }
+    }
+
 
 }
@@ -19,7 +19,9 @@
 package net.sourceforge.jwebunit.tests;
 
 import static net.sourceforge.jwebunit.junit.JWebUnit.*;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Image;
 import java.awt.image.BufferedImage;
@@ -99,6 +101,25 @@ public class ImageTest extends JWebUnitAPITestCase {
         assertImageValid("../images/photos/Image3.jpg", "image 3 again - topdir");
     }
     
+    @Test
+    public void testAllImagesValid() {
+        beginAt("/somedir/AnotherPageWithImages.html");
+        assertAllImagesValid();
+    }
+
+    @Test
+    public void testAllImagesValidReportsInvalidImages() {
+        String message = null;
+        try {
+            assertAllImagesValid();
+        } catch (AssertionError e) {
+            message = e.getMessage();
+        }
+        assertNotNull("The invalid image should have been reported", message);
+        assertTrue(message, message.contains("InvalidImage.gif"));
+        assertFalse(message, message.contains("Image1.gif"));
+    }
+
     @Test
     public void testAbsolutePath() {
         assertImagePresent("/jwebunit/ImageTest/images/Image1.gif", "absolute image 1");
@@ -24,6 +24,7 @@ import java.lang.reflect.InvocationTargetException;
 
 import org.junit.After;
 import org.junit.Before;
+import org.junit.BeforeClass;
 
 import net.sourceforge.jwebunit.junit.JWebUnit;
 import net.sourceforge.jwebunit.tests.util.reflect.StaticMethodInvoker;
@@ -41,12 +42,18 @@ public abstract class JWebUnitAPITestCase extends JettySetup {
 
     protected static final Object[] NOARGS = new Object[0];
 
-    public static final int JETTY_PORT = 8082;
-
     public static final String JETTY_URL = "/jwebunit";
 
-    public static final String HOST_PATH = "http://localhost:" + JETTY_PORT
-            + JETTY_URL;
+    /**
+     * Base URL of the test web application, on the port the server of this JVM listens on. It is
+     * only known once the server is started, so it is set before the tests of each class run.
+     */
+    public static String HOST_PATH;
+
+    @BeforeClass
+    public static void resolveHostPath() {
+        HOST_PATH = JettySetup.getBaseUrl();
+    }
 
     @Before
     public void setUp() throws Exception {
@@ -18,10 +18,15 @@
  */
 package net.sourceforge.jwebunit.tests;
 
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertElementNotPresentWithin;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertElementPresentByXPathWithin;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertElementPresentWithin;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertLinkNotPresent;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertLinkPresent;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextNotPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextNotPresentWithin;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresentWithin;
 import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
 import static net.sourceforge.jwebunit.junit.JWebUnit.clickButtonWithText;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
@@ -113,5 +118,24 @@ public class JavaScriptTest  extends JWebUnitAPITestCase {
     	assertTextPresent("hello, world!");
     	assertTextNotPresent("not loaded");
     }
+
+    @Test public void testTextPresentWithin() {
+        beginAt("Delayed.html");
+        assertTextPresentWithin("Loaded after a while", 5000);
+        assertTextNotPresentWithin("Loading...", 5000);
+        assertElementPresentWithin("result", 5000);
+        assertElementNotPresentWithin("loading", 5000);
+        assertElementPresentByXPathWithin("//div[@id='result']", 5000);
+    }
+
+    @Test public void testTextPresentWithinTimeout() {
+        beginAt("Delayed.html");
+        try {
+            assertTextPresentWithin("Never loaded", 200);
+            fail();
+        } catch (AssertionError e) {
+            //OK
+        }
+    }
     
 }
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import net.sourceforge.jwebunit.tests.util.JettySetup;
+
+import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+/**
+ * Test the test server shared by the suites.
+ */
+public class JettySetupTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testBaseUrlIsPublished() {
+        assertTrue(JettySetup.getPort() > 0);
+        assertEquals("http://localhost:" + JettySetup.getPort() + JETTY_URL, HOST_PATH);
+        assertEquals(HOST_PATH, System.getProperty(JettySetup.BASE_URL_PROPERTY));
+        beginAt("/helloworld.html");
+        assertTitleEquals("Hello, World!");
+    }
+
+    @Test
+    public void testConcurrentSuites() {
+        Result result = JUnitCore.runClasses(new ParallelComputer(true, false), HelloWorldTest.class,
+                NavigationTest.class, TableAssertionsTest.class);
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertTrue(result.getRunCount() > 3);
+        // the suites leave the server running for the others
+        assertEquals(HOST_PATH, JettySetup.getBaseUrl());
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertAllLinksValid;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngineKey;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import net.sourceforge.jwebunit.tests.util.MethodsServlet;
+import net.sourceforge.jwebunit.util.CrawlReport;
+import net.sourceforge.jwebunit.util.LinkCrawler;
+
+import org.junit.Test;
+
+/**
+ * Test the link checker.
+ */
+public class LinkCrawlerTest extends JWebUnitAPITestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+        setBaseUrl(HOST_PATH + "/LinkCrawlerTest");
+    }
+
+    @Test
+    public void testAllLinksValid() {
+        beginAt("/index.html");
+        LinkCrawler crawler = new LinkCrawler(getTestingEngineKey(), getTestContext());
+        CrawlReport report = crawler.crawl(getTestingEngine().getPageURL());
+        assertTrue(report.toString(), report.isValid());
+        // index, page1, page2, page3 and the form target
+        assertEquals(5, report.getCheckedCount());
+        assertAllLinksValid();
+    }
+
+    @Test
+    public void testFilesAreProbedWithHead() {
+        beginAt("/binary.html");
+        MethodsServlet.takeRequests();
+        LinkCrawler crawler = new LinkCrawler(getTestingEngineKey(), getTestContext());
+        CrawlReport report = crawler.crawl(getTestingEngine().getPageURL());
+        assertTrue(report.toString(), report.isValid());
+        // the file is checked but not downloaded
+        assertEquals(Arrays.asList("HEAD file=data.bin"), MethodsServlet.takeRequests());
+    }
+
+    @Test
+    public void testBrokenLink() {
+        beginAt("/broken.html");
+        boolean failed = false;
+        try {
+            assertAllLinksValid();
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("missing.html"));
+            failed = true;
+        }
+        if (!failed) {
+            fail("The missing page should have been reported");
+        }
+    }
+
+    @Test
+    public void testUrlFilterApplies() {
+        getTestContext().addBlockedUrl("missing\\.html$");
+        try {
+            beginAt("/broken.html");
+            // the engines answer the blocked URL locally, as the browser does
+            assertAllLinksValid();
+        } finally {
+            getTestContext().getUrlFilter().clear();
+        }
+    }
+
+    @Test
+    public void testMaxDepth() {
+        beginAt("/index.html");
+        LinkCrawler crawler = new LinkCrawler(getTestingEngineKey(), getTestContext());
+        crawler.setMaxDepth(1);
+        crawler.setThreads(1);
+        crawler.setRequestsPerSecond(100);
+        CrawlReport report = crawler.crawl(getTestingEngine().getPageURL());
+        // page3 is 2 links away
+        assertEquals(4, report.getCheckedCount());
+    }
+
+}
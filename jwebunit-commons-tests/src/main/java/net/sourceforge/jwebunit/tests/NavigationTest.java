@@ -26,13 +26,18 @@ import static net.sourceforge.jwebunit.junit.JWebUnit.clickLink;
 import static net.sourceforge.jwebunit.junit.JWebUnit.clickLinkWithExactText;
 import static net.sourceforge.jwebunit.junit.JWebUnit.clickLinkWithImage;
 import static net.sourceforge.jwebunit.junit.JWebUnit.clickLinkWithText;
+import static net.sourceforge.jwebunit.junit.JWebUnit.clickLinkWithTextAsync;
 import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
 import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
+import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPageAsync;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 
 import net.sourceforge.jwebunit.exception.TestingEngineResponseException;
@@ -177,6 +182,28 @@ public class NavigationTest extends JWebUnitAPITestCase {
 		assertTitleEquals("targetPage2");
 	}
 
+	@Test
+	public void testGotoPageAsync() throws Exception {
+		beginAt("/targetPage.html");
+		Future<Void> navigation = gotoPageAsync("/pageWithLink.html");
+		navigation.get();
+		assertTitleEquals("pageWithLink");
+		clickLinkWithTextAsync("an active link").get();
+		assertTitleEquals("targetPage");
+	}
+
+	@Test
+	public void testInvalidGotoPageAsync() throws Exception {
+		beginAt("/targetPage.html");
+		try {
+			gotoPageAsync("/nosuchresource.html").get();
+			fail("Expected a 404 error");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TestingEngineResponseException);
+			assertEquals(404, ((TestingEngineResponseException) e.getCause()).getHttpStatusCode());
+		}
+	}
+
 	@Test
 	public void testInvalidGotoPage() {
 		beginAt("/targetPage.html");
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getPageMetrics;
+import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import net.sourceforge.jwebunit.api.PageMetrics;
+
+import org.junit.Test;
+
+/**
+ * Test the measurements of the current page and the performance budget assertions.
+ */
+public class PageMetricsAssertionsTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testSubResourcesAreCounted() throws Throwable {
+        beginAt("/JavaScriptTest/prototype.html");
+        PageMetrics metrics = getPageMetrics();
+        assertEquals(2, metrics.getRequestCount());
+        assertTrue("page weight should include the script [" + metrics + "]",
+                metrics.getPageWeight() > 130000);
+        assertTrue(metrics.getDomNodeCount() > 0);
+        assertTrue(metrics.getResponseTime() >= 0);
+        assertPass("assertRequestCountBelow", new Object[] {3});
+        assertFail("assertRequestCountBelow", new Object[] {2});
+        assertPass("assertPageWeightBelow", new Object[] {1000000L});
+        assertFail("assertPageWeightBelow", new Object[] {1000L});
+        assertPass("assertDomNodeCountBelow", new Object[] {1000});
+        assertFail("assertDomNodeCountBelow", new Object[] {1});
+    }
+
+    @Test
+    public void testCountersAreResetOnNavigation() {
+        beginAt("/JavaScriptTest/prototype.html");
+        gotoPage("/helloworld.html");
+        PageMetrics metrics = getPageMetrics();
+        assertEquals(1, metrics.getRequestCount());
+        assertTrue(metrics.getPageWeight() > 0);
+        assertTrue(metrics.getPageWeight() < 130000);
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertRefreshCount;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setRefreshLimits;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test the refreshes followed by the testing engines.
+ */
+public class RefreshLimitsTest extends JWebUnitAPITestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+        setBaseUrl(HOST_PATH + "/RefreshHandlerTest");
+    }
+
+    @Test
+    public void testRefreshChain() {
+        setRefreshLimits(10, 50);
+        beginAt("/chain1.html");
+        assertTitleEquals("target");
+        assertRefreshCount(2);
+        gotoPage("/target.html");
+        assertRefreshCount(0);
+    }
+
+    @Test
+    public void testTooManyRefreshes() {
+        setRefreshLimits(1, 0);
+        try {
+            beginAt("/chain1.html");
+            fail("The second refresh must fail the navigation");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("1 refreshes already followed"));
+        }
+        assertRefreshCount(1);
+    }
+
+    @After
+    public void cleanup() {
+        setRefreshLimits(10, 0);
+    }
+
+}
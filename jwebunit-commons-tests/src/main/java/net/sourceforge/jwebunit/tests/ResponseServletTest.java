@@ -21,6 +21,9 @@ package net.sourceforge.jwebunit.tests;
 import org.junit.Test;
 
 import java.net.SocketTimeoutException;
+import java.util.Collections;
+
+import net.sourceforge.jwebunit.api.ResponseSnapshot;
 
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertHeaderEquals;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertHeaderMatches;
@@ -31,11 +34,16 @@ import static net.sourceforge.jwebunit.junit.JWebUnit.assertResponseCodeBetween;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
 import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getResponseSnapshot;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setIgnoreFailingStatusCodes;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setTextField;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setTimeout;
 import static net.sourceforge.jwebunit.junit.JWebUnit.submit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -68,6 +76,30 @@ public class ResponseServletTest extends JWebUnitAPITestCase {
     assertHeaderMatches("Header-Added", "[0-9]{2}");
   }
 
+  @Test
+  public void testResponseSnapshot() {
+    beginAt("/SimpleForm.html");
+    setTextField("status", "404");
+    submit();
+    ResponseSnapshot snapshot = getResponseSnapshot();
+    assertSame(snapshot, getResponseSnapshot());
+    assertEquals(404, snapshot.getStatusCode());
+    assertEquals("test2", snapshot.getHeader("test"));
+    assertEquals(Collections.singletonList("test2"), snapshot.getHeaderValues("TEST"));
+    assertFalse(snapshot.hasHeader("Not-present"));
+
+    // the snapshot is not affected by the next page
+    beginAt("/SimpleForm.html");
+    assertNotSame(snapshot, getResponseSnapshot());
+    assertEquals(200, getResponseSnapshot().getStatusCode());
+    assertEquals(404, snapshot.getStatusCode());
+    assertEquals("test2", snapshot.getHeader("Test"));
+    // engines that keep the body must still have it once the page is gone
+    if (snapshot.getBody() != null) {
+      assertTrue(snapshot.getBody().contains("hello, world!"));
+    }
+  }
+
   @Test
   public void testResponse200() {
     beginAt("/SimpleForm.html");
@@ -35,12 +35,19 @@ import static net.sourceforge.jwebunit.junit.JWebUnit.assertSelectedOptionValues
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertSelectedOptionsEqual;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertSelectedOptionsMatch;
 import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
 import static net.sourceforge.jwebunit.junit.JWebUnit.selectOption;
 import static net.sourceforge.jwebunit.junit.JWebUnit.selectOptionByValue;
 import static net.sourceforge.jwebunit.junit.JWebUnit.selectOptions;
 import static net.sourceforge.jwebunit.junit.JWebUnit.selectOptionsByValues;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setWorkingForm;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import net.sourceforge.jwebunit.api.SelectOption;
 
 import org.junit.Test;
 
@@ -166,6 +173,37 @@ public class SelectOptionsTest extends JWebUnitAPITestCase
 		assertSelectedOptionsMatch("duplicateSelect", 0, new String[] { "option2", "option4"});
 	}
 
+    @Test public void testLargeSelect()
+    {
+        beginAt("/pageWithLargeSelect.html");
+        String[] labels = new String[1000];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = "Item " + i;
+        }
+        assertSelectOptionsEqual("largeSelect", labels);
+        assertSelectOptionsPresent("largeSelect", new String[] { "Item 999", "Item 0", "Item 500"});
+        selectOptions("largeSelect", new String[] { "Item 999", "Item 3"});
+        assertSelectedOptionValuesEqual("largeSelect", new String[] { "item3", "item999"});
+
+        SelectOption[] options = getTestingEngine().getSelectOptions("largeSelect");
+        assertEquals(1000, options.length);
+        assertEquals("Item 3", options[3].getLabel());
+        assertEquals("item3", options[3].getValue());
+        assertTrue(options[3].isSelected());
+        assertFalse(options[4].isSelected());
+    }
+
+    @Test public void testSelectOptionsNotPresent()
+    {
+        beginAt("/pageWithLargeSelect.html");
+        try {
+            selectOptions("largeSelect", new String[] { "Item 1", "Item 1000"});
+            fail("Expected an assertion error");
+        } catch (AssertionError e) {
+            assertEquals("Option [Item 1000] not found in select element largeSelect", e.getMessage());
+        }
+    }
+
 
 
 
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.closeScope;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTester;
+import static net.sourceforge.jwebunit.junit.JWebUnit.openScope;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import net.sourceforge.jwebunit.junit.TesterScope;
+import net.sourceforge.jwebunit.junit.WebTester;
+import net.sourceforge.jwebunit.util.TestContext;
+
+import org.junit.Test;
+
+/**
+ * Test the scopes of the testers used by the static facade.
+ */
+public class TesterScopeTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testNestedScope() {
+        WebTester outer = getTester();
+        TesterScope scope = openScope();
+        try {
+            assertNotSame(outer, getTester());
+            getTestContext().setBaseUrl(HOST_PATH);
+            getTestContext().setAuthorization("admin", "admin");
+            beginAt("/helloworld.html");
+            assertTitleEquals("Hello, World!");
+        } finally {
+            scope.close();
+        }
+        assertTrue(scope.isClosed());
+        assertSame(outer, getTester());
+    }
+
+    @Test
+    public void testThreadsDoNotInheritByDefault() throws Exception {
+        final TestContext[] childContext = new TestContext[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                childContext[0] = getTestContext();
+                closeScope();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotSame(getTestContext(), childContext[0]);
+    }
+
+    @Test
+    public void testInheritableScope() throws Throwable {
+        TesterScope scope = openScope(null, true);
+        try {
+            getTestContext().setBaseUrl(HOST_PATH);
+            getTestContext().setAuthorization("admin", "admin");
+            final WebTester[] child = new WebTester[1];
+            final Throwable[] error = new Throwable[1];
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        child[0] = getTester();
+                        beginAt("/helloworld.html");
+                        assertTitleEquals("Hello, World!");
+                    } catch (Throwable t) {
+                        error[0] = t;
+                    }
+                }
+            };
+            thread.start();
+            thread.join();
+            if (error[0] != null) {
+                throw error[0];
+            }
+            assertNotSame(getTester(), child[0]);
+            assertSame(getTestContext(), child[0].getTestContext());
+        } finally {
+            // also closes the browser of the child thread
+            scope.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScopesAreClosedInOrder() {
+        TesterScope outer = openScope();
+        TesterScope inner = openScope();
+        try {
+            outer.close();
+        } finally {
+            inner.close();
+            outer.close();
+        }
+    }
+
+}
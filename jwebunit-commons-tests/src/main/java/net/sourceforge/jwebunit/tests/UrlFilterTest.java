@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test the URL allow/deny rules of the test context.
+ */
+public class UrlFilterTest extends JWebUnitAPITestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+        setBaseUrl(HOST_PATH + "/JavaScriptTest");
+    }
+
+    @Test
+    public void testBlockedScript() {
+        getTestContext().addBlockedUrl("prototype-1\\.6\\.0\\.3\\.js$");
+        beginAt("/prototype.html");
+        assertTitleEquals("prototype.js test");
+        assertEquals(1, getTestContext().getUrlFilter().getBlockedCount());
+        assertEquals(1, getTestContext().getUrlFilter().getBlockedUrls().size());
+    }
+
+    @Test
+    public void testAllowedUrls() {
+        getTestContext().addAllowedUrl("prototype\\.html$");
+        beginAt("/prototype.html");
+        assertEquals(1, getTestContext().getUrlFilter().getBlockedCount());
+    }
+
+    @Test
+    public void testStub() {
+        getTestContext().addBlockedUrl("prototype-1\\.6\\.0\\.3\\.js$");
+        getTestContext().setBlockedUrlResponse("application/javascript", "document.title = 'stubbed';");
+        beginAt("/prototype.html");
+        assertTitleEquals("stubbed");
+    }
+
+    @After
+    public void clearFilter() {
+        getTestContext().getUrlFilter().clear();
+    }
+
+}
@@ -32,9 +32,13 @@ import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextInElement;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextNotInElement;
 import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextNotPresent;
 import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
 import static org.junit.Assert.fail;
 
+import net.sourceforge.jwebunit.util.JavaRegexpEngine;
+import net.sourceforge.jwebunit.util.LinearRegexpEngine;
+
 import org.junit.Test;
 
 /**
@@ -89,6 +93,19 @@ public class WebAssertionsTest extends JWebUnitAPITestCase {
         assertPassFail("assertNoMatch", "no.*text", "This (is)* a .* test.");
     }
     
+    @Test public void testAssertMatchWithLinearEngine() throws Throwable {
+        getTestContext().setRegexpEngine(new LinearRegexpEngine());
+        try {
+            assertPassFail("assertMatch", "This (is)* a .* test.", "no.*text");
+            assertPassFail("assertNoMatch", "no.*text", "This (is)* a .* test.");
+            assertMatchInElement("span_id", "Span\\sText");
+            // back references cannot be matched in linear time
+            assertFail("assertMatch", "(Span) \\1");
+        } finally {
+            getTestContext().setRegexpEngine(new JavaRegexpEngine());
+        }
+    }
+
     /**
      * Check that {@link #assertNoMatch(String)} can actually fail.
      */
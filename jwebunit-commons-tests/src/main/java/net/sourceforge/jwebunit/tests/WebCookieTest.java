@@ -29,8 +29,12 @@ import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
 import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
 import static net.sourceforge.jwebunit.junit.JWebUnit.getResponseHeaders;
 import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
 import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 
@@ -68,12 +72,39 @@ public class WebCookieTest extends JWebUnitAPITestCase {
     	assertCookiePresent("serveurCookie");
 	}
 
+    @Test
+    public void testGetCookie() throws Throwable {
+    	beginAt("/cookies.jsp");
+    	assertTrue(getTestingEngine().hasCookie("serveurCookie"));
+    	assertEquals("foo", getTestingEngine().getCookie("serveurCookie").getValue());
+    	assertFalse(getTestingEngine().hasCookie("missing"));
+    	assertNull(getTestingEngine().getCookie("missing"));
+	}
+
     @Test
     public void testAssertCookieValue() throws Throwable {
     	beginAt("/cookies.jsp");
     	assertCookieValueEquals("serveurCookie", "foo");
 	}
 
+    @Test
+    public void testAssertSameNamedCookiesOnDifferentPaths() throws Throwable {
+        beginAt("/cookies.jsp?root_cookie=bar");
+        assertEquals(2, getTestingEngine().getCookies("serveurCookie").size());
+        // any of the cookies with this name may match
+        assertCookieValueEquals("serveurCookie", "foo");
+        assertCookieValueEquals("serveurCookie", "bar");
+        assertCookieValueMatch("serveurCookie", "^fo+$");
+        assertCookieValueMatch("serveurCookie", "^ba.$");
+        assertFail("assertCookieValueEquals", new Object[] {"serveurCookie", "baz"});
+    }
+
+    @Test
+    public void testGetCookieGivesTheLastSameNamedCookie() {
+        beginAt("/cookies.jsp?root_cookie=bar");
+        assertEquals("bar", getTestingEngine().getCookie("serveurCookie").getValue());
+    }
+
     @Test
     public void testAssertCookieMatch() throws Throwable {
     	beginAt("/cookies.jsp");
@@ -73,6 +73,13 @@ public class CookiesServlet extends HttpServlet {
 			Cookie cookie = new Cookie("serveurCookie","foo");
 			response.addCookie(cookie);
 		}
+
+		// a cookie with the same name for the whole site
+		if (request.getParameter("root_cookie") != null) {
+			Cookie cookie = new Cookie("serveurCookie", request.getParameter("root_cookie"));
+			cookie.setPath("/");
+			response.addCookie(cookie);
+		}
 		
 		/*
 		 * To test if several same cookies with same path, domain and name 
@@ -24,6 +24,7 @@ import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.security.HashLoginService;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.DefaultHandler;
@@ -37,71 +38,140 @@ import static org.junit.Assert.fail;
  * Sets up and tears down the Jetty servlet engine before and after the tests in
  * the <code>TestSuite</code> have run.
  *
+ * <p>The server is shared by all the suites of the JVM, which may run concurrently. It listens on
+ * an ephemeral port, or on the port given by the <code>jwebunit.test.port</code> system property,
+ * so that several forks or builds can run side by side. Its base URL is published in the
+ * <code>jwebunit.test.baseUrl</code> system property of the fork once started, and it is stopped
+ * when the JVM exits.</p>
+ *
  * @author Eelco Hillenius
  */
 public class JettySetup {
+	/**
+	 * System property giving the port of the server, 0 or absent for an ephemeral port.
+	 */
+	public static final String PORT_PROPERTY = "jwebunit.test.port";
+
+	/**
+	 * System property set to the base URL of the started server.
+	 */
+	public static final String BASE_URL_PROPERTY = "jwebunit.test.baseUrl";
+
 	/**
 	 * The Jetty server we are going to use as test server.
 	 */
 	private static Server jettyServer = null;
 
-	private static boolean started = false;
+	private static ServerConnector connector = null;
+
+	/**
+	 * Connector answering requests in memory, without going through a socket.
+	 */
+	private static LocalConnector localConnector = null;
+
+	/**
+	 * Port the server listens on, kept when it is restarted so that the base URL does not change.
+	 */
+	private static int port = 0;
 
+	private static String baseUrl = null;
 
 	/**
-	 * Starts the Jetty server using the <tt>jetty-test-config.xml</tt> file
-	 * which is loaded using the classloader used to load Jetty.
+	 * Starts the Jetty server, unless it is already running.
 	 *
 	 * @see junit.extensions.TestSetup#setUp()
 	 */
 	@BeforeClass
-	public static void startup() throws Exception {
-	    if (!started) {
+	public static synchronized void startup() {
+	    if (jettyServer == null || !jettyServer.isStarted()) {
     		try {
-    			jettyServer = new Server();
-    			ServerConnector connector = new ServerConnector(jettyServer);
-    			connector.setPort(JWebUnitAPITestCase.JETTY_PORT);
-    			jettyServer.setConnectors(new Connector[] { connector });
+    		    if (jettyServer == null) {
+    		        create();
+    		    }
+    			connector.setPort(port == 0 ? Integer.getInteger(PORT_PROPERTY, 0) : port);
 
-    			WebAppContext wah = new WebAppContext();
+    			jettyServer.start();
 
-    			// Handle files encoded in UTF-8
-    			MimeTypes mimeTypes = new MimeTypes();
-    			mimeTypes.addMimeMapping("html_utf-8", "text/html; charset=UTF-8");
-                mimeTypes.addMimeMapping("txt", "text/plain");
-                mimeTypes.addMimeMapping("bin", "application/octet-stream");
-    			wah.setMimeTypes(mimeTypes);
+    			port = connector.getLocalPort();
+    			baseUrl = "http://localhost:" + port + JWebUnitAPITestCase.JETTY_URL;
+    			System.setProperty(BASE_URL_PROPERTY, baseUrl);
 
+    		} catch (Exception e) {
+    			e.printStackTrace();
+    			fail("Could not start the Jetty server: " + e);
+    		}
+	    }
+	}
 
-    			HandlerCollection handlers= new HandlerCollection();
-    			handlers.setHandlers(new Handler[]{wah, new DefaultHandler()});
+	private static void create() {
+		jettyServer = new Server();
+		connector = new ServerConnector(jettyServer);
+		localConnector = new LocalConnector(jettyServer);
+		jettyServer.setConnectors(new Connector[] { connector, localConnector });
+		jettyServer.setStopAtShutdown(true);
 
-    			jettyServer.setHandler(wah);
-    			HashLoginService myrealm = new HashLoginService("MyRealm");
-    			URL config = JettySetup.class.getResource("/jetty-users.properties");
-    			myrealm.setConfig(config.toString());
-    			jettyServer.addBean(myrealm);
+		WebAppContext wah = new WebAppContext();
 
-    			wah.setContextPath(JWebUnitAPITestCase.JETTY_URL);
+		// Handle files encoded in UTF-8
+		MimeTypes mimeTypes = new MimeTypes();
+		mimeTypes.addMimeMapping("html_utf-8", "text/html; charset=UTF-8");
+        mimeTypes.addMimeMapping("txt", "text/plain");
+        mimeTypes.addMimeMapping("bin", "application/octet-stream");
+		wah.setMimeTypes(mimeTypes);
 
-    			URL url = JettySetup.class.getResource("/testcases/");
-    			wah.setWar(url.toString());
 
-    			jettyServer.start();
+		HandlerCollection handlers= new HandlerCollection();
+		handlers.setHandlers(new Handler[]{wah, new DefaultHandler()});
 
-    			started = true;
+		jettyServer.setHandler(wah);
+		HashLoginService myrealm = new HashLoginService("MyRealm");
+		URL config = JettySetup.class.getResource("/jetty-users.properties");
+		myrealm.setConfig(config.toString());
+		jettyServer.addBean(myrealm);
 
-    		} catch (Exception e) {
-    			e.printStackTrace();
-    			fail("Could not start the Jetty server: " + e);
-    		}
-	    }
+		wah.setContextPath(JWebUnitAPITestCase.JETTY_URL);
+
+		URL url = JettySetup.class.getResource("/testcases/");
+		wah.setWar(url.toString());
+	}
+
+	/**
+	 * Give the base URL of the test web application, starting the server if needed.
+	 *
+	 * @return the base URL, for example <code>http://localhost:41234/jwebunit</code>
+	 */
+	public static synchronized String getBaseUrl() {
+		startup();
+		return baseUrl;
+	}
+
+	/**
+	 * Give the port the server listens on.
+	 *
+	 * @return the port, or 0 if the server was never started
+	 */
+	public static synchronized int getPort() {
+		return port;
 	}
 
-	protected static void shutdown() throws Exception {
+	/**
+	 * Give access to the server in memory, for example to plug it into a testing engine. This is
+	 * opt-in: the test suites reach the server through its network connector, and only the tests
+	 * plugging the local connector into their engine bypass the sockets.
+	 *
+	 * @return the local connector of the started server
+	 */
+	public static synchronized LocalConnector getLocalConnector() {
+		return localConnector;
+	}
+
+	/**
+	 * Stop the server. As it is shared by the suites of the JVM, only call it when no other suite
+	 * may be running; the next {@link #startup()} restarts it on the same port.
+	 */
+	protected static synchronized void shutdown() throws Exception {
         try {
             jettyServer.stop();
-            started = false;
         } catch (InterruptedException e) {
             e.printStackTrace();
             fail("Jetty server was interrupted: " + e);
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.tests.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet serving a binary file, that remembers the method and query string of the requests it received.
+ */
+public class MethodsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final List<String> REQUESTS = new CopyOnWriteArrayList<String>();
+
+    /**
+     * Return the requests received since the last call, as "METHOD query".
+     */
+    public static List<String> takeRequests() {
+        List<String> requests = new ArrayList<String>(REQUESTS);
+        REQUESTS.removeAll(requests);
+        return requests;
+    }
+
+    protected void service(HttpServletRequest request,
+            HttpServletResponse response) throws ServletException, IOException {
+        REQUESTS.add(request.getMethod() + " " + request.getQueryString());
+        super.service(request, response);
+    }
+
+    protected void doGet(HttpServletRequest request,
+            HttpServletResponse response) throws ServletException, IOException {
+        byte[] data = new byte[64 * 1024];
+        response.setContentType("application/octet-stream");
+        response.setContentLength(data.length);
+        OutputStream out = response.getOutputStream();
+        out.write(data);
+    }
+}
@@ -96,6 +96,38 @@ public interface ITestingEngine {
      */
     List<?> getCookies();
 
+    /**
+     * Get a cookie by its name, without converting the other cookies.
+     *
+     * @param name name of the cookie.
+     * @return the cookie, or null if there is none. When several cookies have this name, the last one.
+     */
+    javax.servlet.http.Cookie getCookie(String name);
+
+    /**
+     * Get all the cookies with a name, for example set on different paths or domains, without
+     * converting the other cookies.
+     *
+     * @param name name of the cookies.
+     * @return the cookies, in the order they were set; empty if there is none.
+     */
+    List<javax.servlet.http.Cookie> getCookies(String name);
+
+    /**
+     * Test if a cookie with the given name is present.
+     *
+     * @param name name of the cookie.
+     * @return true if the cookie is present.
+     */
+    boolean hasCookie(String name);
+
+    /**
+     * Capture the cookies and, if supported, the web storage of the current session.
+     *
+     * @return the state of the session.
+     */
+    SessionSnapshot getSessionSnapshot();
+
     /**
      * Test if the window with the given name is present.
      *
@@ -252,6 +284,38 @@ public interface ITestingEngine {
      */
     void setHiddenField(String inputName, String text);
 
+    /**
+     * Set several fields of the working form at once. Like {@link #setTextField(String, String)}, the
+     * fields not in the working form, or all of them if there is none, are searched in the whole page.
+     * The fields are found in a single pass over the DOM, then set in the iteration order of the map.
+     * The value of a field depends on its type:
+     * <ul>
+     * <li>text, password, hidden fields and text areas: the value to set;</li>
+     * <li>select boxes: the value of the option to select, or else its label; the other options
+     * of a multiple select box are deselected;</li>
+     * <li>radio buttons: the value of the option to select;</li>
+     * <li>checkboxes: each checkbox with the name is checked if the value is its value or
+     * <code>true</code>, and unchecked otherwise.</li>
+     * </ul>
+     *
+     * @param fields values of the fields, by name
+     * @return the names of the fields that were not found or could not take their value
+     * @throws IllegalArgumentException if a value is null; no field is set then
+     */
+    List<String> setFormFields(Map<String, String> fields);
+
+    /**
+     * Get the values of all the named controls of a form in a single traversal, as they would be
+     * submitted: the value of text, password, hidden and file fields and text areas, the values of
+     * the selected options of select boxes, and the values of the checked checkboxes and radio
+     * buttons. A group without any checked or selected item maps to an empty array. Buttons are
+     * ignored.
+     *
+     * @param nameOrId name or id of the form, or null for the working form
+     * @return the values of the controls by name, in document order
+     */
+    Map<String, String[]> getFormState(String nameOrId);
+
     /**
      * Return a string array of select box option values.
      *
@@ -348,6 +412,27 @@ public interface ITestingEngine {
      */
     String getSelectOptionValueForLabel(String selectName, int index, String optionLabel);
 
+    /**
+     * Return the label, value and selection state of all the options of a select box, in document order,
+     * reading them in a single pass. Prefer this to a combination of {@link #getSelectOptionValues(String)}
+     * and {@link #getSelectOptionLabelForValue(String, String)} on large select boxes.
+     *
+     * @param selectName name of the select box.
+     * @return the options of the select box.
+     */
+    SelectOption[] getSelectOptions(String selectName);
+
+    /**
+     * Return the label, value and selection state of all the options of the Nth select box with the specified
+     * name, in document order.
+     *
+     * @param selectName name of the select box.
+     * @param index the 0-based index used when more than one select with
+     * the same name is expected.
+     * @return the options of the select box.
+     */
+    SelectOption[] getSelectOptions(String selectName, int index);
+
 
     /**
      * Select option(s) of a select box by value.
@@ -664,6 +749,16 @@ public interface ITestingEngine {
      */
     String getPageText();
 
+    /**
+     * Tell if the current page contains the given text, like <code>getPageText().contains(text)</code>. For
+     * plain text and other non-HTML responses, engines should search the response body as a stream rather
+     * than decoding it whole, so that large downloads can be checked with bounded memory.
+     *
+     * @param text the text to find.
+     * @return true if the text is present in the page.
+     */
+    boolean isTextInPage(String text);
+
     /**
      * Return the source of the current page (like in a browser).
      *
@@ -701,6 +796,18 @@ public interface ITestingEngine {
     InputStream getInputStream(URL url)
             throws TestingEngineResponseException;
 
+    /**
+     * Send a <code>HEAD</code> request for a given URL, with the cookies, headers, authentication, proxy and URL
+     * filter of the browser, without changing the current navigation context. Failing status codes are returned,
+     * not thrown.
+     *
+     * @param url the url to the resource
+     * @return the status and headers of the response, without body
+     * @throws UnsupportedOperationException if the engine cannot send <code>HEAD</code> requests
+     */
+    ResponseSnapshot getHeadResponse(URL url)
+            throws TestingEngineResponseException;
+
     /**
      * Check if the Table object representing a specified table exists.
      *
@@ -848,6 +955,8 @@ public interface ITestingEngine {
      * @param elementID Id of element to inspect.
      * @param regexp regexp to match.
      * @return true if a match is found.
+     * @throws net.sourceforge.jwebunit.exception.RegexpTimeoutException if the match takes longer than
+     *             the {@link net.sourceforge.jwebunit.util.TestContext#getRegexpEngine() regexp engine} allows
      */
     boolean isMatchInElement(String elementID, String regexp);
 
@@ -937,6 +1046,14 @@ public interface ITestingEngine {
      */
     List<HttpHeader> getResponseHeaders();
 
+    /**
+     * Get the status, headers and body of the current response. The snapshot is captured once for each page,
+     * so calling this method again on the same page returns the same object.
+     *
+     * @return the snapshot of the current response
+     */
+    ResponseSnapshot getResponseSnapshot();
+
     /**
      * Should the tester ignore failing status codes (300+)? Otherwise,
      * failing status codes will throw an exception.
@@ -959,4 +1076,40 @@ public interface ITestingEngine {
      */
     public void setTimeout(int milliseconds);
 
+    /**
+     * Get the measurements taken while loading the current page.
+     *
+     * @return the metrics of the current page
+     */
+    PageMetrics getPageMetrics();
+
+    /**
+     * Let the background JavaScript of the current page (timers, asynchronous requests) run for
+     * at most the given time. Engines able to observe the page return as soon as there is no
+     * pending job left or the DOM changes, so that conditions can be checked again right away.
+     *
+     * @param timeoutMillis maximum time to wait, in milliseconds
+     * @return the number of background jobs still pending, or -1 if the engine cannot tell
+     */
+    int waitForBackgroundJavaScript(long timeoutMillis);
+
+    /**
+     * Let the JavaScript timers of the current page run as if the given time had passed. With the
+     * time warp of the test context, the virtual clock is moved forward instantly and the timers
+     * due meanwhile run in order; otherwise the engine waits for them in real time.
+     *
+     * @param millis time to move forward, in milliseconds
+     * @see net.sourceforge.jwebunit.util.TestContext#setJavaScriptTimeWarp(boolean)
+     */
+    void advanceJavaScriptClock(long millis);
+
+    /**
+     * Get the number of refreshes (<code>&lt;meta http-equiv="refresh"&gt;</code> or
+     * <code>Refresh</code> header) followed by the last navigation to reach the current page.
+     *
+     * @return the number of refreshes followed
+     * @see net.sourceforge.jwebunit.util.TestContext#setMaxRefreshes(int)
+     */
+    int getRefreshCount();
+
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.api;
+
+/**
+ * Measurements taken by a testing engine while loading the current page.
+ *
+ * <p>The request count and page weight include the page itself and every
+ * sub-resource (scripts, stylesheets, frames, XHR...) fetched since the page
+ * was loaded into the current window. Responses served without contacting the
+ * server, from a cache or a replay archive, are not counted.</p>
+ */
+public class PageMetrics {
+
+    /** Time to get the main response, in milliseconds. */
+    private final long responseTime_;
+
+    /** Bytes downloaded for the page and its sub-resources. */
+    private final long pageWeight_;
+
+    /** Number of HTTP requests issued for the page and its sub-resources. */
+    private final int requestCount_;
+
+    /** Number of DOM nodes of the page. */
+    private final int domNodeCount_;
+
+    /**
+     * Creates a new instance.
+     * @param responseTime time to get the main response, in milliseconds
+     * @param pageWeight bytes downloaded for the page and its sub-resources
+     * @param requestCount number of requests issued for the page and its sub-resources
+     * @param domNodeCount number of DOM nodes of the page
+     */
+    public PageMetrics(final long responseTime, final long pageWeight,
+            final int requestCount, final int domNodeCount) {
+        responseTime_ = responseTime;
+        pageWeight_ = pageWeight;
+        requestCount_ = requestCount;
+        domNodeCount_ = domNodeCount;
+    }
+
+    /**
+     * Returns the time to get the main response.
+     * @return the response time in milliseconds
+     */
+    public long getResponseTime() {
+        return responseTime_;
+    }
+
+    /**
+     * Returns the bytes downloaded for the page and its sub-resources.
+     * @return the page weight in bytes
+     */
+    public long getPageWeight() {
+        return pageWeight_;
+    }
+
+    /**
+     * Returns the number of requests issued for the page and its sub-resources.
+     * @return the request count
+     */
+    public int getRequestCount() {
+        return requestCount_;
+    }
+
+    /**
+     * Returns the number of DOM nodes of the page, or 0 for non markup content.
+     * @return the DOM node count
+     */
+    public int getDomNodeCount() {
+        return domNodeCount_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "responseTime=" + responseTime_ + "ms, pageWeight=" + pageWeight_
+                + " bytes, requestCount=" + requestCount_ + ", domNodeCount=" + domNodeCount_;
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Status, headers and body of a response, captured once by a testing engine for each page it
+ * navigates to. Headers are indexed by name, ignoring case, so that looking one up does not walk
+ * the whole list. The body is only decoded the first time it is asked for.
+ *
+ * <p>A snapshot never changes once created and can be handed to other threads.</p>
+ *
+ * @see ITestingEngine#getResponseSnapshot()
+ */
+public class ResponseSnapshot {
+
+    private final String url_;
+
+    private final int statusCode_;
+
+    private final String statusMessage_;
+
+    private final List<HttpHeader> headers_;
+
+    /** Header values by lower case name, in the order of the headers. */
+    private final Map<String, List<String>> headerValues_;
+
+    /** Source of the body, released once decoded. */
+    private Callable<String> bodySource_;
+
+    private volatile String body_;
+
+    /**
+     * Creates a new instance. The given headers are copied.
+     * @param url URL of the response
+     * @param statusCode HTTP status code
+     * @param statusMessage HTTP status message
+     * @param headers response headers, in the order they were received
+     * @param body decodes the body of the response when first needed, or null if the body is not available
+     */
+    public ResponseSnapshot(final String url, final int statusCode, final String statusMessage,
+            final List<HttpHeader> headers, final Callable<String> body) {
+        url_ = url;
+        statusCode_ = statusCode;
+        statusMessage_ = statusMessage;
+        headers_ = Collections.unmodifiableList(new ArrayList<HttpHeader>(headers));
+        Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+        for (HttpHeader header : headers_) {
+            String key = header.getName().toLowerCase(Locale.ENGLISH);
+            List<String> list = values.get(key);
+            if (list == null) {
+                list = new ArrayList<String>(1);
+                values.put(key, list);
+            }
+            list.add(header.getValue());
+        }
+        for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        headerValues_ = values;
+        bodySource_ = body;
+    }
+
+    /**
+     * Returns the URL of the response.
+     * @return the URL
+     */
+    public String getUrl() {
+        return url_;
+    }
+
+    /**
+     * Returns the HTTP status code.
+     * @return the status code
+     */
+    public int getStatusCode() {
+        return statusCode_;
+    }
+
+    /**
+     * Returns the HTTP status message.
+     * @return the status message
+     */
+    public String getStatusMessage() {
+        return statusMessage_;
+    }
+
+    /**
+     * Returns all the headers, in the order they were received.
+     * @return the headers
+     */
+    public List<HttpHeader> getHeaders() {
+        return headers_;
+    }
+
+    /**
+     * Returns the first value of a header, ignoring the case of its name.
+     * @param name the header name
+     * @return the first value, or null if the header is not present
+     */
+    public String getHeader(final String name) {
+        List<String> values = headerValues_.get(name.toLowerCase(Locale.ENGLISH));
+        return values == null ? null : values.get(0);
+    }
+
+    /**
+     * Returns all the values of a header, ignoring the case of its name.
+     * @param name the header name
+     * @return the values, empty if the header is not present
+     */
+    public List<String> getHeaderValues(final String name) {
+        List<String> values = headerValues_.get(name.toLowerCase(Locale.ENGLISH));
+        return values == null ? Collections.<String>emptyList() : values;
+    }
+
+    /**
+     * Tells if a header is present, ignoring the case of its name.
+     * @param name the header name
+     * @return true if the response has this header
+     */
+    public boolean hasHeader(final String name) {
+        return headerValues_.containsKey(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Returns the decoded body of the response. It is decoded on the first call only.
+     * @return the body, or null if the engine did not keep it
+     */
+    public String getBody() {
+        String body = body_;
+        if (body == null) {
+            synchronized (this) {
+                if (body_ == null && bodySource_ != null) {
+                    try {
+                        body_ = bodySource_.call();
+                    } catch (Exception e) {
+                        throw new RuntimeException("Unable to decode the body of " + url_, e);
+                    }
+                    bodySource_ = null;
+                }
+                body = body_;
+            }
+        }
+        return body;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return statusCode_ + " " + statusMessage_ + " " + url_ + ", " + headers_.size() + " headers";
+    }
+
+}
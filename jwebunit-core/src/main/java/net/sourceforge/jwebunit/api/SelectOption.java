@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.api;
+
+/**
+ * An option of a select box: its label, its value and whether it is selected.
+ *
+ * @see ITestingEngine#getSelectOptions(String, int)
+ */
+public class SelectOption {
+
+    private final String label;
+
+    private final String value;
+
+    private final boolean selected;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param label the displayed text of the option
+     * @param value the submitted value of the option
+     * @param selected true if the option is currently selected
+     */
+    public SelectOption(String label, String value, boolean selected) {
+        this.label = label;
+        this.value = value;
+        this.selected = selected;
+    }
+
+    /**
+     * @return the displayed text of the option
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the submitted value of the option
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return true if the option is currently selected
+     */
+    public boolean isSelected() {
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return label + "=" + value + (selected ? " (selected)" : "");
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.Cookie;
+
+/**
+ * State of a browser session, captured by a testing engine so that a later
+ * {@link ITestingEngine#beginAt(java.net.URL, net.sourceforge.jwebunit.util.TestContext)}
+ * can start with it instead of going through the login pages again.
+ *
+ * <p>The snapshot holds the cookies of the session and, when the engine supports it,
+ * the local and session storage of the page it was captured on.</p>
+ *
+ * @see net.sourceforge.jwebunit.util.TestContext#setSessionSnapshot(SessionSnapshot)
+ */
+public class SessionSnapshot {
+
+    /** URL of the page the snapshot was captured on. */
+    private final String url_;
+
+    private final List<Cookie> cookies_;
+
+    private final Map<String, String> localStorage_;
+
+    private final Map<String, String> sessionStorage_;
+
+    /**
+     * Creates a new instance. The given cookies and maps are copied.
+     * @param url URL of the page the snapshot was captured on
+     * @param cookies cookies of the session
+     * @param localStorage local storage of the page, empty if not supported
+     * @param sessionStorage session storage of the page, empty if not supported
+     */
+    public SessionSnapshot(final String url, final List<Cookie> cookies,
+            final Map<String, String> localStorage, final Map<String, String> sessionStorage) {
+        url_ = url;
+        List<Cookie> copy = new ArrayList<Cookie>(cookies.size());
+        for (Cookie cookie : cookies) {
+            copy.add((Cookie) cookie.clone());
+        }
+        cookies_ = Collections.unmodifiableList(copy);
+        localStorage_ = Collections.unmodifiableMap(new LinkedHashMap<String, String>(localStorage));
+        sessionStorage_ = Collections.unmodifiableMap(new LinkedHashMap<String, String>(sessionStorage));
+    }
+
+    /**
+     * Returns the URL of the page the snapshot was captured on.
+     * @return the URL
+     */
+    public String getUrl() {
+        return url_;
+    }
+
+    /**
+     * Returns the cookies of the session. They must not be modified.
+     * @return the cookies
+     */
+    public List<Cookie> getCookies() {
+        return cookies_;
+    }
+
+    /**
+     * Returns the local storage of the page.
+     * @return the local storage items
+     */
+    public Map<String, String> getLocalStorage() {
+        return localStorage_;
+    }
+
+    /**
+     * Returns the session storage of the page.
+     * @return the session storage items
+     */
+    public Map<String, String> getSessionStorage() {
+        return sessionStorage_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return url_ + ": " + cookies_.size() + " cookies, " + localStorage_.size() + " local storage items, "
+                + sessionStorage_.size() + " session storage items";
+    }
+
+}
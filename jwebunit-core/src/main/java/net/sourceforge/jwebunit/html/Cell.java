@@ -18,8 +18,10 @@
  */
 package net.sourceforge.jwebunit.html;
 
-import org.apache.regexp.RE;
-import org.apache.regexp.RESyntaxException;
+import net.sourceforge.jwebunit.exception.RegexpTimeoutException;
+import net.sourceforge.jwebunit.util.JavaRegexpEngine;
+import net.sourceforge.jwebunit.util.RegexpEngine;
+
 import org.junit.Assert;
 
 /**
@@ -30,6 +32,9 @@ import org.junit.Assert;
  */
 public class Cell {
 
+  /** Engine of the regexp methods not given one. */
+  private static final RegexpEngine REGEXP_ENGINE = new JavaRegexpEngine();
+
   private int colspan;
 
   private int rowspan;
@@ -101,9 +106,18 @@ public class Cell {
    * @param c given cell
    */
   public void assertMatch(Cell c) {
-    RE re = getRE(c.getValue());
-    Assert.assertTrue(c.getValue() + " do not match " + this.getValue(), re
-      .match(this.getValue()));
+    assertMatch(c, REGEXP_ENGINE);
+  }
+
+  /**
+   * Assert that the current cell matches given one. Check colspan and rowspan. Regexp is in text of given cell.
+   *
+   * @param c given cell
+   * @param regexpEngine engine evaluating the regexp
+   */
+  public void assertMatch(Cell c, RegexpEngine regexpEngine) {
+    Assert.assertTrue(c.getValue() + " do not match " + this.getValue(), find(regexpEngine, c.getValue(),
+      this.getValue()));
     Assert.assertTrue("Expected colspan was " + c.getColspan()
       + " but was " + this.getColspan(), this.getColspan() == c
       .getColspan());
@@ -129,23 +143,36 @@ public class Cell {
    * @return true if the current cell matches given text.
    */
   public boolean match(String regexp) {
-    RE re = getRE(regexp);
-    return re.match(this.getValue());
+    return match(regexp, REGEXP_ENGINE);
+  }
+
+  /**
+   * Check if the current cell matches given text.
+   *
+   * @param regexp given regexp.
+   * @param regexpEngine engine evaluating the regexp
+   * @return true if the current cell matches given text.
+   */
+  public boolean match(String regexp, RegexpEngine regexpEngine) {
+    return find(regexpEngine, regexp, this.getValue());
   }
 
   /**
-   * Create a regexp.
+   * Search a regexp.
    *
+   * @param regexpEngine engine evaluating the regexp
    * @param regexp regexp pattern
-   * @return regexp object
+   * @param text text to search
+   * @return true if the regexp is found in the text
    */
-  private RE getRE(String regexp) {
-    RE re = null;
+  private static boolean find(RegexpEngine regexpEngine, String regexp, String text) {
     try {
-      re = new RE(regexp, RE.MATCH_SINGLELINE);
-    } catch (RESyntaxException e) {
+      return regexpEngine.find(regexp, text);
+    } catch (RegexpTimeoutException e) {
+      Assert.fail(e.getMessage());
+    } catch (IllegalArgumentException e) {
       Assert.fail(e.toString());
     }
-    return re;
+    return false;
   }
 }
@@ -18,6 +18,8 @@
  */
 package net.sourceforge.jwebunit.html;
 
+import net.sourceforge.jwebunit.util.RegexpEngine;
+
 import org.junit.Assert;
 
 import java.util.ArrayList;
@@ -93,6 +95,15 @@ public class Row {
     return false;
   }
 
+  public boolean hasMatch(String regexp, RegexpEngine regexpEngine) {
+    for (int i = 0; i < getCellCount(); i++) {
+      Cell c = (Cell) getCells().get(i);
+      if (c.match(regexp, regexpEngine))
+        return true;
+    }
+    return false;
+  }
+
   public void assertEquals(Row r) {
     Assert.assertTrue("Cell count are not equal",
       this.getCells().size() == r.getCells().size());
@@ -110,4 +121,13 @@ public class Row {
         .get(i));
     }
   }
+
+  public void assertMatch(Row r, RegexpEngine regexpEngine) {
+    Assert.assertTrue("Cell count are not equal",
+      this.getCells().size() == r.getCells().size());
+    for (int i = 0; i < this.getCells().size(); i++) {
+      ((Cell) this.getCells().get(i)).assertMatch((Cell) r.getCells()
+        .get(i), regexpEngine);
+    }
+  }
 }
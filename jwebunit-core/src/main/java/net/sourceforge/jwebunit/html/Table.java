@@ -18,6 +18,8 @@
  */
 package net.sourceforge.jwebunit.html;
 
+import net.sourceforge.jwebunit.util.RegexpEngine;
+
 import org.junit.Assert;
 
 import java.util.ArrayList;
@@ -107,6 +109,15 @@ public class Table {
     return false;
   }
 
+  public boolean hasMatch(String regexp, RegexpEngine regexpEngine) {
+    for (int i = 0; i < getRowCount(); i++) {
+      Row row = (Row) getRows().get(i);
+      if (row.hasMatch(regexp, regexpEngine))
+        return true;
+    }
+    return false;
+  }
+
   public void assertEquals(Table t) {
     Assert.assertTrue("Row count are not equal", this.getRows().size() == t
       .getRows().size());
@@ -136,6 +147,14 @@ public class Table {
     }
   }
 
+  public void assertMatch(Table t, RegexpEngine regexpEngine) {
+    Assert.assertTrue("Row count are not equal", this.getRows().size() == t
+      .getRows().size());
+    for (int i = 0; i < this.getRows().size(); i++) {
+      ((Row) this.getRows().get(i)).assertMatch((Row) t.getRows().get(i), regexpEngine);
+    }
+  }
+
   public void assertSubTableMatch(int startRow, Table t) {
     Table sub = new Table();
     if (startRow + t.getRowCount() > this.getRowCount())
@@ -148,4 +167,16 @@ public class Table {
     sub.assertMatch(t);
   }
 
+  public void assertSubTableMatch(int startRow, Table t, RegexpEngine regexpEngine) {
+    Table sub = new Table();
+    if (startRow + t.getRowCount() > this.getRowCount())
+      Assert.fail("Expected rows [" + t.getRowCount()
+        + "] larger than actual rows in range being compared"
+        + " [" + (this.getRowCount() - startRow) + "].");
+    for (int i = startRow; i < startRow + t.getRowCount(); i++) {
+      sub.appendRow((Row) this.getRows().get(i));
+    }
+    sub.assertMatch(t, regexpEngine);
+  }
+
 }
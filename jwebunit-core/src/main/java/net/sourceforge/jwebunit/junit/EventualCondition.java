@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.junit;
+
+import net.sourceforge.jwebunit.api.ITestingEngine;
+
+/**
+ * A condition on the current page that the background JavaScript is expected to satisfy
+ * eventually.
+ *
+ * <p>The condition is checked again each time the testing engine reports that the page may
+ * have changed, or after a delay growing exponentially from {@link #MIN_DELAY} to
+ * {@link #MAX_DELAY} when the engine has nothing to wait for.</p>
+ *
+ * @see WebTester#assertTextPresentWithin(String, long)
+ */
+class EventualCondition {
+
+    /**
+     * The conditions checked by the eventual assertions of the tester.
+     */
+    enum Kind {
+        TEXT_PRESENT, TEXT_NOT_PRESENT, ELEMENT_PRESENT, ELEMENT_NOT_PRESENT, ELEMENT_PRESENT_BY_XPATH
+    }
+
+    /**
+     * First delay between two checks, in milliseconds.
+     */
+    static final long MIN_DELAY = 10;
+
+    /**
+     * Longest delay between two checks, in milliseconds.
+     */
+    static final long MAX_DELAY = 500;
+
+    private final Kind kind;
+
+    private final String argument;
+
+    EventualCondition(Kind kind, String argument) {
+        this.kind = kind;
+        this.argument = argument;
+    }
+
+    boolean holds(ITestingEngine engine) {
+        switch (kind) {
+        case TEXT_PRESENT:
+            return engine.isTextInPage(argument);
+        case TEXT_NOT_PRESENT:
+            return !engine.isTextInPage(argument);
+        case ELEMENT_PRESENT:
+            return engine.hasElement(argument);
+        case ELEMENT_NOT_PRESENT:
+            return !engine.hasElement(argument);
+        case ELEMENT_PRESENT_BY_XPATH:
+            return engine.hasElementByXPath(argument);
+        default:
+            throw new IllegalStateException("Unknown condition " + kind);
+        }
+    }
+
+    /**
+     * Wait for the condition to hold.
+     *
+     * @param engine the testing engine of the page
+     * @param timeoutMillis maximum time to wait, in milliseconds
+     * @return true if the condition holds, false if it still does not after the timeout
+     */
+    boolean await(ITestingEngine engine, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long delay = MIN_DELAY;
+        while (!holds(engine)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            long wait = Math.min(delay, remaining);
+            long start = System.currentTimeMillis();
+            if (engine.waitForBackgroundJavaScript(wait) == 0) {
+                // no job left: only a navigation or the server can change the page now
+                sleep(wait - (System.currentTimeMillis() - start));
+            }
+            delay = Math.min(delay * 2, MAX_DELAY);
+        }
+        return true;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+}
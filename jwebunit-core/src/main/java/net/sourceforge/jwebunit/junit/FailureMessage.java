@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.junit;
+
+/**
+ * Failure message of a text assertion of the tester, only built when the assertion fails.
+ *
+ * <p>Long texts are not copied whole into the message: only a window of {@link #MAX_TEXT}
+ * characters is kept, around the place that comes closest to the expected text, that is where
+ * the longest prefix of the expected text (or of the literal start of the expected regexp) is
+ * found.</p>
+ */
+class FailureMessage {
+
+    /**
+     * The failures of the text assertions of the tester.
+     */
+    enum Kind {
+        TEXT_NOT_FOUND, REGEXP_NOT_MATCHED, REGEXP_MATCHED
+    }
+
+    /**
+     * Longest text included in a message.
+     */
+    static final int MAX_TEXT = 4096;
+
+    private static final String REGEXP_SPECIAL = "\\^$.|?*+()[]{}";
+
+    private final Kind kind;
+
+    private final String expected;
+
+    private final String text;
+
+    /**
+     * @param kind the failure
+     * @param expected the expected text or regexp
+     * @param text the text that was searched
+     */
+    FailureMessage(Kind kind, String expected, String text) {
+        this.kind = kind;
+        this.expected = expected;
+        this.text = text;
+    }
+
+    /**
+     * @return the message
+     */
+    String get() {
+        switch (kind) {
+        case TEXT_NOT_FOUND:
+            return "Expected text not found in current page: [" + expected + "]\n Page content was: ["
+                    + excerpt(text, expected) + "]";
+        case REGEXP_NOT_MATCHED:
+            return "Expected rexexp '" + expected + "' not matched in text '"
+                    + excerpt(text, literalPrefix(expected)) + "'";
+        case REGEXP_MATCHED:
+            return "Expected rexexp '" + expected + "' matched in text '"
+                    + excerpt(text, literalPrefix(expected)) + "'";
+        default:
+            throw new IllegalStateException("Unknown failure " + kind);
+        }
+    }
+
+    /**
+     * Cut a text down to {@link #MAX_TEXT} characters around the closest match of the target.
+     *
+     * @param text the text to cut
+     * @param target the text that was searched
+     * @return the text if short enough, or the window with the number of characters left out
+     */
+    static String excerpt(String text, String target) {
+        if (text == null || text.length() <= MAX_TEXT) {
+            return text;
+        }
+        int at = nearMatch(text, target);
+        int start = Math.max(0, Math.min(at - MAX_TEXT / 2, text.length() - MAX_TEXT));
+        int end = start + MAX_TEXT;
+        StringBuilder excerpt = new StringBuilder(MAX_TEXT + 80);
+        if (start > 0) {
+            excerpt.append("[... ").append(start).append(" characters ...]");
+        }
+        excerpt.append(text, start, end);
+        if (end < text.length()) {
+            excerpt.append("[... ").append(text.length() - end).append(" characters ...]");
+        }
+        return excerpt.toString();
+    }
+
+    /**
+     * Find where the longest prefix of the target occurs in the text. A prefix of a found prefix is
+     * always found too, so its length is searched by bisection.
+     *
+     * @return the index of the longest found prefix, or 0 if not even the first character is found
+     */
+    static int nearMatch(String text, String target) {
+        int found = 0;
+        int notFound = target.length() + 1;
+        int index = 0;
+        while (notFound - found > 1) {
+            int length = (found + notFound) / 2;
+            int i = text.indexOf(target.substring(0, length));
+            if (i >= 0) {
+                found = length;
+                index = i;
+            } else {
+                notFound = length;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the characters a regexp starts with, up to its first special character
+     */
+    static String literalPrefix(String regexp) {
+        int start = regexp.startsWith("^") ? 1 : 0;
+        int end = start;
+        while (end < regexp.length() && REGEXP_SPECIAL.indexOf(regexp.charAt(end)) < 0) {
+            end++;
+        }
+        if (end < regexp.length() && end > start && "?*{".indexOf(regexp.charAt(end)) >= 0) {
+            // the quantifier applies to the last character, which may be absent
+            end--;
+        }
+        return regexp.substring(start, end);
+    }
+
+}
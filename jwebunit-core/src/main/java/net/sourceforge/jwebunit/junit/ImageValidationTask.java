@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.junit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.Callable;
+
+import javax.imageio.ImageIO;
+
+import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.exception.TestingEngineResponseException;
+
+/**
+ * Decodes one image of the page for {@link WebTester#assertAllImagesValid()}.
+ * Returns the reason why the image is invalid, or null if it is valid.
+ */
+class ImageValidationTask implements Callable<String> {
+
+    private final byte[] content;
+
+    private final String failure;
+
+    private ImageValidationTask(byte[] content, String failure) {
+        this.content = content;
+        this.failure = failure;
+    }
+
+    /**
+     * Load an image in the calling thread, as testing engines must not be used by several threads
+     * at the same time, and return the task decoding it.
+     *
+     * @param engine engine of the tester
+     * @param url URL of the image
+     */
+    static ImageValidationTask load(ITestingEngine engine, URL url) {
+        try {
+            InputStream in = engine.getInputStream(url);
+            try {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+                return new ImageValidationTask(content.toByteArray(), null);
+            } finally {
+                in.close();
+            }
+        } catch (TestingEngineResponseException e) {
+            return new ImageValidationTask(null, "the server returns the code " + e.getHttpStatusCode());
+        } catch (IOException e) {
+            return new ImageValidationTask(null, "could not load the image: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return new ImageValidationTask(null, e.toString());
+        }
+    }
+
+    public String call() {
+        if (failure != null) {
+            return failure;
+        }
+        try {
+            if (ImageIO.read(new ByteArrayInputStream(content)) == null) {
+                return "not a readable image";
+            }
+            return null;
+        } catch (IOException e) {
+            return "could not read the image: " + e.getMessage();
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+}
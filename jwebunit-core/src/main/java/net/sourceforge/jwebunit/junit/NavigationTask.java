@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.junit;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A navigation of a {@link WebTester} run on the thread dedicated to its testing engine.
+ *
+ * @see WebTester#gotoPageAsync(String)
+ */
+class NavigationTask implements Callable<Void> {
+
+    /**
+     * The navigation methods of the tester.
+     */
+    enum Kind {
+        GOTO_PAGE, SUBMIT, CLICK_LINK, CLICK_LINK_WITH_TEXT, CLICK_LINK_WITH_EXACT_TEXT
+    }
+
+    private final WebTester tester;
+
+    private final Kind kind;
+
+    private final String argument;
+
+    NavigationTask(WebTester tester, Kind kind, String argument) {
+        this.tester = tester;
+        this.kind = kind;
+        this.argument = argument;
+    }
+
+    public Void call() {
+        switch (kind) {
+        case GOTO_PAGE:
+            tester.gotoPage(argument);
+            break;
+        case SUBMIT:
+            tester.submit();
+            break;
+        case CLICK_LINK:
+            tester.clickLink(argument);
+            break;
+        case CLICK_LINK_WITH_TEXT:
+            tester.clickLinkWithText(argument);
+            break;
+        case CLICK_LINK_WITH_EXACT_TEXT:
+            tester.clickLinkWithExactText(argument);
+            break;
+        default:
+            throw new IllegalStateException("Unknown navigation " + kind);
+        }
+        return null;
+    }
+
+    /**
+     * Create the executor of the navigations of a testing engine: a single daemon thread, so that
+     * the navigations of an engine never run concurrently and do not prevent the JVM from exiting.
+     */
+    static ExecutorService newExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jwebunit-navigation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stop an executor created by {@link #newExecutor()}: the navigations not started yet are
+     * cancelled, the running one is interrupted and waited for.
+     */
+    static void shutdown(ExecutorService executor) {
+        for (Runnable pending : executor.shutdownNow()) {
+            if (pending instanceof Future) {
+                ((Future<?>) pending).cancel(false);
+            }
+        }
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.junit;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Scope of the {@link WebTester} used by the static methods of {@link JWebUnit} in a thread.
+ *
+ * <p>A thread gets an implicit scope on its first call to the facade, which lasts as long as the
+ * thread. Code running the facade in many threads can instead open scopes explicitly, and close
+ * them when done: closing a scope closes the browser of its tester and restores the scope that was
+ * current before it.</p>
+ *
+ * <pre>
+ * try (TesterScope scope = JWebUnit.openScope()) {
+ *     setBaseUrl("http://localhost:8080/app");
+ *     beginAt("/home");
+ * }
+ * </pre>
+ *
+ * <p>Threads do not share the testers of the thread starting them, unless the current scope was
+ * opened as inheritable: the threads started inside it then get their own tester, using the test
+ * context of the scope. The browsers of these testers are closed with the scope, or once their
+ * thread has ended.</p>
+ */
+public final class TesterScope implements AutoCloseable {
+
+    private static final ThreadLocal<TesterScope> CURRENT = new ThreadLocal<TesterScope>();
+
+    private static final InheritableThreadLocal<TesterScope> INHERITABLE = new InheritableThreadLocal<TesterScope>();
+
+    /**
+     * Smallest number of child scopes triggering a cleanup of the ended threads.
+     */
+    private static final int MIN_CLEANUP_SIZE = 16;
+
+    private final Thread thread;
+
+    private final TesterScope previous;
+
+    private final TesterScope previousInheritable;
+
+    /**
+     * Inheritable scope whose test context is used by the tester of this scope, or null.
+     */
+    private final TesterScope parent;
+
+    private final boolean inheritable;
+
+    private WebTester tester;
+
+    private boolean closed;
+
+    private final List<TesterScope> children = new ArrayList<TesterScope>();
+
+    private int cleanupSize = MIN_CLEANUP_SIZE;
+
+    private TesterScope(WebTester tester, boolean inheritable, TesterScope previous, TesterScope parent) {
+        this.thread = Thread.currentThread();
+        this.tester = tester;
+        this.inheritable = inheritable;
+        this.previous = previous;
+        this.previousInheritable = INHERITABLE.get();
+        this.parent = parent;
+    }
+
+    /**
+     * Open a scope in the current thread, until it is closed.
+     *
+     * @param tester tester of the scope, or null to create one on first use
+     * @param inheritable true if the threads started in the scope get testers sharing its test context
+     * @return the new current scope
+     */
+    public static TesterScope open(WebTester tester, boolean inheritable) {
+        TesterScope scope = new TesterScope(tester, inheritable, CURRENT.get(), null);
+        CURRENT.set(scope);
+        if (inheritable) {
+            INHERITABLE.set(scope);
+        }
+        return scope;
+    }
+
+    /**
+     * Return the current scope of the thread, opening an implicit one if needed.
+     */
+    public static TesterScope current() {
+        TesterScope scope = CURRENT.get();
+        if (scope == null) {
+            TesterScope parent = INHERITABLE.get();
+            if (parent != null && parent.isClosed()) {
+                parent = null;
+            }
+            scope = new TesterScope(null, false, null, parent);
+            if (parent != null) {
+                parent.adopt(scope);
+            }
+            CURRENT.set(scope);
+        }
+        return scope;
+    }
+
+    /**
+     * Close the current scope of the thread, if any.
+     */
+    public static void closeCurrent() {
+        TesterScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    /**
+     * Return the tester of the scope, created on first use.
+     */
+    public synchronized WebTester getTester() {
+        if (tester == null) {
+            tester = new WebTester();
+            if (parent != null) {
+                tester.setTestContext(parent.getTester().getTestContext());
+            }
+        }
+        return tester;
+    }
+
+    /**
+     * Replace the tester of the scope, for example with a subclass of {@link WebTester}.
+     *
+     * @param tester the new tester, or null to create a default one on next use
+     */
+    public synchronized void setTester(WebTester tester) {
+        this.tester = tester;
+    }
+
+    /**
+     * Return true if the threads started in this scope get testers sharing its test context.
+     */
+    public boolean isInheritable() {
+        return inheritable;
+    }
+
+    /**
+     * Return true once the scope is closed.
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the browser of the scope and of the threads that inherited it, and restore the scope
+     * that was current when this one was opened. Scopes must be closed by their thread, in the
+     * reverse order of their opening.
+     */
+    @Override
+    public void close() {
+        if (thread != Thread.currentThread()) {
+            throw new IllegalStateException("A tester scope must be closed by the thread that opened it");
+        }
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Tester scopes must be closed in the reverse order of their opening");
+        }
+        WebTester closedTester;
+        synchronized (this) {
+            closed = true;
+            closedTester = tester;
+        }
+        try {
+            List<TesterScope> inherited;
+            synchronized (children) {
+                inherited = new ArrayList<TesterScope>(children);
+                children.clear();
+            }
+            for (TesterScope child : inherited) {
+                child.closeBrowserQuietly();
+            }
+            if (closedTester != null && closedTester.hasTestingEngine()) {
+                closedTester.closeBrowser();
+            }
+        } finally {
+            if (parent != null) {
+                parent.disown(this);
+            }
+            restore(CURRENT, previous);
+            if (inheritable) {
+                restore(INHERITABLE, previousInheritable);
+            }
+        }
+    }
+
+    private static void restore(ThreadLocal<TesterScope> threadLocal, TesterScope scope) {
+        if (scope == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(scope);
+        }
+    }
+
+    /**
+     * Register the implicit scope of a thread started in this one, first closing the browsers of
+     * the ended threads when there are many of them.
+     */
+    private void adopt(TesterScope child) {
+        synchronized (children) {
+            if (children.size() >= cleanupSize) {
+                for (Iterator<TesterScope> it = children.iterator(); it.hasNext();) {
+                    TesterScope scope = it.next();
+                    if (!scope.thread.isAlive()) {
+                        it.remove();
+                        scope.closeBrowserQuietly();
+                    }
+                }
+                cleanupSize = Math.max(MIN_CLEANUP_SIZE, 2 * children.size());
+            }
+            children.add(child);
+        }
+    }
+
+    private void disown(TesterScope child) {
+        synchronized (children) {
+            children.remove(child);
+        }
+    }
+
+    private void closeBrowserQuietly() {
+        WebTester closedTester;
+        synchronized (this) {
+            closedTester = tester;
+        }
+        if (closedTester != null && closedTester.hasTestingEngine()) {
+            try {
+                closedTester.closeBrowser();
+            } catch (AssertionError e) {
+                // pending expected dialogs are the business of the thread owning the tester
+            }
+        }
+    }
+
+}
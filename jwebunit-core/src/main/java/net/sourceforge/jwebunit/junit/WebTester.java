@@ -39,11 +39,18 @@ import java.io.PrintStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
 import javax.servlet.http.Cookie;
@@ -51,20 +58,27 @@ import javax.servlet.http.Cookie;
 import net.sourceforge.jwebunit.api.HttpHeader;
 import net.sourceforge.jwebunit.api.IElement;
 import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.api.PageMetrics;
+import net.sourceforge.jwebunit.api.ResponseSnapshot;
+import net.sourceforge.jwebunit.api.SelectOption;
+import net.sourceforge.jwebunit.api.SessionSnapshot;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptAlertException;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptConfirmException;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptPromptException;
+import net.sourceforge.jwebunit.exception.RegexpTimeoutException;
 import net.sourceforge.jwebunit.exception.TestingEngineResponseException;
 import net.sourceforge.jwebunit.exception.UnableToSetFormException;
 import net.sourceforge.jwebunit.html.Table;
 import net.sourceforge.jwebunit.javascript.JavascriptAlert;
 import net.sourceforge.jwebunit.javascript.JavascriptConfirm;
 import net.sourceforge.jwebunit.javascript.JavascriptPrompt;
+import net.sourceforge.jwebunit.util.CrawlReport;
+import net.sourceforge.jwebunit.util.LinkCrawler;
+import net.sourceforge.jwebunit.util.ScriptRecorder;
+import net.sourceforge.jwebunit.util.SessionCache;
 import net.sourceforge.jwebunit.util.TestContext;
 import net.sourceforge.jwebunit.util.TestingEngineRegistry;
 
-import org.apache.regexp.RE;
-import org.apache.regexp.RESyntaxException;
 
 /**
  * Provides a high-level API for basic web application navigation and validation by providing
@@ -85,6 +99,27 @@ public class WebTester {
      */
     private String testingEngineKey = null;
 
+    /**
+     * Runs the asynchronous navigations of the testing engine, created on first use.
+     */
+    private ExecutorService navigationExecutor = null;
+
+    /**
+     * Records the calls to this tester, if set.
+     */
+    private volatile ScriptRecorder recorder = null;
+
+    /**
+     * Number of recorded methods of this tester running, so that only the outermost call is
+     * recorded. A tester is used by one thread at a time.
+     */
+    private int depth = 0;
+
+    /**
+     * Maximum number of images decoded at the same time by {@link #assertAllImagesValid()}.
+     */
+    private static final int IMAGE_VALIDATION_THREADS = 4;
+
     /**
      * Provides access to the testing engine for subclasses - in case functionality not yet wrappered required by test.
      *
@@ -104,7 +139,12 @@ public class WebTester {
      * @param url Base url value - A trailing "/" is appended if not provided.
      */
     public void setBaseUrl(String url) {
-      getTestContext().setBaseUrl(url);
+      record("setBaseUrl", url);
+      try {
+          getTestContext().setBaseUrl(url);
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -113,7 +153,12 @@ public class WebTester {
      * @param url Base url value - A trailing "/" is appended if not provided.
      */
     public void setBaseUrl(URL url) {
-      getTestContext().setBaseUrl(url);
+      record("setBaseUrl", url.toExternalForm());
+      try {
+          getTestContext().setBaseUrl(url);
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -129,6 +174,13 @@ public class WebTester {
         return testingEngine;
     }
 
+    /**
+     * Tell if the testing engine has been created, without creating it.
+     */
+    boolean hasTestingEngine() {
+        return testingEngine != null;
+    }
+
     /**
      * Initializes the IJWebUnitDialog when the testing engine is null. This will construct a new instance of the testing engine based
      * on the specified testing engine key.
@@ -160,23 +212,30 @@ public class WebTester {
     }
 
     /**
-     * Close the current conversation.
+     * Close the current conversation. Asynchronous navigations not started yet are cancelled, and
+     * the running one is interrupted and waited for.
      */
     public void closeBrowser() {
+        record("closeBrowser");
         try {
-            getTestingEngine().closeBrowser();
-        } catch (ExpectedJavascriptAlertException e) {
-            fail("You previously tell that alert with message ["
-                    + e.getAlertMessage()
-                    + "] was expected, but nothing appeared.");
-        } catch (ExpectedJavascriptConfirmException e) {
-            fail("You previously tell that confirm with message ["
-                    + e.getConfirmMessage()
-                    + "] was expected, but nothing appeared.");
-        } catch (ExpectedJavascriptPromptException e) {
-            fail("You previously tell that prompt with message ["
-                    + e.getPromptMessage()
-                    + "] was expected, but nothing appeared.");
+            shutdownNavigationExecutor();
+            try {
+                engine().closeBrowser();
+            } catch (ExpectedJavascriptAlertException e) {
+                fail("You previously tell that alert with message ["
+                        + e.getAlertMessage()
+                        + "] was expected, but nothing appeared.");
+            } catch (ExpectedJavascriptConfirmException e) {
+                fail("You previously tell that confirm with message ["
+                        + e.getConfirmMessage()
+                        + "] was expected, but nothing appeared.");
+            } catch (ExpectedJavascriptPromptException e) {
+                fail("You previously tell that prompt with message ["
+                        + e.getPromptMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -184,7 +243,12 @@ public class WebTester {
      * Close the current window.
      */
     public void closeWindow() {
-        getTestingEngine().closeWindow();
+        record("closeWindow");
+        try {
+            engine().closeWindow();
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -193,6 +257,7 @@ public class WebTester {
      * @param aIJWebUnitDialog Testing engine.
      */
     public void setDialog(ITestingEngine aIJWebUnitDialog) {
+        shutdownNavigationExecutor();
         testingEngine = aIJWebUnitDialog;
     }
 
@@ -209,6 +274,79 @@ public class WebTester {
         return testContext;
     }
 
+    /**
+     * Record the navigations, form interactions and assertions made on this tester into a script
+     * that a {@link net.sourceforge.jwebunit.util.ScriptPlayer} can run again. Calls made by the
+     * tester itself, for example by an assertion calling another one, are not recorded. See
+     * {@link ScriptRecorder} for the methods that are not recorded.
+     *
+     * @param recorder the recorder, or null to stop recording
+     */
+    public void setRecorder(ScriptRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Return the recorder of the calls to this tester, or null if not recording.
+     */
+    public ScriptRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Record a call to a public method of this tester, unless made by another method of the tester,
+     * and count it as running until {@link #exit()}, that the method must call in a finally block.
+     * There is one variant for each number of arguments, so that no array is created when not recording.
+     */
+    private void record(String method) {
+        ScriptRecorder current = depth == 0 ? recorder : null;
+        if (current != null) {
+            current.record(method);
+        }
+        depth++;
+    }
+
+    private void record(String method, Object argument) {
+        ScriptRecorder current = depth == 0 ? recorder : null;
+        if (current != null) {
+            current.record(method, argument);
+        }
+        depth++;
+    }
+
+    private void record(String method, Object argument1, Object argument2) {
+        ScriptRecorder current = depth == 0 ? recorder : null;
+        if (current != null) {
+            current.record(method, argument1, argument2);
+        }
+        depth++;
+    }
+
+    private void record(String method, Object argument1, Object argument2, Object argument3) {
+        ScriptRecorder current = depth == 0 ? recorder : null;
+        if (current != null) {
+            current.record(method, argument1, argument2, argument3);
+        }
+        depth++;
+    }
+
+    /**
+     * End a call counted by {@link #record(String)}.
+     */
+    private void exit() {
+        depth--;
+    }
+
+    /**
+     * Return the testing engine for the calls made by this tester. While recording, the recorder is
+     * told when each call to the engine returns, so that the delays it writes only count the time
+     * the tester was idle.
+     */
+    private ITestingEngine engine() {
+        ScriptRecorder current = recorder;
+        return current == null ? getTestingEngine() : current.watch(getTestingEngine());
+    }
+
     /**
      * Allows setting an external test testContext class that might be extended from TestContext. Example:
      * setTestContext(new CompanyATestContext());
@@ -230,12 +368,62 @@ public class WebTester {
      * @throws TestingEngineResponseException If something bad happend (404)
      */
     public void beginAt(String aRelativeURL) throws TestingEngineResponseException {
+        record("beginAt", aRelativeURL);
         try {
-            getTestingEngine().beginAt(createUrl(aRelativeURL, getTestContext().getBaseUrl()), testContext);
-        } catch (MalformedURLException e) {
-            fail(e.getLocalizedMessage());
+            try {
+                engine().beginAt(createUrl(aRelativeURL, getTestContext().getBaseUrl()), testContext);
+            } catch (MalformedURLException e) {
+                fail(e.getLocalizedMessage());
+            }
+        } finally {
+            exit();
         }
+    }
+
+    /**
+     * Capture the cookies and, if the testing engine supports it, the web storage of the
+     * current session, to be restored later with {@link #restoreSession(SessionSnapshot)}.
+     *
+     * @return the state of the current session
+     */
+    public SessionSnapshot saveSession() {
+        return engine().getSessionSnapshot();
+    }
+
+    /**
+     * Start the next calls to {@link #beginAt(String)} with a session captured by {@link #saveSession()}.
+     * The session stays set on the test context until this method is called with null.
+     *
+     * @param snapshot the session to restore, or null to start with a new session
+     */
+    public void restoreSession(SessionSnapshot snapshot) {
+        getTestContext().setSessionSnapshot(snapshot);
+    }
 
+    /**
+     * Begin conversation at a URL relative to the application root, already logged in. The first
+     * time a credential set is used in the JVM, <code>login</code> goes through the login pages and
+     * the resulting session is kept in the {@link SessionCache}. Later calls restore this session
+     * instead of running <code>login</code> again.
+     *
+     * @param aRelativeURL URL relative to the base URL, opened once logged in
+     * @param credentials identifies the credentials used by <code>login</code>, for example the user name
+     * @param login performs the login, starting with {@link #beginAt(String)}
+     */
+    public void beginAtWithSession(String aRelativeURL, String credentials, Runnable login) {
+        String key = getTestContext().getBaseUrl() + "|" + credentials;
+        SessionSnapshot snapshot = SessionCache.getInstance().get(key);
+        if (snapshot == null) {
+            restoreSession(null);
+            login.run();
+            snapshot = saveSession();
+            SessionCache.getInstance().put(key, snapshot);
+            restoreSession(snapshot);
+            gotoPage(aRelativeURL);
+        } else {
+            restoreSession(snapshot);
+            beginAt(aRelativeURL);
+        }
     }
 
     /**
@@ -328,7 +516,12 @@ public class WebTester {
      * @param status the expected status code
      */
     public void assertResponseCode(int status) {
-      assertEquals( status, getTestingEngine().getServerResponseCode() );
+      record("assertResponseCode", status);
+      try {
+          assertEquals( status, engine().getServerResponseCode() );
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -339,7 +532,13 @@ public class WebTester {
      * @param higher the upper bound for the expected status code
      */
     public void assertResponseCodeBetween(int lower, int higher) {
-      assertTrue( getTestingEngine().getServerResponseCode() >= lower && getTestingEngine().getServerResponseCode() <= higher );
+      record("assertResponseCodeBetween", lower, higher);
+      try {
+          int status = engine().getServerResponseCode();
+          assertTrue( status >= lower && status <= higher );
+      } finally {
+          exit();
+      }
     }
 
   /**
@@ -349,7 +548,12 @@ public class WebTester {
    * @param ignore
    */
     public void setIgnoreFailingStatusCodes(boolean ignore) {
-      getTestingEngine().setIgnoreFailingStatusCodes(ignore);
+      record("setIgnoreFailingStatusCodes", ignore);
+      try {
+          engine().setIgnoreFailingStatusCodes(ignore);
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -358,7 +562,12 @@ public class WebTester {
      * @param name The header to find
      */
     public void assertHeaderPresent(String name) {
-      assertFalse( "header '" + name + "' not present", getTestingEngine().getHeader(name) == null );
+      record("assertHeaderPresent", name);
+      try {
+          assertTrue( "header '" + name + "' not present", getResponseSnapshot().hasHeader(name) );
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -367,7 +576,12 @@ public class WebTester {
      * @param name The header to find
      */
     public void assertHeaderNotPresent(String name) {
-      assertTrue( "header '" + name + "' present", getTestingEngine().getHeader(name) == null );
+      record("assertHeaderNotPresent", name);
+      try {
+          assertFalse( "header '" + name + "' present", getResponseSnapshot().hasHeader(name) );
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -377,7 +591,12 @@ public class WebTester {
      * @param value Value to compare against
      */
     public void assertHeaderEquals(String name, String value) {
-      assertEquals( value, getTestingEngine().getHeader(name) );
+      record("assertHeaderEquals", name, value);
+      try {
+          assertEquals( value, getResponseSnapshot().getHeader(name) );
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -387,7 +606,14 @@ public class WebTester {
      * @param regexp Pattern to compare against
      */
     public void assertHeaderMatches(String name, String regexp) {
-      assertMatch("Unable to match [" + regexp + "] in header [" + name + "]", regexp, getTestingEngine().getHeader(name));
+      record("assertHeaderMatches", name, regexp);
+      try {
+          String value = getResponseSnapshot().getHeader(name);
+          if (!find(regexp, value))
+              fail("Unable to match [" + regexp + "] in header [" + name + "]");
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -397,7 +623,7 @@ public class WebTester {
      * @return The found header value, or null
      */
     public String getHeader(String name) {
-      return getTestingEngine().getHeader(name);
+      return engine().getHeader(name);
     }
 
     /**
@@ -408,7 +634,7 @@ public class WebTester {
      */
     @Deprecated
     public Map<String, String> getAllHeaders() {
-        return getTestingEngine().getAllHeaders();
+        return engine().getAllHeaders();
     }
 
     /**
@@ -417,7 +643,131 @@ public class WebTester {
      * @return A list of {@link HttpHeader} elements.
      */
     public List<HttpHeader> getResponseHeaders() {
-        return getTestingEngine().getResponseHeaders();
+        return engine().getResponseHeaders();
+    }
+
+    /**
+     * Get the status, headers and body of the last response, captured once per page by the testing engine.
+     * The snapshot does not change when the tester navigates further, and can be handed to other threads.
+     *
+     * @return the snapshot of the last response
+     */
+    public ResponseSnapshot getResponseSnapshot() {
+        return engine().getResponseSnapshot();
+    }
+
+    /**
+     * Get the measurements taken by the testing engine while loading the current page.
+     *
+     * @return the metrics of the current page
+     */
+    public PageMetrics getPageMetrics() {
+        return engine().getPageMetrics();
+    }
+
+    /**
+     * Bound the refreshes followed by the next browsers, see {@link TestContext#setMaxRefreshes(int)} and
+     * {@link TestContext#setMaxRefreshDelay(long)}.
+     *
+     * @param maxRefreshes maximum number of refreshes followed in a row
+     * @param maxDelayMillis longest delay before a refresh in milliseconds, or -1 to wait as long as the pages ask
+     */
+    public void setRefreshLimits(int maxRefreshes, long maxDelayMillis) {
+        record("setRefreshLimits", maxRefreshes, maxDelayMillis);
+        try {
+            getTestContext().setMaxRefreshes(maxRefreshes);
+            getTestContext().setMaxRefreshDelay(maxDelayMillis);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Get the number of refreshes followed by the last navigation to reach the current page.
+     *
+     * @return the number of refreshes followed
+     */
+    public int getRefreshCount() {
+        return engine().getRefreshCount();
+    }
+
+    /**
+     * Assert that the last navigation followed the given number of refreshes to reach the current page.
+     *
+     * @param count expected number of refreshes
+     */
+    public void assertRefreshCount(int count) {
+        record("assertRefreshCount", count);
+        try {
+            assertEquals("Unexpected number of refreshes", count, engine().getRefreshCount());
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the current page was received in less than the given time.
+     *
+     * @param milliseconds the exclusive upper bound of the response time
+     */
+    public void assertResponseTimeBelow(long milliseconds) {
+        record("assertResponseTimeBelow", milliseconds);
+        try {
+            long responseTime = getPageMetrics().getResponseTime();
+            assertTrue("Response time [" + responseTime + "ms] is not below [" + milliseconds + "ms]",
+                    responseTime < milliseconds);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the current page and its sub-resources weigh less than the given size.
+     *
+     * @param bytes the exclusive upper bound of the downloaded bytes
+     */
+    public void assertPageWeightBelow(long bytes) {
+        record("assertPageWeightBelow", bytes);
+        try {
+            long pageWeight = getPageMetrics().getPageWeight();
+            assertTrue("Page weight [" + pageWeight + " bytes] is not below [" + bytes + " bytes]",
+                    pageWeight < bytes);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the current page and its sub-resources were loaded with less than the given
+     * number of requests.
+     *
+     * @param count the exclusive upper bound of the request count
+     */
+    public void assertRequestCountBelow(int count) {
+        record("assertRequestCountBelow", count);
+        try {
+            int requestCount = getPageMetrics().getRequestCount();
+            assertTrue("Request count [" + requestCount + "] is not below [" + count + "]",
+                    requestCount < count);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the current page has less than the given number of DOM nodes.
+     *
+     * @param count the exclusive upper bound of the DOM node count
+     */
+    public void assertDomNodeCountBelow(int count) {
+        record("assertDomNodeCountBelow", count);
+        try {
+            int domNodeCount = getPageMetrics().getDomNodeCount();
+            assertTrue("DOM node count [" + domNodeCount + "] is not below [" + count + "]",
+                    domNodeCount < count);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -428,7 +778,12 @@ public class WebTester {
      *            expected title value
      */
     public void assertTitleEquals(String title) {
-        assertEquals(title, getTestingEngine().getPageTitle());
+        record("assertTitleEquals", title);
+        try {
+            assertEquals(title, engine().getPageTitle());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -441,7 +796,12 @@ public class WebTester {
      */
     @Deprecated
     public void assertTitleNotSame(String title) {
-      assertTitleNotEquals(title);
+      record("assertTitleNotSame", title);
+      try {
+          assertTitleNotEquals(title);
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -452,7 +812,12 @@ public class WebTester {
      *            unexpected title value
      */
     public void assertTitleNotEquals(String title) {
-      assertThat(title, not(equalTo(getTestingEngine().getPageTitle())));
+      record("assertTitleNotEquals", title);
+      try {
+          assertThat(title, not(equalTo(engine().getPageTitle())));
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -461,7 +826,13 @@ public class WebTester {
      * @param regexp expected title regexp
      */
     public void assertTitleMatch(String regexp) {
-      assertMatch("Unable to match [" + regexp + "] in title", regexp, getTestingEngine().getPageTitle());
+      record("assertTitleMatch", regexp);
+      try {
+          if (!find(regexp, engine().getPageTitle()))
+              fail("Unable to match [" + regexp + "] in title");
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -472,7 +843,12 @@ public class WebTester {
      *            web resource key for title
      */
     public void assertTitleEqualsKey(String titleKey) {
-        assertEquals(getMessage(titleKey), getTestingEngine().getPageTitle());
+        record("assertTitleEqualsKey", titleKey);
+        try {
+            assertEquals(getMessage(titleKey), engine().getPageTitle());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -482,7 +858,12 @@ public class WebTester {
      * @param args
      */
     public void assertTitleEqualsKey(String titleKey, Object[] args) {
-        assertEquals(getMessage(titleKey, args), getTestingEngine().getPageTitle());
+        record("assertTitleEqualsKey", titleKey, args);
+        try {
+            assertEquals(getMessage(titleKey, args), engine().getPageTitle());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -492,7 +873,12 @@ public class WebTester {
      *            web resource name
      */
     public void assertKeyPresent(String key) {
-        assertTextPresent(getMessage(key));
+        record("assertKeyPresent", key);
+        try {
+            assertTextPresent(getMessage(key));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -502,7 +888,12 @@ public class WebTester {
      * @param args
      */
     public void assertKeyPresent(String key, Object[] args) {
-        assertTextPresent(getMessage(key, args));
+        record("assertKeyPresent", key, args);
+        try {
+            assertTextPresent(getMessage(key, args));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -511,10 +902,14 @@ public class WebTester {
      * @param text
      */
     public void assertTextPresent(String text) {
-        if (!(getTestingEngine().getPageText().contains(text)))
-            fail("Expected text not found in current page: [" + text
-                    + "]\n Page content was: ["
-                    + getTestingEngine().getPageText() + "]");
+        record("assertTextPresent", text);
+        try {
+            if (!engine().isTextInPage(text))
+                fail(new FailureMessage(FailureMessage.Kind.TEXT_NOT_FOUND, text,
+                        engine().getPageText()).get());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -523,30 +918,48 @@ public class WebTester {
      * @param regexp
      */
     public void assertMatch(String regexp) {
-        RE re = getRE(regexp);
-        if (!re.match(getTestingEngine().getPageText()))
-            fail("Expected rexexp not matched in response: [" + regexp
-                    + "]");
+        record("assertMatch", regexp);
+        try {
+            if (!find(regexp, engine().getPageText()))
+                fail("Expected rexexp not matched in response: [" + regexp
+                        + "]");
+        } finally {
+            exit();
+        }
     }
 
     /**
-     * Assert a given string matches a given regular expression.
+     * Assert a given string matches a given regular expression. The failure message shows the part of the
+     * text closest to the regexp when the text is long.
      *
      * @param regexp
      * @param text
      */
     public void assertMatch(String regexp, String text) {
-      assertMatch("Expected rexexp '" + regexp + "' not matched in text '" + text + "'", regexp, text);
+        record("assertMatch", regexp, text);
+        try {
+            if (!find(regexp, text))
+                fail(new FailureMessage(FailureMessage.Kind.REGEXP_NOT_MATCHED, regexp, text).get());
+        } finally {
+            exit();
+        }
     }
 
     /**
-     * Assert a given string does not match a given regular expression.
+     * Assert a given string does not match a given regular expression. The failure message shows the part
+     * of the text closest to the regexp when the text is long.
      *
      * @param regexp
      * @param text
      */
     public void assertNotMatch(String regexp, String text) {
-      assertNotMatch("Expected rexexp '" + regexp + "' matched in text '" + text + "'", regexp, text);
+        record("assertNotMatch", regexp, text);
+        try {
+            if (find(regexp, text))
+                fail(new FailureMessage(FailureMessage.Kind.REGEXP_MATCHED, regexp, text).get());
+        } finally {
+            exit();
+        }
     }
 
 
@@ -557,9 +970,13 @@ public class WebTester {
      * @param text
      */
     public void assertMatch(String message, String regexp, String text) {
-        RE re = getRE(regexp);
-        if (!re.match(text))
-            fail(message);
+        record("assertMatch", message, regexp, text);
+        try {
+            if (!find(regexp, text))
+                fail(message);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -569,9 +986,13 @@ public class WebTester {
      * @param text
      */
     public void assertNotMatch(String message, String regexp, String text) {
-        RE re = getRE(regexp);
-        if (re.match(text))
-            fail(message);
+        record("assertNotMatch", message, regexp, text);
+        try {
+            if (find(regexp, text))
+                fail(message);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -580,7 +1001,12 @@ public class WebTester {
      * @param key web resource name
      */
     public void assertKeyNotPresent(String key) {
-        assertTextNotPresent(getMessage(key));
+        record("assertKeyNotPresent", key);
+        try {
+            assertTextNotPresent(getMessage(key));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -590,7 +1016,12 @@ public class WebTester {
      *            web resource name
      */
     public void assertKeyNotPresent(String key, Object[] args) {
-        assertTextNotPresent(getMessage(key, args));
+        record("assertKeyNotPresent", key, args);
+        try {
+            assertTextNotPresent(getMessage(key, args));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -599,9 +1030,14 @@ public class WebTester {
      * @param text
      */
     public void assertTextNotPresent(String text) {
-        if (getTestingEngine().getPageText().contains(text))
-            fail("Text found in response when not expected: [" + text
-                    + "]");
+        record("assertTextNotPresent", text);
+        try {
+            if (engine().isTextInPage(text))
+                fail("Text found in response when not expected: [" + text
+                        + "]");
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -610,9 +1046,13 @@ public class WebTester {
      * @param regexp
      */
     public void assertNoMatch(String regexp) {
-      assertNotMatch("Regexp matched in response when not expected: [" + regexp + "]",
-        regexp,
-         getTestingEngine().getPageText());
+        record("assertNoMatch", regexp);
+        try {
+            if (find(regexp, engine().getPageText()))
+                fail("Regexp matched in response when not expected: [" + regexp + "]");
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -621,7 +1061,7 @@ public class WebTester {
      * @return Object that represent a html table in a way independent from plugin.
      */
     public Table getTable(String tableSummaryNameOrId) {
-        return getTestingEngine().getTable(tableSummaryNameOrId);
+        return engine().getTable(tableSummaryNameOrId);
     }
 
     /**
@@ -630,9 +1070,14 @@ public class WebTester {
      * @param tableSummaryNameOrId summary, name or id attribute value of table
      */
     public void assertTablePresent(String tableSummaryNameOrId) {
-        if (!getTestingEngine().hasTable(tableSummaryNameOrId))
-            fail("Unable to locate table \"" + tableSummaryNameOrId
-                    + "\"");
+        record("assertTablePresent", tableSummaryNameOrId);
+        try {
+            if (!engine().hasTable(tableSummaryNameOrId))
+                fail("Unable to locate table \"" + tableSummaryNameOrId
+                        + "\"");
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -641,8 +1086,13 @@ public class WebTester {
      * @param tableSummaryNameOrId summary, name or id attribute value of table
      */
     public void assertTableNotPresent(String tableSummaryNameOrId) {
-        if (getTestingEngine().hasTable(tableSummaryNameOrId))
-            fail("Located table \"" + tableSummaryNameOrId + "\"");
+        record("assertTableNotPresent", tableSummaryNameOrId);
+        try {
+            if (engine().hasTable(tableSummaryNameOrId))
+                fail("Located table \"" + tableSummaryNameOrId + "\"");
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -652,7 +1102,12 @@ public class WebTester {
      * @param key web resource name
      */
     public void assertKeyInTable(String tableSummaryOrId, String key) {
-        assertTextInTable(tableSummaryOrId, getMessage(key));
+        record("assertKeyInTable", tableSummaryOrId, key);
+        try {
+            assertTextInTable(tableSummaryOrId, getMessage(key));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -665,7 +1120,12 @@ public class WebTester {
      *            web resource name
      */
     public void assertKeyInTable(String tableSummaryOrId, String key, Object[] args) {
-        assertTextInTable(tableSummaryOrId, getMessage(key, args));
+        record("assertKeyInTable", tableSummaryOrId, key, args);
+        try {
+            assertTextInTable(tableSummaryOrId, getMessage(key, args));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -676,10 +1136,15 @@ public class WebTester {
      * @param text
      */
     public void assertTextInTable(String tableSummaryNameOrId, String text) {
-        assertTablePresent(tableSummaryNameOrId);
-        assertTrue("Could not find: [" + text + "]" + "in table ["
-                + tableSummaryNameOrId + "]", getTestingEngine().getTable(
-                tableSummaryNameOrId).hasText(text));
+        record("assertTextInTable", tableSummaryNameOrId, text);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            assertTrue("Could not find: [" + text + "]" + "in table ["
+                    + tableSummaryNameOrId + "]", engine().getTable(
+                    tableSummaryNameOrId).hasText(text));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -689,10 +1154,15 @@ public class WebTester {
      * @param regexp
      */
     public void assertMatchInTable(String tableSummaryNameOrId, String regexp) {
-        assertTablePresent(tableSummaryNameOrId);
-        assertTrue("Could not match: [" + regexp + "]" + "in table ["
-                + tableSummaryNameOrId + "]", getTestingEngine().getTable(
-                tableSummaryNameOrId).hasMatch(regexp));
+        record("assertMatchInTable", tableSummaryNameOrId, regexp);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            assertTrue("Could not match: [" + regexp + "]" + "in table ["
+                    + tableSummaryNameOrId + "]", engine().getTable(
+                    tableSummaryNameOrId).hasMatch(regexp, getTestContext().getRegexpEngine()));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -702,8 +1172,13 @@ public class WebTester {
      * @param keys Array of web resource names.
      */
     public void assertKeysInTable(String tableSummaryOrId, String[] keys) {
-        for (int i = 0; i < keys.length; i++) {
-            assertKeyInTable(tableSummaryOrId, keys[i]);
+        record("assertKeysInTable", tableSummaryOrId, keys);
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                assertKeyInTable(tableSummaryOrId, keys[i]);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -717,8 +1192,13 @@ public class WebTester {
      *            Array of web resource names.
      */
     public void assertKeysInTable(String tableSummaryOrId, String[] keys, Object[][] args) {
-        for (int i = 0; i < keys.length; i++) {
-            assertKeyInTable(tableSummaryOrId, keys[i], args[i]);
+        record("assertKeysInTable", tableSummaryOrId, keys, args);
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                assertKeyInTable(tableSummaryOrId, keys[i], args[i]);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -731,8 +1211,13 @@ public class WebTester {
      *            Array of expected text values.
      */
     public void assertTextInTable(String tableSummaryOrId, String[] text) {
-        for (int i = 0; i < text.length; i++) {
-            assertTextInTable(tableSummaryOrId, text[i]);
+        record("assertTextInTable", tableSummaryOrId, text);
+        try {
+            for (int i = 0; i < text.length; i++) {
+                assertTextInTable(tableSummaryOrId, text[i]);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -743,8 +1228,13 @@ public class WebTester {
      * @param text Array of expected regexps to match.
      */
     public void assertMatchInTable(String tableSummaryOrId, String[] regexp) {
-        for (int i = 0; i < regexp.length; i++) {
-            assertMatchInTable(tableSummaryOrId, regexp[i]);
+        record("assertMatchInTable", tableSummaryOrId, regexp);
+        try {
+            for (int i = 0; i < regexp.length; i++) {
+                assertMatchInTable(tableSummaryOrId, regexp[i]);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -755,7 +1245,12 @@ public class WebTester {
      * @param key web resource name
      */
     public void assertKeyNotInTable(String tableSummaryOrId, String key) {
-        assertTextNotInTable(tableSummaryOrId, getMessage(key));
+        record("assertKeyNotInTable", tableSummaryOrId, key);
+        try {
+            assertTextNotInTable(tableSummaryOrId, getMessage(key));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -765,10 +1260,15 @@ public class WebTester {
      * @param text
      */
     public void assertTextNotInTable(String tableSummaryNameOrId, String text) {
-        assertTablePresent(tableSummaryNameOrId);
-        assertTrue("Found text: [" + text + "] in table ["
-                + tableSummaryNameOrId + "]", !getTestingEngine().getTable(
-                tableSummaryNameOrId).hasText(text));
+        record("assertTextNotInTable", tableSummaryNameOrId, text);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            assertTrue("Found text: [" + text + "] in table ["
+                    + tableSummaryNameOrId + "]", !engine().getTable(
+                    tableSummaryNameOrId).hasText(text));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -778,8 +1278,13 @@ public class WebTester {
      * @param text Array of text values
      */
     public void assertTextNotInTable(String tableSummaryNameOrId, String[] text) {
-        for (int i = 0; i < text.length; i++) {
-            assertTextNotInTable(tableSummaryNameOrId, text[i]);
+        record("assertTextNotInTable", tableSummaryNameOrId, text);
+        try {
+            for (int i = 0; i < text.length; i++) {
+                assertTextNotInTable(tableSummaryNameOrId, text[i]);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -790,10 +1295,15 @@ public class WebTester {
      * @param text
      */
     public void assertNoMatchInTable(String tableSummaryNameOrId, String regexp) {
-        assertTablePresent(tableSummaryNameOrId);
-        assertTrue("Found regexp: [" + regexp + "] in table ["
-                + tableSummaryNameOrId + "]", !getTestingEngine().getTable(
-                tableSummaryNameOrId).hasMatch(regexp));
+        record("assertNoMatchInTable", tableSummaryNameOrId, regexp);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            assertTrue("Found regexp: [" + regexp + "] in table ["
+                    + tableSummaryNameOrId + "]", !engine().getTable(
+                    tableSummaryNameOrId).hasMatch(regexp, getTestContext().getRegexpEngine()));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -804,8 +1314,13 @@ public class WebTester {
      */
     public void assertNoMatchInTable(String tableSummaryNameOrId,
             String[] regexp) {
-        for (int i = 0; i < regexp.length; i++) {
-            assertNoMatchInTable(tableSummaryNameOrId, regexp[i]);
+        record("assertNoMatchInTable", tableSummaryNameOrId, regexp);
+        try {
+            for (int i = 0; i < regexp.length; i++) {
+                assertNoMatchInTable(tableSummaryNameOrId, regexp[i]);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -818,7 +1333,7 @@ public class WebTester {
     public void assertTableEquals(String tableSummaryNameOrId,
             Table expectedTable) {
         assertTablePresent(tableSummaryNameOrId);
-        getTestingEngine().getTable(tableSummaryNameOrId).assertEquals(
+        engine().getTable(tableSummaryNameOrId).assertEquals(
                 expectedTable);
     }
 
@@ -830,9 +1345,14 @@ public class WebTester {
      */
     public void assertTableEquals(String tableSummaryNameOrId,
             String[][] expectedCellValues) {
-        assertTablePresent(tableSummaryNameOrId);
-        getTestingEngine().getTable(tableSummaryNameOrId).assertEquals(
-                new Table(expectedCellValues));
+        record("assertTableEquals", tableSummaryNameOrId, expectedCellValues);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            engine().getTable(tableSummaryNameOrId).assertEquals(
+                    new Table(expectedCellValues));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -845,7 +1365,7 @@ public class WebTester {
     public void assertTableRowsEqual(String tableSummaryNameOrId, int startRow,
             Table expectedTable) {
         assertTablePresent(tableSummaryNameOrId);
-        getTestingEngine().getTable(tableSummaryNameOrId).assertSubTableEquals(
+        engine().getTable(tableSummaryNameOrId).assertSubTableEquals(
                 startRow, expectedTable);
     }
 
@@ -858,9 +1378,14 @@ public class WebTester {
      */
     public void assertTableRowsEqual(String tableSummaryNameOrId, int startRow,
             String[][] expectedTable) {
-        assertTablePresent(tableSummaryNameOrId);
-        getTestingEngine().getTable(tableSummaryNameOrId).assertSubTableEquals(
-                startRow, new Table(expectedTable));
+        record("assertTableRowsEqual", tableSummaryNameOrId, startRow, expectedTable);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            engine().getTable(tableSummaryNameOrId).assertSubTableEquals(
+                    startRow, new Table(expectedTable));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -871,12 +1396,17 @@ public class WebTester {
      */
     public void assertTableRowCountEquals(String tableSummaryNameOrId,
             int expectedRowCount) {
-        assertTablePresent(tableSummaryNameOrId);
-        int actualRowCount = getTestingEngine().getTable(tableSummaryNameOrId)
-                .getRowCount();
-        assertTrue("Expected row count was " + expectedRowCount
-                + " but actual row count is " + actualRowCount,
-                actualRowCount == expectedRowCount);
+        record("assertTableRowCountEquals", tableSummaryNameOrId, expectedRowCount);
+        try {
+            assertTablePresent(tableSummaryNameOrId);
+            int actualRowCount = engine().getTable(tableSummaryNameOrId)
+                    .getRowCount();
+            assertTrue("Expected row count was " + expectedRowCount
+                    + " but actual row count is " + actualRowCount,
+                    actualRowCount == expectedRowCount);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -887,8 +1417,8 @@ public class WebTester {
      */
     public void assertTableMatch(String tableSummaryOrId, Table expectedTable) {
         assertTablePresent(tableSummaryOrId);
-        getTestingEngine().getTable(tableSummaryOrId)
-                .assertMatch(expectedTable);
+        engine().getTable(tableSummaryOrId)
+                .assertMatch(expectedTable, getTestContext().getRegexpEngine());
     }
 
     /**
@@ -899,9 +1429,14 @@ public class WebTester {
      */
     public void assertTableMatch(String tableSummaryOrId,
             String[][] expectedCellValues) {
-        assertTablePresent(tableSummaryOrId);
-        getTestingEngine().getTable(tableSummaryOrId).assertMatch(
-                new Table(expectedCellValues));
+        record("assertTableMatch", tableSummaryOrId, expectedCellValues);
+        try {
+            assertTablePresent(tableSummaryOrId);
+            engine().getTable(tableSummaryOrId).assertMatch(
+                    new Table(expectedCellValues), getTestContext().getRegexpEngine());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -914,8 +1449,8 @@ public class WebTester {
     public void assertTableRowsMatch(String tableSummaryOrId, int startRow,
             Table expectedTable) {
         assertTablePresent(tableSummaryOrId);
-        getTestingEngine().getTable(tableSummaryOrId).assertSubTableMatch(
-                startRow, expectedTable);
+        engine().getTable(tableSummaryOrId).assertSubTableMatch(
+                startRow, expectedTable, getTestContext().getRegexpEngine());
     }
 
     /**
@@ -927,9 +1462,14 @@ public class WebTester {
      */
     public void assertTableRowsMatch(String tableSummaryOrId, int startRow,
             String[][] expectedTable) {
-        assertTablePresent(tableSummaryOrId);
-        getTestingEngine().getTable(tableSummaryOrId).assertSubTableMatch(
-                startRow, new Table(expectedTable));
+        record("assertTableRowsMatch", tableSummaryOrId, startRow, expectedTable);
+        try {
+            assertTablePresent(tableSummaryOrId);
+            engine().getTable(tableSummaryOrId).assertSubTableMatch(
+                    startRow, new Table(expectedTable), getTestContext().getRegexpEngine());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -938,9 +1478,14 @@ public class WebTester {
      * @param formElementName
      */
     public void assertFormElementPresent(String formElementName) {
-        assertTrue("Did not find form element with name ["
-                + formElementName + "].", getTestingEngine()
-                .hasFormParameterNamed(formElementName));
+        record("assertFormElementPresent", formElementName);
+        try {
+            assertTrue("Did not find form element with name ["
+                    + formElementName + "].", engine()
+                    .hasFormParameterNamed(formElementName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -949,12 +1494,17 @@ public class WebTester {
      * @param formElementName
      */
     public void assertFormElementNotPresent(String formElementName) {
+        record("assertFormElementNotPresent", formElementName);
         try {
-            assertTrue("Found form element with name ["
-                    + formElementName + "] when not expected.", !getTestingEngine()
-                    .hasFormParameterNamed(formElementName));
-        } catch (UnableToSetFormException e) {
-            // assertFormControlNotPresent
+            try {
+                assertTrue("Found form element with name ["
+                        + formElementName + "] when not expected.", !engine()
+                        .hasFormParameterNamed(formElementName));
+            } catch (UnableToSetFormException e) {
+                // assertFormControlNotPresent
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -964,9 +1514,14 @@ public class WebTester {
      * @param checkboxName checkbox name.
      */
     public void assertCheckboxPresent(String checkboxName) {
-        assertTrue("Did not find form checkbox with name ["
-                + checkboxName + "].", getTestingEngine().hasElementByXPath(
-                "//input[lower-case(@type)='checkbox' and @name='" + checkboxName + "']"));
+        record("assertCheckboxPresent", checkboxName);
+        try {
+            assertTrue("Did not find form checkbox with name ["
+                    + checkboxName + "].", engine().hasElementByXPath(
+                    "//input[lower-case(@type)='checkbox' and @name='" + checkboxName + "']"));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -976,11 +1531,16 @@ public class WebTester {
      * @param checkboxValue checkbox value attribut.
      */
     public void assertCheckboxPresent(String checkboxName, String checkboxValue) {
-        assertTrue("Did not find form checkbox with name ["
-                + checkboxName + "] and value [" + checkboxValue + "].",
-                getTestingEngine().hasElementByXPath(
-                        "//input[lower-case(@type)='checkbox' and @name='" + checkboxName
-                                + "' and @value='" + checkboxValue + "']"));
+        record("assertCheckboxPresent", checkboxName, checkboxValue);
+        try {
+            assertTrue("Did not find form checkbox with name ["
+                    + checkboxName + "] and value [" + checkboxValue + "].",
+                    engine().hasElementByXPath(
+                            "//input[lower-case(@type)='checkbox' and @name='" + checkboxName
+                                    + "' and @value='" + checkboxValue + "']"));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -989,9 +1549,14 @@ public class WebTester {
      * @param checkboxName checkbox name.
      */
     public void assertCheckboxNotPresent(String checkboxName) {
-        assertFalse("Found form checkbox with name [" + checkboxName
-                + "] when not expected.", getTestingEngine().hasElementByXPath(
-                "//input[lower-case(@type)='checkbox' and @name='" + checkboxName + "']"));
+        record("assertCheckboxNotPresent", checkboxName);
+        try {
+            assertFalse("Found form checkbox with name [" + checkboxName
+                    + "] when not expected.", engine().hasElementByXPath(
+                    "//input[lower-case(@type)='checkbox' and @name='" + checkboxName + "']"));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1002,11 +1567,16 @@ public class WebTester {
      */
     public void assertCheckboxNotPresent(String checkboxName,
             String checkboxValue) {
-        assertFalse("Found form checkbox with name [" + checkboxName
-                + "] and value [" + checkboxValue + "] when not expected.",
-                getTestingEngine().hasElementByXPath(
-                        "//input[lower-case(@type)='checkbox' and @name='" + checkboxName
-                                + "' and @value='" + checkboxValue + "']"));
+        record("assertCheckboxNotPresent", checkboxName, checkboxValue);
+        try {
+            assertFalse("Found form checkbox with name [" + checkboxName
+                    + "] and value [" + checkboxValue + "] when not expected.",
+                    engine().hasElementByXPath(
+                            "//input[lower-case(@type)='checkbox' and @name='" + checkboxName
+                                    + "' and @value='" + checkboxValue + "']"));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1014,7 +1584,12 @@ public class WebTester {
      *
      */
     public void assertFormPresent() {
-        assertTrue("No form present", getTestingEngine().hasForm());
+        record("assertFormPresent");
+        try {
+            assertTrue("No form present", engine().hasForm());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1023,8 +1598,13 @@ public class WebTester {
      * @param nameOrID
      */
     public void assertFormPresent(String nameOrID) {
-        assertTrue("No form present with name or id [" + nameOrID + "]",
-                getTestingEngine().hasForm(nameOrID));
+        record("assertFormPresent", nameOrID);
+        try {
+            assertTrue("No form present with name or id [" + nameOrID + "]",
+                    engine().hasForm(nameOrID));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1034,8 +1614,13 @@ public class WebTester {
      * @param index The 0-based index, when more than one form with the same name is expected.
      */
     public void assertFormPresent(String nameOrID, int index) {
-        assertTrue("No form present with name or id [" + nameOrID + "] at index " + index,
-                getTestingEngine().hasForm(nameOrID, index));
+        record("assertFormPresent", nameOrID, index);
+        try {
+            assertTrue("No form present with name or id [" + nameOrID + "] at index " + index,
+                    engine().hasForm(nameOrID, index));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1043,7 +1628,12 @@ public class WebTester {
      *
      */
     public void assertFormNotPresent() {
-        assertFalse("A form is present", getTestingEngine().hasForm());
+        record("assertFormNotPresent");
+        try {
+            assertFalse("A form is present", engine().hasForm());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1052,8 +1642,13 @@ public class WebTester {
      * @param nameOrID
      */
     public void assertFormNotPresent(String nameOrID) {
-        assertFalse("Form present with name or id [" + nameOrID + "]",
-                getTestingEngine().hasForm(nameOrID));
+        record("assertFormNotPresent", nameOrID);
+        try {
+            assertFalse("Form present with name or id [" + nameOrID + "]",
+                    engine().hasForm(nameOrID));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1066,10 +1661,15 @@ public class WebTester {
      */
     public void assertFormElementEquals(String formElementName,
             String expectedValue) {
-        assertFormElementPresent(formElementName);
-        assertEquals(expectedValue, getTestingEngine()
-                .getElementAttributByXPath(
-                        "//input[@name='" + formElementName + "']", "value"));
+        record("assertFormElementEquals", formElementName, expectedValue);
+        try {
+            assertFormElementPresent(formElementName);
+            assertEquals(expectedValue, engine()
+                    .getElementAttributByXPath(
+                            "//input[@name='" + formElementName + "']", "value"));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1079,18 +1679,17 @@ public class WebTester {
      * @param regexp
      */
     public void assertFormElementMatch(String formElementName, String regexp) {
-      // how can we @deprecate this if there is no available alternative?
-        assertFormElementPresent(formElementName);
-        RE re = null;
-        try {
-            re = new RE(regexp, RE.MATCH_SINGLELINE);
-        } catch (RESyntaxException e) {
-            fail(e.toString());
-        }
-        assertTrue("Unable to match [" + regexp + "] in form element \""
-                + formElementName + "\"", re.match(getTestingEngine()
-                .getElementAttributByXPath(
-                        "//input[@name='" + formElementName + "']", "value")));
+      record("assertFormElementMatch", formElementName, regexp);
+      try {
+          // how can we @deprecate this if there is no available alternative?
+            assertFormElementPresent(formElementName);
+            assertTrue("Unable to match [" + regexp + "] in form element \""
+                    + formElementName + "\"", find(regexp, engine()
+                    .getElementAttributByXPath(
+                            "//input[@name='" + formElementName + "']", "value")));
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -1102,9 +1701,14 @@ public class WebTester {
      * @deprecated use an explicit testing method, e.g. {@link #setTextField(String, String)} or {@link #setHiddenField(String, String)}
      */
     public void assertFormElementEmpty(String formElementName) {
-        assertFormElementPresent(formElementName);
-        assertEquals("", getTestingEngine().getElementAttributByXPath(
-                "//input[@name='" + formElementName + "']", "value"));
+        record("assertFormElementEmpty", formElementName);
+        try {
+            assertFormElementPresent(formElementName);
+            assertEquals("", engine().getElementAttributByXPath(
+                    "//input[@name='" + formElementName + "']", "value"));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1116,9 +1720,14 @@ public class WebTester {
      */
     public void assertTextFieldEquals(String formElementName,
             String expectedValue) {
-        assertFormElementPresent(formElementName);
-        assertEquals(expectedValue, getTestingEngine()
-                .getTextFieldValue(formElementName));
+        record("assertTextFieldEquals", formElementName, expectedValue);
+        try {
+            assertFormElementPresent(formElementName);
+            assertEquals(expectedValue, engine()
+                    .getTextFieldValue(formElementName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1130,9 +1739,14 @@ public class WebTester {
      */
     public void assertHiddenFieldPresent(String formElementName,
             String expectedValue) {
-        assertFormElementPresent(formElementName);
-        assertEquals(expectedValue, getTestingEngine()
-                .getHiddenFieldValue(formElementName));
+        record("assertHiddenFieldPresent", formElementName, expectedValue);
+        try {
+            assertFormElementPresent(formElementName);
+            assertEquals(expectedValue, engine()
+                    .getHiddenFieldValue(formElementName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1141,10 +1755,15 @@ public class WebTester {
      * @param checkBoxName
      */
     public void assertCheckboxSelected(String checkBoxName) {
-        assertCheckboxPresent(checkBoxName);
-        if (!getTestingEngine().isCheckboxSelected(checkBoxName)) {
-            fail("Checkbox with name [" + checkBoxName
-                    + "] was not found selected.");
+        record("assertCheckboxSelected", checkBoxName);
+        try {
+            assertCheckboxPresent(checkBoxName);
+            if (!engine().isCheckboxSelected(checkBoxName)) {
+                fail("Checkbox with name [" + checkBoxName
+                        + "] was not found selected.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1155,10 +1774,15 @@ public class WebTester {
      * @param checkBoxValue
      */
     public void assertCheckboxSelected(String checkBoxName, String checkBoxValue) {
-        assertCheckboxPresent(checkBoxName, checkBoxValue);
-        if (!getTestingEngine().isCheckboxSelected(checkBoxName, checkBoxValue)) {
-            fail("Checkbox with name [" + checkBoxName + "] and value ["
-                    + checkBoxValue + "] was not found selected.");
+        record("assertCheckboxSelected", checkBoxName, checkBoxValue);
+        try {
+            assertCheckboxPresent(checkBoxName, checkBoxValue);
+            if (!engine().isCheckboxSelected(checkBoxName, checkBoxValue)) {
+                fail("Checkbox with name [" + checkBoxName + "] and value ["
+                        + checkBoxValue + "] was not found selected.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1168,10 +1792,15 @@ public class WebTester {
      * @param checkBoxName
      */
     public void assertCheckboxNotSelected(String checkBoxName) {
-        assertCheckboxPresent(checkBoxName);
-        if (getTestingEngine().isCheckboxSelected(checkBoxName)) {
-            fail("Checkbox with name [" + checkBoxName
-                    + "] was found selected.");
+        record("assertCheckboxNotSelected", checkBoxName);
+        try {
+            assertCheckboxPresent(checkBoxName);
+            if (engine().isCheckboxSelected(checkBoxName)) {
+                fail("Checkbox with name [" + checkBoxName
+                        + "] was found selected.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1183,10 +1812,15 @@ public class WebTester {
      */
     public void assertCheckboxNotSelected(String checkBoxName,
             String checkBoxValue) {
-        assertCheckboxPresent(checkBoxName, checkBoxValue);
-        if (getTestingEngine().isCheckboxSelected(checkBoxName, checkBoxValue)) {
-            fail("Checkbox with name [" + checkBoxName + "] and value ["
-                    + checkBoxValue + "] was found selected.");
+        record("assertCheckboxNotSelected", checkBoxName, checkBoxValue);
+        try {
+            assertCheckboxPresent(checkBoxName, checkBoxValue);
+            if (engine().isCheckboxSelected(checkBoxName, checkBoxValue)) {
+                fail("Checkbox with name [" + checkBoxName + "] and value ["
+                        + checkBoxValue + "] was found selected.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1197,10 +1831,15 @@ public class WebTester {
      * @param radioOption option to test for.
      */
     public void assertRadioOptionPresent(String name, String radioOption) {
-        assertFormElementPresent(name);
-        if (!getTestingEngine().hasRadioOption(name, radioOption)) {
-            fail("Unable to find option [" + radioOption
-                    + "] in radio group [" + name + "]");
+        record("assertRadioOptionPresent", name, radioOption);
+        try {
+            assertFormElementPresent(name);
+            if (!engine().hasRadioOption(name, radioOption)) {
+                fail("Unable to find option [" + radioOption
+                        + "] in radio group [" + name + "]");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1211,10 +1850,15 @@ public class WebTester {
      * @param radioOption option to test for.
      */
     public void assertRadioOptionNotPresent(String name, String radioOption) {
-        assertFormElementPresent(name);
-        if (getTestingEngine().hasRadioOption(name, radioOption))
-            fail("Found option [" + radioOption + "] in radio group ["
-                    + name + "]");
+        record("assertRadioOptionNotPresent", name, radioOption);
+        try {
+            assertFormElementPresent(name);
+            if (engine().hasRadioOption(name, radioOption))
+                fail("Found option [" + radioOption + "] in radio group ["
+                        + name + "]");
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1224,9 +1868,14 @@ public class WebTester {
      * @param radioOption option to test for selection.
      */
     public void assertRadioOptionSelected(String name, String radioOption) {
-        assertRadioOptionPresent(name, radioOption);
-        assertEquals(radioOption, getTestingEngine()
-            .getSelectedRadio(name));
+        record("assertRadioOptionSelected", name, radioOption);
+        try {
+            assertRadioOptionPresent(name, radioOption);
+            assertEquals(radioOption, engine()
+                .getSelectedRadio(name));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1236,10 +1885,15 @@ public class WebTester {
      * @param radioOption option to test for selection.
      */
     public void assertRadioOptionNotSelected(String name, String radioOption) {
-        assertRadioOptionPresent(name, radioOption);
-        assertFalse("Radio option [" + radioOption + "] is selected.",
-                radioOption.equals(getTestingEngine()
-                        .getSelectedRadio(name)));
+        record("assertRadioOptionNotSelected", name, radioOption);
+        try {
+            assertRadioOptionPresent(name, radioOption);
+            assertFalse("Radio option [" + radioOption + "] is selected.",
+                    radioOption.equals(engine()
+                            .getSelectedRadio(name)));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1250,12 +1904,13 @@ public class WebTester {
      */
     public void assertSelectOptionsPresent(String selectName,
             String[] optionLabels) {
-        assertFormElementPresent(selectName);
-        for (int i = 0; i < optionLabels.length; i++)
-            assertTrue("Option [" + optionLabels[i]
-                    + "] not found in select element " + selectName,
-                    getTestingEngine().hasSelectOption(selectName,
-                            optionLabels[i]));
+        record("assertSelectOptionsPresent", selectName, optionLabels);
+        try {
+            assertFormElementPresent(selectName);
+            getOptionValuesFor(selectName, engine().getSelectOptions(selectName), optionLabels);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1265,7 +1920,12 @@ public class WebTester {
      * @param optionLabel option label.
      */
     public void assertSelectOptionPresent(String selectName, String optionLabel) {
-        assertSelectOptionsPresent(selectName, new String[] { optionLabel });
+        record("assertSelectOptionPresent", selectName, optionLabel);
+        try {
+            assertSelectOptionsPresent(selectName, new String[] { optionLabel });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1278,12 +1938,13 @@ public class WebTester {
      */
     public void assertSelectOptionsPresent(String selectName, int index,
             String[] optionLabels) {
-        assertFormElementPresent(selectName);
-        for (int i = 0; i < optionLabels.length; i++)
-            assertTrue("Option [" + optionLabels[i]
-                    + "] not found in select element " + selectName,
-                    getTestingEngine().hasSelectOption(selectName, index,
-                            optionLabels[i]));
+        record("assertSelectOptionsPresent", selectName, index, optionLabels);
+        try {
+            assertFormElementPresent(selectName);
+            getOptionValuesFor(selectName, engine().getSelectOptions(selectName, index), optionLabels);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1295,7 +1956,12 @@ public class WebTester {
      * @param optionLabel option label.
      */
     public void assertSelectOptionPresent(String selectName, int index, String optionLabel) {
-        assertSelectOptionsPresent(selectName, index, new String[] { optionLabel });
+        record("assertSelectOptionPresent", selectName, index, optionLabel);
+        try {
+            assertSelectOptionsPresent(selectName, index, new String[] { optionLabel });
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1307,12 +1973,17 @@ public class WebTester {
      */
     public void assertSelectOptionValuesPresent(String selectName,
             String[] optionValues) {
-        assertFormElementPresent(selectName);
-        for (int i = 0; i < optionValues.length; i++)
-            assertTrue("Option [" + optionValues[i]
-                    + "] not found in select element " + selectName,
-                    getTestingEngine().hasSelectOptionValue(selectName,
-                            optionValues[i]));
+        record("assertSelectOptionValuesPresent", selectName, optionValues);
+        try {
+            assertFormElementPresent(selectName);
+            for (int i = 0; i < optionValues.length; i++)
+                assertTrue("Option [" + optionValues[i]
+                        + "] not found in select element " + selectName,
+                        engine().hasSelectOptionValue(selectName,
+                                optionValues[i]));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1323,8 +1994,13 @@ public class WebTester {
      */
     public void assertSelectOptionValuePresent(String selectName,
             String optionValue) {
-        assertSelectOptionValuesPresent(selectName,
-                new String[] { optionValue });
+        record("assertSelectOptionValuePresent", selectName, optionValue);
+        try {
+            assertSelectOptionValuesPresent(selectName,
+                    new String[] { optionValue });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1338,13 +2014,18 @@ public class WebTester {
     public void assertSelectOptionValuesPresent(String selectName,
                           int index,
                           String[] optionValues) {
-        assertFormElementPresent(selectName);
-        for (int i = 0; i < optionValues.length; i++)
-            assertTrue("Option [" + optionValues[i]
-                    + "] not found in select element " + selectName,
-                    getTestingEngine().hasSelectOptionValue(selectName,
-                                                            index,
-                                                            optionValues[i]));
+        record("assertSelectOptionValuesPresent", selectName, index, optionValues);
+        try {
+            assertFormElementPresent(selectName);
+            for (int i = 0; i < optionValues.length; i++)
+                assertTrue("Option [" + optionValues[i]
+                        + "] not found in select element " + selectName,
+                        engine().hasSelectOptionValue(selectName,
+                                                                index,
+                                                                optionValues[i]));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1358,8 +2039,13 @@ public class WebTester {
     public void assertSelectOptionValuePresent(String selectName,
                            int index,
                            String optionValue) {
-        assertSelectOptionValuesPresent(selectName, index,
-                new String[] { optionValue });
+        record("assertSelectOptionValuePresent", selectName, index, optionValue);
+        try {
+            assertSelectOptionValuesPresent(selectName, index,
+                    new String[] { optionValue });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1370,13 +2056,18 @@ public class WebTester {
      */
     public void assertSelectOptionValueNotPresent(String selectName,
             String optionValue) {
+        record("assertSelectOptionValueNotPresent", selectName, optionValue);
         try {
-            assertSelectOptionValuePresent(selectName, optionValue);
-        } catch (AssertionError e) {
-            return;
+            try {
+                assertSelectOptionValuePresent(selectName, optionValue);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Option value" + optionValue + " found in select element "
+                    + selectName + " when not expected.");
+        } finally {
+            exit();
         }
-        fail("Option value" + optionValue + " found in select element "
-                + selectName + " when not expected.");
     }
 
     /**
@@ -1387,13 +2078,18 @@ public class WebTester {
      */
     public void assertSelectOptionNotPresent(String selectName,
             String optionLabel) {
+        record("assertSelectOptionNotPresent", selectName, optionLabel);
         try {
-            assertSelectOptionPresent(selectName, optionLabel);
-        } catch (AssertionError e) {
-            return;
+            try {
+                assertSelectOptionPresent(selectName, optionLabel);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Option " + optionLabel + " found in select element "
+                    + selectName + " when not expected.");
+        } finally {
+            exit();
         }
-        fail("Option " + optionLabel + " found in select element "
-                + selectName + " when not expected.");
     }
 
     /**
@@ -1404,13 +2100,18 @@ public class WebTester {
      */
     public void assertSelectOptionValueNotPresent(String selectName,
             int index, String optionValue) {
+        record("assertSelectOptionValueNotPresent", selectName, index, optionValue);
         try {
-            assertSelectOptionValuePresent(selectName, index, optionValue);
-        } catch (AssertionError e) {
-            return;
+            try {
+                assertSelectOptionValuePresent(selectName, index, optionValue);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Option value" + optionValue + " found in select element "
+                    + selectName + " when not expected.");
+        } finally {
+            exit();
         }
-        fail("Option value" + optionValue + " found in select element "
-                + selectName + " when not expected.");
     }
 
     /**
@@ -1421,13 +2122,18 @@ public class WebTester {
      */
     public void assertSelectOptionNotPresent(String selectName,
             int index, String optionLabel) {
+        record("assertSelectOptionNotPresent", selectName, index, optionLabel);
         try {
-            assertSelectOptionPresent(selectName, index, optionLabel);
-        } catch (AssertionError e) {
-            return;
+            try {
+                assertSelectOptionPresent(selectName, index, optionLabel);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Option " + optionLabel + " found in select element "
+                    + selectName + " when not expected.");
+        } finally {
+            exit();
         }
-        fail("Option " + optionLabel + " found in select element "
-                + selectName + " when not expected.");
     }
 
     /**
@@ -1438,8 +2144,13 @@ public class WebTester {
      */
     public void assertSelectOptionsEqual(String selectName,
             String[] expectedOptions) {
-        assertFormElementPresent(selectName);
-        assertArraysEqual(expectedOptions, getOptionsFor(selectName));
+        record("assertSelectOptionsEqual", selectName, expectedOptions);
+        try {
+            assertFormElementPresent(selectName);
+            assertArraysEqual(expectedOptions, getOptionsFor(selectName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1453,8 +2164,13 @@ public class WebTester {
      */
     public void assertSelectOptionsEqual(String selectName, int index,
             String[] expectedOptions) {
-        assertFormElementPresent(selectName);
-        assertArraysEqual(expectedOptions, getOptionsFor(selectName, index));
+        record("assertSelectOptionsEqual", selectName, index, expectedOptions);
+        try {
+            assertFormElementPresent(selectName);
+            assertArraysEqual(expectedOptions, getOptionsFor(selectName, index));
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1466,13 +2182,18 @@ public class WebTester {
      */
     public void assertSelectOptionsNotEqual(String selectName,
             String[] expectedOptions) {
-        assertFormElementPresent(selectName);
+        record("assertSelectOptionsNotEqual", selectName, expectedOptions);
         try {
-            assertSelectOptionsEqual(selectName, expectedOptions);
-        } catch (AssertionError e) {
-            return;
+            assertFormElementPresent(selectName);
+            try {
+                assertSelectOptionsEqual(selectName, expectedOptions);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Options not expected to be equal");
+        } finally {
+            exit();
         }
-        fail("Options not expected to be equal");
     }
 
     /**
@@ -1486,13 +2207,18 @@ public class WebTester {
      */
     public void assertSelectOptionsNotEqual(String selectName, int index,
             String[] expectedOptions) {
-        assertFormElementPresent(selectName);
+        record("assertSelectOptionsNotEqual", selectName, index, expectedOptions);
         try {
-            assertSelectOptionsEqual(selectName, index, expectedOptions);
-        } catch (AssertionError e) {
-            return;
+            assertFormElementPresent(selectName);
+            try {
+                assertSelectOptionsEqual(selectName, index, expectedOptions);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Options not expected to be equal");
+        } finally {
+            exit();
         }
-        fail("Options not expected to be equal");
     }
 
 
@@ -1507,10 +2233,14 @@ public class WebTester {
      */
     public void assertSelectOptionValuesEqual(String selectName, int index,
             String[] expectedValues) {
-        assertFormElementPresent(selectName);
-        assertArraysEqual(expectedValues, getTestingEngine()
-                .getSelectOptionValues(selectName, index));
-
+        record("assertSelectOptionValuesEqual", selectName, index, expectedValues);
+        try {
+            assertFormElementPresent(selectName);
+            assertArraysEqual(expectedValues, engine()
+                    .getSelectOptionValues(selectName, index));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1521,10 +2251,14 @@ public class WebTester {
      */
     public void assertSelectOptionValuesEqual(String selectName,
             String[] expectedValues) {
-        assertFormElementPresent(selectName);
-        assertArraysEqual(expectedValues, getTestingEngine()
-                .getSelectOptionValues(selectName));
-
+        record("assertSelectOptionValuesEqual", selectName, expectedValues);
+        try {
+            assertFormElementPresent(selectName);
+            assertArraysEqual(expectedValues, engine()
+                    .getSelectOptionValues(selectName));
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1536,13 +2270,18 @@ public class WebTester {
      */
     public void assertSelectOptionValuesNotEqual(String selectName,
             String[] optionValues) {
-        assertFormElementPresent(selectName);
+        record("assertSelectOptionValuesNotEqual", selectName, optionValues);
         try {
-            assertSelectOptionValuesEqual(selectName, optionValues);
-        } catch (AssertionError e) {
-            return;
+            assertFormElementPresent(selectName);
+            try {
+                assertSelectOptionValuesEqual(selectName, optionValues);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Values not expected to be equal");
+        } finally {
+            exit();
         }
-        fail("Values not expected to be equal");
     }
 
     /**
@@ -1556,13 +2295,18 @@ public class WebTester {
      */
     public void assertSelectOptionValuesNotEqual(String selectName, int index,
             String[] optionValues) {
-        assertFormElementPresent(selectName);
+        record("assertSelectOptionValuesNotEqual", selectName, index, optionValues);
         try {
-            assertSelectOptionValuesEqual(selectName, index, optionValues);
-        } catch (AssertionError e) {
-            return;
+            assertFormElementPresent(selectName);
+            try {
+                assertSelectOptionValuesEqual(selectName, index, optionValues);
+            } catch (AssertionError e) {
+                return;
+            }
+            fail("Values not expected to be equal");
+        } finally {
+            exit();
         }
-        fail("Values not expected to be equal");
     }
 
 
@@ -1573,16 +2317,21 @@ public class WebTester {
      * @param labels expected display label(s) of the selected option.
      */
     public void assertSelectedOptionsEqual(String selectName, String[] labels) {
-        assertFormElementPresent(selectName);
-        assertEquals(labels.length, getTestingEngine()
-                .getSelectedOptions(selectName).length);
-        for (int i = 0; i < labels.length; i++)
-            assertEquals(labels[i],
-                    getTestingEngine()
-                            .getSelectOptionLabelForValue(
-                                    selectName,
-                                    getTestingEngine().getSelectedOptions(
-                                            selectName)[i]));
+        record("assertSelectedOptionsEqual", selectName, labels);
+        try {
+            assertFormElementPresent(selectName);
+            assertEquals(labels.length, engine()
+                    .getSelectedOptions(selectName).length);
+            for (int i = 0; i < labels.length; i++)
+                assertEquals(labels[i],
+                        engine()
+                                .getSelectOptionLabelForValue(
+                                        selectName,
+                                        engine().getSelectedOptions(
+                                                selectName)[i]));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1594,16 +2343,21 @@ public class WebTester {
      * @param labels expected display label(s) of the selected option.
      */
     public void assertSelectedOptionsEqual(String selectName, int index, String[] labels) {
-        assertFormElementPresent(selectName);
-        assertEquals(labels.length, getTestingEngine()
-                .getSelectedOptions(selectName, index).length);
-        for (int i = 0; i < labels.length; i++)
-            assertEquals(labels[i],
-                    getTestingEngine()
-                            .getSelectOptionLabelForValue(
-                                    selectName, index,
-                                    getTestingEngine().getSelectedOptions(
-                                            selectName, index)[i]));
+        record("assertSelectedOptionsEqual", selectName, index, labels);
+        try {
+            assertFormElementPresent(selectName);
+            assertEquals(labels.length, engine()
+                    .getSelectedOptions(selectName, index).length);
+            for (int i = 0; i < labels.length; i++)
+                assertEquals(labels[i],
+                        engine()
+                                .getSelectOptionLabelForValue(
+                                        selectName, index,
+                                        engine().getSelectedOptions(
+                                                selectName, index)[i]));
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1615,7 +2369,12 @@ public class WebTester {
      * @param optionLabel expected value of the option label
      */
     public void assertSelectedOptionEquals(String selectName, String optionLabel) {
-        assertSelectedOptionsEqual(selectName, new String[] { optionLabel });
+        record("assertSelectedOptionEquals", selectName, optionLabel);
+        try {
+            assertSelectedOptionsEqual(selectName, new String[] { optionLabel });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1627,7 +2386,12 @@ public class WebTester {
      * @param optionLabel expected value of the option label
      */
     public void assertSelectedOptionEquals(String selectName, int index, String option) {
-        assertSelectedOptionsEqual(selectName, index, new String[] { option });
+        record("assertSelectedOptionEquals", selectName, index, option);
+        try {
+            assertSelectedOptionsEqual(selectName, index, new String[] { option });
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1639,12 +2403,17 @@ public class WebTester {
      */
     public void assertSelectedOptionValuesEqual(String selectName,
             String[] values) {
-        assertFormElementPresent(selectName);
-        assertEquals(values.length, getTestingEngine()
-                .getSelectedOptions(selectName).length);
-        for (int i = 0; i < values.length; i++)
-            assertEquals(values[i], getTestingEngine()
-                    .getSelectedOptions(selectName)[i]);
+        record("assertSelectedOptionValuesEqual", selectName, values);
+        try {
+            assertFormElementPresent(selectName);
+            assertEquals(values.length, engine()
+                    .getSelectedOptions(selectName).length);
+            for (int i = 0; i < values.length; i++)
+                assertEquals(values[i], engine()
+                        .getSelectedOptions(selectName)[i]);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1658,12 +2427,17 @@ public class WebTester {
      */
     public void assertSelectedOptionValuesEqual(String selectName,
             int index, String[] values) {
-        assertFormElementPresent(selectName);
-        assertEquals(values.length, getTestingEngine()
-                .getSelectedOptions(selectName, index).length);
-        for (int i = 0; i < values.length; i++)
-            assertEquals(values[i], getTestingEngine()
-                    .getSelectedOptions(selectName, index)[i]);
+        record("assertSelectedOptionValuesEqual", selectName, index, values);
+        try {
+            assertFormElementPresent(selectName);
+            assertEquals(values.length, engine()
+                    .getSelectedOptions(selectName, index).length);
+            for (int i = 0; i < values.length; i++)
+                assertEquals(values[i], engine()
+                        .getSelectedOptions(selectName, index)[i]);
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1674,7 +2448,12 @@ public class WebTester {
      * @param value expected value of the selected option.
      */
     public void assertSelectedOptionValueEquals(String selectName, String value) {
-        assertSelectedOptionValuesEqual(selectName, new String[] { value });
+        record("assertSelectedOptionValueEquals", selectName, value);
+        try {
+            assertSelectedOptionValuesEqual(selectName, new String[] { value });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1686,7 +2465,12 @@ public class WebTester {
      * @param value expected value of the selected option.
      */
     public void assertSelectedOptionValueEquals(String selectName, int index, String value) {
-        assertSelectedOptionValuesEqual(selectName, index, new String[] { value });
+        record("assertSelectedOptionValueEquals", selectName, index, value);
+        try {
+            assertSelectedOptionValuesEqual(selectName, index, new String[] { value });
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1698,16 +2482,17 @@ public class WebTester {
      * @param regexps expected display value of the selected option.
      */
     public void assertSelectedOptionsMatch(String selectName, String[] regexps) {
-        assertFormElementPresent(selectName);
-        assertEquals(regexps.length, getTestingEngine()
-                .getSelectedOptions(selectName).length);
-        for (int i = 0; i < regexps.length; i++) {
-            RE re = getRE(regexps[i]);
-            assertTrue("Unable to match [" + regexps[i]
-                    + "] in option \""
-                    + getTestingEngine().getSelectedOptions(selectName)[i]
-                    + "\"", re.match(getTestingEngine().getSelectedOptions(
-                    selectName)[i]));
+        record("assertSelectedOptionsMatch", selectName, regexps);
+        try {
+            assertFormElementPresent(selectName);
+            String[] selected = engine().getSelectedOptions(selectName);
+            assertEquals(regexps.length, selected.length);
+            for (int i = 0; i < regexps.length; i++) {
+                if (!find(regexps[i], selected[i]))
+                    fail("Unable to match [" + regexps[i] + "] in option \"" + selected[i] + "\"");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1720,16 +2505,17 @@ public class WebTester {
      * @param regexps expected display value of the selected option.
      */
     public void assertSelectedOptionsMatch(String selectName, int index, String[] regexps) {
-        assertFormElementPresent(selectName);
-        assertEquals(regexps.length, getTestingEngine()
-                .getSelectedOptions(selectName, index).length);
-        for (int i = 0; i < regexps.length; i++) {
-            RE re = getRE(regexps[i]);
-            assertTrue("Unable to match [" + regexps[i]
-                    + "] in option \""
-                    + getTestingEngine().getSelectedOptions(selectName, index)[i]
-                    + "\" at index " + index, re.match(getTestingEngine().getSelectedOptions(
-                    selectName, index)[i]));
+        record("assertSelectedOptionsMatch", selectName, index, regexps);
+        try {
+            assertFormElementPresent(selectName);
+            String[] selected = engine().getSelectedOptions(selectName, index);
+            assertEquals(regexps.length, selected.length);
+            for (int i = 0; i < regexps.length; i++) {
+                if (!find(regexps[i], selected[i]))
+                    fail("Unable to match [" + regexps[i] + "] in option \"" + selected[i] + "\" at index " + index);
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -1742,7 +2528,12 @@ public class WebTester {
      * @param regexp the regular expression to match
      */
     public void assertSelectedOptionMatches(String selectName, String regexp) {
-        assertSelectedOptionsMatch(selectName, new String[] { regexp });
+        record("assertSelectedOptionMatches", selectName, regexp);
+        try {
+            assertSelectedOptionsMatch(selectName, new String[] { regexp });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1754,7 +2545,12 @@ public class WebTester {
      * @param regexp the regular expression to match
      */
     public void assertSelectedOptionMatches(String selectName, int index, String regexp) {
-        assertSelectedOptionsMatch(selectName, index, new String[] { regexp });
+        record("assertSelectedOptionMatches", selectName, index, regexp);
+        try {
+            assertSelectedOptionsMatch(selectName, index, new String[] { regexp });
+        } finally {
+            exit();
+        }
     }
 
 
@@ -1768,8 +2564,13 @@ public class WebTester {
      *
      */
     public void assertSubmitButtonPresent() {
-        assertTrue("no submit button found.", getTestingEngine()
-                .hasSubmitButton());
+        record("assertSubmitButtonPresent");
+        try {
+            assertTrue("no submit button found.", engine()
+                    .hasSubmitButton());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1784,8 +2585,13 @@ public class WebTester {
      * @param buttonName
      */
     public void assertSubmitButtonPresent(String buttonName) {
-        assertTrue("Submit Button [" + buttonName + "] not found.",
-                getTestingEngine().hasSubmitButton(buttonName));
+        record("assertSubmitButtonPresent", buttonName);
+        try {
+            assertTrue("Submit Button [" + buttonName + "] not found.",
+                    engine().hasSubmitButton(buttonName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1800,8 +2606,13 @@ public class WebTester {
      * @param buttonName
      */
     public void assertSubmitButtonNotPresent() {
-        assertFalse("Submit Button found.", getTestingEngine()
-                .hasSubmitButton());
+        record("assertSubmitButtonNotPresent");
+        try {
+            assertFalse("Submit Button found.", engine()
+                    .hasSubmitButton());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1816,8 +2627,13 @@ public class WebTester {
      * @param buttonName
      */
     public void assertSubmitButtonNotPresent(String buttonName) {
-        assertFalse("Submit Button [" + buttonName + "] found.",
-                getTestingEngine().hasSubmitButton(buttonName));
+        record("assertSubmitButtonNotPresent", buttonName);
+        try {
+            assertFalse("Submit Button [" + buttonName + "] found.",
+                    engine().hasSubmitButton(buttonName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1833,9 +2649,14 @@ public class WebTester {
      * @param buttonValue
      */
     public void assertSubmitButtonPresent(String buttonName, String buttonValue) {
-        assertTrue("Submit Button [" + buttonName + "] with value ["
-                + buttonValue + "] not found.", getTestingEngine()
-                .hasSubmitButton(buttonName, buttonValue));
+        record("assertSubmitButtonPresent", buttonName, buttonValue);
+        try {
+            assertTrue("Submit Button [" + buttonName + "] with value ["
+                    + buttonValue + "] not found.", engine()
+                    .hasSubmitButton(buttonName, buttonValue));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1847,8 +2668,13 @@ public class WebTester {
      *
      */
     public void assertResetButtonPresent() {
-        assertTrue("no reset button found.", getTestingEngine()
-                .hasResetButton());
+        record("assertResetButtonPresent");
+        try {
+            assertTrue("no reset button found.", engine()
+                    .hasResetButton());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1861,8 +2687,13 @@ public class WebTester {
      * @param buttonName
      */
     public void assertResetButtonPresent(String buttonName) {
-        assertTrue("Reset Button [" + buttonName + "] not found.",
-                getTestingEngine().hasResetButton(buttonName));
+        record("assertResetButtonPresent", buttonName);
+        try {
+            assertTrue("Reset Button [" + buttonName + "] not found.",
+                    engine().hasResetButton(buttonName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1876,8 +2707,13 @@ public class WebTester {
      * @param buttonName
      */
     public void assertResetButtonNotPresent() {
-        assertFalse("Reset Button found.", getTestingEngine()
-                .hasResetButton());
+        record("assertResetButtonNotPresent");
+        try {
+            assertFalse("Reset Button found.", engine()
+                    .hasResetButton());
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1891,8 +2727,13 @@ public class WebTester {
      * @param buttonName
      */
     public void assertResetButtonNotPresent(String buttonName) {
-        assertFalse("Reset Button [" + buttonName + "] found.",
-                getTestingEngine().hasResetButton(buttonName));
+        record("assertResetButtonNotPresent", buttonName);
+        try {
+            assertFalse("Reset Button [" + buttonName + "] found.",
+                    engine().hasResetButton(buttonName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1906,8 +2747,13 @@ public class WebTester {
      * @param buttonId
      */
     public void assertButtonPresent(String buttonId) {
-        assertTrue("Button [" + buttonId + "] not found.", getTestingEngine()
-                .hasButton(buttonId));
+        record("assertButtonPresent", buttonId);
+        try {
+            assertTrue("Button [" + buttonId + "] not found.", engine()
+                    .hasButton(buttonId));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1916,8 +2762,13 @@ public class WebTester {
      * @param text Text representation of button content.
      */
     public void assertButtonPresentWithText(String text) {
-        assertTrue("Did not find button with text [" + text + "].",
-                getTestingEngine().hasButtonWithText(text));
+        record("assertButtonPresentWithText", text);
+        try {
+            assertTrue("Did not find button with text [" + text + "].",
+                    engine().hasButtonWithText(text));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1926,8 +2777,13 @@ public class WebTester {
      * @param text Text representation of button content.
      */
     public void assertButtonNotPresentWithText(String text) {
-        assertFalse("Found button with text [" + text + "].",
-                getTestingEngine().hasButtonWithText(text));
+        record("assertButtonNotPresentWithText", text);
+        try {
+            assertFalse("Found button with text [" + text + "].",
+                    engine().hasButtonWithText(text));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1936,9 +2792,14 @@ public class WebTester {
      * @param buttonId
      */
     public void assertButtonNotPresent(String buttonId) {
-        assertFalse(
-                "Button [" + buttonId + "] found when not expected.",
-                getTestingEngine().hasButton(buttonId));
+        record("assertButtonNotPresent", buttonId);
+        try {
+            assertFalse(
+                    "Button [" + buttonId + "] found when not expected.",
+                    engine().hasButton(buttonId));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1947,8 +2808,13 @@ public class WebTester {
      * @param linkId
      */
     public void assertLinkPresent(String linkId) {
-        assertTrue("Unable to find link with id [" + linkId + "]",
-                getTestingEngine().hasLink(linkId));
+        record("assertLinkPresent", linkId);
+        try {
+            assertTrue("Unable to find link with id [" + linkId + "]",
+                    engine().hasLink(linkId));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1957,8 +2823,13 @@ public class WebTester {
      * @param linkId
      */
     public void assertLinkNotPresent(String linkId) {
-        assertTrue("link with id [" + linkId + "] found in response",
-                !getTestingEngine().hasLink(linkId));
+        record("assertLinkNotPresent", linkId);
+        try {
+            assertTrue("link with id [" + linkId + "] found in response",
+                    !engine().hasLink(linkId));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1967,9 +2838,14 @@ public class WebTester {
      * @param linkText
      */
     public void assertLinkPresentWithText(String linkText) {
-        assertTrue("Link with text [" + linkText
-                + "] not found in response.", getTestingEngine()
-                .hasLinkWithText(linkText, 0));
+        record("assertLinkPresentWithText", linkText);
+        try {
+            assertTrue("Link with text [" + linkText
+                    + "] not found in response.", engine()
+                    .hasLinkWithText(linkText, 0));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1978,9 +2854,14 @@ public class WebTester {
      * @param linkText
      */
     public void assertLinkNotPresentWithText(String linkText) {
-        assertTrue("Link with text [" + linkText
-                + "] found in response.", !getTestingEngine().hasLinkWithText(
-                linkText, 0));
+        record("assertLinkNotPresentWithText", linkText);
+        try {
+            assertTrue("Link with text [" + linkText
+                    + "] found in response.", !engine().hasLinkWithText(
+                    linkText, 0));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -1990,9 +2871,14 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same text is expected.
      */
     public void assertLinkPresentWithText(String linkText, int index) {
-        assertTrue("Link with text [" + linkText + "] and index ["
-                + index + "] not found in response.", getTestingEngine()
-                .hasLinkWithText(linkText, index));
+        record("assertLinkPresentWithText", linkText, index);
+        try {
+            assertTrue("Link with text [" + linkText + "] and index ["
+                    + index + "] not found in response.", engine()
+                    .hasLinkWithText(linkText, index));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2002,9 +2888,14 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same text is expected.
      */
     public void assertLinkNotPresentWithText(String linkText, int index) {
-        assertTrue("Link with text [" + linkText + "] and index "
-                + index + " found in response.", !getTestingEngine()
-                .hasLinkWithText(linkText, index));
+        record("assertLinkNotPresentWithText", linkText, index);
+        try {
+            assertTrue("Link with text [" + linkText + "] and index "
+                    + index + " found in response.", !engine()
+                    .hasLinkWithText(linkText, index));
+        } finally {
+            exit();
+        }
     }
 
     // BEGIN RFE 996031...
@@ -2015,9 +2906,14 @@ public class WebTester {
      * @param linkText
      */
     public void assertLinkPresentWithExactText(String linkText) {
-        assertTrue("Link with Exact text [" + linkText
-                + "] not found in response.", getTestingEngine()
-                .hasLinkWithExactText(linkText, 0));
+        record("assertLinkPresentWithExactText", linkText);
+        try {
+            assertTrue("Link with Exact text [" + linkText
+                    + "] not found in response.", engine()
+                    .hasLinkWithExactText(linkText, 0));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2026,9 +2922,14 @@ public class WebTester {
      * @param linkText
      */
     public void assertLinkNotPresentWithExactText(String linkText) {
-        assertTrue("Link with Exact text [" + linkText
-                + "] found in response.", !getTestingEngine()
-                .hasLinkWithExactText(linkText, 0));
+        record("assertLinkNotPresentWithExactText", linkText);
+        try {
+            assertTrue("Link with Exact text [" + linkText
+                    + "] found in response.", !engine()
+                    .hasLinkWithExactText(linkText, 0));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2038,9 +2939,14 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same text is expected.
      */
     public void assertLinkPresentWithExactText(String linkText, int index) {
-        assertTrue("Link with Exact text [" + linkText + "] and index ["
-                + index + "] not found in response.", getTestingEngine()
-                .hasLinkWithExactText(linkText, index));
+        record("assertLinkPresentWithExactText", linkText, index);
+        try {
+            assertTrue("Link with Exact text [" + linkText + "] and index ["
+                    + index + "] not found in response.", engine()
+                    .hasLinkWithExactText(linkText, index));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2050,9 +2956,14 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same text is expected.
      */
     public void assertLinkNotPresentWithExactText(String linkText, int index) {
-        assertTrue("Link with Exact text [" + linkText + "] and index "
-                + index + " found in response.", !getTestingEngine()
-                .hasLinkWithExactText(linkText, index));
+        record("assertLinkNotPresentWithExactText", linkText, index);
+        try {
+            assertTrue("Link with Exact text [" + linkText + "] and index "
+                    + index + " found in response.", !engine()
+                    .hasLinkWithExactText(linkText, index));
+        } finally {
+            exit();
+        }
     }
 
     // END RFE 996031...
@@ -2064,9 +2975,14 @@ public class WebTester {
      *            you could just pass in <tt>"my_icon.png"</tt>.
      */
     public void assertLinkPresentWithImage(String imageFileName) {
-        assertTrue("Link with image file [" + imageFileName
-                + "] not found in response.", getTestingEngine()
-                .hasLinkWithImage(imageFileName, 0));
+        record("assertLinkPresentWithImage", imageFileName);
+        try {
+            assertTrue("Link with image file [" + imageFileName
+                    + "] not found in response.", engine()
+                    .hasLinkWithImage(imageFileName, 0));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2077,9 +2993,14 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same image is expected.
      */
     public void assertLinkPresentWithImage(String imageFileName, int index) {
-        assertTrue("Link with image file [" + imageFileName
-                + "] and index " + index + " not found in response.", getTestingEngine()
-                .hasLinkWithImage(imageFileName, index));
+        record("assertLinkPresentWithImage", imageFileName, index);
+        try {
+            assertTrue("Link with image file [" + imageFileName
+                    + "] and index " + index + " not found in response.", engine()
+                    .hasLinkWithImage(imageFileName, index));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2089,9 +3010,14 @@ public class WebTester {
      *            you could just pass in <tt>"my_icon.png"</tt>.
      */
     public void assertLinkNotPresentWithImage(String imageFileName) {
-        assertFalse("Link with image file [" + imageFileName
-                + "] found in response.", getTestingEngine().hasLinkWithImage(
-                imageFileName, 0));
+        record("assertLinkNotPresentWithImage", imageFileName);
+        try {
+            assertFalse("Link with image file [" + imageFileName
+                    + "] found in response.", engine().hasLinkWithImage(
+                    imageFileName, 0));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2102,9 +3028,39 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same image is expected.
      */
     public void assertLinkNotPresentWithImage(String imageFileName, int index) {
-        assertFalse("Link with image file [" + imageFileName
-                + "] and index " + index + " found in response.",
-                getTestingEngine().hasLinkWithImage(imageFileName, index));
+        record("assertLinkNotPresentWithImage", imageFileName, index);
+        try {
+            assertFalse("Link with image file [" + imageFileName
+                    + "] and index " + index + " found in response.",
+                    engine().hasLinkWithImage(imageFileName, index));
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that every same-origin link and form target reachable from the current page, up to 3 links
+     * away, can be fetched without error. The pages are checked in parallel by new instances of the
+     * testing engine, see {@link LinkCrawler}.
+     */
+    public void assertAllLinksValid() {
+        record("assertAllLinksValid");
+        try {
+            assertAllLinksValid(new LinkCrawler(getTestingEngineKey(), getTestContext()));
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that a crawl from the current page finds no broken link, and no slow page if the crawler
+     * has a slow page threshold.
+     *
+     * @param crawler the configured crawler
+     */
+    public void assertAllLinksValid(LinkCrawler crawler) {
+        CrawlReport report = crawler.crawl(engine().getPageURL());
+        assertTrue("Invalid links found: " + report, report.isValid());
     }
 
     /**
@@ -2113,8 +3069,13 @@ public class WebTester {
      * @param anID element id to test for.
      */
     public void assertElementPresent(String anID) {
-        assertTrue("Unable to locate element with id \"" + anID + "\"",
-                getTestingEngine().hasElement(anID));
+        record("assertElementPresent", anID);
+        try {
+            assertTrue("Unable to locate element with id \"" + anID + "\"",
+                    engine().hasElement(anID));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2123,8 +3084,13 @@ public class WebTester {
      * @param anID element id to test for.
      */
     public void assertElementNotPresent(String anID) {
-        assertFalse("Located element with id \"" + anID + "\"",
-                getTestingEngine().hasElement(anID));
+        record("assertElementNotPresent", anID);
+        try {
+            assertFalse("Located element with id \"" + anID + "\"",
+                    engine().hasElement(anID));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2133,8 +3099,13 @@ public class WebTester {
      * @param xpath element xpath to test for.
      */
     public void assertElementPresentByXPath(String xpath) {
-        assertTrue("Unable to locate element with xpath \"" + xpath
-                + "\"", getTestingEngine().hasElementByXPath(xpath));
+        record("assertElementPresentByXPath", xpath);
+        try {
+            assertTrue("Unable to locate element with xpath \"" + xpath
+                    + "\"", engine().hasElementByXPath(xpath));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2143,15 +3114,129 @@ public class WebTester {
      * @param xpath element xpath to test for.
      */
     public void assertElementNotPresentByXPath(String xpath) {
-        assertFalse("Located element with xpath \"" + xpath + "\"",
-                getTestingEngine().hasElementByXPath(xpath));
+        record("assertElementNotPresentByXPath", xpath);
+        try {
+            assertFalse("Located element with xpath \"" + xpath + "\"",
+                    engine().hasElementByXPath(xpath));
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the background JavaScript of the page makes some text appear within the given time.
+     * The page is checked again as soon as the testing engine reports a change, and otherwise with an
+     * exponential backoff, so the assertion passes as early as possible.
+     *
+     * @param text text to wait for.
+     * @param timeoutMillis maximum time to wait, in milliseconds.
+     */
+    public void assertTextPresentWithin(String text, long timeoutMillis) {
+        record("assertTextPresentWithin", text, timeoutMillis);
+        try {
+            if (!new EventualCondition(EventualCondition.Kind.TEXT_PRESENT, text).await(engine(),
+                    timeoutMillis))
+                fail("Expected text not found in current page within " + timeoutMillis + " ms: [" + text
+                        + "]\n Page content was: [" + FailureMessage.excerpt(engine().getPageText(), text)
+                        + "]");
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the background JavaScript of the page makes some text disappear within the given time,
+     * see {@link #assertTextPresentWithin(String, long)}.
+     *
+     * @param text text expected to disappear.
+     * @param timeoutMillis maximum time to wait, in milliseconds.
+     */
+    public void assertTextNotPresentWithin(String text, long timeoutMillis) {
+        record("assertTextNotPresentWithin", text, timeoutMillis);
+        try {
+            if (!new EventualCondition(EventualCondition.Kind.TEXT_NOT_PRESENT, text).await(engine(),
+                    timeoutMillis))
+                fail("Text still found in response after " + timeoutMillis + " ms: [" + text + "]");
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the background JavaScript of the page adds an element within the given time,
+     * see {@link #assertTextPresentWithin(String, long)}.
+     *
+     * @param anID element id to wait for.
+     * @param timeoutMillis maximum time to wait, in milliseconds.
+     */
+    public void assertElementPresentWithin(String anID, long timeoutMillis) {
+        record("assertElementPresentWithin", anID, timeoutMillis);
+        try {
+            assertTrue("Unable to locate element with id \"" + anID + "\" within " + timeoutMillis + " ms",
+                    new EventualCondition(EventualCondition.Kind.ELEMENT_PRESENT, anID).await(engine(),
+                            timeoutMillis));
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the background JavaScript of the page removes an element within the given time,
+     * see {@link #assertTextPresentWithin(String, long)}.
+     *
+     * @param anID element id expected to disappear.
+     * @param timeoutMillis maximum time to wait, in milliseconds.
+     */
+    public void assertElementNotPresentWithin(String anID, long timeoutMillis) {
+        record("assertElementNotPresentWithin", anID, timeoutMillis);
+        try {
+            assertTrue("Element with id \"" + anID + "\" still present after " + timeoutMillis + " ms",
+                    new EventualCondition(EventualCondition.Kind.ELEMENT_NOT_PRESENT, anID).await(engine(),
+                            timeoutMillis));
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Assert that the background JavaScript of the page adds an element matching an xpath within the
+     * given time, see {@link #assertTextPresentWithin(String, long)}.
+     *
+     * @param xpath element xpath to wait for.
+     * @param timeoutMillis maximum time to wait, in milliseconds.
+     */
+    public void assertElementPresentByXPathWithin(String xpath, long timeoutMillis) {
+        record("assertElementPresentByXPathWithin", xpath, timeoutMillis);
+        try {
+            assertTrue("Unable to locate element with xpath \"" + xpath + "\" within " + timeoutMillis + " ms",
+                    new EventualCondition(EventualCondition.Kind.ELEMENT_PRESENT_BY_XPATH, xpath).await(
+                            engine(), timeoutMillis));
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Let the JavaScript timers of the page run as if some time had passed. With
+     * {@link TestContext#setJavaScriptTimeWarp(boolean) getTestContext().setJavaScriptTimeWarp(true)}, set before
+     * beginning at a page, the timers due meanwhile run instantly and in order.
+     *
+     * @param millis time to move forward, in milliseconds.
+     */
+    public void advanceJavaScriptClock(long millis) {
+        record("advanceJavaScriptClock", millis);
+        try {
+            engine().advanceJavaScriptClock(millis);
+        } finally {
+            exit();
+        }
     }
 
     /**
      * Get all the comments in a document, as a list of strings.
      */
     public List<String> getComments() {
-      return getTestingEngine().getComments();
+      return engine().getComments();
     }
 
     /**
@@ -2160,7 +3245,12 @@ public class WebTester {
      * @param comment
      */
     public void assertCommentPresent(String comment) {
-      assertTrue("Comment present: '" + comment + "'", getComments().contains(comment.trim()));
+      record("assertCommentPresent", comment);
+      try {
+          assertTrue("Comment present: '" + comment + "'", getComments().contains(comment.trim()));
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -2169,7 +3259,12 @@ public class WebTester {
      * @param comment
      */
     public void assertCommentNotPresent(String comment) {
-      assertFalse("Comment not present: '" + comment + "'", getComments().contains(comment.trim()));
+      record("assertCommentNotPresent", comment);
+      try {
+          assertFalse("Comment not present: '" + comment + "'", getComments().contains(comment.trim()));
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -2179,20 +3274,30 @@ public class WebTester {
      * @param text to check for.
      */
     public void assertTextInElement(String elementID, String text) {
-        assertTrue("Unable to locate element with id \"" + elementID
-                + "\"", getTestingEngine().hasElement(elementID));
-        assertTrue("Unable to locate [" + text + "] in element \""
-                + elementID + "\"", getTestingEngine()
-                .isTextInElement(elementID, text));
+        record("assertTextInElement", elementID, text);
+        try {
+            assertTrue("Unable to locate element with id \"" + elementID
+                    + "\"", engine().hasElement(elementID));
+            assertTrue("Unable to locate [" + text + "] in element \""
+                    + elementID + "\"", engine()
+                    .isTextInElement(elementID, text));
+        } finally {
+            exit();
+        }
     }
 
     public void assertTextNotInElement(String elementID, String text) {
-        assertElementPresent(elementID);
-        assertTrue("Unable to locate element with id \"" + elementID
-                + "\"", getTestingEngine().hasElement(elementID));
-        assertFalse("Text [" + text + "] found in element [" + elementID
-                + "] when not expected", getTestingEngine().isTextInElement(
-                elementID, text));
+        record("assertTextNotInElement", elementID, text);
+        try {
+            assertElementPresent(elementID);
+            assertTrue("Unable to locate element with id \"" + elementID
+                    + "\"", engine().hasElement(elementID));
+            assertFalse("Text [" + text + "] found in element [" + elementID
+                    + "] when not expected", engine().isTextInElement(
+                    elementID, text));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2202,11 +3307,15 @@ public class WebTester {
      * @param regexp to match.
      */
     public void assertMatchInElement(String elementID, String regexp) {
-        assertTrue("Unable to locate element with id \"" + elementID
-                + "\"", getTestingEngine().hasElement(elementID));
-        assertTrue("Unable to match [" + regexp + "] in element \""
-                + elementID + "\"", getTestingEngine().isMatchInElement(
-                elementID, regexp));
+        record("assertMatchInElement", elementID, regexp);
+        try {
+            assertTrue("Unable to locate element with id \"" + elementID
+                    + "\"", engine().hasElement(elementID));
+            assertTrue("Unable to match [" + regexp + "] in element \""
+                    + elementID + "\"", isMatchInElement(elementID, regexp));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2216,12 +3325,16 @@ public class WebTester {
      * @param regexp to match.
      */
     public void assertNoMatchInElement(String elementID, String regexp) {
-        assertElementPresent(elementID);
-        assertTrue("Unable to locate element with id \"" + elementID
-                + "\"", getTestingEngine().hasElement(elementID));
-        assertFalse("Regexp [" + regexp + "] matched in element ["
-                + elementID + "] when not expected", getTestingEngine()
-                .isMatchInElement(elementID, regexp));
+        record("assertNoMatchInElement", elementID, regexp);
+        try {
+            assertElementPresent(elementID);
+            assertTrue("Unable to locate element with id \"" + elementID
+                    + "\"", engine().hasElement(elementID));
+            assertFalse("Regexp [" + regexp + "] matched in element ["
+                    + elementID + "] when not expected", isMatchInElement(elementID, regexp));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2230,8 +3343,13 @@ public class WebTester {
      * @param windowName
      */
     public void assertWindowPresent(String windowName) {
-        assertTrue("Unable to locate window [" + windowName + "].",
-                getTestingEngine().hasWindow(windowName));
+        record("assertWindowPresent", windowName);
+        try {
+            assertTrue("Unable to locate window [" + windowName + "].",
+                    engine().hasWindow(windowName));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2240,8 +3358,13 @@ public class WebTester {
      * @param windowID Javascript window ID.
      */
     public void assertWindowPresent(int windowID) {
-        assertTrue("There is no window with index [" + windowID + "].",
-                getTestingEngine().getWindowCount() > windowID);
+        record("assertWindowPresent", windowID);
+        try {
+            assertTrue("There is no window with index [" + windowID + "].",
+                    engine().getWindowCount() > windowID);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2250,9 +3373,14 @@ public class WebTester {
      * @param title
      */
     public void assertWindowPresentWithTitle(String title) {
-        assertTrue(
-                "Unable to locate window with title [" + title + "].",
-                getTestingEngine().hasWindowByTitle(title));
+        record("assertWindowPresentWithTitle", title);
+        try {
+            assertTrue(
+                    "Unable to locate window with title [" + title + "].",
+                    engine().hasWindowByTitle(title));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2261,10 +3389,15 @@ public class WebTester {
      * @param windowCount Window count
      */
     public void assertWindowCountEquals(int windowCount) {
-        assertTrue("Window count is "
-                        + getTestingEngine().getWindowCount() + " but "
-                        + windowCount + " was expected.", getTestingEngine()
-                        .getWindowCount() == windowCount);
+        record("assertWindowCountEquals", windowCount);
+        try {
+            assertTrue("Window count is "
+                            + engine().getWindowCount() + " but "
+                            + windowCount + " was expected.", engine()
+                            .getWindowCount() == windowCount);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2273,24 +3406,29 @@ public class WebTester {
      * @param frameNameOrId Name or ID of the frame. ID is checked first.
      */
     public void assertFramePresent(String frameNameOrId) {
-        assertTrue("Unable to locate frame with name or ID ["
-                + frameNameOrId + "].", getTestingEngine().hasFrame(
-                frameNameOrId));
+        record("assertFramePresent", frameNameOrId);
+        try {
+            assertTrue("Unable to locate frame with name or ID ["
+                    + frameNameOrId + "].", engine().hasFrame(
+                    frameNameOrId));
+        } finally {
+            exit();
+        }
     }
 
     /**
      * Checks to see if a cookie is present in the response.
      *
      * @param cookieName The cookie name
-     */
-    public void assertCookiePresent(String cookieName) {
-        List<?> cookies = getTestingEngine().getCookies();
-        for (Iterator<?> i = cookies.iterator(); i.hasNext();) {
-            if (((Cookie) i.next()).getName().equals(cookieName)) {
-                return;
-            }
+     */
+    public void assertCookiePresent(String cookieName) {
+        record("assertCookiePresent", cookieName);
+        try {
+            assertTrue("Could not find Cookie with name [" + cookieName + "]",
+                    engine().hasCookie(cookieName));
+        } finally {
+            exit();
         }
-        fail("Could not find Cookie with name [" + cookieName + "]");
     }
 
     /**
@@ -2300,15 +3438,19 @@ public class WebTester {
      * @param expectedValue The cookie value
      */
     public void assertCookieValueEquals(String cookieName, String expectedValue) {
-        assertCookiePresent(cookieName);
-        List<?> cookies = getTestingEngine().getCookies();
-        for (Iterator<?> i = cookies.iterator(); i.hasNext();) {
-            Cookie c = (Cookie) i.next();
-            if (c.getName().equals(cookieName) && c.getValue().equals(expectedValue)) {
-                return;
+        record("assertCookieValueEquals", cookieName, expectedValue);
+        try {
+            List<Cookie> cookies = engine().getCookies(cookieName);
+            assertFalse("Could not find Cookie with name [" + cookieName + "]", cookies.isEmpty());
+            for (Cookie c : cookies) {
+                if (c.getValue().equals(expectedValue)) {
+                    return;
+                }
             }
+            fail("Could not find cookie with name [" + cookieName + "] and value [" + expectedValue + "]");
+        } finally {
+            exit();
         }
-        fail("Could not find cookie with name [" + cookieName + "] and value [" + expectedValue + "]");
     }
 
     /**
@@ -2318,22 +3460,19 @@ public class WebTester {
      * @param regexp The regexp
      */
     public void assertCookieValueMatch(String cookieName, String regexp) {
-        assertCookiePresent(cookieName);
-        RE re = null;
+        record("assertCookieValueMatch", cookieName, regexp);
         try {
-            re = new RE(regexp, RE.MATCH_SINGLELINE);
-        } catch (RESyntaxException e) {
-            fail(e.getMessage());
-        }
-        List<?> cookies = getTestingEngine().getCookies();
-        for (Iterator<?> i = cookies.iterator(); i.hasNext();) {
-            Cookie c = (Cookie) i.next();
-            if (c.getName().equals(cookieName) &&
-                    re.match(c.getValue())) {
-                return;
+            List<Cookie> cookies = engine().getCookies(cookieName);
+            assertFalse("Could not find Cookie with name [" + cookieName + "]", cookies.isEmpty());
+            for (Cookie c : cookies) {
+                if (find(regexp, c.getValue())) {
+                    return;
+                }
             }
+            fail("Could not find cookie with name [" + cookieName + "] with value matching [" + regexp + "]");
+        } finally {
+            exit();
         }
-        fail("Could not find cookie with name [" + cookieName + "] with value matching [" + regexp + "]");
     }
 
     // Form interaction methods
@@ -2343,7 +3482,7 @@ public class WebTester {
      */
     public String getFormElementValue(String formElementName) {
         assertFormElementPresent(formElementName);
-        return getTestingEngine().getElementAttributByXPath(
+        return engine().getElementAttributByXPath(
                 "//input[@name='" + formElementName + "']", "value");
     }
 
@@ -2356,7 +3495,12 @@ public class WebTester {
      * @param index 0-based index of the form to work with.
      */
     public void setWorkingForm(int index) {
-        getTestingEngine().setWorkingForm(index);
+        record("setWorkingForm", index);
+        try {
+            engine().setWorkingForm(index);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2368,8 +3512,13 @@ public class WebTester {
      * @param nameOrId name or id of the form to work with.
      */
     public void setWorkingForm(String nameOrId) {
-        assertFormPresent(nameOrId);
-        getTestingEngine().setWorkingForm(nameOrId, 0);
+        record("setWorkingForm", nameOrId);
+        try {
+            assertFormPresent(nameOrId);
+            engine().setWorkingForm(nameOrId, 0);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2382,8 +3531,13 @@ public class WebTester {
      * @param index The 0-based index, when more than one form with the same name is expected.
      */
     public void setWorkingForm(String nameOrId, int index) {
-        assertFormPresent(nameOrId, index);
-        getTestingEngine().setWorkingForm(nameOrId, index);
+        record("setWorkingForm", nameOrId, index);
+        try {
+            assertFormPresent(nameOrId, index);
+            engine().setWorkingForm(nameOrId, index);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2393,8 +3547,13 @@ public class WebTester {
      * @param value value to set.
      */
     public void setTextField(String inputName, String value) {
-        assertFormElementPresent(inputName);
-        getTestingEngine().setTextField(inputName, value);
+        record("setTextField", inputName, value);
+        try {
+            assertFormElementPresent(inputName);
+            engine().setTextField(inputName, value);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2404,8 +3563,84 @@ public class WebTester {
      * @param value value to set.
      */
     public void setHiddenField(String inputName, String value) {
-        assertFormElementPresent(inputName);
-        getTestingEngine().setHiddenField(inputName, value);
+        record("setHiddenField", inputName, value);
+        try {
+            assertFormElementPresent(inputName);
+            engine().setHiddenField(inputName, value);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Set several fields of the working form at once, in the iteration order of the map (use a
+     * {@link LinkedHashMap} when the order matters). The fields are found in a single pass,
+     * which is much faster than setting them one by one on large forms. The value of a text, password or
+     * hidden field, or of a text area, is the value to set; for a select box, it is the value of the option to
+     * select, or else its label, and the other options are deselected; for radio buttons, the value of the option to select; checkboxes are checked if the value is their
+     * value or <code>true</code>, and unchecked otherwise. Fields not in the working form are searched in the
+     * whole page, as {@link #setTextField(String, String)} does. Null values are rejected.
+     *
+     * @param fields values of the fields, by name.
+     */
+    public void setFormFields(Map<String, String> fields) {
+        record("setFormFields", fields);
+        try {
+            List<String> failed = engine().setFormFields(fields);
+            assertTrue("Unable to set form fields " + failed, failed.isEmpty());
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Get the values of all the named controls of the working form, as they would be submitted, see
+     * {@link ITestingEngine#getFormState(String)}.
+     *
+     * @return the values of the controls by name, in document order.
+     */
+    public Map<String, String[]> getFormState() {
+        return engine().getFormState(null);
+    }
+
+    /**
+     * Assert that the controls of the working form have the given values, reading the whole form at once
+     * and reporting all the differences together. Values are compared as they would be submitted: the value of
+     * text fields and text areas, the value (not the label) of the selected option of a select box, and the
+     * value of the checked radio button. Multiple values, like the checked checkboxes of a group, are separated
+     * by commas, in document order; an empty string means that nothing is checked or selected.
+     *
+     * @param expected expected values, by control name.
+     */
+    public void assertFormEquals(Map<String, String> expected) {
+        record("assertFormEquals", expected);
+        try {
+            Map<String, String[]> state = engine().getFormState(null);
+            StringBuilder differences = new StringBuilder();
+            for (Map.Entry<String, String> field : expected.entrySet()) {
+                String[] values = state.get(field.getKey());
+                if (values == null) {
+                    differences.append("\n ").append(field.getKey()).append(": not found");
+                    continue;
+                }
+                StringBuilder actual = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        actual.append(',');
+                    }
+                    actual.append(values[i]);
+                }
+                if (!actual.toString().equals(field.getValue())) {
+                    differences.append("\n ").append(field.getKey()).append(": expected [").append(field.getValue())
+                            .append("] but was [").append(actual).append("]");
+                }
+            }
+            if (differences.length() > 0) {
+                fail("Form fields differ:" + differences);
+            }
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2414,8 +3649,13 @@ public class WebTester {
      * @param checkBoxName name of checkbox to be selected.
      */
     public void checkCheckbox(String checkBoxName) {
-        assertCheckboxPresent(checkBoxName);
-        getTestingEngine().checkCheckbox(checkBoxName);
+        record("checkCheckbox", checkBoxName);
+        try {
+            assertCheckboxPresent(checkBoxName);
+            engine().checkCheckbox(checkBoxName);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2425,8 +3665,13 @@ public class WebTester {
      * @param value value of checkbox to be selected.
      */
     public void checkCheckbox(String checkBoxName, String value) {
-        assertCheckboxPresent(checkBoxName);
-        getTestingEngine().checkCheckbox(checkBoxName, value);
+        record("checkCheckbox", checkBoxName, value);
+        try {
+            assertCheckboxPresent(checkBoxName);
+            engine().checkCheckbox(checkBoxName, value);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2435,8 +3680,13 @@ public class WebTester {
      * @param checkBoxName name of checkbox to be deselected.
      */
     public void uncheckCheckbox(String checkBoxName) {
-        assertFormElementPresent(checkBoxName);
-        getTestingEngine().uncheckCheckbox(checkBoxName);
+        record("uncheckCheckbox", checkBoxName);
+        try {
+            assertFormElementPresent(checkBoxName);
+            engine().uncheckCheckbox(checkBoxName);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2446,8 +3696,13 @@ public class WebTester {
      * @param value value of checkbox to be deselected.
      */
     public void uncheckCheckbox(String checkBoxName, String value) {
-        assertFormElementPresent(checkBoxName);
-        getTestingEngine().uncheckCheckbox(checkBoxName, value);
+        record("uncheckCheckbox", checkBoxName, value);
+        try {
+            assertFormElementPresent(checkBoxName);
+            engine().uncheckCheckbox(checkBoxName, value);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2457,8 +3712,14 @@ public class WebTester {
      * @param labels labels of options to be selected.
      */
     public void selectOptions(String selectName, String[] labels) {
-        assertSelectOptionsPresent(selectName, labels);
-        selectOptionsByLabel(selectName, labels);
+        record("selectOptions", selectName, labels);
+        try {
+            assertFormElementPresent(selectName);
+            engine().selectOptions(selectName,
+                    getOptionValuesFor(selectName, engine().getSelectOptions(selectName), labels));
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2468,7 +3729,12 @@ public class WebTester {
      * @param label label of option to be selected.
      */
     public void selectOption(String selectName, String label) {
-        selectOptions(selectName, new String[] { label });
+        record("selectOption", selectName, label);
+        try {
+            selectOptions(selectName, new String[] { label });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2480,7 +3746,12 @@ public class WebTester {
      * @param label label of option to be selected.
      */
     public void selectOption(String selectName, int index, String label) {
-        selectOptions(selectName, index, new String[] { label });
+        record("selectOption", selectName, index, label);
+        try {
+            selectOptions(selectName, index, new String[] { label });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2492,8 +3763,14 @@ public class WebTester {
      * @param labels labels of options to be selected.
      */
     public void selectOptions(String selectName, int index, String[] labels) {
-        assertSelectOptionsPresent(selectName, index, labels);
-        selectOptionsByLabel(selectName, index, labels);
+        record("selectOptions", selectName, index, labels);
+        try {
+            assertFormElementPresent(selectName);
+            engine().selectOptions(selectName, index,
+                    getOptionValuesFor(selectName, engine().getSelectOptions(selectName, index), labels));
+        } finally {
+            exit();
+        }
     }
 
 
@@ -2504,8 +3781,13 @@ public class WebTester {
      * @param values values of options to be selected.
      */
     public void selectOptionsByValues(String selectName, String[] values) {
-        assertSelectOptionValuesPresent(selectName, values);
-        getTestingEngine().selectOptions(selectName, values);
+        record("selectOptionsByValues", selectName, values);
+        try {
+            assertSelectOptionValuesPresent(selectName, values);
+            engine().selectOptions(selectName, values);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2517,7 +3799,12 @@ public class WebTester {
      * @param values values of options to be selected.
      */
     public void selectOptionByValue(String selectName, String value) {
-        selectOptionsByValues(selectName, new String[] { value });
+        record("selectOptionByValue", selectName, value);
+        try {
+            selectOptionsByValues(selectName, new String[] { value });
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2529,8 +3816,13 @@ public class WebTester {
      * @param values values of options to be selected.
      */
     public void selectOptionsByValues(String selectName, int index, String[] values) {
-        assertSelectOptionValuesPresent(selectName, index, values);
-        getTestingEngine().selectOptions(selectName, index, values);
+        record("selectOptionsByValues", selectName, index, values);
+        try {
+            assertSelectOptionValuesPresent(selectName, index, values);
+            engine().selectOptions(selectName, index, values);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2540,7 +3832,12 @@ public class WebTester {
      * @param values values of options to be selected.
      */
     public void selectOptionByValue(String selectName, int index, String value) {
-        selectOptionsByValues(selectName, index, new String[] { value });
+        record("selectOptionByValue", selectName, index, value);
+        try {
+            selectOptionsByValues(selectName, index, new String[] { value });
+        } finally {
+            exit();
+        }
     }
 
 
@@ -2551,8 +3848,13 @@ public class WebTester {
      * the form.
      */
     public void submit() {
-        assertSubmitButtonPresent();
-        getTestingEngine().submit();
+        record("submit");
+        try {
+            assertSubmitButtonPresent();
+            engine().submit();
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2561,8 +3863,13 @@ public class WebTester {
      * @param buttonName Submit button name attribut value.
      */
     public void submit(String buttonName) {
-        assertSubmitButtonPresent(buttonName);
-        getTestingEngine().submit(buttonName);
+        record("submit", buttonName);
+        try {
+            assertSubmitButtonPresent(buttonName);
+            engine().submit(buttonName);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2573,8 +3880,13 @@ public class WebTester {
      * @param buttonValue Submit button value attribut value.
      */
     public void submit(String buttonName, String buttonValue) {
-        assertSubmitButtonPresent(buttonName, buttonValue);
-        getTestingEngine().submit(buttonName, buttonValue);
+        record("submit", buttonName, buttonValue);
+        try {
+            assertSubmitButtonPresent(buttonName, buttonValue);
+            engine().submit(buttonName, buttonValue);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2582,8 +3894,13 @@ public class WebTester {
      * form is established.
      */
     public void reset() {
-        assertResetButtonPresent();
-        getTestingEngine().reset();
+        record("reset");
+        try {
+            assertResetButtonPresent();
+            engine().reset();
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2592,8 +3909,13 @@ public class WebTester {
      * @param linkText Text in the link.
      */
     public void clickLinkWithText(String linkText) {
-        assertLinkPresentWithText(linkText);
-        getTestingEngine().clickLinkWithText(linkText, 0);
+        record("clickLinkWithText", linkText);
+        try {
+            assertLinkPresentWithText(linkText);
+            engine().clickLinkWithText(linkText, 0);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2603,8 +3925,13 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same text is expected.
      */
     public void clickLinkWithText(String linkText, int index) {
-        assertLinkPresentWithText(linkText, index);
-        getTestingEngine().clickLinkWithText(linkText, index);
+        record("clickLinkWithText", linkText, index);
+        try {
+            assertLinkPresentWithText(linkText, index);
+            engine().clickLinkWithText(linkText, index);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2613,8 +3940,13 @@ public class WebTester {
      * @param linkText Text of the link.
      */
     public void clickLinkWithExactText(String linkText) {
-        assertLinkPresentWithExactText(linkText);
-        getTestingEngine().clickLinkWithExactText(linkText, 0);
+        record("clickLinkWithExactText", linkText);
+        try {
+            assertLinkPresentWithExactText(linkText);
+            engine().clickLinkWithExactText(linkText, 0);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2624,8 +3956,13 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same text is expected.
      */
     public void clickLinkWithExactText(String linkText, int index) {
-        assertLinkPresentWithExactText(linkText, index);
-        getTestingEngine().clickLinkWithExactText(linkText, index);
+        record("clickLinkWithExactText", linkText, index);
+        try {
+            assertLinkPresentWithExactText(linkText, index);
+            engine().clickLinkWithExactText(linkText, index);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2634,8 +3971,13 @@ public class WebTester {
      * @param buttonId Button ID attribut value.
      */
     public void clickButton(String buttonId) {
-        assertButtonPresent(buttonId);
-        getTestingEngine().clickButton(buttonId);
+        record("clickButton", buttonId);
+        try {
+            assertButtonPresent(buttonId);
+            engine().clickButton(buttonId);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2644,8 +3986,13 @@ public class WebTester {
      * @param buttonValueText The text of the button (contents of the value attribute).
      */
     public void clickButtonWithText(String buttonValueText) {
-        assertButtonPresentWithText(buttonValueText);
-        getTestingEngine().clickButtonWithText(buttonValueText);
+        record("clickButtonWithText", buttonValueText);
+        try {
+            assertButtonPresentWithText(buttonValueText);
+            engine().clickButtonWithText(buttonValueText);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2655,8 +4002,13 @@ public class WebTester {
      *            you could just pass in <tt>"my_icon.png"</tt>.
      */
     public void clickLinkWithImage(String imageFileName) {
-        assertLinkPresentWithImage(imageFileName);
-        getTestingEngine().clickLinkWithImage(imageFileName, 0);
+        record("clickLinkWithImage", imageFileName);
+        try {
+            assertLinkPresentWithImage(imageFileName);
+            engine().clickLinkWithImage(imageFileName, 0);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2667,8 +4019,13 @@ public class WebTester {
      * @param index The 0-based index, when more than one link with the same image is expected.
      */
     public void clickLinkWithImage(String imageFileName, int index) {
-        assertLinkPresentWithImage(imageFileName, index);
-        getTestingEngine().clickLinkWithImage(imageFileName, index);
+        record("clickLinkWithImage", imageFileName, index);
+        try {
+            assertLinkPresentWithImage(imageFileName, index);
+            engine().clickLinkWithImage(imageFileName, index);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2677,8 +4034,13 @@ public class WebTester {
      * @param linkId id of link
      */
     public void clickLink(String linkId) {
-        assertLinkPresent(linkId);
-        getTestingEngine().clickLink(linkId);
+        record("clickLink", linkId);
+        try {
+            assertLinkPresent(linkId);
+            engine().clickLink(linkId);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2688,8 +4050,13 @@ public class WebTester {
      * @param radioOption value of the option to check for.
      */
     public void clickRadioOption(String radioGroup, String radioOption) {
-        assertRadioOptionPresent(radioGroup, radioOption);
-        getTestingEngine().clickRadioOption(radioGroup, radioOption);
+        record("clickRadioOption", radioGroup, radioOption);
+        try {
+            assertRadioOptionPresent(radioGroup, radioOption);
+            engine().clickRadioOption(radioGroup, radioOption);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2698,8 +4065,13 @@ public class WebTester {
      * @param xpath xpath of the element.
      */
     public void clickElementByXPath(String xpath) {
-        assertElementPresentByXPath(xpath);
-        getTestingEngine().clickElementByXPath(xpath);
+        record("clickElementByXPath", xpath);
+        try {
+            assertElementPresentByXPath(xpath);
+            engine().clickElementByXPath(xpath);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -2713,7 +4085,7 @@ public class WebTester {
      */
     public String getElementAttributeByXPath(String xpath, String attribute) {
         assertElementPresentByXPath(xpath);
-        return getTestingEngine().getElementAttributByXPath(xpath, attribute);
+        return engine().getElementAttributByXPath(xpath, attribute);
     }
 
     /**
@@ -2730,7 +4102,7 @@ public class WebTester {
      */
     public String getElementTextByXPath(String xpath){
         assertElementPresentByXPath(xpath);
-      return getTestingEngine().getElementTextByXPath(xpath);
+      return engine().getElementTextByXPath(xpath);
     }
 
     /**
@@ -2742,7 +4114,7 @@ public class WebTester {
      */
     public IElement getElementByXPath(String xpath) {
       assertElementPresentByXPath(xpath);
-      return getTestingEngine().getElementByXPath(xpath);
+      return engine().getElementByXPath(xpath);
     }
 
     /**
@@ -2753,7 +4125,7 @@ public class WebTester {
      * @throws AssertionError if the element xpath is not found
      */
     public boolean hasElementByXPath(String xpath) {
-      return getTestingEngine().getElementByXPath(xpath) != null;
+      return engine().getElementByXPath(xpath) != null;
     }
 
     /**
@@ -2765,7 +4137,7 @@ public class WebTester {
      */
     public IElement getElementById(String id) {
       assertElementPresent(id);
-      return getTestingEngine().getElementByID(id);
+      return engine().getElementByID(id);
     }
     
     /**
@@ -2775,7 +4147,7 @@ public class WebTester {
      * @return {@code true} if the element ID exists, {@code false} otherwise
      */
     public boolean hasElementById(String id) {
-    	return getTestingEngine().getElementByID(id) != null;
+    	return engine().getElementByID(id) != null;
     }
 
     /**
@@ -2785,7 +4157,7 @@ public class WebTester {
      * @return the requested elements found
      */
     public List<IElement> getElementsByXPath(String xpath) {
-      return getTestingEngine().getElementsByXPath(xpath);
+      return engine().getElementsByXPath(xpath);
     }
 
     /**
@@ -2795,7 +4167,7 @@ public class WebTester {
      * @return {@code true} if the given elements by XPath exist
      */
     public boolean hasElementsByXPath(String xpath) {
-    	List<IElement> list = getTestingEngine().getElementsByXPath(xpath);
+    	List<IElement> list = engine().getElementsByXPath(xpath);
     	return list != null && !list.isEmpty();
     }
 
@@ -2804,7 +4176,12 @@ public class WebTester {
      * Assert a label for a given ID exists.
      */
     public void assertLabelPresent(String id) {
-      assertNotNull("No label found with id [" + id + "]", getLabel(id));
+      record("assertLabelPresent", id);
+      try {
+          assertNotNull("No label found with id [" + id + "]", getLabel(id));
+      } finally {
+          exit();
+      }
     }
 
     /**
@@ -2815,7 +4192,7 @@ public class WebTester {
      */
     private IElement getLabel(String id) {
       // get all labels
-      for (IElement e : getTestingEngine().getElementsByXPath("//label")) {
+      for (IElement e : engine().getElementsByXPath("//label")) {
         if (id.equals(e.getAttribute("id")))
           return e;	// label found
       }
@@ -2830,7 +4207,7 @@ public class WebTester {
      * @return the found element, or null
      */
     private IElement getElementWithText(String elementName, String text) {
-      for (IElement e : getTestingEngine().getElementsByXPath("//" + elementName)) {
+      for (IElement e : engine().getElementsByXPath("//" + elementName)) {
         if (elementName.equals(e.getName()) && text.equals(e.getTextContent())) {
           return e;
         }
@@ -2842,20 +4219,17 @@ public class WebTester {
      * Assert a label exists.
      */
     public void assertLabelMatches(String regexp) {
-      // get regexp
-        RE re = null;
-        try {
-            re = new RE(regexp, RE.MATCH_SINGLELINE);
-        } catch (RESyntaxException e) {
-            fail(e.toString());
-        }
-
-        // get all labels
-      for (IElement e : getTestingEngine().getElementsByXPath("//label")) {
-        if (e.getName().equals("label") && re.match( e.getTextContent() ))
-          return;	// label found
+      record("assertLabelMatches", regexp);
+      try {
+          // get all labels
+          for (IElement e : engine().getElementsByXPath("//label")) {
+            if (e.getName().equals("label") && find(regexp, e.getTextContent()))
+              return;	// label found
+          }
+          fail("No label found with text matching [" + regexp + "]");
+      } finally {
+          exit();
       }
-      fail("No label found with text matching [" + regexp + "]");
     }
 
     /**
@@ -2869,7 +4243,7 @@ public class WebTester {
       List<IElement> fields = new java.util.ArrayList<IElement>();
       // a direct "for" attribute
       if (label.getAttribute("for") != null) {
-        IElement e = getTestingEngine().getElementByID(label.getAttribute("for"));
+        IElement e = engine().getElementByID(label.getAttribute("for"));
         if (e != null)
           fields.add(e);
       }
@@ -2974,64 +4348,74 @@ public class WebTester {
      * @see #getLabel(String)
      */
     public void assertLabeledFieldEquals(String id, String fieldText) {
-      IElement label = getLabel(id);
-      assertNotNull("no label for id [" + id + "] found", label);
-
-      assertLabeledFieldEquals(id, label, fieldText);
+      record("assertLabeledFieldEquals", id, fieldText);
+      try {
+          IElement label = getLabel(id);
+          assertNotNull("no label for id [" + id + "] found", label);
+
+          assertLabeledFieldEquals(id, label, fieldText);
+      } finally {
+          exit();
+      }
     }
 
     public void setLabeledFormElementField(String id, String value) {
-      IElement label = getLabel(id);
-      assertNotNull("no label for id [" + id + "] found", label);
-
-      List<IElement> fields = getFieldsForLabel(label);
-      assertFalse("there should be at least one element referenced for label [" + id + "]", fields.size()==0);
-
-      // find the first element that we can change
-      for (IElement field : fields) {
-        if (field == null)
-          throw new RuntimeException("unexpected null field");
-
-        if ("input".equals(field.getName())) {
-          if (field.getAttribute("type") != null) {
-            if (field.getAttribute("type").toLowerCase().equals("checkbox")) {
-              if (value.equals(field.getAttribute("value"))) {
-                field.setAttribute("checked");
+      record("setLabeledFormElementField", id, value);
+      try {
+          IElement label = getLabel(id);
+          assertNotNull("no label for id [" + id + "] found", label);
+
+          List<IElement> fields = getFieldsForLabel(label);
+          assertFalse("there should be at least one element referenced for label [" + id + "]", fields.size()==0);
+
+          // find the first element that we can change
+          for (IElement field : fields) {
+            if (field == null)
+              throw new RuntimeException("unexpected null field");
+
+            if ("input".equals(field.getName())) {
+              if (field.getAttribute("type") != null) {
+                if (field.getAttribute("type").toLowerCase().equals("checkbox")) {
+                  if (value.equals(field.getAttribute("value"))) {
+                    field.setAttribute("checked");
+                    return;
+                  }
+                } else if (field.getAttribute("type").toLowerCase().equals("radio")) {
+                  if (value.equals(field.getAttribute("value"))) {
+                    field.setAttribute("checked");
+                    return;
+                  }
+                } else {
+                  // any other input type
+                  field.setAttribute("value", value);
+                  return;
+                }
+              } else {
+                // unspecified input type, default = text
+                field.setAttribute("value", value);
                 return;
               }
-            } else if (field.getAttribute("type").toLowerCase().equals("radio")) {
-              if (value.equals(field.getAttribute("value"))) {
-                field.setAttribute("checked");
-                return;
+            } else if ("textarea".equals(field.getName())) {
+              field.setTextContent(value);
+              return;
+            } else if ("select".equals(field.getName())) {
+              // get the selected option
+              for (IElement children : field.getChildren()) {
+                // find the option which matches the given value (we can't specify random values)
+                if (children.getName().equals("option") && value.equals(children.getAttribute("value"))) {
+                  children.setAttribute("selected");
+                  return;
+                }
               }
             } else {
-              // any other input type
-              field.setAttribute("value", value);
-              return;
-            }
-          } else {
-            // unspecified input type, default = text
-            field.setAttribute("value", value);
-            return;
-          }
-        } else if ("textarea".equals(field.getName())) {
-          field.setTextContent(value);
-          return;
-        } else if ("select".equals(field.getName())) {
-          // get the selected option
-          for (IElement children : field.getChildren()) {
-            // find the option which matches the given value (we can't specify random values)
-            if (children.getName().equals("option") && value.equals(children.getAttribute("value"))) {
-              children.setAttribute("selected");
-              return;
+              throw new RuntimeException("Unexpected field type " + field.getName());
             }
           }
-        } else {
-          throw new RuntimeException("Unexpected field type " + field.getName());
-        }
-      }
 
-      fail("could not find any fields for label [" + id + "] to set.");
+          fail("could not find any fields for label [" + id + "] to set.");
+      } finally {
+          exit();
+      }
     }
 
     // Window and Frame Navigation Methods
@@ -3042,8 +4426,13 @@ public class WebTester {
      * @param windowName Name of the window.
      */
     public void gotoWindow(String windowName) {
-        assertWindowPresent(windowName);
-        getTestingEngine().gotoWindow(windowName);
+        record("gotoWindow", windowName);
+        try {
+            assertWindowPresent(windowName);
+            engine().gotoWindow(windowName);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3056,15 +4445,25 @@ public class WebTester {
      */
     @Deprecated
     public void gotoWindow(int windowID) {
-        assertWindowPresent(windowID);
-        getTestingEngine().gotoWindow(windowID);
+        record("gotoWindow", windowID);
+        try {
+            assertWindowPresent(windowID);
+            engine().gotoWindow(windowID);
+        } finally {
+            exit();
+        }
     }
 
     /**
      * Make the root window active. Used to reset the effect of {@link ITestingEngine#gotoFrame(String)}.
      */
     public void gotoRootWindow() {
-        getTestingEngine().gotoRootWindow();
+        record("gotoRootWindow");
+        try {
+            engine().gotoRootWindow();
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3073,8 +4472,13 @@ public class WebTester {
      * @param title Title of the window.
      */
     public void gotoWindowByTitle(String title) {
-        assertWindowPresentWithTitle(title);
-        getTestingEngine().gotoWindowByTitle(title);
+        record("gotoWindowByTitle", title);
+        try {
+            assertWindowPresentWithTitle(title);
+            engine().gotoWindowByTitle(title);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3083,7 +4487,12 @@ public class WebTester {
      * @param frameNameOrId Name or ID of the frame. ID is checked first.
      */
     public void gotoFrame(String frameNameOrId) {
-        getTestingEngine().gotoFrame(frameNameOrId);
+        record("gotoFrame", frameNameOrId);
+        try {
+            engine().gotoFrame(frameNameOrId);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3095,10 +4504,95 @@ public class WebTester {
      * @throws TestingEngineResponseException If something bad happend (404)
      */
     public void gotoPage(String url) throws TestingEngineResponseException {
+        record("gotoPage", url);
         try {
-            getTestingEngine().gotoPage(createUrl(url, getTestContext().getBaseUrl()));
-        } catch (MalformedURLException e) {
-            fail(e.getLocalizedMessage());
+            try {
+                engine().gotoPage(createUrl(url, getTestContext().getBaseUrl()));
+            } catch (MalformedURLException e) {
+                fail(e.getLocalizedMessage());
+            }
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Go to the given page without waiting for it to load, see {@link #gotoPage(String)}. The testing engine
+     * must not be used until the returned future is done.
+     *
+     * @param url absolute or relative URL (relative to base URL).
+     * @return a future whose <code>get()</code> waits for the page and throws the failure of the navigation, if any
+     */
+    public Future<Void> gotoPageAsync(String url) {
+        return navigateAsync(new NavigationTask(this, NavigationTask.Kind.GOTO_PAGE, url));
+    }
+
+    /**
+     * Submit the current form without waiting for the response, see {@link #submit()}. The testing engine
+     * must not be used until the returned future is done.
+     *
+     * @return a future whose <code>get()</code> waits for the page and throws the failure of the navigation, if any
+     */
+    public Future<Void> submitAsync() {
+        return navigateAsync(new NavigationTask(this, NavigationTask.Kind.SUBMIT, null));
+    }
+
+    /**
+     * Click a link without waiting for the page, see {@link #clickLink(String)}. The testing engine
+     * must not be used until the returned future is done.
+     *
+     * @param linkId ID of the link.
+     * @return a future whose <code>get()</code> waits for the page and throws the failure of the navigation, if any
+     */
+    public Future<Void> clickLinkAsync(String linkId) {
+        return navigateAsync(new NavigationTask(this, NavigationTask.Kind.CLICK_LINK, linkId));
+    }
+
+    /**
+     * Click a link without waiting for the page, see {@link #clickLinkWithText(String)}. The testing engine
+     * must not be used until the returned future is done.
+     *
+     * @param linkText text of the link.
+     * @return a future whose <code>get()</code> waits for the page and throws the failure of the navigation, if any
+     */
+    public Future<Void> clickLinkWithTextAsync(String linkText) {
+        return navigateAsync(new NavigationTask(this, NavigationTask.Kind.CLICK_LINK_WITH_TEXT, linkText));
+    }
+
+    /**
+     * Click a link without waiting for the page, see {@link #clickLinkWithExactText(String)}. The testing engine
+     * must not be used until the returned future is done.
+     *
+     * @param linkText exact text of the link.
+     * @return a future whose <code>get()</code> waits for the page and throws the failure of the navigation, if any
+     */
+    public Future<Void> clickLinkWithExactTextAsync(String linkText) {
+        return navigateAsync(new NavigationTask(this, NavigationTask.Kind.CLICK_LINK_WITH_EXACT_TEXT, linkText));
+    }
+
+    /**
+     * Run a navigation on the thread dedicated to the testing engine, so that the caller can drive
+     * other testers meanwhile. Navigations of the same engine run one after the other.
+     */
+    private synchronized Future<Void> navigateAsync(NavigationTask navigation) {
+        if (navigationExecutor == null) {
+            navigationExecutor = NavigationTask.newExecutor();
+        }
+        return navigationExecutor.submit(navigation);
+    }
+
+    /**
+     * Cancel the pending navigations and wait for the running one, so that the testing engine is
+     * not closed or replaced under it. The wait is done outside of the lock of the tester.
+     */
+    private void shutdownNavigationExecutor() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = navigationExecutor;
+            navigationExecutor = null;
+        }
+        if (executor != null) {
+            NavigationTask.shutdown(executor);
         }
     }
 
@@ -3107,7 +4601,7 @@ public class WebTester {
      *
      */
     public void dumpCookies() {
-        List<?> cookies = getTestingEngine().getCookies();
+        List<?> cookies = engine().getCookies();
         for (Iterator<?> i = cookies.iterator(); i.hasNext();) {
             Cookie c = (Cookie) i.next();
             System.out.println("Name=" + c.getName() + "; Value="
@@ -3123,7 +4617,7 @@ public class WebTester {
      * @return The HTML content.
      */
     public String getPageSource() {
-        return getTestingEngine().getPageSource();
+        return engine().getPageSource();
     }
 
     /**
@@ -3132,7 +4626,7 @@ public class WebTester {
      * @return HTTP server response.
      */
     public String getServerResponse() {
-        return getTestingEngine().getServerResponse();
+        return engine().getServerResponse();
     }
 
     /**
@@ -3149,7 +4643,7 @@ public class WebTester {
      * @param f The file name.
      */
     public void saveAs(File f) {
-        InputStream in = getTestingEngine().getInputStream();
+        InputStream in = engine().getInputStream();
         int c=0;
         try {
             f.createNewFile();
@@ -3200,7 +4694,7 @@ public class WebTester {
      * @deprecated Use {@link WebTester#getPageSource()}
      */
     public void dumpHtml(PrintStream stream) {
-        stream.println(getTestingEngine().getPageSource());
+        stream.println(engine().getPageSource());
     }
 
     /**
@@ -3240,7 +4734,12 @@ public class WebTester {
      * Enable or disable Javascript support
      */
     public void setScriptingEnabled(boolean value) {
-        getTestingEngine().setScriptingEnabled(value);
+        record("setScriptingEnabled", value);
+        try {
+            engine().setScriptingEnabled(value);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3274,14 +4773,34 @@ public class WebTester {
         return testingEngineKey;
     }
 
-    private RE getRE(String regexp) {
-        RE re = null;
+    /**
+     * Search a regexp with the engine of the test context, failing on an invalid regexp or when
+     * the search takes too long.
+     */
+    private boolean find(String regexp, String text) {
+        try {
+            return getTestContext().getRegexpEngine().find(regexp, text);
+        } catch (RegexpTimeoutException e) {
+            fail(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            fail(e.toString());
+        }
+        return false;
+    }
+
+    /**
+     * Search a regexp in an element, failing like {@link #find(String, String)} on an invalid
+     * regexp or when the search takes too long.
+     */
+    private boolean isMatchInElement(String elementID, String regexp) {
         try {
-            re = new RE(regexp, RE.MATCH_SINGLELINE);
-        } catch (RESyntaxException e) {
+            return engine().isMatchInElement(elementID, regexp);
+        } catch (RegexpTimeoutException e) {
+            fail(e.getMessage());
+        } catch (IllegalArgumentException e) {
             fail(e.toString());
         }
-        return re;
+        return false;
     }
 
     /**
@@ -3310,13 +4829,7 @@ public class WebTester {
      * @return Array of options labels.
      */
     private String[] getOptionsFor(String selectName) {
-        String[] values = getTestingEngine().getSelectOptionValues(selectName);
-        String[] result = new String[values.length];
-        for (int i = 0; i < values.length; i++) {
-            result[i] = getTestingEngine().getSelectOptionLabelForValue(
-                    selectName, values[i]);
-        }
-        return result;
+        return getLabels(engine().getSelectOptions(selectName));
     }
 
     /**
@@ -3328,47 +4841,38 @@ public class WebTester {
      * @return Array of options labels.
      */
     private String[] getOptionsFor(String selectName, int index) {
-        String[] values = getTestingEngine().getSelectOptionValues(selectName, index);
-        String[] result = new String[values.length];
-        for (int i = 0; i < values.length; i++) {
-            result[i] = getTestingEngine().getSelectOptionLabelForValue(
-                    selectName, index, values[i]);
-        }
-        return result;
+        return getLabels(engine().getSelectOptions(selectName, index));
     }
 
-
-
-    /**
-     * Select options by given labels in a select box.
-     *
-     * @param selectName name of the select
-     * @param labels labels of options to be selected
-     */
-    private void selectOptionsByLabel(String selectName, String[] labels) {
-        String[] values = new String[labels.length];
-        for (int i = 0; i < values.length; i++) {
-            values[i] = getTestingEngine().getSelectOptionValueForLabel(
-                    selectName, labels[i]);
+    private String[] getLabels(SelectOption[] options) {
+        String[] result = new String[options.length];
+        for (int i = 0; i < options.length; i++) {
+            result[i] = options[i].getLabel();
         }
-        getTestingEngine().selectOptions(selectName, values);
+        return result;
     }
 
     /**
-     * Select options by given labels in the Nth select box.
+     * Map option labels to their values through a single index of the options, failing if one of the labels
+     * is not present. When several options have the same label, the first one is used.
      *
-     * @param selectName name of the select
-     * @param index the 0-based index of the select element when multiple
-     * select elements are expected.
-     * @param labels labels of options to be selected
+     * @param selectName name of the select, for the failure message
+     * @param options all the options of the select
+     * @param labels labels of the options to find
+     * @return the values of the options, in the order of the labels
      */
-    private void selectOptionsByLabel(String selectName, int index, String[] labels) {
+    private String[] getOptionValuesFor(String selectName, SelectOption[] options, String[] labels) {
+        Map<String, String> valuesByLabel = new HashMap<String, String>(options.length * 2);
+        for (int i = options.length - 1; i >= 0; i--) {
+            valuesByLabel.put(options[i].getLabel(), options[i].getValue());
+        }
         String[] values = new String[labels.length];
-        for (int i = 0; i < values.length; i++) {
-            values[i] = getTestingEngine().getSelectOptionValueForLabel(
-                    selectName, index, labels[i]);
+        for (int i = 0; i < labels.length; i++) {
+            values[i] = valuesByLabel.get(labels[i]);
+            assertTrue("Option [" + labels[i] + "] not found in select element " + selectName,
+                    values[i] != null);
         }
-        getTestingEngine().selectOptions(selectName, index, values);
+        return values;
     }
 
 
@@ -3390,8 +4894,13 @@ public class WebTester {
      * @deprecated use {@link #setTextField(String, String)} or other methods
      */
     public void setFormElement(String formElementName, String value) {
-        assertFormElementPresent(formElementName);
-        getTestingEngine().setTextField(formElementName, value);
+        record("setFormElement", formElementName, value);
+        try {
+            assertFormElementPresent(formElementName);
+            engine().setTextField(formElementName, value);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3400,13 +4909,18 @@ public class WebTester {
      * @param message Message in the alert.
      */
     public void setExpectedJavaScriptAlert(String message) {
+        record("setExpectedJavaScriptAlert", message);
         try {
-            getTestingEngine().setExpectedJavaScriptAlert(
-                    new JavascriptAlert[] { new JavascriptAlert(message) });
-        } catch (ExpectedJavascriptAlertException e) {
-            fail("You previously tell that alert with message ["
-                    + e.getAlertMessage()
-                    + "] was expected, but nothing appeared.");
+            try {
+                engine().setExpectedJavaScriptAlert(
+                        new JavascriptAlert[] { new JavascriptAlert(message) });
+            } catch (ExpectedJavascriptAlertException e) {
+                fail("You previously tell that alert with message ["
+                        + e.getAlertMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -3416,16 +4930,21 @@ public class WebTester {
      * @param messages Messages in the alerts.
      */
     public void setExpectedJavaScriptAlert(String[] messages) {
-        JavascriptAlert[] alerts = new JavascriptAlert[messages.length];
-        for (int i = 0; i < messages.length; i++) {
-            alerts[i] = new JavascriptAlert(messages[i]);
-        }
+        record("setExpectedJavaScriptAlert", (Object) messages);
         try {
-            getTestingEngine().setExpectedJavaScriptAlert(alerts);
-        } catch (ExpectedJavascriptAlertException e) {
-            fail("You previously tell that alert with message ["
-                    + e.getAlertMessage()
-                    + "] was expected, but nothing appeared.");
+            JavascriptAlert[] alerts = new JavascriptAlert[messages.length];
+            for (int i = 0; i < messages.length; i++) {
+                alerts[i] = new JavascriptAlert(messages[i]);
+            }
+            try {
+                engine().setExpectedJavaScriptAlert(alerts);
+            } catch (ExpectedJavascriptAlertException e) {
+                fail("You previously tell that alert with message ["
+                        + e.getAlertMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -3436,14 +4955,19 @@ public class WebTester {
      * @param action Whether we should click on "OK" (true) or "Cancel" (false)
      */
     public void setExpectedJavaScriptConfirm(String message, boolean action) {
+        record("setExpectedJavaScriptConfirm", message, action);
         try {
-            getTestingEngine().setExpectedJavaScriptConfirm(
-                    new JavascriptConfirm[] { new JavascriptConfirm(message,
-                            action) });
-        } catch (ExpectedJavascriptConfirmException e) {
-            fail("You previously tell that confirm with message ["
-                    + e.getConfirmMessage()
-                    + "] was expected, but nothing appeared.");
+            try {
+                engine().setExpectedJavaScriptConfirm(
+                        new JavascriptConfirm[] { new JavascriptConfirm(message,
+                                action) });
+            } catch (ExpectedJavascriptConfirmException e) {
+                fail("You previously tell that confirm with message ["
+                        + e.getConfirmMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -3455,19 +4979,24 @@ public class WebTester {
      */
     public void setExpectedJavaScriptConfirm(String[] messages,
             boolean[] actions) {
-        assertEquals(
-                "You should give the same number of messages and actions",
-                messages.length, actions.length);
-        JavascriptConfirm[] confirms = new JavascriptConfirm[messages.length];
-        for (int i = 0; i < messages.length; i++) {
-            confirms[i] = new JavascriptConfirm(messages[i], actions[i]);
-        }
+        record("setExpectedJavaScriptConfirm", messages, actions);
         try {
-            getTestingEngine().setExpectedJavaScriptConfirm(confirms);
-        } catch (ExpectedJavascriptConfirmException e) {
-            fail("You previously tell that confirm with message ["
-                    + e.getConfirmMessage()
-                    + "] was expected, but nothing appeared.");
+            assertEquals(
+                    "You should give the same number of messages and actions",
+                    messages.length, actions.length);
+            JavascriptConfirm[] confirms = new JavascriptConfirm[messages.length];
+            for (int i = 0; i < messages.length; i++) {
+                confirms[i] = new JavascriptConfirm(messages[i], actions[i]);
+            }
+            try {
+                engine().setExpectedJavaScriptConfirm(confirms);
+            } catch (ExpectedJavascriptConfirmException e) {
+                fail("You previously tell that confirm with message ["
+                        + e.getConfirmMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -3478,14 +5007,19 @@ public class WebTester {
      * @param input What we should put in the prompt (null if user press Cancel)
      */
     public void setExpectedJavaScriptPrompt(String message, String input) {
+        record("setExpectedJavaScriptPrompt", message, input);
         try {
-            getTestingEngine().setExpectedJavaScriptPrompt(
-                    new JavascriptPrompt[] { new JavascriptPrompt(message,
-                            input) });
-        } catch (ExpectedJavascriptPromptException e) {
-            fail("You previously tell that prompt with message ["
-                    + e.getPromptMessage()
-                    + "] was expected, but nothing appeared.");
+            try {
+                engine().setExpectedJavaScriptPrompt(
+                        new JavascriptPrompt[] { new JavascriptPrompt(message,
+                                input) });
+            } catch (ExpectedJavascriptPromptException e) {
+                fail("You previously tell that prompt with message ["
+                        + e.getPromptMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -3496,19 +5030,24 @@ public class WebTester {
      * @param inputs What we should put in the prompt (null if user press Cancel)
      */
     public void setExpectedJavaScriptPrompt(String[] messages, String[] inputs) {
-        assertEquals(
-                "You should give the same number of messages and inputs",
-                messages.length, inputs.length);
-        JavascriptPrompt[] prompts = new JavascriptPrompt[messages.length];
-        for (int i = 0; i < messages.length; i++) {
-            prompts[i] = new JavascriptPrompt(messages[i], inputs[i]);
-        }
+        record("setExpectedJavaScriptPrompt", messages, inputs);
         try {
-            getTestingEngine().setExpectedJavaScriptPrompt(prompts);
-        } catch (ExpectedJavascriptPromptException e) {
-            fail("You previously tell that prompt with message ["
-                    + e.getPromptMessage()
-                    + "] was expected, but nothing appeared.");
+            assertEquals(
+                    "You should give the same number of messages and inputs",
+                    messages.length, inputs.length);
+            JavascriptPrompt[] prompts = new JavascriptPrompt[messages.length];
+            for (int i = 0; i < messages.length; i++) {
+                prompts[i] = new JavascriptPrompt(messages[i], inputs[i]);
+            }
+            try {
+                engine().setExpectedJavaScriptPrompt(prompts);
+            } catch (ExpectedJavascriptPromptException e) {
+                fail("You previously tell that prompt with message ["
+                        + e.getPromptMessage()
+                        + "] was expected, but nothing appeared.");
+            }
+        } finally {
+            exit();
         }
     }
 
@@ -3518,12 +5057,17 @@ public class WebTester {
      * @param imageAlt Value of image alt attribute. Ignored when null.
      */
     public void assertImagePresent(String imageSrc, String imageAlt) {
-        String xpath = "//img[@src=\"" + imageSrc + "\"";
-        if (imageAlt!= null) {
-            xpath += " and @alt=\"" + imageAlt + "\"";
+        record("assertImagePresent", imageSrc, imageAlt);
+        try {
+            String xpath = "//img[@src=\"" + imageSrc + "\"";
+            if (imageAlt!= null) {
+                xpath += " and @alt=\"" + imageAlt + "\"";
+            }
+            xpath += "]";
+            assertElementPresentByXPath(xpath);
+        } finally {
+            exit();
         }
-        xpath += "]";
-        assertElementPresentByXPath(xpath);
     }
 
     /**
@@ -3532,19 +5076,29 @@ public class WebTester {
      * @param partialImageAlt
      */
     public void assertImagePresentPartial(String partialImageSrc, String partialImageAlt) {
-        String xpath = "//img[contains(@src, \"" + partialImageSrc + "\")";
-        if (partialImageAlt!= null) {
-            xpath += " and contains(@alt, \"" + partialImageAlt + "\")";
+        record("assertImagePresentPartial", partialImageSrc, partialImageAlt);
+        try {
+            String xpath = "//img[contains(@src, \"" + partialImageSrc + "\")";
+            if (partialImageAlt!= null) {
+                xpath += " and contains(@alt, \"" + partialImageAlt + "\")";
+            }
+            xpath += "]";
+            assertElementPresentByXPath(xpath);
+        } finally {
+            exit();
         }
-        xpath += "]";
-        assertElementPresentByXPath(xpath);
     }
 
     /**
      * @see #assertImageValidAndStore(String, String, java.io.File)
      */
     public void assertImageValid(String imageSrc, String imageAlt) {
-        validateImage(imageSrc, imageAlt, null);
+        record("assertImageValid", imageSrc, imageAlt);
+        try {
+            validateImage(imageSrc, imageAlt, null);
+        } finally {
+            exit();
+        }
     }
 
     /**
@@ -3565,6 +5119,60 @@ public class WebTester {
         return validateImage(imageSrc, imageAlt, null);
     }
 
+    /**
+     * Asserts that every image of the current page is an actual reachable image. The images are loaded one
+     * after the other by the testing engine, each URL once, and decoded in parallel by a bounded pool of
+     * threads meanwhile. All the invalid images are reported together.
+     */
+    public void assertAllImagesValid() {
+        record("assertAllImagesValid");
+        try {
+            URL pageUrl = engine().getPageURL();
+            // keyed by the external form, as URL.equals() resolves host names
+            Map<String, URL> urls = new LinkedHashMap<String, URL>();
+            for (IElement image : engine().getElementsByXPath("//img[@src]")) {
+                try {
+                    URL url = createUrlFixed(image.getAttribute("src"), pageUrl);
+                    urls.put(url.toExternalForm(), url);
+                } catch (MalformedURLException e) {
+                    fail("Invalid image URL [" + image.getAttribute("src") + "]: " + e.getLocalizedMessage());
+                }
+            }
+            if (urls.isEmpty()) {
+                return;
+            }
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(IMAGE_VALIDATION_THREADS, urls.size()));
+            try {
+                List<String> names = new ArrayList<String>();
+                List<Future<String>> results = new ArrayList<Future<String>>();
+                for (URL url : urls.values()) {
+                    names.add(url.toExternalForm());
+                    results.add(pool.submit(ImageValidationTask.load(engine(), url)));
+                }
+                StringBuilder failures = new StringBuilder();
+                for (int i = 0; i < results.size(); i++) {
+                    String failure;
+                    try {
+                        failure = results.get(i).get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failure = "interrupted";
+                    } catch (ExecutionException e) {
+                        failure = e.getCause().toString();
+                    }
+                    if (failure != null) {
+                        failures.append("\n  ").append(names.get(i)).append(": ").append(failure);
+                    }
+                }
+                assertTrue("Invalid images found:" + failures, failures.length() == 0);
+            } finally {
+                pool.shutdownNow();
+            }
+        } finally {
+            exit();
+        }
+    }
+
     /**
      * Set the timeout for the request. A timeout of 0 means
      * an infinite timeout.
@@ -3573,19 +5181,24 @@ public class WebTester {
      * wait (the default).
      */
     public void setTimeout(int milli) {
-      getTestingEngine().setTimeout(milli);
+      record("setTimeout", milli);
+      try {
+          engine().setTimeout(milli);
+      } finally {
+          exit();
+      }
     }
 
     private Image validateImage(String imageSrc, String imageAlt, File out) {
         assertImagePresent(imageSrc, imageAlt);
         URL imageUrl = null;
         try {
-            imageUrl = createUrlFixed(imageSrc, getTestingEngine().getPageURL());
+            imageUrl = createUrlFixed(imageSrc, engine().getPageURL());
         } catch (MalformedURLException e1) {
             fail(e1.getLocalizedMessage());
         }
         try {
-            final InputStream imgStream = getTestingEngine().getInputStream(imageUrl);
+            final InputStream imgStream = engine().getInputStream(imageUrl);
             final BufferedImage img = ImageIO.read(imgStream);
             if (img == null) {
                 fail("Could not load image from " + imageUrl);
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a {@link LinkCrawler} run: the broken links and the slow pages found.
+ */
+public class CrawlReport {
+
+    private final Map<String, String> brokenLinks = new LinkedHashMap<String, String>();
+
+    private final Map<String, Long> slowPages = new LinkedHashMap<String, Long>();
+
+    private int checkedCount;
+
+    synchronized void addChecked() {
+        checkedCount++;
+    }
+
+    synchronized void addBroken(String url, String referrer, String reason) {
+        brokenLinks.put(url, reason + (referrer == null ? "" : " (linked from " + referrer + ")"));
+    }
+
+    synchronized void addSlow(String url, long time) {
+        slowPages.put(url, time);
+    }
+
+    /**
+     * @return the number of distinct URLs checked
+     */
+    public synchronized int getCheckedCount() {
+        return checkedCount;
+    }
+
+    /**
+     * @return the broken URLs, with the reason and the page linking to them
+     */
+    public synchronized Map<String, String> getBrokenLinks() {
+        return new LinkedHashMap<String, String>(brokenLinks);
+    }
+
+    /**
+     * @return the pages slower than the threshold of the crawler, with their response time in milliseconds
+     */
+    public synchronized Map<String, Long> getSlowPages() {
+        return new LinkedHashMap<String, Long>(slowPages);
+    }
+
+    /**
+     * @return true if no broken link and no slow page was found
+     */
+    public synchronized boolean isValid() {
+        return brokenLinks.isEmpty() && slowPages.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(checkedCount).append(" URLs checked");
+        for (Map.Entry<String, String> broken : brokenLinks.entrySet()) {
+            sb.append("\n  broken: ").append(broken.getKey()).append(": ").append(broken.getValue());
+        }
+        for (Map.Entry<String, Long> slow : slowPages.entrySet()) {
+            sb.append("\n  slow: ").append(slow.getKey()).append(": ").append(slow.getValue()).append("ms");
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.regex.Pattern;
+
+import net.sourceforge.jwebunit.exception.RegexpTimeoutException;
+
+/**
+ * {@link RegexpEngine} backed by <code>java.util.regex</code>, giving up when a match takes longer
+ * than a time budget. The backtracking matcher supports the whole syntax, including back references
+ * and look-arounds, but some patterns with nested quantifiers take an exponential time to fail: the
+ * budget turns them into a {@link RegexpTimeoutException} instead of a hung build.
+ */
+public class JavaRegexpEngine implements RegexpEngine {
+
+    /**
+     * Default budget of a match, in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET = 5000;
+
+    /**
+     * Number of characters read by the matcher between two checks of the clock.
+     */
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final long budgetMillis;
+
+    /**
+     * Create an engine with the {@link #DEFAULT_BUDGET default budget}.
+     */
+    public JavaRegexpEngine() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Create an engine with the given budget.
+     *
+     * @param budgetMillis longest time a match may take, in milliseconds, or -1 for no limit
+     */
+    public JavaRegexpEngine(long budgetMillis) {
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * @return the longest time a match may take, in milliseconds, or -1 for no limit
+     */
+    public long getBudget() {
+        return budgetMillis;
+    }
+
+    @Override
+    public boolean find(String regexp, CharSequence text) {
+        Pattern pattern = Pattern.compile(PosixClasses.translate(regexp), Pattern.DOTALL);
+        if (budgetMillis < 0) {
+            return pattern.matcher(text).find();
+        }
+        return pattern.matcher(new BudgetedText(text, regexp, System.nanoTime() + budgetMillis * 1000000L)).find();
+    }
+
+    /**
+     * A text checking the clock while the matcher reads it.
+     */
+    private final class BudgetedText implements CharSequence {
+
+        private final CharSequence text;
+
+        private final String regexp;
+
+        private final long deadline;
+
+        private int reads;
+
+        BudgetedText(CharSequence text, String regexp, long deadline) {
+            this.text = text;
+            this.regexp = regexp;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                throw new RegexpTimeoutException("Matching regexp [" + regexp + "] took more than " + budgetMillis
+                        + " ms on a text of " + text.length() + " characters. The pattern probably backtracks"
+                        + " catastrophically: simplify its nested quantifiers, or use a LinearRegexpEngine.");
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new BudgetedText(text.subSequence(start, end), regexp, deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+}
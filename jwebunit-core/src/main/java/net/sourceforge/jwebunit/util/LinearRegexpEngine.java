@@ -0,0 +1,710 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RegexpEngine} matching in a time proportional to the length of the text times the size
+ * of the pattern, whatever the pattern. Instead of backtracking, all the possible matches are
+ * followed at once, by running the Thompson automaton of the pattern as a Pike virtual machine.
+ *
+ * <p>It supports literals (including <code>\Q...\E</code> quoting), <code>.</code>, character
+ * classes with ranges, the <code>\d \w \s</code> shorthands and the POSIX classes, groups, alternation, greedy and
+ * reluctant quantifiers and the <code>^ $ \b \B</code> anchors. Back references, look-arounds,
+ * possessive quantifiers, inline flags and the other <code>\p</code> classes cannot be matched in linear time and
+ * are rejected with an {@link IllegalArgumentException}.</p>
+ */
+public class LinearRegexpEngine implements RegexpEngine {
+
+    /**
+     * Largest number of instructions of a compiled pattern, bounding the cost of counted repetitions
+     * like <code>(...){1000}</code>.
+     */
+    public static final int MAX_PROGRAM_SIZE = 100000;
+
+    // instructions, also used as the types of the leaves of the syntax tree
+    private static final int CHAR = 0;
+    private static final int ANY = 1;
+    private static final int CLASS = 2;
+    private static final int BOL = 3;
+    private static final int EOL = 4;
+    private static final int WORD_BOUNDARY = 5;
+    private static final int NOT_WORD_BOUNDARY = 6;
+    private static final int SPLIT = 7;
+    private static final int JMP = 8;
+    private static final int MATCH = 9;
+
+    // other nodes of the syntax tree
+    private static final int CONCAT = 10;
+    private static final int ALT = 11;
+    private static final int REPEAT = 12;
+
+    private static final int[] DIGIT = { '0', '9' };
+    private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+    private static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+
+    /** The ASCII POSIX classes, by their <code>\p{...}</code> name. */
+    private static final Map<String, int[]> POSIX = new HashMap<String, int[]>();
+
+    static {
+        POSIX.put("Lower", new int[] { 'a', 'z' });
+        POSIX.put("Upper", new int[] { 'A', 'Z' });
+        POSIX.put("ASCII", new int[] { 0, 0x7F });
+        POSIX.put("Alpha", new int[] { 'A', 'Z', 'a', 'z' });
+        POSIX.put("Digit", DIGIT);
+        POSIX.put("Alnum", new int[] { '0', '9', 'A', 'Z', 'a', 'z' });
+        POSIX.put("Punct", new int[] { '!', '/', ':', '@', '[', '`', '{', '~' });
+        POSIX.put("Graph", new int[] { '!', '~' });
+        POSIX.put("Print", new int[] { ' ', '~' });
+        POSIX.put("Blank", new int[] { '\t', '\t', ' ', ' ' });
+        POSIX.put("Cntrl", new int[] { 0, 0x1F, 0x7F, 0x7F });
+        POSIX.put("XDigit", new int[] { '0', '9', 'A', 'F', 'a', 'f' });
+        POSIX.put("Space", new int[] { '\t', '\r', ' ', ' ' });
+    }
+
+    @Override
+    public boolean find(String regexp, CharSequence text) {
+        return new Program(new Parser(PosixClasses.translate(regexp)).parse()).find(text);
+    }
+
+    /**
+     * Node of the syntax tree of a pattern.
+     */
+    private static final class Node {
+
+        private final int type;
+
+        private int c;
+
+        private CharClass charClass;
+
+        private List<Node> children;
+
+        private int min;
+
+        private int max;
+
+        Node(int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Characters matched by a class, as sorted ranges.
+     */
+    private static final class CharClass {
+
+        private final int[] ranges;
+
+        private final boolean negated;
+
+        private final boolean[] ascii = new boolean[128];
+
+        CharClass(int[] ranges, boolean negated) {
+            this.ranges = ranges;
+            this.negated = negated;
+            for (int c = 0; c < ascii.length; c++) {
+                ascii[c] = inRanges(c) != negated;
+            }
+        }
+
+        private boolean inRanges(int c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean matches(char c) {
+            return c < 128 ? ascii[c] : inRanges(c) != negated;
+        }
+    }
+
+    private static final class Parser {
+
+        private final String regexp;
+
+        private int pos;
+
+        Parser(String regexp) {
+            this.regexp = regexp;
+        }
+
+        Node parse() {
+            Node node = alternation();
+            if (pos < regexp.length()) {
+                throw error("Unmatched closing ')'");
+            }
+            return node;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " near index " + pos + " of regexp [" + regexp + "]");
+        }
+
+        private IllegalArgumentException unsupported(String feature) {
+            return new IllegalArgumentException(feature + " cannot be matched in linear time: found near index "
+                    + pos + " of regexp [" + regexp + "]");
+        }
+
+        private boolean lookingAt(char c) {
+            return pos < regexp.length() && regexp.charAt(pos) == c;
+        }
+
+        private Node alternation() {
+            List<Node> alternatives = new ArrayList<Node>();
+            alternatives.add(concatenation());
+            while (lookingAt('|')) {
+                pos++;
+                alternatives.add(concatenation());
+            }
+            if (alternatives.size() == 1) {
+                return alternatives.get(0);
+            }
+            Node node = new Node(ALT);
+            node.children = alternatives;
+            return node;
+        }
+
+        private Node concatenation() {
+            Node node = new Node(CONCAT);
+            node.children = new ArrayList<Node>();
+            while (pos < regexp.length() && !lookingAt('|') && !lookingAt(')')) {
+                node.children.add(repetition());
+            }
+            return node;
+        }
+
+        private Node repetition() {
+            Node atom = atom();
+            int min;
+            int max;
+            if (lookingAt('*')) {
+                min = 0;
+                max = -1;
+            } else if (lookingAt('+')) {
+                min = 1;
+                max = -1;
+            } else if (lookingAt('?')) {
+                min = 0;
+                max = 1;
+            } else if (lookingAt('{')) {
+                pos++;
+                min = number();
+                max = min;
+                if (lookingAt(',')) {
+                    pos++;
+                    max = lookingAt('}') ? -1 : number();
+                }
+                if (!lookingAt('}')) {
+                    throw error("Illegal repetition");
+                }
+                if (max != -1 && max < min) {
+                    throw error("Illegal repetition range");
+                }
+            } else {
+                return atom;
+            }
+            pos++;
+            if (lookingAt('?')) {
+                // reluctant: the same texts match, only the extent of the match differs
+                pos++;
+            } else if (lookingAt('+')) {
+                throw unsupported("Possessive quantifiers");
+            }
+            Node node = new Node(REPEAT);
+            node.children = Arrays.asList(atom);
+            node.min = min;
+            node.max = max;
+            return node;
+        }
+
+        private int number() {
+            int start = pos;
+            while (pos < regexp.length() && Character.isDigit(regexp.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos || pos - start > 6) {
+                throw error("Illegal repetition");
+            }
+            return Integer.parseInt(regexp.substring(start, pos));
+        }
+
+        private Node atom() {
+            char c = regexp.charAt(pos++);
+            switch (c) {
+            case '(':
+                if (regexp.startsWith("?:", pos)) {
+                    pos += 2;
+                } else if (lookingAt('?')) {
+                    throw unsupported("Look-arounds, named groups and inline flags");
+                }
+                Node group = alternation();
+                if (!lookingAt(')')) {
+                    throw error("Unclosed group");
+                }
+                pos++;
+                return group;
+            case '[':
+                return charClass();
+            case '.':
+                return new Node(ANY);
+            case '^':
+                return new Node(BOL);
+            case '$':
+                return new Node(EOL);
+            case '\\':
+                return escape();
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                pos--;
+                throw error("Dangling meta character '" + c + "'");
+            default:
+                return literal(c);
+            }
+        }
+
+        private Node literal(int c) {
+            Node node = new Node(CHAR);
+            node.c = c;
+            return node;
+        }
+
+        private Node escape() {
+            if (pos >= regexp.length()) {
+                throw error("Unexpected end of regexp after \\");
+            }
+            char c = regexp.charAt(pos++);
+            switch (c) {
+            case 'b':
+                return new Node(WORD_BOUNDARY);
+            case 'B':
+                return new Node(NOT_WORD_BOUNDARY);
+            case 'Q':
+                int end = regexp.indexOf("\\E", pos);
+                String quoted = regexp.substring(pos, end < 0 ? regexp.length() : end);
+                pos = end < 0 ? regexp.length() : end + 2;
+                Node node = new Node(CONCAT);
+                node.children = new ArrayList<Node>();
+                for (int i = 0; i < quoted.length(); i++) {
+                    node.children.add(literal(quoted.charAt(i)));
+                }
+                return node;
+            default:
+                int[] shorthand = shorthand(c);
+                if (shorthand != null) {
+                    Node charClass = new Node(CLASS);
+                    charClass.charClass = new CharClass(shorthand, false);
+                    return charClass;
+                }
+                return literal(escapedChar(c));
+            }
+        }
+
+        /**
+         * @return the ranges of a <code>\d \w \s \p{...}</code> shorthand or of its negation, or null
+         */
+        private int[] shorthand(char c) {
+            switch (c) {
+            case 'p':
+            case 'P':
+                int end = regexp.indexOf('}', pos);
+                int[] ranges = lookingAt('{') && end > 0 ? POSIX.get(regexp.substring(pos + 1, end)) : null;
+                if (ranges == null) {
+                    throw unsupported("Unicode classes");
+                }
+                pos = end + 1;
+                return c == 'p' ? ranges : complement(ranges);
+            case 'd':
+                return DIGIT;
+            case 'D':
+                return complement(DIGIT);
+            case 'w':
+                return WORD;
+            case 'W':
+                return complement(WORD);
+            case 's':
+                return SPACE;
+            case 'S':
+                return complement(SPACE);
+            default:
+                return null;
+            }
+        }
+
+        private int escapedChar(char c) {
+            switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return 7;
+            case 'e':
+                return 27;
+            case '0':
+                int start = pos;
+                while (pos < regexp.length() && pos - start < 3 && regexp.charAt(pos) >= '0' && regexp.charAt(pos) <= '7') {
+                    pos++;
+                }
+                if (start == pos) {
+                    throw error("Illegal octal escape sequence");
+                }
+                return Integer.parseInt(regexp.substring(start, pos), 8);
+            case 'x':
+                return hex(2);
+            case 'u':
+                return hex(4);
+            default:
+                if (c >= '1' && c <= '9') {
+                    throw unsupported("Back references");
+                }
+                if (Character.isLetter(c)) {
+                    throw error("Unsupported escape sequence \\" + c);
+                }
+                return c;
+            }
+        }
+
+        private int hex(int digits) {
+            if (pos + digits > regexp.length()) {
+                throw error("Illegal hexadecimal escape sequence");
+            }
+            try {
+                int c = Integer.parseInt(regexp.substring(pos, pos + digits), 16);
+                pos += digits;
+                return c;
+            } catch (NumberFormatException e) {
+                throw error("Illegal hexadecimal escape sequence");
+            }
+        }
+
+        private Node charClass() {
+            boolean negated = false;
+            if (lookingAt('^')) {
+                negated = true;
+                pos++;
+            }
+            List<int[]> ranges = new ArrayList<int[]>();
+            boolean first = true;
+            while (true) {
+                if (pos >= regexp.length()) {
+                    throw error("Unclosed character class");
+                }
+                char c = regexp.charAt(pos);
+                if (c == ']' && !first) {
+                    pos++;
+                    break;
+                }
+                first = false;
+                if (c == '[') {
+                    throw unsupported("Nested character classes");
+                }
+                if (regexp.startsWith("&&", pos)) {
+                    throw unsupported("Character class intersections");
+                }
+                pos++;
+                int low = c;
+                if (c == '\\') {
+                    if (pos >= regexp.length()) {
+                        throw error("Unclosed character class");
+                    }
+                    char escaped = regexp.charAt(pos++);
+                    int[] shorthand = shorthand(escaped);
+                    if (shorthand != null) {
+                        ranges.add(shorthand);
+                        continue;
+                    }
+                    low = escapedChar(escaped);
+                }
+                int high = low;
+                if (lookingAt('-') && pos + 1 < regexp.length() && regexp.charAt(pos + 1) != ']') {
+                    pos++;
+                    char end = regexp.charAt(pos++);
+                    high = end;
+                    if (end == '\\') {
+                        if (pos >= regexp.length()) {
+                            throw error("Unclosed character class");
+                        }
+                        char escaped = regexp.charAt(pos++);
+                        if (shorthand(escaped) != null) {
+                            throw error("Illegal character range");
+                        }
+                        high = escapedChar(escaped);
+                    }
+                    if (high < low) {
+                        throw error("Illegal character range");
+                    }
+                }
+                ranges.add(new int[] { low, high });
+            }
+            int size = 0;
+            for (int[] range : ranges) {
+                size += range.length;
+            }
+            int[] all = new int[size];
+            int i = 0;
+            for (int[] range : ranges) {
+                System.arraycopy(range, 0, all, i, range.length);
+                i += range.length;
+            }
+            Node node = new Node(CLASS);
+            node.charClass = new CharClass(all, negated);
+            return node;
+        }
+
+        private static int[] complement(int[] ranges) {
+            List<Integer> result = new ArrayList<Integer>();
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) {
+                    result.add(next);
+                    result.add(ranges[i] - 1);
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= Character.MAX_VALUE) {
+                result.add(next);
+                result.add((int) Character.MAX_VALUE);
+            }
+            int[] array = new int[result.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = result.get(i);
+            }
+            return array;
+        }
+    }
+
+    /**
+     * A compiled pattern: the instructions of its automaton, run as a Pike virtual machine.
+     */
+    private static final class Program {
+
+        private int[] op = new int[64];
+
+        /** Character, class index or jump target. */
+        private int[] arg = new int[64];
+
+        /** Second target of a split. */
+        private int[] arg2 = new int[64];
+
+        private final List<CharClass> classes = new ArrayList<CharClass>();
+
+        private int size;
+
+        Program(Node pattern) {
+            compile(pattern);
+            emit(MATCH, 0, 0);
+        }
+
+        private int emit(int instruction, int a, int b) {
+            if (size == MAX_PROGRAM_SIZE) {
+                throw new IllegalArgumentException("Regexp too large for the linear-time engine: more than "
+                        + MAX_PROGRAM_SIZE + " instructions");
+            }
+            if (size == op.length) {
+                op = Arrays.copyOf(op, size * 2);
+                arg = Arrays.copyOf(arg, size * 2);
+                arg2 = Arrays.copyOf(arg2, size * 2);
+            }
+            op[size] = instruction;
+            arg[size] = a;
+            arg2[size] = b;
+            return size++;
+        }
+
+        private void compile(Node node) {
+            switch (node.type) {
+            case CHAR:
+                emit(CHAR, node.c, 0);
+                break;
+            case CLASS:
+                classes.add(node.charClass);
+                emit(CLASS, classes.size() - 1, 0);
+                break;
+            case CONCAT:
+                for (Node child : node.children) {
+                    compile(child);
+                }
+                break;
+            case ALT:
+                List<Integer> jumps = new ArrayList<Integer>();
+                for (int i = 0; i < node.children.size() - 1; i++) {
+                    int split = emit(SPLIT, size + 1, 0);
+                    compile(node.children.get(i));
+                    jumps.add(emit(JMP, 0, 0));
+                    arg2[split] = size;
+                }
+                compile(node.children.get(node.children.size() - 1));
+                for (int jump : jumps) {
+                    arg[jump] = size;
+                }
+                break;
+            case REPEAT:
+                Node child = node.children.get(0);
+                for (int i = 0; i < node.min; i++) {
+                    compile(child);
+                }
+                if (node.max == -1) {
+                    int loop = emit(SPLIT, size + 1, 0);
+                    compile(child);
+                    emit(JMP, loop, 0);
+                    arg2[loop] = size;
+                } else {
+                    List<Integer> splits = new ArrayList<Integer>();
+                    for (int i = node.min; i < node.max; i++) {
+                        splits.add(emit(SPLIT, size + 1, 0));
+                        compile(child);
+                    }
+                    for (int split : splits) {
+                        arg2[split] = size;
+                    }
+                }
+                break;
+            default:
+                // ANY and the anchors
+                emit(node.type, 0, 0);
+                break;
+            }
+        }
+
+        boolean find(CharSequence text) {
+            int[][] lists = { new int[size], new int[size] };
+            int[][] indexes = { new int[size], new int[size] };
+            int[] counts = new int[2];
+            int[] stack = new int[2 * size + 2];
+            int current = 0;
+            for (int i = 0;; i++) {
+                // a new match may start at each position
+                if (add(lists[current], indexes[current], counts, current, stack, 0, text, i)) {
+                    return true;
+                }
+                if (i == text.length()) {
+                    return false;
+                }
+                char c = text.charAt(i);
+                int next = 1 - current;
+                counts[next] = 0;
+                for (int t = 0; t < counts[current]; t++) {
+                    int pc = lists[current][t];
+                    boolean step;
+                    switch (op[pc]) {
+                    case CHAR:
+                        step = c == arg[pc];
+                        break;
+                    case ANY:
+                        step = true;
+                        break;
+                    case CLASS:
+                        step = classes.get(arg[pc]).matches(c);
+                        break;
+                    default:
+                        step = false;
+                        break;
+                    }
+                    if (step && add(lists[next], indexes[next], counts, next, stack, pc + 1, text, i + 1)) {
+                        return true;
+                    }
+                }
+                counts[current] = 0;
+                current = next;
+            }
+        }
+
+        /**
+         * Add a thread to a list, following the jumps and the anchors that hold at its position.
+         *
+         * @return true if the thread reaches the end of the pattern
+         */
+        private boolean add(int[] list, int[] index, int[] counts, int which, int[] stack, int start,
+                CharSequence text, int pos) {
+            int top = 0;
+            stack[top++] = start;
+            while (top > 0) {
+                int pc = stack[--top];
+                int at = index[pc];
+                if (at < counts[which] && list[at] == pc) {
+                    continue;
+                }
+                index[pc] = counts[which];
+                list[counts[which]++] = pc;
+                switch (op[pc]) {
+                case MATCH:
+                    return true;
+                case JMP:
+                    stack[top++] = arg[pc];
+                    break;
+                case SPLIT:
+                    stack[top++] = arg2[pc];
+                    stack[top++] = arg[pc];
+                    break;
+                case BOL:
+                    if (pos == 0) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                case EOL:
+                    if (isEnd(text, pos)) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                case WORD_BOUNDARY:
+                case NOT_WORD_BOUNDARY:
+                    boolean boundary = isWord(text, pos - 1) != isWord(text, pos);
+                    if (boundary == (op[pc] == WORD_BOUNDARY)) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                default:
+                    // waits for the next character
+                    break;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isEnd(CharSequence text, int pos) {
+            int length = text.length();
+            return pos == length || pos == length - 1 && text.charAt(pos) == '\n'
+                    || pos == length - 2 && text.charAt(pos) == '\r' && text.charAt(pos + 1) == '\n';
+        }
+
+        private static boolean isWord(CharSequence text, int pos) {
+            if (pos < 0 || pos >= text.length()) {
+                return false;
+            }
+            char c = text.charAt(pos);
+            return c == '_' || Character.isLetterOrDigit(c);
+        }
+    }
+
+}
@@ -0,0 +1,411 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sourceforge.jwebunit.api.IElement;
+import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.api.ResponseSnapshot;
+
+/**
+ * Checks every same-origin link and form target reachable from a page, with a pool of
+ * testing engines working in parallel.
+ *
+ * <p>Each URL is checked once, with a <code>HEAD</code> request sent by one of the testing engines.
+ * Only the HTML pages within the depth limit are then loaded, so that their links and forms are
+ * checked in turn: images, documents and other files are never downloaded. The URLs are loaded
+ * instead when the engine cannot send <code>HEAD</code> requests, or when the server answers
+ * <code>405 Method Not Allowed</code> or <code>501 Not Implemented</code> to them. Form targets are
+ * not followed, and a <code>405</code> answer is accepted for them. Links to other origins,
+ * <code>javascript:</code> and <code>mailto:</code> links are ignored.</p>
+ *
+ * <p>The engines are started with the test context, so the URLs are fetched as the browser would
+ * fetch them: with its cookies, request headers, user agent, authentication, proxy and URL filter.</p>
+ *
+ * @see ITestingEngine#getHeadResponse(URL)
+ *
+ * @see net.sourceforge.jwebunit.junit.WebTester#assertAllLinksValid(LinkCrawler)
+ */
+public class LinkCrawler {
+
+    private final String testingEngineKey;
+
+    private final TestContext testContext;
+
+    private int threads = 4;
+
+    private int maxDepth = 3;
+
+    private int maxUrls = 1000;
+
+    private double requestsPerSecond = 0;
+
+    private long slowThreshold = 0;
+
+    private int timeout = 30000;
+
+    private boolean scriptingEnabled = false;
+
+    /**
+     * Create a crawler.
+     *
+     * @param testingEngineKey key of the testing engines loading the pages, see {@link TestingEngineRegistry}
+     * @param testContext context of the requests
+     */
+    public LinkCrawler(String testingEngineKey, TestContext testContext) {
+        this.testingEngineKey = testingEngineKey;
+        this.testContext = testContext;
+    }
+
+    /**
+     * @param threads number of testing engines working in parallel, 4 by default
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param maxDepth number of links followed from the start page, 3 by default
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param maxUrls maximum number of URLs checked, 1000 by default
+     */
+    public void setMaxUrls(int maxUrls) {
+        this.maxUrls = maxUrls;
+    }
+
+    /**
+     * @param requestsPerSecond maximum number of requests sent per second by all the engines, or 0 for no limit
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * @param slowThreshold time in milliseconds above which a page is reported as slow, or 0 to not report slow pages
+     */
+    public void setSlowThreshold(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    /**
+     * @param timeout timeout of the requests of the engines, in milliseconds, 30s by default. Ignored by the
+     *            engines that cannot change it.
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param scriptingEnabled whether the engines run the scripts of the pages, false by default
+     */
+    public void setScriptingEnabled(boolean scriptingEnabled) {
+        this.scriptingEnabled = scriptingEnabled;
+    }
+
+    /**
+     * Check all the links reachable from a page.
+     *
+     * @param start the first page
+     * @return the broken links and slow pages found
+     */
+    public CrawlReport crawl(URL start) {
+        return new Crawl(start).run();
+    }
+
+    /**
+     * State of one run of the crawler.
+     */
+    private final class Crawl {
+
+        private final URL start;
+
+        private final CrawlReport report = new CrawlReport();
+
+        private final Set<String> seen = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final List<ITestingEngine> engines = new CopyOnWriteArrayList<ITestingEngine>();
+
+        private final ThreadLocal<ITestingEngine> engine = new ThreadLocal<ITestingEngine>();
+
+        /**
+         * False once an engine refused to send a <code>HEAD</code> request.
+         */
+        private volatile boolean headSupported = true;
+
+        /**
+         * Earliest time of the next request, in nanoseconds, when the rate is limited.
+         */
+        private long nextRequest = System.nanoTime();
+
+        Crawl(URL start) {
+            this.start = start;
+        }
+
+        CrawlReport run() {
+            try {
+                submit(start.toExternalForm(), null, 0, false);
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } finally {
+                executor.shutdownNow();
+                for (ITestingEngine e : engines) {
+                    try {
+                        e.closeBrowser();
+                    } catch (Exception ignored) {
+                        // the crawl is over
+                    }
+                }
+            }
+            return report;
+        }
+
+        private void submit(final String url, final String referrer, final int depth, final boolean formTarget) {
+            if (seen.size() >= maxUrls || !seen.add(url)) {
+                return;
+            }
+            pending.incrementAndGet();
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        check(url, referrer, depth, formTarget);
+                    } catch (RuntimeException e) {
+                        report.addBroken(url, referrer, e.toString());
+                    } finally {
+                        if (pending.decrementAndGet() == 0) {
+                            done.countDown();
+                        }
+                    }
+                }
+            });
+        }
+
+        private void check(String url, String referrer, int depth, boolean formTarget) {
+            report.addChecked();
+            long begin = System.currentTimeMillis();
+            boolean followed = !formTarget && depth < maxDepth;
+            ResponseSnapshot head;
+            ITestingEngine e = null;
+            try {
+                head = probe(url, formTarget);
+                if (head == null || (followed && head.getStatusCode() < 400
+                        && isHtml(head.getHeader("Content-Type")))) {
+                    e = load(url);
+                }
+            } catch (RuntimeException ex) {
+                report.addBroken(url, referrer, ex.toString());
+                return;
+            }
+            long time = System.currentTimeMillis() - begin;
+            int status = e == null ? head.getStatusCode() : e.getServerResponseCode();
+            if (status >= 400 && !(formTarget && status == HttpURLConnection.HTTP_BAD_METHOD)) {
+                report.addBroken(url, referrer, "HTTP " + status);
+                return;
+            }
+            if (e != null && followed && isHtml(e.getHeader("Content-Type"))) {
+                followLinks(e, url, depth);
+            }
+            if (slowThreshold > 0 && time > slowThreshold) {
+                report.addSlow(url, time);
+            }
+        }
+
+        private boolean isHtml(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ENGLISH).contains("html");
+        }
+
+        /**
+         * Send a <code>HEAD</code> request for a URL with the engine of the current thread, or return
+         * null if the URL must be loaded instead.
+         */
+        private ResponseSnapshot probe(String url, boolean formTarget) {
+            if (!headSupported || url.equals(start.toExternalForm())) {
+                return null;
+            }
+            ITestingEngine e = engine();
+            ResponseSnapshot head;
+            try {
+                acquire();
+                head = e.getHeadResponse(new URL(url));
+            } catch (UnsupportedOperationException ex) {
+                headSupported = false;
+                return null;
+            } catch (MalformedURLException ex) {
+                throw new RuntimeException(ex);
+            }
+            int status = head.getStatusCode();
+            if (!formTarget && (status == HttpURLConnection.HTTP_BAD_METHOD
+                    || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED)) {
+                // the server does not answer HEAD requests
+                return null;
+            }
+            return head;
+        }
+
+        /**
+         * Load a URL with the engine of the current thread.
+         */
+        private ITestingEngine load(String url) {
+            boolean started = engine.get() == null;
+            ITestingEngine e = engine();
+            if (started && url.equals(start.toExternalForm())) {
+                return e;
+            }
+            try {
+                acquire();
+                e.gotoPage(new URL(url));
+            } catch (MalformedURLException ex) {
+                throw new RuntimeException(ex);
+            }
+            return e;
+        }
+
+        /**
+         * Return the engine of the current thread, started on the first page on its first use so that
+         * an answer without content, such as a <code>204</code>, leaves it on a page.
+         */
+        private ITestingEngine engine() {
+            ITestingEngine e = engine.get();
+            if (e == null) {
+                e = newEngine();
+                acquire();
+                e.beginAt(start, testContext);
+                // only reused once it has a browser
+                engine.set(e);
+            }
+            return e;
+        }
+
+        private void followLinks(ITestingEngine e, String url, int depth) {
+            URL base = e.getPageURL();
+            for (IElement link : e.getElementsByXPath("//a[@href] | //area[@href]")) {
+                String target = resolve(base, link.getAttribute("href"));
+                if (target != null) {
+                    submit(target, url, depth + 1, false);
+                }
+            }
+            for (IElement form : e.getElementsByXPath("//form")) {
+                String target = resolve(base, form.getAttribute("action"));
+                if (target != null) {
+                    submit(target, url, depth + 1, true);
+                }
+            }
+        }
+
+        private ITestingEngine newEngine() {
+            ITestingEngine e;
+            try {
+                e = (ITestingEngine) TestingEngineRegistry.getTestingEngineClass(testingEngineKey).newInstance();
+            } catch (Exception ex) {
+                throw new RuntimeException("Can't instantiate testing engine with key [" + testingEngineKey + "]", ex);
+            }
+            e.setScriptingEnabled(scriptingEnabled);
+            e.setIgnoreFailingStatusCodes(true);
+            try {
+                e.setTimeout(timeout);
+            } catch (UnsupportedOperationException ex) {
+                // the engine keeps its own timeout
+            }
+            engines.add(e);
+            return e;
+        }
+
+        /**
+         * Resolve a link against its page, or return null if it must not be checked.
+         */
+        private String resolve(URL base, String href) {
+            if (href == null) {
+                return null;
+            }
+            href = href.trim();
+            String lower = href.toLowerCase(Locale.ENGLISH);
+            if (href.startsWith("#") || lower.startsWith("javascript:") || lower.startsWith("mailto:")) {
+                return null;
+            }
+            URL url;
+            try {
+                url = new URL(base, href);
+            } catch (MalformedURLException e) {
+                return null;
+            }
+            if (!url.getProtocol().equals(start.getProtocol()) || !url.getHost().equalsIgnoreCase(start.getHost())
+                    || port(url) != port(start)) {
+                return null;
+            }
+            String external = url.toExternalForm();
+            int fragment = external.indexOf('#');
+            return fragment < 0 ? external : external.substring(0, fragment);
+        }
+
+        private int port(URL url) {
+            return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        }
+
+        /**
+         * Wait for the next request allowed by the rate limit.
+         */
+        private void acquire() {
+            if (requestsPerSecond <= 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextRequest);
+                nextRequest = slot + (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+                wait = slot - now;
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Translates the POSIX classes of the Jakarta regexp syntax used by earlier versions, like
+ * <code>[:alpha:]</code>, into their <code>java.util.regex</code> equivalent, like
+ * <code>\p{Alpha}</code>, so that existing assertions keep their meaning.
+ */
+final class PosixClasses {
+
+    private static final Map<String, String> NAMES = new HashMap<String, String>();
+
+    static {
+        NAMES.put("alnum", "Alnum");
+        NAMES.put("alpha", "Alpha");
+        NAMES.put("blank", "Blank");
+        NAMES.put("cntrl", "Cntrl");
+        NAMES.put("digit", "Digit");
+        NAMES.put("graph", "Graph");
+        NAMES.put("lower", "Lower");
+        NAMES.put("print", "Print");
+        NAMES.put("punct", "Punct");
+        NAMES.put("space", "Space");
+        NAMES.put("upper", "Upper");
+        NAMES.put("xdigit", "XDigit");
+    }
+
+    private PosixClasses() {
+    }
+
+    /**
+     * @param regexp a regexp
+     * @return the regexp with its POSIX classes replaced by <code>\p{...}</code> classes
+     */
+    static String translate(String regexp) {
+        if (regexp.indexOf("[:") < 0) {
+            return regexp;
+        }
+        StringBuilder sb = new StringBuilder(regexp.length());
+        int i = 0;
+        while (i < regexp.length()) {
+            char c = regexp.charAt(i);
+            if (c == '\\' && regexp.startsWith("\\Q", i)) {
+                int end = regexp.indexOf("\\E", i);
+                end = end < 0 ? regexp.length() : end + 2;
+                sb.append(regexp, i, end);
+                i = end;
+            } else if (c == '\\') {
+                sb.append(regexp, i, Math.min(i + 2, regexp.length()));
+                i += 2;
+            } else if (regexp.startsWith("[:", i)) {
+                int end = regexp.indexOf(":]", i + 2);
+                String name = end < 0 ? null : NAMES.get(regexp.substring(i + 2, end));
+                if (name == null) {
+                    sb.append(c);
+                    i++;
+                } else {
+                    sb.append("\\p{").append(name).append('}');
+                    i = end + 2;
+                }
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the refreshes (<code>&lt;meta http-equiv="refresh"&gt;</code> and <code>Refresh</code>
+ * headers) followed by a browser, and refuses the ones beyond a limit, so that a page refreshing
+ * itself cannot hang a test. Used by the refresh handlers of the testing engines.
+ *
+ * <p>The refreshes are counted since the last navigation that was not a refresh, and since the
+ * creation of the limiter. The counters may be updated by any thread: browsers follow refreshes
+ * and run the navigations of scripts on their own threads.</p>
+ *
+ * @see TestContext#setMaxRefreshes(int)
+ * @see TestContext#setMaxRefreshDelay(long)
+ */
+public class RefreshLimiter {
+
+    private final int maxRefreshes;
+
+    private final long maxDelay;
+
+    /**
+     * Number of refreshes being followed.
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final AtomicInteger refreshCount = new AtomicInteger();
+
+    private final AtomicInteger totalRefreshCount = new AtomicInteger();
+
+    private final AtomicInteger abortedCount = new AtomicInteger();
+
+    /**
+     * Create a limiter.
+     *
+     * @param maxRefreshes maximum number of refreshes followed in a row
+     * @param maxDelay longest time to wait before a refresh, in milliseconds, or -1 to wait as long
+     *            as the page asks
+     */
+    public RefreshLimiter(int maxRefreshes, long maxDelay) {
+        this.maxRefreshes = maxRefreshes;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Count a refresh about to be followed. Each successful call must be followed by a call to
+     * {@link #endRefresh()} once the refreshed page is loaded, or the refresh is given up.
+     *
+     * @param from URL of the page asking for the refresh
+     * @param to URL of the refreshed page
+     * @param seconds delay asked by the page
+     * @return the time to wait before following the refresh, in milliseconds
+     * @throws RuntimeException if the maximum number of refreshes in a row is reached
+     */
+    public long startRefresh(String from, String to, int seconds) {
+        while (true) {
+            int count = refreshCount.get();
+            if (count >= maxRefreshes) {
+                abortedCount.incrementAndGet();
+                throw new RuntimeException("Not refreshing " + from + " to " + to + ": " + count
+                        + " refreshes already followed, see TestContext.setMaxRefreshes(int)");
+            }
+            if (refreshCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        totalRefreshCount.incrementAndGet();
+        depth.incrementAndGet();
+        long delay = seconds * 1000L;
+        return maxDelay >= 0 ? Math.min(delay, maxDelay) : delay;
+    }
+
+    /**
+     * Tell that a refresh counted by {@link #startRefresh(String, String, int)} is over.
+     */
+    public void endRefresh() {
+        depth.decrementAndGet();
+    }
+
+    /**
+     * Tell that a new page was loaded. Unless a refresh is being followed, this is a new navigation
+     * and the refreshes in a row are counted from zero again.
+     */
+    public void pageLoaded() {
+        if (depth.get() == 0) {
+            refreshCount.set(0);
+        }
+    }
+
+    /**
+     * @return the number of refreshes followed to reach the current page
+     */
+    public int getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * @return the number of refreshes followed since the creation of the limiter
+     */
+    public int getTotalRefreshCount() {
+        return totalRefreshCount.get();
+    }
+
+    /**
+     * @return the number of navigations failed because of the limit
+     */
+    public int getAbortedCount() {
+        return abortedCount.get();
+    }
+
+}
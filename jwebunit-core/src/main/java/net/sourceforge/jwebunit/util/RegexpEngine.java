@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+/**
+ * Matches the regular expressions of the assertions of the tester and of the testing engines.
+ *
+ * <p>Engines use the <code>java.util.regex</code> syntax, where <code>.</code> also matches line
+ * terminators. The POSIX classes of the Jakarta regexp syntax, like <code>[:alpha:]</code>, are
+ * still accepted. The default engine is a {@link JavaRegexpEngine} with a time budget; a
+ * {@link LinearRegexpEngine} can be set on the {@link TestContext} to match in linear time
+ * any pattern it supports.</p>
+ *
+ * @see TestContext#setRegexpEngine(RegexpEngine)
+ */
+public interface RegexpEngine {
+
+    /**
+     * Tell if a regular expression matches somewhere in a text.
+     *
+     * @param regexp the regular expression
+     * @param text the text to search
+     * @return true if the regular expression matches a part of the text
+     * @throws IllegalArgumentException if the regular expression is invalid or not supported by the engine
+     * @throws net.sourceforge.jwebunit.exception.RegexpTimeoutException if the match takes longer than the
+     * budget of the engine
+     */
+    boolean find(String regexp, CharSequence text);
+
+}
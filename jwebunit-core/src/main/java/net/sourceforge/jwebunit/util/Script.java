@@ -0,0 +1,435 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A script of {@link net.sourceforge.jwebunit.junit.WebTester} calls, written by a
+ * {@link ScriptRecorder} and run by a {@link ScriptPlayer}.
+ *
+ * <p>Each line is a call: the time the tester was idle since the previous call returned, in
+ * milliseconds, the name of the method and its arguments, separated by spaces. Arguments are
+ * strings in double quotes with Java escapes, <code>int</code> numbers, <code>long</code> numbers
+ * with an <code>L</code> suffix, <code>true</code>, <code>false</code>, <code>null</code>, arrays
+ * in square brackets and string maps in braces. Empty lines and lines starting with <code>#</code> are ignored.</p>
+ *
+ * <pre>
+ * # JWebUnit script
+ * 0 setBaseUrl "http://localhost:8080/app"
+ * 3 beginAt "/search.html"
+ * 1250 setTextField "q" "jwebunit"
+ * 310 submit
+ * 95 assertTextPresent "Results"
+ * </pre>
+ */
+public final class Script {
+
+    /**
+     * A call of a tester method.
+     */
+    public static final class Call {
+
+        private final long delay;
+
+        private final String method;
+
+        private final Object[] arguments;
+
+        /**
+         * @param delay think time since the previous call returned, in milliseconds
+         * @param method name of the tester method
+         * @param arguments arguments of the call: strings, integers, longs, booleans, string arrays,
+         *            arrays of string arrays, boolean arrays or string maps
+         */
+        public Call(long delay, String method, Object[] arguments) {
+            this.delay = delay;
+            this.method = method;
+            this.arguments = arguments.clone();
+        }
+
+        /**
+         * Return the think time since the previous call returned, in milliseconds.
+         */
+        public long getDelay() {
+            return delay;
+        }
+
+        /**
+         * Return the name of the tester method.
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Return the arguments of the call.
+         */
+        public Object[] getArguments() {
+            return arguments.clone();
+        }
+
+        /**
+         * Return true if the call is an assertion, which does not change the state of the browser.
+         */
+        public boolean isAssertion() {
+            return method.startsWith("assert");
+        }
+
+        /**
+         * Return the call as a line of a script, without line terminator.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(delay).append(' ').append(method);
+            for (Object argument : arguments) {
+                sb.append(' ');
+                format(sb, argument);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final List<Call> calls;
+
+    /**
+     * @param calls the calls of the script
+     */
+    public Script(List<Call> calls) {
+        this.calls = Collections.unmodifiableList(new ArrayList<Call>(calls));
+    }
+
+    /**
+     * Return the calls of the script.
+     */
+    public List<Call> getCalls() {
+        return calls;
+    }
+
+    /**
+     * Return the text of the script.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Call call : calls) {
+            sb.append(call).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Read a script.
+     *
+     * @param text text of the script
+     * @return the script
+     * @throws IllegalArgumentException if a line is not a valid call
+     */
+    public static Script parse(String text) {
+        try {
+            return parse(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read a script.
+     *
+     * @param reader reader of the script, not closed
+     * @return the script
+     * @throws IOException if the script cannot be read
+     * @throws IllegalArgumentException if a line is not a valid call
+     */
+    public static Script parse(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<Call> calls = new ArrayList<Call>();
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                calls.add(new Parser(trimmed).call());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid call at line " + number + " of script: " + line, e);
+            }
+        }
+        return new Script(calls);
+    }
+
+    static void format(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            sb.append('"');
+            String s = (String) value;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < ' ') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+            sb.append('"');
+        } else if (value instanceof Long) {
+            sb.append(value).append('L');
+        } else if (value instanceof Integer || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof boolean[]) {
+            formatArray(sb, Arrays.asList((Object[]) toObjects((boolean[]) value)));
+        } else if (value instanceof Object[]) {
+            formatArray(sb, Arrays.asList((Object[]) value));
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    sb.append(' ');
+                }
+                first = false;
+                format(sb, entry.getKey());
+                sb.append(':');
+                format(sb, entry.getValue());
+            }
+            sb.append('}');
+        } else {
+            throw new IllegalArgumentException("Cannot write a " + value.getClass().getName() + " in a script");
+        }
+    }
+
+    private static void formatArray(StringBuilder sb, List<?> values) {
+        sb.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            format(sb, values.get(i));
+        }
+        sb.append(']');
+    }
+
+    private static Boolean[] toObjects(boolean[] values) {
+        Boolean[] objects = new Boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            objects[i] = values[i];
+        }
+        return objects;
+    }
+
+    /**
+     * Parser of a line of script.
+     */
+    private static final class Parser {
+
+        private final String line;
+
+        private int pos;
+
+        Parser(String line) {
+            this.line = line;
+        }
+
+        Call call() {
+            long delay = Long.parseLong(word());
+            String method = word();
+            List<Object> arguments = new ArrayList<Object>();
+            skipSpaces();
+            while (pos < line.length()) {
+                arguments.add(value());
+                skipSpaces();
+            }
+            return new Call(delay, method, arguments.toArray());
+        }
+
+        private void skipSpaces() {
+            while (pos < line.length() && line.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+
+        private String word() {
+            skipSpaces();
+            int start = pos;
+            while (pos < line.length() && line.charAt(pos) != ' ') {
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalArgumentException("Missing delay or method");
+            }
+            return line.substring(start, pos);
+        }
+
+        private char peek() {
+            if (pos >= line.length()) {
+                throw new IllegalArgumentException("Unexpected end of line");
+            }
+            return line.charAt(pos);
+        }
+
+        private Object value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '[') {
+                return array();
+            }
+            if (c == '{') {
+                return map();
+            }
+            int start = pos;
+            while (pos < line.length() && " ]}:".indexOf(line.charAt(pos)) < 0) {
+                pos++;
+            }
+            String token = line.substring(start, pos);
+            if ("null".equals(token)) {
+                return null;
+            }
+            if ("true".equals(token) || "false".equals(token)) {
+                return Boolean.valueOf(token);
+            }
+            if (token.endsWith("L")) {
+                return Long.valueOf(token.substring(0, token.length() - 1));
+            }
+            return Integer.valueOf(token);
+        }
+
+        private String string() {
+            pos++;
+            StringBuilder sb = new StringBuilder();
+            while (peek() != '"') {
+                char c = line.charAt(pos++);
+                if (c == '\\') {
+                    char escaped = peek();
+                    pos++;
+                    switch (escaped) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(line.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            pos++;
+            return sb.toString();
+        }
+
+        private Object array() {
+            pos++;
+            List<Object> values = new ArrayList<Object>();
+            skipSpaces();
+            while (peek() != ']') {
+                values.add(value());
+                skipSpaces();
+            }
+            pos++;
+            if (!values.isEmpty() && values.get(0) instanceof Boolean) {
+                boolean[] booleans = new boolean[values.size()];
+                for (int i = 0; i < booleans.length; i++) {
+                    booleans[i] = (Boolean) values.get(i);
+                }
+                return booleans;
+            }
+            if (!values.isEmpty() && allInstances(values, String[].class)) {
+                return values.toArray(new String[values.size()][]);
+            }
+            if (allInstances(values, String.class)) {
+                return values.toArray(new String[values.size()]);
+            }
+            // arguments of messages
+            if (allInstances(values, Object[].class)) {
+                return values.toArray(new Object[values.size()][]);
+            }
+            return values.toArray();
+        }
+
+        private boolean allInstances(List<Object> values, Class<?> type) {
+            for (Object value : values) {
+                if (value != null && !type.isInstance(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Map<String, String> map() {
+            pos++;
+            Map<String, String> values = new LinkedHashMap<String, String>();
+            skipSpaces();
+            while (peek() != '}') {
+                String key = (String) value();
+                if (peek() != ':') {
+                    throw new IllegalArgumentException("Missing ':' in map");
+                }
+                pos++;
+                values.put(key, (String) value());
+                skipSpaces();
+            }
+            pos++;
+            return values;
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.junit.WebTester;
+
+/**
+ * Runs the calls of a {@link Script} on a {@link WebTester}, without the test that recorded it.
+ *
+ * <p>By default the calls are run one after the other, assertions included. In throughput mode
+ * ({@link #setSkipAssertions(boolean)}) only the navigations and form interactions are run, and
+ * the player can wait before each call as long as the recorded user did
+ * ({@link #setPaced(boolean)}).</p>
+ */
+public class ScriptPlayer {
+
+    private static final Method[] METHODS = WebTester.class.getMethods();
+
+    private boolean skipAssertions;
+
+    private boolean paced;
+
+    /**
+     * Skip the assertions of the script, to only replay the traffic.
+     *
+     * @param skipAssertions true to skip the calls to <code>assert*</code> methods
+     */
+    public void setSkipAssertions(boolean skipAssertions) {
+        this.skipAssertions = skipAssertions;
+    }
+
+    /**
+     * Wait before each call the think time recorded before it.
+     *
+     * @param paced true to reproduce the think times of the recording
+     */
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+
+    /**
+     * Run a script with a new tester using the given testing engine.
+     *
+     * @param script the script
+     * @param engine the testing engine
+     * @throws InterruptedException if interrupted while waiting before a call
+     */
+    public void play(Script script, ITestingEngine engine) throws InterruptedException {
+        WebTester tester = new WebTester();
+        tester.setDialog(engine);
+        play(script, tester);
+    }
+
+    /**
+     * Run a script with a tester.
+     *
+     * @param script the script
+     * @param tester the tester
+     * @throws InterruptedException if interrupted while waiting before a call
+     */
+    public void play(Script script, WebTester tester) throws InterruptedException {
+        for (Script.Call call : script.getCalls()) {
+            play(call, tester);
+        }
+    }
+
+    /**
+     * Run a call of a script, unless it is an assertion and assertions are skipped.
+     *
+     * @param call the call
+     * @param tester the tester
+     * @throws InterruptedException if interrupted while waiting before the call
+     */
+    public void play(Script.Call call, WebTester tester) throws InterruptedException {
+        if (skipAssertions && call.isAssertion()) {
+            return;
+        }
+        if (paced && call.getDelay() > 0) {
+            Thread.sleep(call.getDelay());
+        }
+        Object[] arguments = call.getArguments();
+        Method method = findMethod(call.getMethod(), arguments);
+        try {
+            method.invoke(tester, arguments);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static Method findMethod(String name, Object[] arguments) {
+        Method found = null;
+        for (Method method : METHODS) {
+            if (method.getName().equals(name) && accepts(method.getParameterTypes(), arguments)
+                    && (found == null || prefersStrings(method.getParameterTypes(), arguments))) {
+                found = method;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("No tester method " + name + " for " + arguments.length + " arguments");
+        }
+        return found;
+    }
+
+    private static boolean accepts(Class<?>[] types, Object[] arguments) {
+        if (types.length != arguments.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            Object argument = arguments[i];
+            boolean accepted;
+            if (argument == null) {
+                accepted = !types[i].isPrimitive();
+            } else if (argument instanceof Integer) {
+                accepted = types[i] == int.class;
+            } else if (argument instanceof Long) {
+                accepted = types[i] == long.class;
+            } else if (argument instanceof Boolean) {
+                accepted = types[i] == boolean.class;
+            } else {
+                accepted = types[i].isInstance(argument);
+            }
+            if (!accepted) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A null argument matches any object type: prefer the overloads taking strings.
+     */
+    private static boolean prefersStrings(Class<?>[] types, Object[] arguments) {
+        for (int i = 0; i < types.length; i++) {
+            if (arguments[i] == null && types[i] != String.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
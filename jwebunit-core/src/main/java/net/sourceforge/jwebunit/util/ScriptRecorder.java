@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import net.sourceforge.jwebunit.api.ITestingEngine;
+
+/**
+ * Writes the navigations, form interactions and assertions of a
+ * {@link net.sourceforge.jwebunit.junit.WebTester} as a {@link Script}, one line per call, as
+ * they happen. The delay written before each call is the time the tester was idle since the
+ * previous one returned, so that a paced replay does not wait for the response times twice.
+ *
+ * <p>Every public method of the tester returning nothing is recorded, except the ones configuring
+ * the tester (<code>setDialog</code>, <code>setTestContext</code>, <code>setTestingEngineKey</code>,
+ * <code>setRecorder</code>), the <code>dump</code> methods, and the ones taking arguments a script
+ * cannot hold: <code>beginAtWithSession</code>, <code>restoreSession</code>,
+ * <code>assertAllLinksValid(LinkCrawler)</code>, the table assertions taking a <code>Table</code>,
+ * <code>saveAs</code>, <code>assertDownloadedFileEquals</code> and
+ * <code>assertImageValidAndStore</code>. The calls that these methods make to the tester are
+ * recorded instead. Methods returning a value are not recorded.</p>
+ *
+ * <pre>
+ * Writer out = new FileWriter("search.script");
+ * tester.setRecorder(new ScriptRecorder(out));
+ * ...
+ * tester.setRecorder(null);
+ * out.close();
+ * </pre>
+ *
+ * @see net.sourceforge.jwebunit.junit.WebTester#setRecorder(ScriptRecorder)
+ */
+public class ScriptRecorder {
+
+    private final Appendable out;
+
+    /** End of the last call, or -1 before the first one. */
+    private long idleSince = -1;
+
+    private ITestingEngine engine;
+
+    private ITestingEngine watchedEngine;
+
+    /**
+     * Create a recorder keeping the script in memory, see {@link #getScript()}.
+     */
+    public ScriptRecorder() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * Create a recorder writing to the given output, flushed after each call if possible.
+     *
+     * @param out output of the script
+     */
+    public ScriptRecorder(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Record a call.
+     *
+     * @param method name of the tester method
+     * @param arguments arguments of the call
+     */
+    public synchronized void record(String method, Object... arguments) {
+        long now = System.nanoTime();
+        long delay = idleSince < 0 ? 0 : Math.max(0, now - idleSince) / 1000000;
+        idleSince = now;
+        try {
+            out.append(new Script.Call(delay, method, arguments).toString()).append('\n');
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write the script", e);
+        }
+    }
+
+    /**
+     * Mark the end of some work done for the recorded calls: the delay of the next call starts
+     * from now.
+     */
+    public synchronized void done() {
+        idleSince = System.nanoTime();
+    }
+
+    /**
+     * Return a view of the given testing engine calling {@link #done()} each time one of its
+     * methods returns, so that the time spent waiting for the engine is not counted in the delays.
+     *
+     * @param engine the engine used by the recorded tester
+     * @return the engine to use while recording
+     */
+    public synchronized ITestingEngine watch(final ITestingEngine engine) {
+        if (engine != this.engine) {
+            watchedEngine = (ITestingEngine) Proxy.newProxyInstance(ITestingEngine.class.getClassLoader(),
+                    new Class<?>[] {ITestingEngine.class}, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            try {
+                                return method.invoke(engine, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                done();
+                            }
+                        }
+                    });
+            this.engine = engine;
+        }
+        return watchedEngine;
+    }
+
+    /**
+     * Return the script recorded in memory.
+     *
+     * @return the script
+     * @throws IllegalStateException if the recorder writes to another output
+     */
+    public synchronized Script getScript() {
+        if (!(out instanceof StringBuilder)) {
+            throw new IllegalStateException("The script is not recorded in memory");
+        }
+        return Script.parse(out.toString());
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sourceforge.jwebunit.api.SessionSnapshot;
+
+/**
+ * Sessions captured after a login, shared by the tests of the JVM so that each
+ * credential set only goes through the login pages once.
+ *
+ * @see net.sourceforge.jwebunit.junit.WebTester#beginAtWithSession(String, String, Runnable)
+ */
+public class SessionCache {
+
+    private static final SessionCache INSTANCE = new SessionCache();
+
+    private final Map<String, SessionSnapshot> sessions = new HashMap<String, SessionSnapshot>();
+
+    /**
+     * @return the cache shared by the tests of the JVM
+     */
+    public static SessionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key key of the credential set
+     * @return the session captured for these credentials, or null
+     */
+    public synchronized SessionSnapshot get(String key) {
+        return sessions.get(key);
+    }
+
+    /**
+     * @param key key of the credential set
+     * @param snapshot the session captured for these credentials
+     */
+    public synchronized void put(String key, SessionSnapshot snapshot) {
+        sessions.put(key, snapshot);
+    }
+
+    /**
+     * Forget the session of a credential set, for example when it has expired on the server.
+     *
+     * @param key key of the credential set
+     */
+    public synchronized void remove(String key) {
+        sessions.remove(key);
+    }
+
+    /**
+     * Forget all the sessions.
+     */
+    public synchronized void clear() {
+        sessions.clear();
+    }
+
+    /**
+     * @return the number of cached sessions
+     */
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+}
@@ -28,6 +28,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import net.sourceforge.jwebunit.api.SessionSnapshot;
+
 /**
  * Establish context for tests (things such as locale, base url for the application, cookies, authorization). The
  * context can be accessed through the {@link net.sourceforge.jwebunit.WebTestCase}or
@@ -70,6 +72,18 @@ public class TestContext {
 
     private boolean hasProxyAuth = false;
 
+    private UrlFilter urlFilter = new UrlFilter();
+
+    private RegexpEngine regexpEngine = new JavaRegexpEngine();
+
+    private SessionSnapshot sessionSnapshot;
+
+    private boolean javaScriptTimeWarp = false;
+
+    private int maxRefreshes = 10;
+
+    private long maxRefreshDelay = 0;
+
     /**
      * Construct a test client context.
      */
@@ -362,4 +376,130 @@ public class TestContext {
         requestHeaders = new HashMap<String, String>();
     }
 
+    /**
+     * Block requests to URLs matching a pattern. Blocked requests are answered
+     * without touching the network.
+     * 
+     * @param regexp pattern of the URLs to block.
+     * @see UrlFilter
+     */
+    public void addBlockedUrl(String regexp) {
+        urlFilter.addBlocked(regexp);
+    }
+
+    /**
+     * Only allow requests to URLs matching one of the allowed patterns.
+     * 
+     * @param regexp pattern of the URLs to allow.
+     * @see UrlFilter
+     */
+    public void addAllowedUrl(String regexp) {
+        urlFilter.addAllowed(regexp);
+    }
+
+    /**
+     * Set the response returned for blocked URLs. By default it is an empty 204.
+     * 
+     * @param contentType content type of the stub, or null for an empty 204.
+     * @param content body of the stub.
+     */
+    public void setBlockedUrlResponse(String contentType, String content) {
+        urlFilter.setStub(contentType, content);
+    }
+
+    /**
+     * Return the URL rules and the counters of blocked requests.
+     */
+    public UrlFilter getUrlFilter() {
+        return urlFilter;
+    }
+
+    /**
+     * Start the next browsers with the cookies and web storage of a captured session,
+     * in addition to the cookies of the context.
+     *
+     * @param snapshot the session to restore, or null to start with a new session
+     */
+    public void setSessionSnapshot(SessionSnapshot snapshot) {
+        this.sessionSnapshot = snapshot;
+    }
+
+    /**
+     * Return the session restored by the next browsers, or null.
+     */
+    public SessionSnapshot getSessionSnapshot() {
+        return sessionSnapshot;
+    }
+
+    /**
+     * Drive the JavaScript timers of the next browsers with a virtual clock, only moved forward by
+     * {@link net.sourceforge.jwebunit.api.ITestingEngine#advanceJavaScriptClock(long)}, instead of
+     * the wall clock.
+     *
+     * @param timeWarp true to use a virtual clock
+     */
+    public void setJavaScriptTimeWarp(boolean timeWarp) {
+        this.javaScriptTimeWarp = timeWarp;
+    }
+
+    /**
+     * Return true if the JavaScript timers run against a virtual clock.
+     */
+    public boolean isJavaScriptTimeWarp() {
+        return javaScriptTimeWarp;
+    }
+
+    /**
+     * Set the maximum number of refreshes the next browsers follow in a row, so that a page
+     * refreshing itself cannot hang a test. A page asking for one more makes the navigation fail.
+     * The default is 10.
+     *
+     * @param maxRefreshes maximum number of refreshes
+     */
+    public void setMaxRefreshes(int maxRefreshes) {
+        this.maxRefreshes = maxRefreshes;
+    }
+
+    /**
+     * Return the maximum number of refreshes followed in a row.
+     */
+    public int getMaxRefreshes() {
+        return maxRefreshes;
+    }
+
+    /**
+     * Set the longest time the next browsers wait before a refresh. Longer delays asked by the
+     * pages are shortened to it. The default is 0: refreshes are followed immediately.
+     *
+     * @param millis longest delay in milliseconds, or -1 to wait as long as the pages ask
+     */
+    public void setMaxRefreshDelay(long millis) {
+        this.maxRefreshDelay = millis;
+    }
+
+    /**
+     * Return the longest time waited before a refresh, in milliseconds, or -1 if not bounded.
+     */
+    public long getMaxRefreshDelay() {
+        return maxRefreshDelay;
+    }
+
+    /**
+     * Set the engine used by the regexp assertions. The default is a {@link JavaRegexpEngine}
+     * giving up after {@link JavaRegexpEngine#DEFAULT_BUDGET} milliseconds; a
+     * {@link LinearRegexpEngine} never backtracks, at the price of a smaller syntax.
+     *
+     * @param regexpEngine the engine used to search regexps in pages and values
+     */
+    public void setRegexpEngine(RegexpEngine regexpEngine) {
+        this.regexpEngine = regexpEngine;
+    }
+
+    /**
+     * Return the engine used by the regexp assertions.
+     */
+    public RegexpEngine getRegexpEngine() {
+        return regexpEngine;
+    }
+
 }
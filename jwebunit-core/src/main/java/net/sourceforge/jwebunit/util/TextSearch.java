@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Searches text in a character stream without reading it whole: the stream is read in chunks,
+ * and the end of each chunk is kept in front of the next one so that a match spanning two chunks
+ * is not missed. Memory use is bounded by the chunk size plus the length of the searched text.
+ */
+public final class TextSearch {
+
+    /**
+     * Default number of characters read at once.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private TextSearch() {
+    }
+
+    /**
+     * Tell if a stream contains some text, reading it in chunks of {@link #DEFAULT_CHUNK_SIZE} characters.
+     * The stream is read up to the first match, and is not closed.
+     *
+     * @param in the stream to search
+     * @param text the text to find
+     * @return true if the text was found
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean contains(Reader in, String text) throws IOException {
+        return contains(in, text, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Tell if a stream contains some text, reading it in chunks of the given size.
+     * The stream is read up to the first match, and is not closed.
+     *
+     * @param in the stream to search
+     * @param text the text to find
+     * @param chunkSize number of characters to read at once
+     * @return true if the text was found
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean contains(Reader in, String text, int chunkSize) throws IOException {
+        if (text.length() == 0) {
+            return true;
+        }
+        int overlap = text.length() - 1;
+        char[] buffer = new char[Math.max(chunkSize, 1) + overlap];
+        int kept = 0;
+        int read;
+        while ((read = in.read(buffer, kept, buffer.length - kept)) != -1) {
+            int length = kept + read;
+            if (indexOf(buffer, length, text) >= 0) {
+                return true;
+            }
+            // the last characters may be the start of a match ending in the next chunk
+            kept = Math.min(overlap, length);
+            System.arraycopy(buffer, length - kept, buffer, 0, kept);
+        }
+        return false;
+    }
+
+    private static int indexOf(char[] buffer, int length, String text) {
+        char first = text.charAt(0);
+        int last = length - text.length();
+        for (int i = 0; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < text.length() && buffer[i + j] == text.charAt(j)) {
+                j++;
+            }
+            if (j == text.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Rules deciding which URLs the testing engines are allowed to fetch. Requests to other URLs
+ * are answered locally, without touching the network, with an empty <code>204 No Content</code>
+ * response or with the configured stub.
+ *
+ * <p>A URL is blocked if it matches one of the blocked patterns, or if allowed patterns have
+ * been defined and it matches none of them. Patterns are regular expressions searched in the
+ * whole URL. The rules apply to every request, including pages, so an allow list must
+ * include the application under test.</p>
+ *
+ * @see TestContext#addBlockedUrl(String)
+ * @see TestContext#addAllowedUrl(String)
+ */
+public class UrlFilter {
+
+    private final List<Pattern> allowed = new CopyOnWriteArrayList<Pattern>();
+
+    private final List<Pattern> blocked = new CopyOnWriteArrayList<Pattern>();
+
+    private String stubContentType;
+
+    private String stubContent;
+
+    /**
+     * Number of times each blocked URL was requested.
+     */
+    private final Map<String, Integer> blockedUrls = new LinkedHashMap<String, Integer>();
+
+    private int blockedCount;
+
+    /**
+     * Only allow URLs matching one of the allowed patterns.
+     *
+     * @param regexp pattern of the URLs to allow
+     */
+    public void addAllowed(String regexp) {
+        allowed.add(Pattern.compile(regexp));
+    }
+
+    /**
+     * Block URLs matching the given pattern.
+     *
+     * @param regexp pattern of the URLs to block
+     */
+    public void addBlocked(String regexp) {
+        blocked.add(Pattern.compile(regexp));
+    }
+
+    /**
+     * Set the response returned for blocked URLs, instead of an empty 204.
+     *
+     * @param contentType content type of the stub, or null for an empty 204
+     * @param content body of the stub
+     */
+    public synchronized void setStub(String contentType, String content) {
+        this.stubContentType = contentType;
+        this.stubContent = content;
+    }
+
+    /**
+     * @return the content type of the stub returned for blocked URLs, or null for an empty 204
+     */
+    public synchronized String getStubContentType() {
+        return stubContentType;
+    }
+
+    /**
+     * @return the body of the stub returned for blocked URLs
+     */
+    public synchronized String getStubContent() {
+        return stubContent;
+    }
+
+    /**
+     * Remove all the rules and the stub, and reset the counters.
+     */
+    public synchronized void clear() {
+        allowed.clear();
+        blocked.clear();
+        stubContentType = null;
+        stubContent = null;
+        resetCounters();
+    }
+
+    /**
+     * @return true if no rule has been defined
+     */
+    public boolean isEmpty() {
+        return allowed.isEmpty() && blocked.isEmpty();
+    }
+
+    /**
+     * Tell if a URL is blocked by the rules, without counting it.
+     *
+     * @param url the URL to check
+     * @return true if the URL must not be fetched
+     */
+    public boolean isBlocked(String url) {
+        for (Pattern pattern : blocked) {
+            if (pattern.matcher(url).find()) {
+                return true;
+            }
+        }
+        if (allowed.isEmpty()) {
+            return false;
+        }
+        for (Pattern pattern : allowed) {
+            if (pattern.matcher(url).find()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Called by the testing engines before fetching a URL: tell if it is blocked, and count it if so.
+     *
+     * @param url the URL about to be fetched
+     * @return true if the URL must not be fetched
+     */
+    public boolean block(String url) {
+        if (isEmpty() || !isBlocked(url)) {
+            return false;
+        }
+        synchronized (this) {
+            Integer count = blockedUrls.get(url);
+            blockedUrls.put(url, count == null ? 1 : count + 1);
+            blockedCount++;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of blocked requests
+     */
+    public synchronized int getBlockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * @return the blocked URLs, with the number of times each of them was requested
+     */
+    public synchronized Map<String, Integer> getBlockedUrls() {
+        return new LinkedHashMap<String, Integer>(blockedUrls);
+    }
+
+    /**
+     * Reset the blocked request counters.
+     */
+    public synchronized void resetCounters() {
+        blockedUrls.clear();
+        blockedCount = 0;
+    }
+
+}
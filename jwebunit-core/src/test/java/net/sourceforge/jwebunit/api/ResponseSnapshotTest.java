@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import junit.framework.TestCase;
+
+public class ResponseSnapshotTest extends TestCase {
+
+    private static final List<HttpHeader> HEADERS = Arrays.asList(new HttpHeader("Content-Type", "text/html"),
+            new HttpHeader("Set-Cookie", "a=1"), new HttpHeader("set-cookie", "b=2"));
+
+    public void testHeadersIgnoreCase() {
+        ResponseSnapshot snapshot = new ResponseSnapshot("http://localhost/", 200, "OK", HEADERS, null);
+        assertEquals("text/html", snapshot.getHeader("content-type"));
+        assertEquals("a=1", snapshot.getHeader("SET-COOKIE"));
+        assertEquals(Arrays.asList("a=1", "b=2"), snapshot.getHeaderValues("Set-Cookie"));
+        assertTrue(snapshot.hasHeader("Content-TYPE"));
+        assertNull(snapshot.getHeader("Location"));
+        assertEquals(Collections.emptyList(), snapshot.getHeaderValues("Location"));
+        assertEquals(HEADERS, snapshot.getHeaders());
+        assertNull(snapshot.getBody());
+    }
+
+    public void testBodyDecodedOnce() {
+        final int[] calls = new int[1];
+        ResponseSnapshot snapshot = new ResponseSnapshot("http://localhost/", 200, "OK", HEADERS,
+                new Callable<String>() {
+                    public String call() {
+                        calls[0]++;
+                        return "<html/>";
+                    }
+                });
+        assertEquals(0, calls[0]);
+        assertEquals("<html/>", snapshot.getBody());
+        assertEquals("<html/>", snapshot.getBody());
+        assertEquals(1, calls[0]);
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.junit;
+
+import junit.framework.TestCase;
+
+public class FailureMessageTest extends TestCase {
+
+    private static String longText(String middle) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append('a');
+        }
+        text.append(middle);
+        for (int i = 0; i < 10000; i++) {
+            text.append('b');
+        }
+        return text.toString();
+    }
+
+    public void testShortTextKept() {
+        assertEquals("Expected text not found in current page: [foo]\n Page content was: [some text]",
+                new FailureMessage(FailureMessage.Kind.TEXT_NOT_FOUND, "foo", "some text").get());
+        assertEquals("Expected rexexp 'fo+' not matched in text 'some text'",
+                new FailureMessage(FailureMessage.Kind.REGEXP_NOT_MATCHED, "fo+", "some text").get());
+    }
+
+    public void testLongTextCutAroundNearMatch() {
+        String text = longText("Hello Wordl");
+        String excerpt = FailureMessage.excerpt(text, "Hello World");
+        assertTrue(excerpt.length() < FailureMessage.MAX_TEXT + 100);
+        assertTrue(excerpt, excerpt.contains("Hello Wor"));
+        assertTrue(excerpt, excerpt.startsWith("[... "));
+        assertTrue(excerpt, excerpt.endsWith(" characters ...]"));
+    }
+
+    public void testLongTextWithoutNearMatch() {
+        String excerpt = FailureMessage.excerpt(longText("xyz"), "123");
+        assertTrue(excerpt, excerpt.startsWith("aaa"));
+        assertTrue(excerpt, excerpt.endsWith(" characters ...]"));
+    }
+
+    public void testNearMatch() {
+        assertEquals(6, FailureMessage.nearMatch("Hello World", "World!"));
+        assertEquals(0, FailureMessage.nearMatch("Hello World", "xyz"));
+        assertEquals(4, FailureMessage.nearMatch("abcdabcx", "abcx"));
+    }
+
+    public void testLiteralPrefix() {
+        assertEquals("Hello ", FailureMessage.literalPrefix("^Hello .*"));
+        assertEquals("Hell", FailureMessage.literalPrefix("Hello?"));
+        assertEquals("Hello", FailureMessage.literalPrefix("Hello+"));
+        assertEquals("", FailureMessage.literalPrefix("[a-z]+"));
+    }
+
+}
@@ -18,9 +18,34 @@
  */
 package net.sourceforge.jwebunit.junit;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.AssertionFailedError;
 import junit.framework.TestCase;
+import net.sourceforge.jwebunit.api.IElement;
 import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.exception.RegexpTimeoutException;
+import net.sourceforge.jwebunit.html.Table;
+import net.sourceforge.jwebunit.util.RegexpEngine;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -47,6 +72,110 @@ public class WebTesterTest extends TestCase {
         verify(engine).hasElementByXPath(xpath);
     }
 
+    public void testTableAssertionsUseRegexpEngineOfContext() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.hasTable("t")).thenReturn(true);
+        when(engine.getTable("t")).thenReturn(new Table(new Object[][] {{"abc"}}));
+        RegexpEngine regexpEngine = mock(RegexpEngine.class);
+        when(regexpEngine.find("a.c", "abc")).thenReturn(true);
+        WebTester tester = webTester(engine);
+        tester.getTestContext().setRegexpEngine(regexpEngine);
+
+        tester.assertTableMatch("t", new String[][] {{"a.c"}});
+        tester.assertMatchInTable("t", "a.c");
+
+        verify(regexpEngine, times(2)).find("a.c", "abc");
+    }
+
+    public void testRegexpTimeoutInElementFailsTheAssertion() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.hasElement("e")).thenReturn(true);
+        when(engine.isMatchInElement("e", "(a+)+b")).thenThrow(new RegexpTimeoutException("too slow"));
+        WebTester tester = webTester(engine);
+        try {
+            tester.assertMatchInElement("e", "(a+)+b");
+            fail("The timeout must fail the assertion");
+        } catch (AssertionFailedError e) {
+            throw e;
+        } catch (AssertionError e) {
+            assertEquals("too slow", e.getMessage());
+        }
+    }
+
+    public void testCloseBrowserWaitsForNavigations() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean navigating = new AtomicBoolean();
+        final AtomicBoolean closedWhileNavigating = new AtomicBoolean();
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) {
+                navigating.set(true);
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    // interrupted by closeBrowser
+                }
+                navigating.set(false);
+                return null;
+            }
+        }).when(engine).gotoPage(any(URL.class));
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) {
+                closedWhileNavigating.set(navigating.get());
+                return null;
+            }
+        }).when(engine).closeBrowser();
+        WebTester tester = webTester(engine);
+        tester.setBaseUrl("http://localhost/");
+
+        Future<Void> running = tester.gotoPageAsync("a.html");
+        Future<Void> pending = tester.gotoPageAsync("b.html");
+        started.await();
+        tester.closeBrowser();
+
+        verify(engine).closeBrowser();
+        assertFalse(closedWhileNavigating.get());
+        assertTrue(running.isDone());
+        assertTrue(pending.isCancelled());
+        verify(engine, times(1)).gotoPage(any(URL.class));
+    }
+
+    public void testAllImagesLoadedByTheThreadOfTheTester() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.getPageURL()).thenReturn(new URL("http://localhost/page.html"));
+        List<IElement> images = new ArrayList<IElement>();
+        for (String src : new String[] {"a.png", "b.png", "a.png"}) {
+            IElement image = mock(IElement.class);
+            when(image.getAttribute("src")).thenReturn(src);
+            images.add(image);
+        }
+        when(engine.getElementsByXPath("//img[@src]")).thenReturn(images);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", png);
+        final byte[] valid = png.toByteArray();
+        final List<Thread> threads = new ArrayList<Thread>();
+        doAnswer(new Answer<InputStream>() {
+            public InputStream answer(InvocationOnMock invocation) {
+                threads.add(Thread.currentThread());
+                URL url = (URL) invocation.getArguments()[0];
+                return new ByteArrayInputStream(url.getPath().endsWith("a.png") ? valid : new byte[] {1, 2, 3});
+            }
+        }).when(engine).getInputStream(any(URL.class));
+        WebTester tester = webTester(engine);
+
+        try {
+            tester.assertAllImagesValid();
+            fail("b.png is not an image");
+        } catch (AssertionFailedError e) {
+            throw e;
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("b.png"));
+            assertFalse(e.getMessage(), e.getMessage().contains("a.png"));
+        }
+        assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread()), threads);
+    }
+
     private String contains(String attribute, String substring) {
         return "contains(@" + attribute + ", \"" + substring + "\")";
     }
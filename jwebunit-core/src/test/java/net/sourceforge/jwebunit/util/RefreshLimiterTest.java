@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class RefreshLimiterTest extends TestCase {
+
+    public void testLimitAndDelay() {
+        RefreshLimiter limiter = new RefreshLimiter(2, 100);
+        assertEquals(100, limiter.startRefresh("a", "b", 5));
+        limiter.endRefresh();
+        assertEquals(0, limiter.startRefresh("b", "c", 0));
+        limiter.endRefresh();
+        try {
+            limiter.startRefresh("c", "d", 0);
+            fail("The third refresh in a row must be refused");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("c to d"));
+        }
+        assertEquals(2, limiter.getRefreshCount());
+        assertEquals(1, limiter.getAbortedCount());
+
+        limiter.pageLoaded();
+        assertEquals(0, limiter.getRefreshCount());
+        assertEquals(2, limiter.getTotalRefreshCount());
+        assertEquals(5000, new RefreshLimiter(1, -1).startRefresh("a", "b", 5));
+    }
+
+    public void testPageOfRefreshDoesNotReset() {
+        RefreshLimiter limiter = new RefreshLimiter(10, 0);
+        limiter.startRefresh("a", "b", 0);
+        limiter.pageLoaded();
+        limiter.endRefresh();
+        assertEquals(1, limiter.getRefreshCount());
+    }
+
+    public void testConcurrentRefreshesNeverExceedTheLimit() throws Exception {
+        final RefreshLimiter limiter = new RefreshLimiter(1000, 0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger refused = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 200; j++) {
+                        try {
+                            limiter.startRefresh("a", "b", 0);
+                            limiter.endRefresh();
+                        } catch (RuntimeException e) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, limiter.getRefreshCount());
+        assertEquals(1000, limiter.getTotalRefreshCount());
+        assertEquals(600, refused.get());
+        assertEquals(600, limiter.getAbortedCount());
+    }
+
+}
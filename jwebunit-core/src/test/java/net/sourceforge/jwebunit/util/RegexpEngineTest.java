@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.util.regex.Pattern;
+
+import net.sourceforge.jwebunit.exception.RegexpTimeoutException;
+
+import junit.framework.TestCase;
+
+public class RegexpEngineTest extends TestCase {
+
+    private static final String[] PATTERNS = { "abc", "a.c", "^abc", "abc$", "^$", "a|bc|", "(ab)+c", "(?:ab)*?c",
+        "a{2}", "a{2,}b", "a{1,3}b", "colou?r", "[a-c]+", "[^a-c]+x", "[\\d-]+", "\\d\\D", "\\w+\\W", "\\s\\S",
+        "[\\]a]", "\\bcat\\b", "\\Bat", "\\.\\*", "\\x41\\u0042", "\\Qa.b\\E", "a.b", "\\t", "(a|b)*abb", "x*",
+        "0[:punct:]0", "[[:alpha:]_]+\\d", "\\p{Upper}\\P{Upper}", "[:foo:]" };
+
+    private static final String[] TEXTS = { "", "abc", "xabcx", "ac", "a\nc", "abc\n", "aab", "aaab", "b", "color",
+        "colour", "bcx", "12-3", "1a", "foo bar", "a b", "]", "a cat here", "concatenate", "bat", ".*", "AB", "a.b",
+        "a\tb", "babb", "abab", "0.0", "a_b1", "Ab", "f" };
+
+    public void testLinearEngineAgreesWithJava() {
+        RegexpEngine java = new JavaRegexpEngine();
+        RegexpEngine linear = new LinearRegexpEngine();
+        for (String pattern : PATTERNS) {
+            for (String text : TEXTS) {
+                assertEquals("[" + pattern + "] in [" + text + "]", java.find(pattern, text), linear.find(pattern, text));
+            }
+        }
+    }
+
+    /**
+     * Pattern, text and whether the pattern is found in the text, in the subset supported by both engines.
+     */
+    private static final Object[][] CASES = {
+        { "abc", "xxabcxx", true },
+        { "abc", "ab c", false },
+        { "^abc", "xabc", false },
+        { "^b", "a\nb", false },
+        { "abc$", "abc\n", true },
+        { "abc$", "abc\nx", false },
+        { "a.c", "a\nc", true },
+        { "a|bc|", "x", true },
+        { "(a|aa)+c", "aaaac", true },
+        { "(a|aa)+c", "aaaa", false },
+        { "(ab)+c", "ababac", false },
+        { "(?:ab)*?c", "c", true },
+        { "a{2,3}b", "ab", false },
+        { "a{2,3}b", "aaaab", true },
+        { "^a{2,3}$", "aaaa", false },
+        { "colou?r", "colr", false },
+        { "[^a-c]+x", "abcx", false },
+        { "[\\d-]+$", "12-3", true },
+        { "\\bcat\\b", "concatenate", false },
+        { "\\bcat\\b", "a cat", true },
+        { "\\Bat", "at", false },
+        { "\\x41\\u0042", "AB", true },
+        { "\\Qa.b\\E", "axb", false },
+        { "(a|b)*abb", "babb", true },
+        { "x*", "", true },
+    };
+
+    public void testLinearEngineAgreesWithJavaUtilRegex() {
+        RegexpEngine linear = new LinearRegexpEngine();
+        for (Object[] c : CASES) {
+            String pattern = (String) c[0];
+            String text = (String) c[1];
+            String message = "[" + pattern + "] in [" + text + "]";
+            assertEquals(message, c[2], Pattern.compile(pattern, Pattern.DOTALL).matcher(text).find());
+            assertEquals(message, c[2], linear.find(pattern, text));
+        }
+    }
+
+    public void testDotMatchesNewLine() {
+        assertTrue(new JavaRegexpEngine().find("a.c", "a\nc"));
+        assertTrue(new LinearRegexpEngine().find("a.c", "a\nc"));
+    }
+
+    public void testPosixClasses() {
+        assertTrue(new JavaRegexpEngine().find("0[:punct:]002", "0.002"));
+        assertTrue(new LinearRegexpEngine().find("0[:punct:]002", "0.002"));
+        assertFalse(new LinearRegexpEngine().find("^[[:digit:]]+$", "12a"));
+    }
+
+    public void testCatastrophicBacktrackingTimesOut() {
+        // the text slows the matcher down, so the budget is exceeded whatever the optimizations of the JDK
+        CharSequence text = new SlowText(repeat('a', 200));
+        long start = System.currentTimeMillis();
+        try {
+            new JavaRegexpEngine(1).find("a*a*a*c", text);
+            fail("Should time out");
+        } catch (RegexpTimeoutException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("a*a*a*c"));
+        }
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    public void testCatastrophicPatternIsLinear() {
+        String text = repeat('a', 100000);
+        long start = System.currentTimeMillis();
+        assertFalse(new LinearRegexpEngine().find("(a+)+b", text));
+        assertTrue(new LinearRegexpEngine().find("(a+)+b", text + "b"));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    public void testUnsupportedConstructs() {
+        RegexpEngine linear = new LinearRegexpEngine();
+        String[] unsupported = { "(a)\\1", "(?=a)", "(?i)a", "a++", "[a[b]]", "[a&&b]", "\\p{L}" };
+        for (String pattern : unsupported) {
+            // all valid for java.util.regex
+            Pattern.compile(pattern);
+            try {
+                linear.find(pattern, "a");
+                fail("Should reject " + pattern);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testInvalidPatterns() {
+        String[] invalid = { "(a", "a)", "*a", "[a", "a{2", "[b-a]" };
+        for (String pattern : invalid) {
+            try {
+                new LinearRegexpEngine().find(pattern, "a");
+                fail("Should reject " + pattern);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                new JavaRegexpEngine().find(pattern, "a");
+                fail("Should reject " + pattern);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testProgramSizeIsBounded() {
+        try {
+            new LinearRegexpEngine().find("(abcdefghij){1000}{1000}", "a");
+            fail("Should reject a huge repetition");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * A text sleeping every thousand characters read.
+     */
+    private static final class SlowText implements CharSequence {
+
+        private final CharSequence text;
+
+        private int reads;
+
+        SlowText(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % 1000 == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new SlowText(text.subSequence(start, end));
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+}
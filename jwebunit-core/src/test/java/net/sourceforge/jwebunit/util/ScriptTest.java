@@ -0,0 +1,290 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.junit.WebTester;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ScriptTest extends TestCase {
+
+    public void testFormatAndParse() {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        map.put("k", "v \"1\"");
+        Script.Call call = new Script.Call(12, "someMethod", new Object[] {"a\"b\\c\n\td", 3, 4L, true, null,
+                new String[] {"x", "y z"}, new String[][] {{"a"}, {"b", "c"}}, new boolean[] {true, false}, map});
+        String line = call.toString();
+        assertEquals("12 someMethod \"a\\\"b\\\\c\\n\\td\" 3 4L true null [\"x\" \"y z\"] [[\"a\"] [\"b\" \"c\"]]"
+                + " [true false] {\"k\":\"v \\\"1\\\"\"}", line);
+
+        List<Script.Call> calls = Script.parse("# comment\n\n" + line + "\n0 submit\n").getCalls();
+        assertEquals(2, calls.size());
+        Script.Call parsed = calls.get(0);
+        assertEquals(12, parsed.getDelay());
+        assertEquals("someMethod", parsed.getMethod());
+        Object[] arguments = parsed.getArguments();
+        assertEquals("a\"b\\c\n\td", arguments[0]);
+        assertEquals(Integer.valueOf(3), arguments[1]);
+        assertEquals(Long.valueOf(4), arguments[2]);
+        assertEquals(Boolean.TRUE, arguments[3]);
+        assertNull(arguments[4]);
+        assertTrue(Arrays.equals(new String[] {"x", "y z"}, (String[]) arguments[5]));
+        assertTrue(Arrays.deepEquals(new String[][] {{"a"}, {"b", "c"}}, (String[][]) arguments[6]));
+        assertTrue(Arrays.equals(new boolean[] {true, false}, (boolean[]) arguments[7]));
+        assertEquals(map, arguments[8]);
+        assertEquals(line, parsed.toString());
+        assertEquals("submit", calls.get(1).getMethod());
+        assertEquals(0, calls.get(1).getArguments().length);
+    }
+
+    public void testParseInvalidLine() {
+        try {
+            Script.parse("0 beginAt \"/index.html\"\n10 setTextField \"q\n");
+            fail("Unterminated string must not be accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("line 2"));
+        }
+    }
+
+    public void testRecord() {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.getPageTitle()).thenReturn("Search");
+        when(engine.hasLinkWithText("Next", 0)).thenReturn(true);
+        WebTester tester = new WebTester();
+        tester.setDialog(engine);
+        ScriptRecorder recorder = new ScriptRecorder();
+        tester.setRecorder(recorder);
+
+        tester.gotoFrame("main");
+        tester.assertTitleEquals("Search");
+        tester.clickLinkWithText("Next");
+        tester.setRecorder(null);
+        tester.gotoFrame("top");
+
+        List<Script.Call> calls = recorder.getScript().getCalls();
+        assertEquals(3, calls.size());
+        assertEquals("gotoFrame \"main\"", calls.get(0).toString().replaceFirst("^\\d+ ", ""));
+        assertEquals("assertTitleEquals \"Search\"", calls.get(1).toString().replaceFirst("^\\d+ ", ""));
+        // the assertion made by clickLinkWithText is not recorded
+        assertEquals("clickLinkWithText \"Next\"", calls.get(2).toString().replaceFirst("^\\d+ ", ""));
+    }
+
+    public void testDelayIsIdleTime() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(300);
+                return null;
+            }
+        }).when(engine).gotoFrame("main");
+        WebTester tester = new WebTester();
+        tester.setDialog(engine);
+        ScriptRecorder recorder = new ScriptRecorder();
+        tester.setRecorder(recorder);
+
+        tester.gotoFrame("main");
+        Thread.sleep(50);
+        tester.gotoFrame("top");
+
+        List<Script.Call> calls = recorder.getScript().getCalls();
+        assertEquals(2, calls.size());
+        long delay = calls.get(1).getDelay();
+        // the 300ms spent in the first call are not part of the think time
+        assertTrue("delay was " + delay, delay >= 50 && delay < 300);
+    }
+
+    /**
+     * Each method returning nothing must record its own name, unless it is one of the methods that
+     * the documentation of {@link ScriptRecorder} lists as not recorded.
+     */
+    public void testRecordedMethodNames() throws Exception {
+        List<String> excluded = new ArrayList<String>(Arrays.asList("setDialog(ITestingEngine)",
+                "setTestContext(TestContext)", "setTestingEngineKey(String)", "setRecorder(ScriptRecorder)",
+                "dumpCookies()", "dumpHtml()", "dumpHtml(PrintStream)", "dumpTable(String)",
+                "dumpTable(String, PrintStream)", "beginAtWithSession(String, String, Runnable)",
+                "restoreSession(SessionSnapshot)", "assertAllLinksValid(LinkCrawler)",
+                "assertTableEquals(String, Table)", "assertTableRowsEqual(String, int, Table)",
+                "assertTableMatch(String, Table)", "assertTableRowsMatch(String, int, Table)", "saveAs(File)",
+                "assertDownloadedFileEquals(URL)", "assertImageValidAndStore(String, String, File)"));
+        List<String> wrong = new ArrayList<String>();
+        int checked = 0;
+        for (Method method : WebTester.class.getMethods()) {
+            if (method.getDeclaringClass() != WebTester.class || method.getReturnType() != void.class
+                    || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (excluded.remove(signature(method))) {
+                continue;
+            }
+            Object[] arguments = sampleArguments(method.getParameterTypes());
+            if (arguments == null) {
+                wrong.add(method + " cannot be recorded");
+                continue;
+            }
+            WebTester tester = new WebTester();
+            tester.setDialog(mock(ITestingEngine.class));
+            ScriptRecorder recorder = new ScriptRecorder();
+            tester.setRecorder(recorder);
+            try {
+                method.invoke(tester, arguments);
+            } catch (InvocationTargetException e) {
+                // most assertions fail against a mock, what matters is what was recorded
+            }
+            List<Script.Call> calls = recorder.getScript().getCalls();
+            if (calls.size() != 1 || !method.getName().equals(calls.get(0).getMethod())) {
+                wrong.add(method + " recorded " + calls);
+            }
+            checked++;
+        }
+        assertTrue("Only " + checked + " methods checked", checked > 150);
+        assertTrue(wrong.toString(), wrong.isEmpty());
+        assertTrue("No such methods: " + excluded, excluded.isEmpty());
+    }
+
+    private static String signature(Method method) {
+        StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(types[i].getSimpleName());
+        }
+        return sb.append(')').toString();
+    }
+
+    public void testRecordMessageArguments() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        WebTester tester = new WebTester();
+        tester.setDialog(engine);
+        ScriptRecorder recorder = new ScriptRecorder();
+        tester.setRecorder(recorder);
+        try {
+            tester.assertKeyInTable("t", "key", new Object[] {"a", 1});
+        } catch (Throwable e) {
+            // no bundle, what matters is what was recorded
+        }
+        tester.setBaseUrl(new URL("http://localhost/app/"));
+
+        List<Script.Call> calls = Script.parse(recorder.getScript().toString()).getCalls();
+        assertEquals(2, calls.size());
+        assertEquals("assertKeyInTable \"t\" \"key\" [\"a\" 1]", calls.get(0).toString().replaceFirst("^\\d+ ", ""));
+        assertTrue(Arrays.equals(new Object[] {"a", 1}, (Object[]) calls.get(0).getArguments()[2]));
+        assertEquals("setBaseUrl \"http://localhost/app/\"", calls.get(1).toString().replaceFirst("^\\d+ ", ""));
+    }
+
+    private static Object[] sampleArguments(Class<?>[] types) {
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == String.class) {
+                arguments[i] = "a";
+            } else if (type == int.class) {
+                arguments[i] = 0;
+            } else if (type == long.class) {
+                arguments[i] = 0L;
+            } else if (type == boolean.class) {
+                arguments[i] = false;
+            } else if (type == String[].class) {
+                arguments[i] = new String[] {"a"};
+            } else if (type == String[][].class) {
+                arguments[i] = new String[][] {{"a"}};
+            } else if (type == boolean[].class) {
+                arguments[i] = new boolean[] {false};
+            } else if (type == Map.class) {
+                arguments[i] = Collections.singletonMap("a", "b");
+            } else if (type == Object[].class) {
+                arguments[i] = new Object[] {"a", 1};
+            } else if (type == Object[][].class) {
+                arguments[i] = new Object[][] {{"a", 1}};
+            } else if (type == URL.class) {
+                try {
+                    arguments[i] = new URL("http://localhost/");
+                } catch (MalformedURLException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                return null;
+            }
+        }
+        return arguments;
+    }
+
+    public void testPlay() throws Exception {
+        Script script = Script.parse("0 gotoFrame \"main\"\n0 assertTitleEquals \"Search\"\n"
+                + "0 clickLinkWithText \"Next\" 1\n");
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.getPageTitle()).thenReturn("Search");
+        when(engine.hasLinkWithText("Next", 1)).thenReturn(true);
+
+        new ScriptPlayer().play(script, engine);
+
+        verify(engine).gotoFrame("main");
+        verify(engine).getPageTitle();
+        verify(engine).clickLinkWithText("Next", 1);
+    }
+
+    public void testPlaySkippingAssertions() throws Exception {
+        Script script = Script.parse("0 gotoFrame \"main\"\n0 assertTitleEquals \"Search\"\n");
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.getPageTitle()).thenReturn("Results");
+        boolean failed = false;
+        try {
+            new ScriptPlayer().play(script, engine);
+        } catch (AssertionError e) {
+            failed = true;
+        }
+        assertTrue("The assertion must be run", failed);
+
+        engine = mock(ITestingEngine.class);
+        ScriptPlayer player = new ScriptPlayer();
+        player.setSkipAssertions(true);
+        player.play(script, engine);
+        verify(engine).gotoFrame("main");
+        verify(engine, never()).getPageTitle();
+    }
+
+    public void testPlayUnknownMethod() throws Exception {
+        try {
+            new ScriptPlayer().play(Script.parse("0 gotoFrame 1 2\n"), mock(ITestingEngine.class));
+            fail("No such method");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+public class TextSearchTest extends TestCase {
+
+    public void testFoundInFirstChunk() throws IOException {
+        assertTrue(TextSearch.contains(new StringReader("Hello World"), "World"));
+        assertFalse(TextSearch.contains(new StringReader("Hello World"), "world"));
+    }
+
+    public void testEmptyText() throws IOException {
+        assertTrue(TextSearch.contains(new StringReader(""), ""));
+        assertFalse(TextSearch.contains(new StringReader(""), "a"));
+    }
+
+    public void testMatchAcrossChunks() throws IOException {
+        String content = "0123456789abcdefghij";
+        // every split of the match between two chunks
+        for (int chunkSize = 1; chunkSize <= content.length(); chunkSize++) {
+            assertTrue("chunk size " + chunkSize, TextSearch.contains(new StringReader(content), "789abc", chunkSize));
+            assertFalse("chunk size " + chunkSize, TextSearch.contains(new StringReader(content), "789abd", chunkSize));
+        }
+    }
+
+    public void testTextLongerThanChunk() throws IOException {
+        assertTrue(TextSearch.contains(new StringReader("xxHello Worldxx"), "Hello World", 2));
+        assertFalse(TextSearch.contains(new StringReader("Hello"), "Hello World", 2));
+    }
+
+    public void testLargeStream() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        assertTrue(TextSearch.contains(new StringReader(content.toString()), "line 19999\n"));
+        assertTrue(TextSearch.contains(new StringReader(content.toString()), "line 7281\nline 7282"));
+        assertFalse(TextSearch.contains(new StringReader(content.toString()), "line 20000"));
+    }
+
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.RefreshHandler;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.gargoylesoftware.htmlunit.WebWindowEvent;
+import com.gargoylesoftware.htmlunit.WebWindowListener;
+import java.io.IOException;
+import java.net.URL;
+import net.sourceforge.jwebunit.util.RefreshLimiter;
+
+/**
+ * Follows refreshes (<code>&lt;meta http-equiv="refresh"&gt;</code> and <code>Refresh</code>
+ * headers) on the calling thread, like the <code>ImmediateRefreshHandler</code> of HtmlUnit,
+ * within the limits of a {@link RefreshLimiter}: one refresh too many fails the navigation.
+ *
+ * <p>The handler must be registered as a window listener of the client to know where
+ * navigations start.</p>
+ */
+public class BoundedRefreshHandler implements RefreshHandler, WebWindowListener {
+
+  private final RefreshLimiter limiter;
+
+  /**
+   * Create a handler.
+   *
+   * @param maxRefreshes maximum number of refreshes followed in a row
+   * @param maxDelay longest time to wait before a refresh, in milliseconds, or -1 to wait as long
+   * as the page asks
+   */
+  public BoundedRefreshHandler(int maxRefreshes, long maxDelay) {
+    this.limiter = new RefreshLimiter(maxRefreshes, maxDelay);
+  }
+
+  @Override
+  public void handleRefresh(Page page, URL url, int seconds) throws IOException {
+    WebWindow window = page.getEnclosingWindow();
+    if (window == null) {
+      return;
+    }
+    long delay = limiter.startRefresh(page.getUrl().toString(), url.toString(), seconds);
+    try {
+      if (delay > 0) {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      window.getWebClient().getPage(window, new WebRequest(url));
+    } finally {
+      limiter.endRefresh();
+    }
+  }
+
+  /**
+   * @return the counters of the refreshes followed
+   */
+  public RefreshLimiter getLimiter() {
+    return limiter;
+  }
+
+  @Override
+  public void webWindowOpened(WebWindowEvent event) {
+    // nothing to count
+  }
+
+  @Override
+  public void webWindowContentChanged(WebWindowEvent event) {
+    limiter.pageLoaded();
+  }
+
+  @Override
+  public void webWindowClosed(WebWindowEvent event) {
+    // nothing to count
+  }
+
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
+import net.sourceforge.htmlunit.corejs.javascript.Script;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+
+/**
+ * HtmlUnit JavaScript engine looking up compiled scripts in a {@link CompiledScriptCache}.
+ */
+class CachingJavaScriptEngine extends JavaScriptEngine {
+
+  private final CompiledScriptCache cache;
+
+  private final String browser;
+
+  CachingJavaScriptEngine(WebClient webClient, CompiledScriptCache cache) {
+    super(webClient);
+    this.cache = cache;
+    this.browser = webClient.getBrowserVersion().getNickname();
+  }
+
+  @Override
+  public Script compile(HtmlPage owningPage, Scriptable scope, String sourceCode,
+    String sourceName, int startLine) {
+    String key = CompiledScriptCache.key(browser, sourceCode, sourceName, startLine);
+    Script script = cache.get(key);
+    if (script == null) {
+      script = super.compile(owningPage, scope, sourceCode, sourceName, startLine);
+      if (script != null) {
+        cache.put(key, script, sourceCode.length());
+      }
+    }
+    return script;
+  }
+
+}
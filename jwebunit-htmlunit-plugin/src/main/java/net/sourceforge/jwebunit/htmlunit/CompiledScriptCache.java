@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.sourceforge.htmlunit.corejs.javascript.Script;
+
+/**
+ * A cache of compiled JavaScript shared by {@link HtmlUnitTestingEngineImpl}s, so identical scripts
+ * are only compiled once. Engines only use it once given to
+ * {@link HtmlUnitTestingEngineImpl#setScriptCache(CompiledScriptCache)}.
+ *
+ * <p>Scripts are identified by a hash of their source code, together with their source name,
+ * first line and the browser version they were compiled for. The cache is bounded by the total
+ * length of the sources of the cached scripts; least recently used scripts are evicted first.</p>
+ */
+public class CompiledScriptCache {
+
+  /**
+   * Default maximum total length of the cached sources, in characters.
+   */
+  public static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+
+  private static final CompiledScriptCache INSTANCE = new CompiledScriptCache(DEFAULT_MAX_SIZE);
+
+  private final long maxSize;
+
+  private long size;
+
+  private long hitCount;
+
+  private long missCount;
+
+  /**
+   * Least recently used entries first.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Create a new cache.
+   *
+   * @param maxSize maximum total length of the cached sources, in characters
+   */
+  public CompiledScriptCache(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Return the JVM wide instance.
+   *
+   * @return a cache which can be shared by all the engines of the JVM
+   */
+  public static CompiledScriptCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Compute the key of a script.
+   *
+   * @param browser the browser version the script is compiled for
+   * @param sourceCode the source code
+   * @param sourceName the source name used in error messages
+   * @param startLine the first line of the script in its source
+   * @return the key of the script
+   */
+  static String key(String browser, String sourceCode, String sourceName, int startLine) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+    byte[] hash = digest.digest(sourceCode.getBytes(StandardCharsets.UTF_8));
+    StringBuilder key = new StringBuilder(browser).append('|').append(sourceName)
+      .append('|').append(startLine).append('|');
+    for (byte b : hash) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  /**
+   * @param key the key of the script
+   * @return the compiled script, or null
+   */
+  synchronized Script get(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.script;
+  }
+
+  /**
+   * @param key the key of the script
+   * @param script the compiled script
+   * @param length the length of its source
+   */
+  synchronized void put(String key, Script script, int length) {
+    if (length > maxSize) {
+      return;
+    }
+    Entry previous = entries.put(key, new Entry(script, length));
+    if (previous != null) {
+      size -= previous.length;
+    }
+    size += length;
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (size > maxSize && it.hasNext()) {
+      size -= it.next().getValue().length;
+      it.remove();
+    }
+  }
+
+  /**
+   * Remove all the scripts and reset the statistics.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+    hitCount = 0;
+    missCount = 0;
+  }
+
+  /**
+   * @return the number of cached scripts
+   */
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the total length of the cached sources, in characters
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the number of compilations avoided
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the number of scripts that had to be compiled
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the ratio of compilations avoided, between 0 and 1
+   */
+  public synchronized double getHitRate() {
+    long total = hitCount + missCount;
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  private static final class Entry {
+
+    private final Script script;
+
+    private final int length;
+
+    Entry(Script script, int length) {
+      this.script = script;
+      this.length = length;
+    }
+  }
+
+}
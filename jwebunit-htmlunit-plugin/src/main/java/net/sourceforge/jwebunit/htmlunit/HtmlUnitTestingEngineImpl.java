@@ -24,23 +24,30 @@ import com.gargoylesoftware.htmlunit.ConfirmHandler;
 import com.gargoylesoftware.htmlunit.DefaultCredentialsProvider;
 import com.gargoylesoftware.htmlunit.ElementNotFoundException;
 import com.gargoylesoftware.htmlunit.FailingHttpStatusCodeException;
-import com.gargoylesoftware.htmlunit.ImmediateRefreshHandler;
 import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.PromptHandler;
 import com.gargoylesoftware.htmlunit.RefreshHandler;
+import com.gargoylesoftware.htmlunit.StorageHolder;
 import com.gargoylesoftware.htmlunit.TextPage;
 import com.gargoylesoftware.htmlunit.TopLevelWindow;
 import com.gargoylesoftware.htmlunit.UnexpectedPage;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
 import com.gargoylesoftware.htmlunit.WebWindow;
 import com.gargoylesoftware.htmlunit.WebWindowEvent;
 import com.gargoylesoftware.htmlunit.WebWindowListener;
 import com.gargoylesoftware.htmlunit.WebWindowNotFoundException;
+import com.gargoylesoftware.htmlunit.html.DomChangeEvent;
+import com.gargoylesoftware.htmlunit.html.DomChangeListener;
 import com.gargoylesoftware.htmlunit.html.DomComment;
 import com.gargoylesoftware.htmlunit.html.DomNode;
 import com.gargoylesoftware.htmlunit.html.FrameWindow;
 import com.gargoylesoftware.htmlunit.html.HtmlAnchor;
+import com.gargoylesoftware.htmlunit.html.HtmlAttributeChangeEvent;
+import com.gargoylesoftware.htmlunit.html.HtmlAttributeChangeListener;
 import com.gargoylesoftware.htmlunit.html.HtmlButton;
 import com.gargoylesoftware.htmlunit.html.HtmlButtonInput;
 import com.gargoylesoftware.htmlunit.html.HtmlCheckBoxInput;
@@ -60,25 +67,41 @@ import com.gargoylesoftware.htmlunit.html.HtmlTableCell;
 import com.gargoylesoftware.htmlunit.html.HtmlTableRow;
 import com.gargoylesoftware.htmlunit.html.HtmlTableRow.CellIterator;
 import com.gargoylesoftware.htmlunit.html.HtmlTextArea;
+import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
 import com.gargoylesoftware.htmlunit.util.Cookie;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.xml.XmlPage;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.net.InetAddress;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import net.sourceforge.jwebunit.api.HttpHeader;
 import net.sourceforge.jwebunit.api.IElement;
 import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.api.PageMetrics;
+import net.sourceforge.jwebunit.api.ResponseSnapshot;
+import net.sourceforge.jwebunit.api.SelectOption;
+import net.sourceforge.jwebunit.api.SessionSnapshot;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptAlertException;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptConfirmException;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptPromptException;
@@ -94,9 +117,8 @@ import net.sourceforge.jwebunit.javascript.JavascriptAlert;
 import net.sourceforge.jwebunit.javascript.JavascriptConfirm;
 import net.sourceforge.jwebunit.javascript.JavascriptPrompt;
 import net.sourceforge.jwebunit.util.TestContext;
+import net.sourceforge.jwebunit.util.TextSearch;
 import org.apache.http.auth.AuthScope;
-import org.apache.regexp.RE;
-import org.apache.regexp.RESyntaxException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Node;
@@ -110,6 +132,11 @@ import org.w3c.dom.NodeList;
  *
  */
 public class HtmlUnitTestingEngineImpl implements ITestingEngine {
+  /**
+   * Interval between two checks of the background job count, in milliseconds.
+   */
+  private static final long JOB_POLL_INTERVAL = 10;
+
   /**
    * Logger for this class.
    */
@@ -179,6 +206,53 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
   */
   private int timeout = 0;
 
+  /**
+   * Counts requests and bytes of the current page.
+   */
+  private MeasuringWebConnection measuringConnection;
+
+  /**
+   * Clock of the JavaScript timers when the time warp is enabled.
+   */
+  private VirtualClock virtualClock;
+
+  /**
+   * Snapshot of the last response asked for, and the response it was captured from.
+   */
+  private ResponseSnapshot responseSnapshot;
+
+  private WebResponse responseSnapshotSource;
+
+  /**
+   * Optional cache of static resources shared with other engines.
+   */
+  private SharedHttpCache sharedCache;
+
+  /**
+   * Optional cache of compiled scripts shared with other engines.
+   */
+  private CompiledScriptCache scriptCache;
+
+  /**
+   * Provides the transport of the web clients, if not the default HTTP connection.
+   */
+  private WebConnectionFactory webConnectionFactory;
+
+  /**
+   * Archive receiving the request/response pairs, if recording.
+   */
+  private File recordArchive;
+
+  /**
+   * Archive serving the responses instead of the network, if replaying.
+   */
+  private File replayArchive;
+
+  /**
+   * How requests are matched with the replayed responses.
+   */
+  private Set<ReplayWebConnection.Match> replayMatches = EnumSet.noneOf(ReplayWebConnection.Match.class);
+
   // Implementation of IJWebUnitDialog
 
   /**
@@ -224,6 +298,8 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
       wc = null;
     }
     form = null; // reset current form
+    responseSnapshot = null;
+    responseSnapshotSource = null;
     if (this.expectedJavascriptAlerts.size() > 0) {
       throw new ExpectedJavascriptAlertException(
         (expectedJavascriptAlerts.get(0))
@@ -284,27 +360,100 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
     List<javax.servlet.http.Cookie> result = new LinkedList<>();
     Set<Cookie> cookies = wc.getCookieManager().getCookies();
     for (Cookie cookie : cookies) {
-      javax.servlet.http.Cookie c = new javax.servlet.http.Cookie(
-        cookie.getName(), cookie.getValue());
-      c.setComment(cookie.toHttpClient().getComment());
-      c.setDomain(cookie.getDomain());
-      Date expire = cookie.toHttpClient().getExpiryDate();
-      if (expire == null) {
-        c.setMaxAge(-1);
-      } else {
-        Date now = Calendar.getInstance().getTime();
-        // Convert milli-second to second
-        Long second = Long.valueOf((expire.getTime() - now.getTime()) / 1000);
-        c.setMaxAge(second.intValue());
+      result.add(toServletCookie(cookie));
+    }
+    return result;
+  }
+
+  @Override
+  public javax.servlet.http.Cookie getCookie(String name) {
+    Cookie cookie = findCookie(name);
+    return cookie == null ? null : toServletCookie(cookie);
+  }
+
+  @Override
+  public List<javax.servlet.http.Cookie> getCookies(String name) {
+    List<javax.servlet.http.Cookie> result = new LinkedList<>();
+    for (Cookie cookie : wc.getCookieManager().getCookies()) {
+      if (cookie.getName().equals(name)) {
+        result.add(toServletCookie(cookie));
       }
-      c.setPath(cookie.getPath());
-      c.setSecure(cookie.toHttpClient().isSecure());
-      c.setVersion(cookie.toHttpClient().getVersion());
-      result.add(c);
     }
     return result;
   }
 
+  @Override
+  public boolean hasCookie(String name) {
+    return findCookie(name) != null;
+  }
+
+  /**
+   * Find a cookie by name, the last one set winning, without converting any cookie.
+   */
+  private Cookie findCookie(String name) {
+    Cookie found = null;
+    for (Cookie cookie : wc.getCookieManager().getCookies()) {
+      if (cookie.getName().equals(name)) {
+        found = cookie;
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public SessionSnapshot getSessionSnapshot() {
+    List<javax.servlet.http.Cookie> cookies = getCookies();
+    Page page = win == null ? null : win.getEnclosedPage();
+    if (page == null || page.getUrl() == null) {
+      return new SessionSnapshot(null, cookies, Collections.<String, String>emptyMap(),
+        Collections.<String, String>emptyMap());
+    }
+    StorageHolder storage = wc.getStorageHolder();
+    return new SessionSnapshot(page.getUrl().toExternalForm(), cookies,
+      storage.getStore(StorageHolder.Type.LOCAL_STORAGE, page),
+      storage.getStore(StorageHolder.Type.SESSION_STORAGE, page));
+  }
+
+  /**
+   * Fill the web storage of the new web client with the one of a captured session.
+   */
+  private void restoreStorage(SessionSnapshot snapshot) {
+    if (snapshot.getUrl() == null) {
+      return;
+    }
+    // the storage holder finds the store of a page from its URL and window
+    Page page;
+    try {
+      page = new UnexpectedPage(new WebResponse(new WebResponseData(new byte[0], 200, "OK",
+        Collections.<NameValuePair>emptyList()), new WebRequest(new URL(snapshot.getUrl())), 0),
+        wc.getCurrentWindow());
+    } catch (MalformedURLException e) {
+      throw new RuntimeException(e);
+    }
+    StorageHolder storage = wc.getStorageHolder();
+    storage.getStore(StorageHolder.Type.LOCAL_STORAGE, page).putAll(snapshot.getLocalStorage());
+    storage.getStore(StorageHolder.Type.SESSION_STORAGE, page).putAll(snapshot.getSessionStorage());
+  }
+
+  private javax.servlet.http.Cookie toServletCookie(Cookie cookie) {
+    org.apache.http.cookie.Cookie httpCookie = cookie.toHttpClient();
+    javax.servlet.http.Cookie c = new javax.servlet.http.Cookie(
+      cookie.getName(), cookie.getValue());
+    c.setComment(httpCookie.getComment());
+    c.setDomain(cookie.getDomain());
+    Date expire = httpCookie.getExpiryDate();
+    if (expire == null) {
+      c.setMaxAge(-1);
+    } else {
+      // Convert milli-second to second
+      c.setMaxAge((int) ((expire.getTime() - System.currentTimeMillis()) / 1000));
+    }
+    c.setPath(cookie.getPath());
+    c.setSecure(httpCookie.isSecure());
+    c.setVersion(httpCookie.getVersion());
+    return c;
+  }
+
   @Override
   public boolean hasWindow(String windowName) {
     try {
@@ -581,6 +730,161 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
       + "] was found.");
   }
 
+  @Override
+  public List<String> setFormFields(Map<String, String> fields) {
+    for (Map.Entry<String, String> field : fields.entrySet()) {
+      if (field.getValue() == null) {
+        throw new IllegalArgumentException("No value given for field [" + field.getKey() + "]");
+      }
+    }
+    HtmlPage page = (HtmlPage) win.getEnclosedPage();
+    Map<String, List<HtmlElement>> elements = new HashMap<>();
+    collectFormFields(form != null ? form : page, fields.keySet(), elements);
+    if (form != null && elements.size() < fields.size()) {
+      // not in the current form: try *all* elements, like setTextField
+      Set<String> missing = new HashSet<>(fields.keySet());
+      missing.removeAll(elements.keySet());
+      collectFormFields(page, missing, elements);
+    }
+    List<String> failed = new ArrayList<>();
+    for (Map.Entry<String, String> field : fields.entrySet()) {
+      List<HtmlElement> named = elements.get(field.getKey());
+      if (named == null || !setFormField(named, field.getValue())) {
+        failed.add(field.getKey());
+      } else if (named.get(0).getEnclosingForm() != null) {
+        form = named.get(0).getEnclosingForm();
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Collect the form controls below a node having one of the given names.
+   */
+  private static void collectFormFields(DomNode root, Set<String> names, Map<String, List<HtmlElement>> elements) {
+    for (HtmlElement e : root.getHtmlElementDescendants()) {
+      String name = e.getAttribute("name");
+      if ((e instanceof HtmlInput || e instanceof HtmlSelect || e instanceof HtmlTextArea)
+        && names.contains(name)) {
+        List<HtmlElement> named = elements.get(name);
+        if (named == null) {
+          named = new ArrayList<>();
+          elements.put(name, named);
+        }
+        named.add(e);
+      }
+    }
+  }
+
+  @Override
+  public Map<String, String[]> getFormState(String nameOrId) {
+    HtmlForm f = nameOrId == null ? getForm() : getForm(nameOrId);
+    if (f == null) {
+      throw new RuntimeException("No form with name or id [" + nameOrId + "] was found.");
+    }
+    Map<String, List<String>> values = new LinkedHashMap<>();
+    for (HtmlElement e : f.getHtmlElementDescendants()) {
+      String name = e.getAttribute("name");
+      if (name.isEmpty() || !(e instanceof HtmlInput || e instanceof HtmlSelect || e instanceof HtmlTextArea)
+        || e instanceof HtmlSubmitInput || e instanceof HtmlButtonInput || e instanceof HtmlResetInput
+        || e instanceof HtmlImageInput) {
+        continue;
+      }
+      List<String> named = values.get(name);
+      if (named == null) {
+        named = new ArrayList<>();
+        values.put(name, named);
+      }
+      if (e instanceof HtmlCheckBoxInput || e instanceof HtmlRadioButtonInput) {
+        if (((HtmlInput) e).isChecked()) {
+          named.add(((HtmlInput) e).getValueAttribute());
+        }
+      } else if (e instanceof HtmlSelect) {
+        for (HtmlOption opt : ((HtmlSelect) e).getSelectedOptions()) {
+          named.add(opt.getValueAttribute());
+        }
+      } else if (e instanceof HtmlTextArea) {
+        named.add(((HtmlTextArea) e).getText());
+      } else {
+        named.add(((HtmlInput) e).getValueAttribute());
+      }
+    }
+    Map<String, String[]> state = new LinkedHashMap<>();
+    for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+      state.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+    }
+    return state;
+  }
+
+  /**
+   * Set the value of the elements having the same name, as documented in {@link #setFormFields(Map)}.
+   *
+   * @return false if the value is not one of the options of the elements
+   */
+  private boolean setFormField(List<HtmlElement> elements, String value) {
+    HtmlElement first = elements.get(0);
+    try {
+      if (first instanceof HtmlCheckBoxInput) {
+        for (HtmlElement e : elements) {
+          HtmlCheckBoxInput cb = (HtmlCheckBoxInput) e;
+          boolean checked = "true".equals(value) || cb.getValueAttribute().equals(value);
+          if (cb.isChecked() != checked) {
+            cb.click();
+          }
+        }
+        return true;
+      }
+      if (first instanceof HtmlRadioButtonInput) {
+        for (HtmlElement e : elements) {
+          HtmlRadioButtonInput rb = (HtmlRadioButtonInput) e;
+          if (rb.getValueAttribute().equals(value)) {
+            if (!rb.isChecked()) {
+              rb.click();
+            }
+            return true;
+          }
+        }
+        return false;
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("setFormFields failed", e);
+    }
+    if (first instanceof HtmlSelect) {
+      HtmlSelect sel = (HtmlSelect) first;
+      HtmlOption found = null;
+      for (HtmlOption opt : sel.getOptions()) {
+        if (opt.getValueAttribute().equals(value)) {
+          found = opt;
+          break;
+        }
+      }
+      if (found == null) {
+        for (HtmlOption opt : sel.getOptions()) {
+          if (opt.asText().equals(value)) {
+            found = opt;
+            break;
+          }
+        }
+      }
+      if (found == null) {
+        return false;
+      }
+      for (HtmlOption opt : sel.getSelectedOptions()) {
+        if (opt != found) {
+          sel.setSelectedAttribute(opt, false);
+        }
+      }
+      sel.setSelectedAttribute(found, true);
+      return true;
+    }
+    if (first instanceof HtmlTextArea) {
+      ((HtmlTextArea) first).setText(value);
+    } else {
+      ((HtmlInput) first).setValueAttribute(value);
+    }
+    return true;
+  }
+
   /**
    * Set a form hidden element to the provided value.
    *
@@ -735,6 +1039,32 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
     return getSelectOptionLabelForValue(sel, value);
   }
 
+  private SelectOption[] getSelectOptions(HtmlSelect sel) {
+    List<HtmlOption> opts = sel.getOptions();
+    SelectOption[] result = new SelectOption[opts.size()];
+    int i = 0;
+    for (HtmlOption opt : opts) {
+      result[i++] = new SelectOption(opt.asText(), opt.getValueAttribute(), opt.isSelected());
+    }
+    return result;
+  }
+
+  @Override
+  public SelectOption[] getSelectOptions(String selectName) {
+    HtmlSelect sel = getForm().getSelectByName(selectName);
+    return getSelectOptions(sel);
+  }
+
+  @Override
+  public SelectOption[] getSelectOptions(String selectName, int index) {
+    List<HtmlSelect> sels = getForm().getSelectsByName(selectName);
+    if (sels == null || sels.size() < index + 1) {
+      throw new RuntimeException("Did not find select with name [" + selectName
+        + "] at index " + index);
+    }
+    return getSelectOptions(sels.get(index));
+  }
+
   @Override
   public URL getPageURL() {
     return win.getEnclosedPage().getWebResponse().getWebRequest().getUrl();
@@ -771,20 +1101,42 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
       "Unexpected error in getPageText(). This method need to be updated.");
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Plain text and unexpected pages are searched in their response stream, which HtmlUnit
+   * keeps in a temporary file when it is large, so they are never decoded whole.</p>
+   */
+  @Override
+  public boolean isTextInPage(String text) {
+    Page page = win.getEnclosedPage();
+    if (page instanceof TextPage || page instanceof UnexpectedPage) {
+      WebResponse response = page.getWebResponse();
+      try (InputStream in = response.getContentAsStream()) {
+        if (in == null) {
+          return text.isEmpty();
+        }
+        return TextSearch.contains(new InputStreamReader(in, response.getContentCharset()), text);
+      } catch (IOException e) {
+        throw new RuntimeException("Unable to read the response of " + response.getWebRequest().getUrl(), e);
+      }
+    }
+    return getPageText().contains(text);
+  }
+
   @Override
   public String getServerResponse() {
-    StringBuffer result = new StringBuffer();
-    WebResponse wr = wc.getCurrentWindow().getEnclosedPage()
-      .getWebResponse();
-    result.append(wr.getStatusCode()).append(" ").append(
-      wr.getStatusMessage()).append("\n");
-    result.append("Location: ").append(wr.getWebRequest().getUrl()).append("\n");
-    for (NameValuePair h : wr.getResponseHeaders()) {
+    ResponseSnapshot snapshot = getResponseSnapshot();
+    StringBuilder result = new StringBuilder();
+    result.append(snapshot.getStatusCode()).append(" ").append(
+      snapshot.getStatusMessage()).append("\n");
+    result.append("Location: ").append(snapshot.getUrl()).append("\n");
+    for (HttpHeader h : snapshot.getHeaders()) {
       result.append(h.getName()).append(": ").append(h.getValue())
         .append("\n");
     }
     result.append("\n");
-    result.append(wr.getContentAsString());
+    result.append(snapshot.getBody());
     return result.toString();
   }
 
@@ -801,23 +1153,39 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
   @Override
   public InputStream getInputStream(URL resourceUrl)
     throws TestingEngineResponseException {
-    WebWindow imageWindow = null;
+    // load the response without a window, so that the current page is left as it is
+    WebResponse response;
     try {
-      // as far as I can tell, there is no such thing as an iframe/object kind of "window" in htmlunit, so I'm
-      // opening a fake new window here
-      imageWindow = wc.openWindow(resourceUrl, "for_stream");
-      Page page = imageWindow.getEnclosedPage();
-      return page.getWebResponse().getContentAsStream();
-    } catch (FailingHttpStatusCodeException aException) {
-      throw new TestingEngineResponseException(
-        aException.getStatusCode(), aException);
+      response = wc.loadWebResponse(new WebRequest(resourceUrl));
     } catch (IOException e) {
       throw new RuntimeException(e);
-    } finally {
-      if (imageWindow != null) {
-        wc.deregisterWebWindow(imageWindow);
-      }
     }
+    int status = response.getStatusCode();
+    if (status >= 400 && wc.getOptions().isThrowExceptionOnFailingStatusCode()) {
+      throw new TestingEngineResponseException(status,
+        "unexpected status code [" + status + "] at URL: [" + resourceUrl + "]");
+    }
+    try {
+      return response.getContentAsStream();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public ResponseSnapshot getHeadResponse(URL resourceUrl) throws TestingEngineResponseException {
+    WebResponse response;
+    try {
+      response = wc.loadWebResponse(new WebRequest(resourceUrl, HttpMethod.HEAD));
+    } catch (IOException e) {
+      throw new TestingEngineResponseException(e);
+    }
+    List<HttpHeader> headers = new ArrayList<>();
+    for (NameValuePair header : response.getResponseHeaders()) {
+      headers.add(new HttpHeader(header.getName(), header.getValue()));
+    }
+    return new ResponseSnapshot(resourceUrl.toExternalForm(), response.getStatusCode(),
+      response.getStatusMessage(), headers, null);
   }
 
   /**
@@ -861,6 +1229,11 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
   private void initWebClient() {
 
     wc = createWebClient();
+    if (scriptCache != null && wc.getJavaScriptEngine() instanceof JavaScriptEngine) {
+      wc.getJavaScriptEngine().shutdown();
+      wc.setJavaScriptEngine(new CachingJavaScriptEngine(wc, scriptCache));
+      wc.initialize(wc.getCurrentWindow());
+    }
 
     wc.getOptions().setJavaScriptEnabled(jsEnabled);
     wc.getOptions().setThrowExceptionOnFailingStatusCode(!ignoreFailingStatusCodes);
@@ -868,11 +1241,41 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
     wc.getOptions().setRedirectEnabled(true);
     wc.getOptions().setUseInsecureSSL(true);
     if (refreshHandler == null) {
-      wc.setRefreshHandler(new ImmediateRefreshHandler());
+      wc.setRefreshHandler(new BoundedRefreshHandler(getTestContext().getMaxRefreshes(),
+        getTestContext().getMaxRefreshDelay()));
     } else {
       wc.setRefreshHandler(refreshHandler);
     }
+    if (wc.getRefreshHandler() instanceof BoundedRefreshHandler) {
+      wc.addWebWindowListener((BoundedRefreshHandler) wc.getRefreshHandler());
+    }
     wc.getOptions().setTimeout(timeout);
+    if (webConnectionFactory != null) {
+      wc.setWebConnection(webConnectionFactory.createWebConnection(wc, wc.getWebConnection()));
+    }
+    // measure the transport only: the replay archive and the shared cache answer without reaching it
+    measuringConnection = new MeasuringWebConnection(wc.getWebConnection());
+    wc.setWebConnection(measuringConnection);
+    try {
+      if (replayArchive != null) {
+        wc.getWebConnection().close();
+        wc.setWebConnection(new ReplayWebConnection(replayArchive, replayMatches));
+      } else if (recordArchive != null) {
+        wc.setWebConnection(new RecordingWebConnection(wc.getWebConnection(), recordArchive));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    if (sharedCache != null) {
+      wc.setWebConnection(new SharedCacheWebConnection(wc.getWebConnection(), sharedCache, wc));
+    }
+    if (getTestContext().isJavaScriptTimeWarp()) {
+      virtualClock = new VirtualClock();
+      virtualClock.install(wc);
+    } else {
+      virtualClock = null;
+    }
+    wc.setWebConnection(new UrlFilterWebConnection(wc.getWebConnection(), getTestContext().getUrlFilter()));
     DefaultCredentialsProvider creds = new DefaultCredentialsProvider();
     if (getTestContext().hasAuthorization()) {
       creds.addCredentials(getTestContext().getUser(), getTestContext()
@@ -920,6 +1323,9 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
         String winName = event.getWebWindow().getName();
         Page oldPage = event.getOldPage();
         Page newPage = event.getNewPage();
+        if (win == null || event.getWebWindow() == win) {
+          measuringConnection.reset(newPage != null ? newPage.getWebResponse() : null);
+        }
         String oldPageTitle = "no_html";
         if (oldPage instanceof HtmlPage) {
           oldPageTitle = ((HtmlPage) oldPage).getTitleText();
@@ -992,7 +1398,14 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
       }
     });
     // Deal with cookies
-    for (javax.servlet.http.Cookie c : getTestContext().getCookies()) {
+    List<javax.servlet.http.Cookie> cookies = new ArrayList<>();
+    SessionSnapshot snapshot = getTestContext().getSessionSnapshot();
+    if (snapshot != null) {
+      cookies.addAll(snapshot.getCookies());
+      restoreStorage(snapshot);
+    }
+    cookies.addAll(getTestContext().getCookies());
+    for (javax.servlet.http.Cookie c : cookies) {
       // If Path==null, cookie is not send to the server.
       wc.getCookieManager().addCookie(
         new Cookie(c.getDomain() != null ? c.getDomain() : "", c
@@ -2083,10 +2496,8 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
    */
   @Override
   public boolean hasSelectOption(String selectName, String optionLabel) {
-    String[] opts = getSelectOptionValues(selectName);
-    for (int i = 0; i < opts.length; i++) {
-      String label = getSelectOptionLabelForValue(selectName, opts[i]);
-      if (label.equals(optionLabel)) {
+    for (SelectOption opt : getSelectOptions(selectName)) {
+      if (opt.getLabel().equals(optionLabel)) {
         return true;
       }
     }
@@ -2148,10 +2559,8 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
    */
   @Override
   public boolean hasSelectOption(String selectName, int index, String optionLabel) {
-    String[] opts = getSelectOptionValues(selectName, index);
-    for (int i = 0; i < opts.length; i++) {
-      String label = getSelectOptionLabelForValue(selectName, index, opts[i]);
-      if (label.equals(optionLabel)) {
+    for (SelectOption opt : getSelectOptions(selectName, index)) {
+      if (opt.getLabel().equals(optionLabel)) {
         return true;
       }
     }
@@ -2288,16 +2697,7 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
    * @param regexp regexp to match.
    */
   private boolean isMatchInElement(HtmlElement element, String regexp) {
-    RE re = getRE(regexp);
-    return re.match(element.asText());
-  }
-
-  private RE getRE(String regexp) {
-    try {
-      return new RE(regexp, RE.MATCH_SINGLELINE);
-    } catch (RESyntaxException e) {
-      throw new RuntimeException(e);
-    }
+    return testContext.getRegexpEngine().find(regexp, element.asText());
   }
 
   /**
@@ -2440,7 +2840,7 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
    */
   @Override
   public int getServerResponseCode() {
-    return getWebResponse().getStatusCode();
+    return getResponseSnapshot().getStatusCode();
   }
 
   /**
@@ -2468,7 +2868,7 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
    */
   @Override
   public String getHeader(String name) {
-    return getWebResponse().getResponseHeaderValue(name);
+    return getResponseSnapshot().getHeader(name);
   }
 
   /*
@@ -2480,7 +2880,7 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
   @Deprecated
   public Map<String, String> getAllHeaders() {
     Map<String, String> map = new java.util.HashMap<>();
-    for (NameValuePair header : getWebResponse().getResponseHeaders()) {
+    for (HttpHeader header : getResponseSnapshot().getHeaders()) {
       map.put(header.getName(), header.getValue());
     }
     return map;
@@ -2488,11 +2888,42 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
 
   @Override
   public List<HttpHeader> getResponseHeaders() {
-    List<HttpHeader> result = new LinkedList<>();
-    for (NameValuePair header : getWebResponse().getResponseHeaders()) {
-      result.add(new HttpHeader(header.getName(), header.getValue()));
+    return new LinkedList<>(getResponseSnapshot().getHeaders());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The snapshot is captured the first time it is asked for after a navigation, and kept
+   * until the current window shows another response. The raw body is copied at that time, since
+   * HtmlUnit releases the content of a response once the window moves on; only its decoding is
+   * deferred.</p>
+   */
+  @Override
+  public ResponseSnapshot getResponseSnapshot() {
+    WebResponse response = getWebResponse();
+    if (response != responseSnapshotSource) {
+      List<HttpHeader> headers = new ArrayList<>();
+      for (NameValuePair header : response.getResponseHeaders()) {
+        headers.add(new HttpHeader(header.getName(), header.getValue()));
+      }
+      final byte[] body;
+      try {
+        body = RecordingWebConnection.readBody(response);
+      } catch (IOException e) {
+        throw new RuntimeException("Unable to read the body of " + response.getWebRequest().getUrl(), e);
+      }
+      final Charset charset = response.getContentCharset();
+      responseSnapshot = new ResponseSnapshot(response.getWebRequest().getUrl().toString(),
+        response.getStatusCode(), response.getStatusMessage(), headers, new Callable<String>() {
+          @Override
+          public String call() {
+            return new String(body, charset);
+          }
+        });
+      responseSnapshotSource = response;
     }
-    return result;
+    return responseSnapshot;
   }
 
   /**
@@ -2525,12 +2956,210 @@ public class HtmlUnitTestingEngineImpl implements ITestingEngine {
     timeout = milliseconds;
   }
 
+  @Override
+  public PageMetrics getPageMetrics() {
+    Page page = win == null ? null : win.getEnclosedPage();
+    if (page == null) {
+      throw new IllegalStateException("No page to measure: call beginAt first");
+    }
+    int domNodeCount = 0;
+    if (page instanceof DomNode) {
+      for (DomNode node : ((DomNode) page).getDescendants()) {
+        domNodeCount++;
+      }
+    }
+    int requestCount = 0;
+    long bytes = 0;
+    if (measuringConnection != null) {
+      requestCount = measuringConnection.getRequestCount();
+      bytes = measuringConnection.getBytes();
+    }
+    return new PageMetrics(page.getWebResponse().getLoadTime(), bytes, requestCount, domNodeCount);
+  }
+
+  @Override
+  public int waitForBackgroundJavaScript(long timeoutMillis) {
+    if (virtualClock != null) {
+      // the jobs only run when the clock moves
+      virtualClock.advance(timeoutMillis);
+      return getBackgroundJobCount();
+    }
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    Page page = win.getEnclosedPage();
+    PageChangeLatch changed = new PageChangeLatch();
+    if (page instanceof HtmlPage) {
+      ((HtmlPage) page).addDomChangeListener(changed);
+      ((HtmlPage) page).addHtmlAttributeChangeListener(changed);
+    }
+    try {
+      while (true) {
+        int jobs = getBackgroundJobCount();
+        long remaining = deadline - System.currentTimeMillis();
+        if (jobs == 0 || remaining <= 0 || win.getEnclosedPage() != page
+          || changed.await(Math.min(remaining, JOB_POLL_INTERVAL))) {
+          return jobs;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      if (page instanceof HtmlPage) {
+        ((HtmlPage) page).removeDomChangeListener(changed);
+        ((HtmlPage) page).removeHtmlAttributeChangeListener(changed);
+      }
+    }
+  }
+
+  @Override
+  public void advanceJavaScriptClock(long millis) {
+    if (virtualClock != null) {
+      virtualClock.advance(millis);
+    } else {
+      wc.waitForBackgroundJavaScriptStartingBefore(millis);
+    }
+  }
+
+  /**
+   * Count the pending background JavaScript jobs of all the open windows.
+   */
+  private int getBackgroundJobCount() {
+    int jobs = 0;
+    for (WebWindow window : wc.getWebWindows()) {
+      if (window.getJobManager() != null) {
+        jobs += window.getJobManager().getJobCount();
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Released by the first change of the DOM of a page.
+   */
+  private static class PageChangeLatch implements DomChangeListener, HtmlAttributeChangeListener {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    boolean await(long millis) throws InterruptedException {
+      return latch.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void nodeAdded(DomChangeEvent event) {
+      latch.countDown();
+    }
+
+    @Override
+    public void nodeDeleted(DomChangeEvent event) {
+      latch.countDown();
+    }
+
+    @Override
+    public void attributeAdded(HtmlAttributeChangeEvent event) {
+      latch.countDown();
+    }
+
+    @Override
+    public void attributeRemoved(HtmlAttributeChangeEvent event) {
+      latch.countDown();
+    }
+
+    @Override
+    public void attributeReplaced(HtmlAttributeChangeEvent event) {
+      latch.countDown();
+    }
+  }
+
   public void setRefreshHandler(RefreshHandler handler) {
     this.refreshHandler = handler;
 
     if (wc != null) {
+      if (wc.getRefreshHandler() instanceof BoundedRefreshHandler) {
+        wc.removeWebWindowListener((BoundedRefreshHandler) wc.getRefreshHandler());
+      }
       wc.setRefreshHandler(refreshHandler);
+      if (refreshHandler instanceof BoundedRefreshHandler) {
+        wc.addWebWindowListener((BoundedRefreshHandler) refreshHandler);
+      }
     }
   }
 
+  @Override
+  public int getRefreshCount() {
+    if (wc != null && wc.getRefreshHandler() instanceof BoundedRefreshHandler) {
+      return ((BoundedRefreshHandler) wc.getRefreshHandler()).getLimiter().getRefreshCount();
+    }
+    return 0;
+  }
+
+  /**
+   * Share downloaded static resources with other engines, for example
+   * {@link SharedHttpCache#getInstance()}. Must be called before {@link #beginAt(URL, TestContext)}.
+   *
+   * @param cache the cache to use, or null to disable it
+   */
+  public void setSharedCache(SharedHttpCache cache) {
+    this.sharedCache = cache;
+  }
+
+  /**
+   * @return the cache of static resources shared with other engines, or null
+   */
+  public SharedHttpCache getSharedCache() {
+    return sharedCache;
+  }
+
+  /**
+   * Replace the transport of the next browsers, for example by a
+   * {@link LocalConnectorWebConnection} talking to an embedded server in memory.
+   * Must be called before {@link #beginAt(URL, TestContext)}.
+   *
+   * @param factory the factory of connections, or null to use the default HTTP connection
+   */
+  public void setWebConnectionFactory(WebConnectionFactory factory) {
+    this.webConnectionFactory = factory;
+  }
+
+  /**
+   * Record all the requests and responses of the next browsers into an archive, which
+   * can then be served by {@link #setReplayArchive(File, ReplayWebConnection.Match...)}.
+   * Records are appended to an existing archive. Must be called before {@link #beginAt(URL, TestContext)}.
+   *
+   * @param archive the archive to write, or null to stop recording
+   */
+  public void setRecordArchive(File archive) {
+    this.recordArchive = archive;
+  }
+
+  /**
+   * Serve the responses of the next browsers from an archive written in recording mode,
+   * instead of connecting to the server. Requests are always matched on their URL.
+   * Must be called before {@link #beginAt(URL, TestContext)}.
+   *
+   * @param archive the archive to read, or null to use the network again
+   * @param matches other parts of the requests to match (method, body)
+   */
+  public void setReplayArchive(File archive, ReplayWebConnection.Match... matches) {
+    this.replayArchive = archive;
+    this.replayMatches = EnumSet.noneOf(ReplayWebConnection.Match.class);
+    this.replayMatches.addAll(Arrays.asList(matches));
+  }
+
+  /**
+   * Share compiled scripts with other engines, for example
+   * {@link CompiledScriptCache#getInstance()}. Must be called before {@link #beginAt(URL, TestContext)}.
+   *
+   * @param cache the cache to use, or null to compile every script
+   */
+  public void setScriptCache(CompiledScriptCache cache) {
+    this.scriptCache = cache;
+  }
+
+  /**
+   * @return the cache of compiled scripts, or null
+   */
+  public CompiledScriptCache getScriptCache() {
+    return scriptCache;
+  }
+
 }
@@ -0,0 +1,365 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.FormEncodingType;
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import com.gargoylesoftware.htmlunit.util.KeyDataPair;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.server.LocalConnector;
+
+/**
+ * Sends the requests for an embedded Jetty server through its {@link LocalConnector},
+ * in memory, without opening any socket. Requests for other servers go to the wrapped
+ * connection.
+ *
+ * <p>The requests and responses are still serialized as HTTP/1.1, so the application
+ * sees the same headers, cookies and bodies as over the network. Cookies are read from
+ * and stored into the cookie manager of the web client. A basic authentication challenge is
+ * answered with the credentials of the web client, which are then sent with the next requests,
+ * like the network connection does.</p>
+ *
+ * <p>The connection is opt-in: the engine only uses it once given its factory. The JWebUnit test
+ * suites keep going through the network, see <code>LocalConnectorTest</code> for an example.</p>
+ *
+ * @see HtmlUnitTestingEngineImpl#setWebConnectionFactory(WebConnectionFactory)
+ */
+public class LocalConnectorWebConnection extends WebConnectionWrapper {
+
+  private final WebClient client;
+
+  private final LocalConnector connector;
+
+  private final String serverUrl;
+
+  /**
+   * Value of the <code>Authorization</code> header accepted by the server, once challenged.
+   */
+  private volatile String authorization;
+
+  /**
+   * Create a connection sending the requests for a server to its local connector.
+   *
+   * @param client the web client owning the connection
+   * @param connection the connection used for the other servers
+   * @param connector the local connector of the server
+   * @param serverUrl URL under which the server is addressed, for example <code>http://localhost:8082</code>;
+   * the host does not need to resolve
+   */
+  public LocalConnectorWebConnection(WebClient client, WebConnection connection, LocalConnector connector,
+    URL serverUrl) {
+    super(connection);
+    this.client = client;
+    this.connector = connector;
+    this.serverUrl = serverUrl.getProtocol() + "://" + serverUrl.getAuthority() + "/";
+  }
+
+  /**
+   * Create a factory of connections to the given local connector, to be given to
+   * {@link HtmlUnitTestingEngineImpl#setWebConnectionFactory(WebConnectionFactory)}.
+   *
+   * @param connector the local connector of the server
+   * @param serverUrl URL under which the server is addressed
+   * @return the factory
+   */
+  public static WebConnectionFactory factory(final LocalConnector connector, final URL serverUrl) {
+    return new WebConnectionFactory() {
+      @Override
+      public WebConnection createWebConnection(WebClient client, WebConnection connection) {
+        return new LocalConnectorWebConnection(client, connection, connector, serverUrl);
+      }
+    };
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    URL url = request.getUrl();
+    if (!(url.toExternalForm() + "/").startsWith(serverUrl)) {
+      return super.getResponse(request);
+    }
+    long start = System.currentTimeMillis();
+    String sent = request.isAdditionalHeader("Authorization") ? null : authorization;
+    ResponseParser response = send(request, sent);
+    if (response.status == 401 && !request.isAdditionalHeader("Authorization")) {
+      String answer = answer(url, response.headers);
+      if (answer != null && !answer.equals(sent)) {
+        authorization = answer;
+        response = send(request, answer);
+      }
+    }
+    return new WebResponse(new WebResponseData(response.body.toByteArray(), response.status, response.reason,
+      response.headers), request, System.currentTimeMillis() - start);
+  }
+
+  private ResponseParser send(WebRequest request, String authorization) throws IOException {
+    URL url = request.getUrl();
+    ByteBuffer raw;
+    boolean head = request.getHttpMethod() == HttpMethod.HEAD;
+    try {
+      raw = connector.getResponse(ByteBuffer.wrap(toBytes(request, authorization)), head,
+        client.getOptions().getTimeout() > 0 ? client.getOptions().getTimeout() : 30000, TimeUnit.MILLISECONDS);
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("Local request to " + url + " failed", e);
+    }
+    if (raw == null) {
+      throw new IOException("No response from the local connector for " + url);
+    }
+    ResponseParser response = new ResponseParser();
+    HttpParser parser = new HttpParser(response);
+    parser.setHeadResponse(head);
+    while (!response.complete && raw.hasRemaining()) {
+      parser.parseNext(raw);
+    }
+    if (!response.complete) {
+      parser.atEOF();
+      parser.parseNext(raw);
+    }
+    for (NameValuePair header : response.headers) {
+      if ("Set-Cookie".equalsIgnoreCase(header.getName())) {
+        client.addCookie(header.getValue(), url, this);
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Give the <code>Authorization</code> header answering a basic authentication challenge.
+   *
+   * @return the header value, or null when there is no basic challenge or no credentials for it
+   */
+  private String answer(URL url, List<NameValuePair> headers) {
+    for (NameValuePair header : headers) {
+      String challenge = header.getValue().trim();
+      if (!"WWW-Authenticate".equalsIgnoreCase(header.getName())
+        || !challenge.regionMatches(true, 0, "Basic", 0, 5)) {
+        continue;
+      }
+      String realm = AuthScope.ANY_REALM;
+      int index = challenge.indexOf("realm=\"");
+      if (index >= 0) {
+        int end = challenge.indexOf('"', index + 7);
+        realm = challenge.substring(index + 7, end < 0 ? challenge.length() : end);
+      }
+      Credentials credentials = client.getCredentialsProvider().getCredentials(
+        new AuthScope(url.getHost(), url.getPort() < 0 ? url.getDefaultPort() : url.getPort(), realm, "basic"));
+      if (credentials != null) {
+        String password = credentials.getPassword() == null ? "" : credentials.getPassword();
+        return "Basic " + Base64.encodeBase64String(
+          (credentials.getUserPrincipal().getName() + ":" + password).getBytes(StandardCharsets.ISO_8859_1));
+      }
+    }
+    return null;
+  }
+
+  private byte[] toBytes(WebRequest request, String authorization) throws IOException {
+    URL url = request.getUrl();
+    Charset charset = request.getCharset() == null ? StandardCharsets.ISO_8859_1 : request.getCharset();
+    StringBuilder head = new StringBuilder();
+    head.append(request.getHttpMethod().name()).append(' ');
+    head.append(url.getPath().isEmpty() ? "/" : url.getPath());
+    if (url.getQuery() != null) {
+      head.append('?').append(url.getQuery());
+    }
+    head.append(" HTTP/1.1\r\n");
+    head.append("Host: ").append(url.getAuthority()).append("\r\n");
+    String contentType = null;
+    for (Map.Entry<String, String> header : request.getAdditionalHeaders().entrySet()) {
+      if ("Content-Type".equalsIgnoreCase(header.getKey())) {
+        contentType = header.getValue();
+      } else if (!"Accept-Encoding".equalsIgnoreCase(header.getKey())
+        && !"Connection".equalsIgnoreCase(header.getKey())) {
+        // no Accept-Encoding: the body is given to HtmlUnit as is
+        head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+      }
+    }
+    if (authorization != null) {
+      head.append("Authorization: ").append(authorization).append("\r\n");
+    }
+    if (!request.isAdditionalHeader("User-Agent")) {
+      head.append("User-Agent: ").append(client.getBrowserVersion().getUserAgent()).append("\r\n");
+    }
+    StringBuilder cookies = new StringBuilder();
+    for (Cookie cookie : client.getCookies(url)) {
+      cookies.append(cookies.length() == 0 ? "" : "; ").append(cookie.getName()).append('=').append(cookie.getValue());
+    }
+    if (cookies.length() > 0) {
+      head.append("Cookie: ").append(cookies).append("\r\n");
+    }
+
+    byte[] body = null;
+    HttpMethod method = request.getHttpMethod();
+    if (request.getRequestBody() != null) {
+      body = request.getRequestBody().getBytes(charset);
+    } else if (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+      if (request.getEncodingType() == FormEncodingType.MULTIPART) {
+        String boundary = "----JWebUnit" + UUID.randomUUID().toString().replace("-", "");
+        contentType = "multipart/form-data; boundary=" + boundary;
+        body = multipart(request.getRequestParameters(), boundary, charset);
+      } else {
+        if (contentType == null) {
+          contentType = FormEncodingType.URL_ENCODED.getName() + "; charset=" + charset.name();
+        }
+        StringBuilder form = new StringBuilder();
+        for (NameValuePair parameter : request.getRequestParameters()) {
+          form.append(form.length() == 0 ? "" : "&").append(URLEncoder.encode(parameter.getName(), charset.name()))
+            .append('=').append(URLEncoder.encode(parameter.getValue(), charset.name()));
+        }
+        body = form.toString().getBytes(StandardCharsets.US_ASCII);
+      }
+    }
+    if (body != null) {
+      if (contentType != null) {
+        head.append("Content-Type: ").append(contentType).append("\r\n");
+      }
+      head.append("Content-Length: ").append(body.length).append("\r\n");
+    }
+    head.append("Connection: close\r\n\r\n");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+    if (body != null) {
+      bytes.write(body);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] multipart(List<NameValuePair> parameters, String boundary, Charset charset)
+    throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    for (NameValuePair parameter : parameters) {
+      StringBuilder part = new StringBuilder();
+      part.append("--").append(boundary).append("\r\n");
+      part.append("Content-Disposition: form-data; name=\"").append(parameter.getName()).append('"');
+      if (parameter instanceof KeyDataPair) {
+        KeyDataPair file = (KeyDataPair) parameter;
+        String fileName = file.getFileName() != null ? file.getFileName()
+          : file.getFile() != null ? file.getFile().getName() : "";
+        String mimeType = file.getMimeType() != null ? file.getMimeType() : "application/octet-stream";
+        part.append("; filename=\"").append(fileName).append("\"\r\n");
+        part.append("Content-Type: ").append(mimeType).append("\r\n\r\n");
+        body.write(part.toString().getBytes(charset));
+        if (file.getData() != null) {
+          body.write(file.getData());
+        } else if (file.getFile() != null && file.getFile().isFile()) {
+          body.write(Files.readAllBytes(file.getFile().toPath()));
+        }
+      } else {
+        part.append("\r\n\r\n").append(parameter.getValue());
+        body.write(part.toString().getBytes(charset));
+      }
+      body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+    body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    return body.toByteArray();
+  }
+
+  /**
+   * Collects the parts of a response parsed by Jetty.
+   */
+  private static final class ResponseParser implements HttpParser.ResponseHandler {
+
+    private int status;
+
+    private String reason;
+
+    private final List<NameValuePair> headers = new ArrayList<>();
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private boolean complete;
+
+    @Override
+    public boolean startResponse(HttpVersion version, int status, String reason) {
+      this.status = status;
+      this.reason = reason == null ? "" : reason;
+      return false;
+    }
+
+    @Override
+    public void parsedHeader(HttpField field) {
+      // the body is given already decoded
+      if (!"Transfer-Encoding".equalsIgnoreCase(field.getName())) {
+        headers.add(new NameValuePair(field.getName(), field.getValue()));
+      }
+    }
+
+    @Override
+    public boolean headerComplete() {
+      return false;
+    }
+
+    @Override
+    public boolean content(ByteBuffer content) {
+      byte[] bytes = new byte[content.remaining()];
+      content.get(bytes);
+      body.write(bytes, 0, bytes.length);
+      return false;
+    }
+
+    @Override
+    public boolean contentComplete() {
+      return false;
+    }
+
+    @Override
+    public boolean messageComplete() {
+      complete = true;
+      return true;
+    }
+
+    @Override
+    public void earlyEOF() {
+      complete = true;
+    }
+
+    @Override
+    public int getHeaderCacheSize() {
+      return 0;
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the requests and downloaded bytes going through the wrapped connection.
+ * Counters are reset each time a new page is loaded into the main window.
+ *
+ * <p>The engine wraps the transport itself, below the shared cache: responses served
+ * locally, from the cache or a replay archive, never reach this connection.</p>
+ */
+class MeasuringWebConnection extends WebConnectionWrapper {
+
+  /**
+   * Number of recent responses kept to find the page response when it is loaded. Older
+   * responses are only added to the counters, so pages polling the server do not grow the memory.
+   */
+  static final int MAX_KEPT_RESPONSES = 256;
+
+  /**
+   * URL and size of the last responses received since the current page was loaded.
+   */
+  private final List<Measure> responses = new ArrayList<>();
+
+  /**
+   * Number of responses received since the current page was loaded, and no longer kept.
+   */
+  private int droppedCount;
+
+  private long droppedBytes;
+
+  MeasuringWebConnection(WebConnection webConnection) {
+    super(webConnection);
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    WebResponse response = super.getResponse(request);
+    record(response);
+    return response;
+  }
+
+  private synchronized void record(WebResponse response) {
+    responses.add(new Measure(response.getWebRequest().getUrl().toExternalForm(),
+      Math.max(0, response.getContentLength())));
+    if (responses.size() > MAX_KEPT_RESPONSES) {
+      droppedCount++;
+      droppedBytes += responses.remove(0).bytes;
+    }
+  }
+
+  /**
+   * Start counting for a new page. Sub-resources may already have been fetched
+   * while the page was parsed, so everything received since the page response
+   * itself is kept.
+   *
+   * @param pageResponse response of the page that has just been loaded
+   */
+  synchronized void reset(WebResponse pageResponse) {
+    droppedCount = 0;
+    droppedBytes = 0;
+    if (pageResponse != null) {
+      String pageUrl = pageResponse.getWebRequest().getUrl().toExternalForm();
+      for (int i = responses.size() - 1; i >= 0; i--) {
+        if (pageUrl.equals(responses.get(i).url)) {
+          responses.subList(0, i).clear();
+          return;
+        }
+      }
+    }
+    // page not loaded through this connection (about:blank, cache, replay...)
+    responses.clear();
+  }
+
+  synchronized int getRequestCount() {
+    return droppedCount + responses.size();
+  }
+
+  /**
+   * @return the number of responses kept to find the next page
+   */
+  synchronized int getKeptResponseCount() {
+    return responses.size();
+  }
+
+  synchronized long getBytes() {
+    long bytes = droppedBytes;
+    for (Measure response : responses) {
+      bytes += response.bytes;
+    }
+    return bytes;
+  }
+
+  private static final class Measure {
+
+    private final String url;
+
+    private final long bytes;
+
+    Measure(String url, long bytes) {
+      this.url = url;
+      this.bytes = bytes;
+    }
+  }
+
+}
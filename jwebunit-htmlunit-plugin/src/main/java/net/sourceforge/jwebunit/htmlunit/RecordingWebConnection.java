@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Appends every request/response pair going through the wrapped connection to an archive
+ * that can be served later by a {@link ReplayWebConnection}.
+ *
+ * <p>Each record of the archive is made of a metadata block (method, URL, hash of the request
+ * body, status, status message and headers) followed by the response body, both prefixed by
+ * their length. The body is stored decoded, without its <code>Content-Encoding</code>.</p>
+ */
+class RecordingWebConnection extends WebConnectionWrapper {
+
+  private final OutputStream out;
+
+  RecordingWebConnection(WebConnection webConnection, File archive) throws IOException {
+    super(webConnection);
+    this.out = new FileOutputStream(archive, true);
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    WebResponse response = super.getResponse(request);
+    ByteArrayOutputStream meta = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(meta);
+    writeString(data, request.getHttpMethod().name());
+    writeString(data, request.getUrl().toExternalForm());
+    writeString(data, bodyHash(request));
+    data.writeInt(response.getStatusCode());
+    writeString(data, response.getStatusMessage());
+    // the body is read decoded
+    List<NameValuePair> headers = SharedHttpCache.decodedHeaders(response.getResponseHeaders());
+    data.writeInt(headers.size());
+    for (NameValuePair header : headers) {
+      writeString(data, header.getName());
+      writeString(data, header.getValue());
+    }
+    byte[] body = readBody(response);
+
+    ByteArrayOutputStream record = new ByteArrayOutputStream(meta.size() + body.length + 8);
+    DataOutputStream recordData = new DataOutputStream(record);
+    recordData.writeInt(meta.size());
+    meta.writeTo(recordData);
+    recordData.writeInt(body.length);
+    recordData.write(body);
+    synchronized (out) {
+      // a single write so that records of concurrent engines are not interleaved
+      record.writeTo(out);
+      out.flush();
+    }
+    return response;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Compute the hash used to match requests on their body.
+   *
+   * @param request the request
+   * @return the hexadecimal SHA-256 of the body or of the request parameters
+   */
+  static String bodyHash(WebRequest request) {
+    StringBuilder body = new StringBuilder();
+    if (request.getRequestBody() != null) {
+      body.append(request.getRequestBody());
+    } else {
+      for (NameValuePair parameter : request.getRequestParameters()) {
+        body.append(parameter.getName()).append('=').append(parameter.getValue()).append('&');
+      }
+    }
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(body.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void writeString(DataOutputStream data, String value) throws IOException {
+    byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+    data.writeInt(bytes.length);
+    data.write(bytes);
+  }
+
+  static byte[] readBody(WebResponse response) throws IOException {
+    InputStream in = response.getContentAsStream();
+    if (in == null) {
+      return new byte[0];
+    }
+    try {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        body.write(buffer, 0, read);
+      }
+      return body.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+}
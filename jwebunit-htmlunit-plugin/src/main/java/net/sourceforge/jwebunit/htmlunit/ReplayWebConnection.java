@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the responses of an archive written by the recording mode of
+ * {@link HtmlUnitTestingEngineImpl#setRecordArchive(File)}, without any server.
+ *
+ * <p>The archive is memory-mapped and indexed once; response bodies are only copied
+ * when served. Requests are always matched on their URL, and optionally on their method
+ * and the hash of their body. When the same request was recorded several times, the
+ * responses are served in the recorded order, the last one being repeated. Requests
+ * missing from the archive get a 404 response.</p>
+ */
+public class ReplayWebConnection implements WebConnection {
+
+  /**
+   * Optional parts of a request taken into account to find its recorded response.
+   */
+  public enum Match {
+    /** Match the HTTP method. */
+    METHOD,
+    /** Match the hash of the request body or parameters. */
+    BODY
+  }
+
+  private final Logger logger = LoggerFactory.getLogger(ReplayWebConnection.class);
+
+  /**
+   * Maximum number of archives kept mapped.
+   */
+  private static final int MAX_ARCHIVES = 8;
+
+  /**
+   * Indexes of the archives mapped last, shared by the engines of the JVM. An evicted archive is
+   * unmapped once the connections using it are gone.
+   */
+  private static final Map<String, List<Record>> ARCHIVES = new LinkedHashMap<String, List<Record>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, List<Record>> eldest) {
+      return size() > MAX_ARCHIVES;
+    }
+  };
+
+  private final Set<Match> matches;
+
+  private final Map<String, List<Record>> index = new HashMap<>();
+
+  /**
+   * Number of responses already served for each key.
+   */
+  private final Map<String, Integer> served = new HashMap<>();
+
+  /**
+   * Create a connection serving the given archive.
+   *
+   * @param archive archive written in recording mode
+   * @param matches optional parts of the requests to match, in addition to the URL
+   * @throws IOException if the archive cannot be read
+   */
+  public ReplayWebConnection(File archive, Set<Match> matches) throws IOException {
+    this.matches = matches.isEmpty() ? EnumSet.noneOf(Match.class) : EnumSet.copyOf(matches);
+    for (Record record : load(archive)) {
+      String key = key(record.method, record.url, record.bodyHash);
+      List<Record> records = index.get(key);
+      if (records == null) {
+        records = new ArrayList<>();
+        index.put(key, records);
+      }
+      records.add(record);
+    }
+  }
+
+  private static List<Record> load(File archive) throws IOException {
+    String path = archive.getCanonicalPath();
+    String key = path + "|" + archive.lastModified() + "|" + archive.length();
+    synchronized (ARCHIVES) {
+      List<Record> records = ARCHIVES.get(key);
+      if (records == null) {
+        records = Collections.unmodifiableList(scan(archive));
+        ARCHIVES.put(key, records);
+      }
+      return records;
+    }
+  }
+
+  private static List<Record> scan(File archive) throws IOException {
+    MappedByteBuffer buffer;
+    try (RandomAccessFile file = new RandomAccessFile(archive, "r")) {
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+    }
+    List<Record> records = new ArrayList<>();
+    while (buffer.remaining() >= 4) {
+      int metaLength = buffer.getInt();
+      int metaEnd = buffer.position() + metaLength;
+      Record record = new Record(buffer);
+      record.method = readString(buffer);
+      record.url = readString(buffer);
+      record.bodyHash = readString(buffer);
+      record.statusCode = buffer.getInt();
+      record.statusMessage = readString(buffer);
+      int headerCount = buffer.getInt();
+      record.headers = new ArrayList<>(headerCount);
+      for (int i = 0; i < headerCount; i++) {
+        record.headers.add(new NameValuePair(readString(buffer), readString(buffer)));
+      }
+      // bodies are archived decoded, also by versions that kept the encoding headers
+      record.headers = SharedHttpCache.decodedHeaders(record.headers);
+      // cast to Buffer: ByteBuffer.position(int) only exists from Java 9, so code compiled on a newer JDK
+      // would not run on Java 7 or 8
+      ((Buffer) buffer).position(metaEnd);
+      record.bodyLength = buffer.getInt();
+      record.bodyOffset = buffer.position();
+      ((Buffer) buffer).position(record.bodyOffset + record.bodyLength);
+      records.add(record);
+    }
+    return records;
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private String key(String method, String url, String bodyHash) {
+    StringBuilder key = new StringBuilder(url);
+    if (matches.contains(Match.METHOD)) {
+      key.append('|').append(method);
+    }
+    if (matches.contains(Match.BODY)) {
+      key.append('|').append(bodyHash);
+    }
+    return key.toString();
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    String key = key(request.getHttpMethod().name(), request.getUrl().toExternalForm(),
+      RecordingWebConnection.bodyHash(request));
+    Record record;
+    synchronized (this) {
+      List<Record> records = index.get(key);
+      if (records == null) {
+        logger.warn("No recorded response for {}", key);
+        return new WebResponse(new WebResponseData(new byte[0], 404, "Not recorded",
+          new ArrayList<NameValuePair>()), request, 0);
+      }
+      Integer count = served.get(key);
+      int n = count == null ? 0 : count;
+      record = records.get(Math.min(n, records.size() - 1));
+      served.put(key, n + 1);
+    }
+    return new WebResponse(new WebResponseData(record.body(), record.statusCode, record.statusMessage,
+      record.headers), request, 0);
+  }
+
+  @Override
+  public void close() {
+    // the mapped archive is shared with the other connections
+  }
+
+  private static final class Record {
+
+    private final ByteBuffer archive;
+
+    private String method;
+
+    private String url;
+
+    private String bodyHash;
+
+    private int statusCode;
+
+    private String statusMessage;
+
+    private List<NameValuePair> headers;
+
+    private int bodyOffset;
+
+    private int bodyLength;
+
+    Record(ByteBuffer archive) {
+      this.archive = archive;
+    }
+
+    byte[] body() {
+      byte[] body = new byte[bodyLength];
+      ByteBuffer view = archive.duplicate();
+      ((Buffer) view).position(bodyOffset);
+      view.get(body);
+      return body;
+    }
+  }
+
+}
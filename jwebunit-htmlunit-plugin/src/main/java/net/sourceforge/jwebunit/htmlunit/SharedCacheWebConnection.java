@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import java.io.IOException;
+import java.net.URL;
+import org.apache.http.auth.AuthScope;
+
+/**
+ * Serves requests from a {@link SharedHttpCache} before going to the wrapped connection.
+ */
+class SharedCacheWebConnection extends WebConnectionWrapper {
+
+  private final SharedHttpCache cache;
+
+  private final WebClient client;
+
+  SharedCacheWebConnection(WebConnection webConnection, SharedHttpCache cache, WebClient client) {
+    super(webConnection);
+    this.cache = cache;
+    this.client = client;
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    if (!cache.accepts(request)) {
+      return super.getResponse(request);
+    }
+    String userAgent = client.getBrowserVersion().getUserAgent();
+    WebResponse cached = cache.getFreshResponse(request, userAgent);
+    if (cached != null) {
+      return cached;
+    }
+    SharedHttpCache.Entry stale = cache.addValidators(request, userAgent);
+    return cache.process(request, userAgent, isPrivate(request), stale, super.getResponse(request));
+  }
+
+  /**
+   * Tell if a request may carry credentials or cookies. The HTTP client adds them after this
+   * connection, so any configured credentials count.
+   */
+  private boolean isPrivate(WebRequest request) {
+    if (request.getAdditionalHeader("Authorization") != null || request.getAdditionalHeader("Cookie") != null
+      || request.getCredentials() != null) {
+      return true;
+    }
+    URL url = request.getUrl();
+    if (client.getCredentialsProvider().getCredentials(new AuthScope(url.getHost(),
+      url.getPort() == -1 ? url.getDefaultPort() : url.getPort())) != null) {
+      return true;
+    }
+    return !client.getCookies(url).isEmpty();
+  }
+
+}
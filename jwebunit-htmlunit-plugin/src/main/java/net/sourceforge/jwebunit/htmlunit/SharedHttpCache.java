@@ -0,0 +1,441 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * A size-bounded HTTP cache for static sub-resources (stylesheets, scripts, images and fonts)
+ * that can be shared by all the {@link HtmlUnitTestingEngineImpl} of the JVM.
+ *
+ * <p>Each {@link com.gargoylesoftware.htmlunit.WebClient} has its own cache which is lost
+ * when the browser is closed. This one survives across tests, so static assets are only
+ * downloaded once. Responses are stored by URL, and by the values of the request headers
+ * named by their <code>Vary</code> header, together with their validators
+ * (<code>ETag</code> and <code>Last-Modified</code>). While fresh according to
+ * <code>Cache-Control: max-age</code> or <code>Expires</code> they are served without
+ * touching the network, then they are revalidated with a conditional request.</p>
+ *
+ * <p>As the cache is shared, responses marked <code>no-store</code> or <code>private</code>,
+ * responses setting cookies, and responses to requests that may carry credentials or cookies
+ * are never stored, unless marked <code>public</code>. Bodies are stored decoded, without
+ * their <code>Content-Encoding</code>.</p>
+ *
+ * <p>Enable it with {@link HtmlUnitTestingEngineImpl#setSharedCache(SharedHttpCache)}.</p>
+ */
+public class SharedHttpCache {
+
+  /**
+   * Default maximum size of the JVM wide instance, in bytes.
+   */
+  public static final long DEFAULT_MAX_SIZE = 50L * 1024 * 1024;
+
+  private static final SharedHttpCache INSTANCE = new SharedHttpCache(DEFAULT_MAX_SIZE);
+
+  private final long maxSize;
+
+  private long size;
+
+  private long hitCount;
+
+  private long missCount;
+
+  private long revalidationCount;
+
+  /**
+   * Least recently used entries first.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Create a new cache.
+   *
+   * @param maxSize maximum size of the stored bodies, in bytes
+   */
+  public SharedHttpCache(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Return the JVM wide instance.
+   *
+   * @return the cache shared by all the engines of the JVM
+   */
+  public static SharedHttpCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Return the cached response for a request, if still fresh.
+   *
+   * @param request the request about to be sent
+   * @param userAgent user agent sent with the request, unless set in its additional headers
+   * @return a copy of the cached response, or null
+   */
+  synchronized WebResponse getFreshResponse(WebRequest request, String userAgent) {
+    Entry entry = getEntry(request, userAgent);
+    if (entry == null || entry.expires <= System.currentTimeMillis()) {
+      return null;
+    }
+    hitCount++;
+    return entry.toWebResponse(request);
+  }
+
+  /**
+   * Add the validators of a stale entry to a request, so the server can answer 304.
+   *
+   * @param request the request about to be sent
+   * @param userAgent user agent sent with the request, unless set in its additional headers
+   * @return the stale entry to pass to {@link #process(WebRequest, String, boolean, Entry, WebResponse)},
+   *         or null
+   */
+  synchronized Entry addValidators(WebRequest request, String userAgent) {
+    Entry entry = getEntry(request, userAgent);
+    if (entry != null) {
+      if (entry.etag != null) {
+        request.setAdditionalHeader("If-None-Match", entry.etag);
+      }
+      if (entry.lastModified != null) {
+        request.setAdditionalHeader("If-Modified-Since", entry.lastModified);
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Process a response received from the server: store it when possible, or
+   * replace a 304 answer with the revalidated entry.
+   *
+   * @param request the request that was sent
+   * @param userAgent user agent sent with the request, unless set in its additional headers
+   * @param privateRequest true if the request may have carried credentials or cookies
+   * @param stale the entry whose validators were sent with the request, or null; it is used
+   *          for a 304 answer even if it was evicted in the meantime
+   * @param response the response of the server
+   * @return the response to hand over to the browser
+   * @throws IOException if the body could not be read
+   */
+  WebResponse process(WebRequest request, String userAgent, boolean privateRequest, Entry stale,
+    WebResponse response) throws IOException {
+    if (request.getHttpMethod() != HttpMethod.GET) {
+      return response;
+    }
+    if (response.getStatusCode() == 304) {
+      if (stale == null) {
+        return response;
+      }
+      synchronized (this) {
+        revalidationCount++;
+        stale.expires = computeExpiration(response);
+        if (!entries.containsKey(stale.key)) {
+          put(stale);
+        }
+        return stale.toWebResponse(request);
+      }
+    }
+    synchronized (this) {
+      missCount++;
+    }
+    if (!isCacheable(response, privateRequest)) {
+      return response;
+    }
+    byte[] body = readFully(response.getContentAsStream());
+    if (body.length > maxSize) {
+      return response;
+    }
+    Entry entry = new Entry(request.getUrl().toExternalForm(), body, response, computeExpiration(response),
+      varyValues(request, userAgent, response.getResponseHeaderValue("Vary")));
+    synchronized (this) {
+      put(entry);
+    }
+    return response;
+  }
+
+  private void put(Entry entry) {
+    Entry previous = entries.put(entry.key, entry);
+    if (previous != null) {
+      size -= previous.body.length;
+    }
+    size += entry.body.length;
+    Iterator<Entry> it = entries.values().iterator();
+    while (size > maxSize && it.hasNext()) {
+      size -= it.next().body.length;
+      it.remove();
+    }
+  }
+
+  /**
+   * Is the request a candidate for this cache?
+   *
+   * @param request the request about to be sent
+   * @return true for GET requests
+   */
+  boolean accepts(WebRequest request) {
+    return request.getHttpMethod() == HttpMethod.GET
+      && request.getUrl().getProtocol().startsWith("http");
+  }
+
+  private Entry getEntry(WebRequest request, String userAgent) {
+    if (!accepts(request)) {
+      return null;
+    }
+    Entry entry = entries.get(request.getUrl().toExternalForm());
+    if (entry == null || !entry.vary.equals(varyValues(request, userAgent, entry.varyHeader))) {
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Values of the request headers named by a <code>Vary</code> header, which must match for a
+   * stored response to be used. Headers added by the HTTP client itself are the same for all the
+   * engines, except the user agent.
+   */
+  private static Map<String, String> varyValues(WebRequest request, String userAgent, String vary) {
+    Map<String, String> values = new TreeMap<>();
+    if (vary == null) {
+      return values;
+    }
+    for (String name : vary.split(",")) {
+      name = name.trim().toLowerCase(Locale.ENGLISH);
+      if (name.isEmpty()) {
+        continue;
+      }
+      String value = null;
+      for (Map.Entry<String, String> header : request.getAdditionalHeaders().entrySet()) {
+        if (header.getKey().equalsIgnoreCase(name)) {
+          value = header.getValue();
+        }
+      }
+      if (value == null && name.equals("user-agent")) {
+        value = userAgent;
+      }
+      values.put(name, value == null ? "" : value);
+    }
+    return values;
+  }
+
+  /**
+   * Remove the headers describing the encoding of a body that has been decoded while read.
+   *
+   * @param headers the headers of the response
+   * @return the headers without <code>Content-Encoding</code>, <code>Content-Length</code> and
+   *         <code>Transfer-Encoding</code>
+   */
+  static List<NameValuePair> decodedHeaders(List<NameValuePair> headers) {
+    List<NameValuePair> decoded = new ArrayList<>(headers.size());
+    for (NameValuePair header : headers) {
+      String name = header.getName();
+      if (!"Content-Encoding".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)
+        && !"Transfer-Encoding".equalsIgnoreCase(name)) {
+        decoded.add(header);
+      }
+    }
+    return decoded;
+  }
+
+  /**
+   * Only successful static resources with a validator or an explicit freshness can be stored.
+   */
+  private boolean isCacheable(WebResponse response, boolean privateRequest) {
+    if (response.getStatusCode() != 200) {
+      return false;
+    }
+    String contentType = response.getContentType().toLowerCase(Locale.ENGLISH);
+    if (!contentType.equals("text/css") && !contentType.contains("javascript")
+      && !contentType.startsWith("image/") && !contentType.startsWith("font/")) {
+      return false;
+    }
+    String cacheControl = getCacheControl(response);
+    if (cacheControl.contains("no-store") || cacheControl.contains("private")) {
+      return false;
+    }
+    if (privateRequest && !cacheControl.contains("public")) {
+      return false;
+    }
+    if (response.getResponseHeaderValue("Set-Cookie") != null) {
+      return false;
+    }
+    String vary = response.getResponseHeaderValue("Vary");
+    if (vary != null && vary.contains("*")) {
+      return false;
+    }
+    return response.getResponseHeaderValue("ETag") != null
+      || response.getResponseHeaderValue("Last-Modified") != null
+      || computeExpiration(response) > System.currentTimeMillis();
+  }
+
+  private static String getCacheControl(WebResponse response) {
+    String cacheControl = response.getResponseHeaderValue("Cache-Control");
+    return cacheControl == null ? "" : cacheControl.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Compute the end of the freshness period from Cache-Control, then Expires.
+   */
+  private static long computeExpiration(WebResponse response) {
+    long now = System.currentTimeMillis();
+    String cacheControl = getCacheControl(response);
+    if (cacheControl.contains("no-cache") || cacheControl.contains("must-revalidate")) {
+      return now;
+    }
+    for (String directive : cacheControl.split(",")) {
+      directive = directive.trim();
+      if (directive.startsWith("max-age=")) {
+        try {
+          return now + 1000L * Long.parseLong(directive.substring("max-age=".length()).trim());
+        } catch (NumberFormatException e) {
+          return now;
+        }
+      }
+    }
+    String expires = response.getResponseHeaderValue("Expires");
+    if (expires != null) {
+      SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+      format.setTimeZone(TimeZone.getTimeZone("GMT"));
+      try {
+        Date date = format.parse(expires);
+        return date.getTime();
+      } catch (ParseException e) {
+        return now;
+      }
+    }
+    return now;
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Remove all the entries.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * @return the number of stored responses
+   */
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the size of the stored bodies, in bytes
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the number of responses served without touching the network
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the number of responses fully downloaded
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the number of entries confirmed by a 304 answer
+   */
+  public synchronized long getRevalidationCount() {
+    return revalidationCount;
+  }
+
+  /**
+   * A stored response. The body is kept decoded, as a byte array, so that it can be
+   * handed over to several web clients.
+   */
+  static final class Entry {
+
+    private final String key;
+
+    private final byte[] body;
+
+    private final int statusCode;
+
+    private final String statusMessage;
+
+    private final List<NameValuePair> headers;
+
+    private final String etag;
+
+    private final String lastModified;
+
+    private final String varyHeader;
+
+    private final Map<String, String> vary;
+
+    private long expires;
+
+    Entry(String key, byte[] body, WebResponse response, long expires, Map<String, String> vary) {
+      this.key = key;
+      this.body = body;
+      this.statusCode = response.getStatusCode();
+      this.statusMessage = response.getStatusMessage();
+      this.headers = decodedHeaders(response.getResponseHeaders());
+      this.etag = response.getResponseHeaderValue("ETag");
+      this.lastModified = response.getResponseHeaderValue("Last-Modified");
+      this.varyHeader = response.getResponseHeaderValue("Vary");
+      this.vary = vary;
+      this.expires = expires;
+    }
+
+    WebResponse toWebResponse(WebRequest request) {
+      return new WebResponse(new WebResponseData(body, statusCode, statusMessage, headers), request, 0);
+    }
+  }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.jwebunit.util.UrlFilter;
+
+/**
+ * Answers requests blocked by the {@link UrlFilter} of the test context without going
+ * to the wrapped connection.
+ */
+class UrlFilterWebConnection extends WebConnectionWrapper {
+
+  private final UrlFilter filter;
+
+  UrlFilterWebConnection(WebConnection webConnection, UrlFilter filter) {
+    super(webConnection);
+    this.filter = filter;
+  }
+
+  @Override
+  public WebResponse getResponse(WebRequest request) throws IOException {
+    if (!filter.block(request.getUrl().toExternalForm())) {
+      return super.getResponse(request);
+    }
+    List<NameValuePair> headers = new ArrayList<>();
+    String contentType = filter.getStubContentType();
+    WebResponseData data;
+    if (contentType == null) {
+      data = new WebResponseData(new byte[0], 204, "No Content", headers);
+    } else {
+      headers.add(new NameValuePair("Content-Type", contentType));
+      String content = filter.getStubContent() == null ? "" : filter.getStubContent();
+      data = new WebResponseData(content.getBytes(StandardCharsets.UTF_8), 200, "OK", headers);
+    }
+    return new WebResponse(data, request, 0);
+  }
+
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.gargoylesoftware.htmlunit.WebWindowEvent;
+import com.gargoylesoftware.htmlunit.WebWindowImpl;
+import com.gargoylesoftware.htmlunit.WebWindowListener;
+import com.gargoylesoftware.htmlunit.javascript.background.BasicJavaScriptJob;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJob;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A clock driving the JavaScript timers of all the windows of a {@link WebClient}, in place of the
+ * wall clock.
+ *
+ * <p>Once installed, the background jobs of the windows (<code>setTimeout</code>,
+ * <code>setInterval</code>, asynchronous requests) never run by themselves: they run on the
+ * calling thread, in the order of their due time, when the clock is {@link #advance(long) advanced}.
+ * A flow driven by timers of several seconds thus completes instantly and always the same way.</p>
+ */
+class VirtualClock implements WebWindowListener {
+
+  private static final AtomicInteger NEXT_JOB_ID = new AtomicInteger(1);
+
+  private final List<JobManager> managers = new CopyOnWriteArrayList<>();
+
+  private long now;
+
+  /**
+   * Replace the job managers of the current and future windows of a client.
+   *
+   * @param client the client whose timers are driven by this clock
+   */
+  void install(WebClient client) {
+    for (WebWindow window : client.getWebWindows()) {
+      attach(window);
+    }
+    client.addWebWindowListener(this);
+  }
+
+  /**
+   * @return the current time of the clock, in milliseconds since its creation
+   */
+  synchronized long now() {
+    return now;
+  }
+
+  /**
+   * Move the clock forward, running the jobs that become due on the way.
+   *
+   * @param millis time to move forward, in milliseconds; 0 only runs the jobs already due
+   * @return the number of jobs run
+   */
+  int advance(long millis) {
+    long target;
+    synchronized (this) {
+      target = now + millis;
+    }
+    int count = 0;
+    while (true) {
+      JobManager earliestManager = null;
+      JavaScriptJob earliest = null;
+      for (JobManager manager : managers) {
+        JavaScriptJob job = manager.peek();
+        if (job != null && (earliest == null || job.compareTo(earliest) < 0)) {
+          earliest = job;
+          earliestManager = manager;
+        }
+      }
+      if (earliest == null || earliest.getTargetExecutionTime() > target) {
+        break;
+      }
+      synchronized (this) {
+        now = Math.max(now, earliest.getTargetExecutionTime());
+      }
+      if (earliestManager.run(earliest)) {
+        count++;
+      }
+    }
+    synchronized (this) {
+      now = target;
+    }
+    return count;
+  }
+
+  private void attach(WebWindow window) {
+    if (window instanceof WebWindowImpl && !(window.getJobManager() instanceof JobManager)) {
+      JobManager manager = new JobManager(this, window);
+      ((WebWindowImpl) window).setJobManager(manager);
+      managers.add(manager);
+    }
+  }
+
+  @Override
+  public void webWindowOpened(WebWindowEvent event) {
+    attach(event.getWebWindow());
+  }
+
+  @Override
+  public void webWindowContentChanged(WebWindowEvent event) {
+    // frames are not reported as opened: catch them before their scripts run
+    attach(event.getWebWindow());
+  }
+
+  @Override
+  public void webWindowClosed(WebWindowEvent event) {
+    JavaScriptJobManager manager = event.getWebWindow().getJobManager();
+    if (manager instanceof JobManager) {
+      manager.shutdown();
+      managers.remove(manager);
+    }
+  }
+
+  /**
+   * The jobs of a window, due at times of the virtual clock.
+   *
+   * <p>The methods used by the background executor of HtmlUnit never report any job, so that
+   * jobs only run when the clock is advanced.</p>
+   */
+  static class JobManager implements JavaScriptJobManager {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient VirtualClock clock;
+
+    private final transient WeakReference<WebWindow> window;
+
+    private final transient PriorityQueue<JavaScriptJob> scheduledJobs = new PriorityQueue<>();
+
+    private final transient List<Integer> cancelledJobs = new ArrayList<>();
+
+    private transient JavaScriptJob currentlyRunningJob;
+
+    JobManager(VirtualClock clock, WebWindow window) {
+      this.clock = clock;
+      this.window = new WeakReference<>(window);
+    }
+
+    synchronized JavaScriptJob peek() {
+      return scheduledJobs.peek();
+    }
+
+    boolean run(JavaScriptJob job) {
+      synchronized (this) {
+        if (!scheduledJobs.remove(job)) {
+          return false;
+        }
+        currentlyRunningJob = job;
+        if (job.isPeriodic()) {
+          job.setTargetExecutionTime(job.getTargetExecutionTime() + Math.max(job.getPeriod(), 1));
+        }
+      }
+      try {
+        job.run();
+      } finally {
+        synchronized (this) {
+          currentlyRunningJob = null;
+          if (job.isPeriodic() && !cancelledJobs.remove(job.getId())) {
+            scheduledJobs.add(job);
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int addJob(JavaScriptJob job, Page page) {
+      WebWindow w = window.get();
+      if (w == null || w.getEnclosedPage() != page) {
+        // the page was unloaded meanwhile
+        return 0;
+      }
+      int delay = job instanceof BasicJavaScriptJob ? ((BasicJavaScriptJob) job).getInitialDelay() : 0;
+      job.setId(NEXT_JOB_ID.getAndIncrement());
+      job.setTargetExecutionTime(clock.now() + Math.max(delay, 0));
+      synchronized (this) {
+        scheduledJobs.add(job);
+      }
+      return job.getId();
+    }
+
+    @Override
+    public synchronized int getJobCount() {
+      return scheduledJobs.size() + (currentlyRunningJob == null ? 0 : 1);
+    }
+
+    @Override
+    public synchronized int getJobCount(JavaScriptJobFilter filter) {
+      if (filter == null) {
+        return getJobCount();
+      }
+      int count = 0;
+      if (currentlyRunningJob != null && filter.passes(currentlyRunningJob)) {
+        count++;
+      }
+      for (JavaScriptJob job : scheduledJobs) {
+        if (filter.passes(job)) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    @Override
+    public synchronized void removeJob(int id) {
+      for (JavaScriptJob job : scheduledJobs) {
+        if (job.getId() == id) {
+          scheduledJobs.remove(job);
+          break;
+        }
+      }
+    }
+
+    @Override
+    public synchronized void stopJob(int id) {
+      removeJob(id);
+      if (currentlyRunningJob != null && currentlyRunningJob.getId() == id) {
+        cancelledJobs.add(id);
+      }
+    }
+
+    @Override
+    public synchronized void removeAllJobs() {
+      if (currentlyRunningJob != null) {
+        cancelledJobs.add(currentlyRunningJob.getId());
+      }
+      scheduledJobs.clear();
+    }
+
+    @Override
+    public int waitForJobs(long timeoutMillis) {
+      // only the clock runs the jobs
+      return getJobCount();
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(long delayMillis) {
+      return getJobCount();
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(long delayMillis, JavaScriptJobFilter filter) {
+      return getJobCount(filter);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+      scheduledJobs.clear();
+      cancelledJobs.clear();
+    }
+
+    @Override
+    public JavaScriptJob getEarliestJob() {
+      return null;
+    }
+
+    @Override
+    public JavaScriptJob getEarliestJob(JavaScriptJobFilter filter) {
+      return null;
+    }
+
+    @Override
+    public boolean runSingleJob(JavaScriptJob job) {
+      return false;
+    }
+
+    @Override
+    public synchronized String jobStatusDump(JavaScriptJobFilter filter) {
+      StringBuilder status = new StringBuilder("Virtual clock at ").append(clock.now()).append(" ms");
+      for (JavaScriptJob job : scheduledJobs) {
+        if (filter == null || filter.passes(job)) {
+          status.append('\n').append(job.getTargetExecutionTime()).append(" ms: ").append(job);
+        }
+      }
+      return status.toString();
+    }
+  }
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+
+/**
+ * Provides the transport used by the web clients of an {@link HtmlUnitTestingEngineImpl},
+ * in place of the default HTTP connection.
+ *
+ * @see HtmlUnitTestingEngineImpl#setWebConnectionFactory(WebConnectionFactory)
+ */
+public interface WebConnectionFactory {
+
+  /**
+   * Create the connection of a new web client.
+   *
+   * @param client the web client
+   * @param connection the default HTTP connection of the client
+   * @return the connection to use
+   */
+  WebConnection createWebConnection(WebClient client, WebConnection connection);
+
+}
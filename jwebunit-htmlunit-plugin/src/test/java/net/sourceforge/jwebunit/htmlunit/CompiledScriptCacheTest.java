@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+import net.sourceforge.jwebunit.util.TestContext;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test that scripts are compiled once for successive browsers.
+ */
+public class CompiledScriptCacheTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testScriptIsCompiledOnce() {
+        CompiledScriptCache cache = new CompiledScriptCache(CompiledScriptCache.DEFAULT_MAX_SIZE);
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setScriptCache(cache);
+
+        beginAt("/JavaScriptTest/DocumentWrite.html");
+        assertTextPresent("Hello World");
+        assertEquals(0, cache.getHitCount());
+        long misses = cache.getMissCount();
+        assertTrue(misses > 0);
+        closeBrowser();
+
+        beginAt("/JavaScriptTest/DocumentWrite.html");
+        assertTextPresent("Hello World");
+        assertEquals(misses, cache.getMissCount());
+        assertTrue(cache.getHitRate() > 0);
+    }
+
+    @Test
+    public void testCacheIsOptIn() {
+        assertNull(new HtmlUnitTestingEngineImpl().getScriptCache());
+    }
+
+    @Test
+    public void testConcurrentEngines() throws Exception {
+        final CompiledScriptCache cache = new CompiledScriptCache(CompiledScriptCache.DEFAULT_MAX_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (final String name : new String[] {"first", "second"}) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        HtmlUnitTestingEngineImpl engine = new HtmlUnitTestingEngineImpl();
+                        engine.setScriptCache(cache);
+                        for (int i = 0; i < 10; i++) {
+                            String query = name + i;
+                            engine.beginAt(new URL(HOST_PATH + "/JavaScriptTest/WriteQuery.html?" + query),
+                                new TestContext());
+                            // the cached script runs in the page of each engine
+                            assertEquals(query + " " + query + " " + query, engine.getPageText().trim());
+                            engine.closeBrowser();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, cache.getEntryCount());
+        assertTrue(cache.getHitCount() >= 18);
+    }
+
+    @After
+    public void cleanup() {
+        ((HtmlUnitTestingEngineImpl) getTestingEngine()).setScriptCache(null);
+    }
+
+}
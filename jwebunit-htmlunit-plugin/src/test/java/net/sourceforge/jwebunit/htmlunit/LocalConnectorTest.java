@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertResponseCode;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setIgnoreFailingStatusCodes;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setTextField;
+import static net.sourceforge.jwebunit.junit.JWebUnit.submit;
+
+import java.net.URL;
+
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+import net.sourceforge.jwebunit.tests.util.JettySetup;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test that the embedded server can be reached in memory.
+ */
+public class LocalConnectorTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testInMemory() throws Exception {
+        inMemory();
+
+        beginAt("/helloworld.html");
+        assertTitleEquals("Hello, World!");
+
+        // script loaded from the server
+        gotoPage("/JavaScriptTest/DocumentWrite.html");
+        assertTextPresent("Hello World");
+
+        // cookie set by the server and sent back
+        gotoPage("/cookies.jsp");
+        gotoPage("/cookies.jsp");
+        assertTextPresent("serveurCookie=foo");
+
+        // query and multipart forms
+        gotoPage("/FormSubmissionTest/SingleNamedButtonForm.html");
+        setTextField("color", "blue");
+        submit();
+        assertTextPresent("color=[blue]");
+        gotoPage("/FormSubmissionTest/InputImageForm.html");
+        setTextField("color", "toto");
+        submit();
+        assertTextPresent("color=[toto]");
+    }
+
+    @Test
+    public void testBasicAuthentication() throws Exception {
+        inMemory();
+
+        beginAt("/BasicAuthTest/protected.html");
+        assertTitleEquals("Protected");
+        // the accepted credentials are sent again without waiting for a challenge
+        gotoPage("/BasicAuthTest/protected.html");
+        assertTitleEquals("Protected");
+    }
+
+    @Test
+    public void testBasicAuthenticationRejected() throws Exception {
+        getTestContext().setAuthorization("admin", "wrong");
+        inMemory();
+        setIgnoreFailingStatusCodes(true);
+
+        beginAt("/BasicAuthTest/protected.html");
+        assertResponseCode(401);
+    }
+
+    private void inMemory() throws Exception {
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        // this host does not resolve, so nothing can go through the network
+        engine.setWebConnectionFactory(LocalConnectorWebConnection.factory(JettySetup.getLocalConnector(),
+            new URL("http://in-memory.invalid")));
+        setBaseUrl("http://in-memory.invalid" + JETTY_URL);
+    }
+
+    @After
+    public void cleanup() {
+        ((HtmlUnitTestingEngineImpl) getTestingEngine()).setWebConnectionFactory(null);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getPageMetrics;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+
+import net.sourceforge.jwebunit.api.PageMetrics;
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test the measurements of the HtmlUnit plugin not covered by
+ * {@link net.sourceforge.jwebunit.tests.PageMetricsAssertionsTest}.
+ */
+public class PageMetricsTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testResponseTimeBudget() throws Throwable {
+        beginAt("/JavaScriptTest/prototype.html");
+        assertPass("assertResponseTimeBelow", new Object[] {60000L});
+        assertFail("assertResponseTimeBelow", new Object[] {0L});
+    }
+
+    @Test
+    public void testNoPage() {
+        try {
+            new HtmlUnitTestingEngineImpl().getPageMetrics();
+            fail("Nothing to measure before beginAt");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPollingKeepsBoundedMemory() throws Exception {
+        MeasuringWebConnection connection = new MeasuringWebConnection(new WebConnection() {
+            @Override
+            public WebResponse getResponse(WebRequest request) throws IOException {
+                return new WebResponse(new WebResponseData(new byte[10], 200, "OK",
+                    Collections.<NameValuePair>emptyList()), request, 0);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        WebRequest request = new WebRequest(new URL("http://localhost/poll"));
+        for (int i = 0; i < 1000; i++) {
+            connection.getResponse(request);
+        }
+        assertEquals(1000, connection.getRequestCount());
+        assertEquals(10000, connection.getBytes());
+        assertEquals(MeasuringWebConnection.MAX_KEPT_RESPONSES, connection.getKeptResponseCount());
+
+        connection.reset(connection.getResponse(request));
+        assertEquals(1, connection.getRequestCount());
+        assertEquals(10, connection.getBytes());
+    }
+
+    @Test
+    public void testSharedCacheHitsAreNotCounted() {
+        // authenticated responses are not stored
+        getTestContext().clearAuthorizations();
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setSharedCache(new SharedHttpCache(SharedHttpCache.DEFAULT_MAX_SIZE));
+        beginAt("/JavaScriptTest/prototype.html");
+        assertTrue(getPageMetrics().getPageWeight() > 130000);
+        closeBrowser();
+
+        // the script is only revalidated
+        beginAt("/JavaScriptTest/prototype.html");
+        PageMetrics metrics = getPageMetrics();
+        assertEquals(2, metrics.getRequestCount());
+        assertTrue(metrics.toString(), metrics.getPageWeight() < 130000);
+    }
+
+    @Test
+    public void testReplayedResponsesAreNotCounted() throws Exception {
+        File archive = File.createTempFile("jwebunit", ".archive");
+        archive.deleteOnExit();
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setRecordArchive(archive);
+        beginAt("/JavaScriptTest/prototype.html");
+        assertEquals(2, getPageMetrics().getRequestCount());
+        closeBrowser();
+
+        engine.setRecordArchive(null);
+        engine.setReplayArchive(archive);
+        beginAt("/JavaScriptTest/prototype.html");
+        assertEquals(0, getPageMetrics().getRequestCount());
+        assertEquals(0, getPageMetrics().getPageWeight());
+    }
+
+    @After
+    public void cleanup() {
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setSharedCache(null);
+        engine.setRecordArchive(null);
+        engine.setReplayArchive(null);
+        getTestContext().setAuthorization("admin", "admin");
+    }
+
+}
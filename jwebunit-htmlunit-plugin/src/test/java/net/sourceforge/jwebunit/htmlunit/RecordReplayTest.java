@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertResponseCode;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setIgnoreFailingStatusCodes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test that recorded traffic can be served again without the server.
+ */
+public class RecordReplayTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testReplay() throws Exception {
+        File archive = File.createTempFile("jwebunit", ".archive");
+        archive.deleteOnExit();
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+
+        engine.setRecordArchive(archive);
+        beginAt("/JavaScriptTest/DocumentWrite.html");
+        gotoPage("/helloworld.html");
+        closeBrowser();
+        assertTrue(archive.length() > 0);
+
+        engine.setRecordArchive(null);
+        engine.setReplayArchive(archive, ReplayWebConnection.Match.METHOD);
+        beginAt("/JavaScriptTest/DocumentWrite.html");
+        assertTextPresent("Hello World");
+        gotoPage("/helloworld.html");
+        assertTitleEquals("Hello, World!");
+
+        // exists on the server, but was not recorded
+        setIgnoreFailingStatusCodes(true);
+        gotoPage("/JavaScriptTest/Alert.html");
+        assertResponseCode(404);
+    }
+
+    @Test
+    public void testReplayGzippedResponse() throws Exception {
+        File archive = File.createTempFile("jwebunit", ".archive");
+        archive.deleteOnExit();
+        final String css = "body { color: red; }";
+        WebConnection server = new WebConnection() {
+            @Override
+            public WebResponse getResponse(WebRequest request) throws java.io.IOException {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                GZIPOutputStream zip = new GZIPOutputStream(out);
+                zip.write(css.getBytes(StandardCharsets.UTF_8));
+                zip.close();
+                List<NameValuePair> headers = new ArrayList<>();
+                headers.add(new NameValuePair("Content-Type", "text/css"));
+                headers.add(new NameValuePair("Content-Encoding", "gzip"));
+                return new WebResponse(new WebResponseData(out.toByteArray(), 200, "OK", headers), request, 0);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        WebRequest request = new WebRequest(new URL("http://localhost/style.css"));
+        RecordingWebConnection recording = new RecordingWebConnection(server, archive);
+        assertEquals(css, recording.getResponse(request).getContentAsString());
+        recording.close();
+
+        ReplayWebConnection replay = new ReplayWebConnection(archive, EnumSet.noneOf(ReplayWebConnection.Match.class));
+        WebResponse replayed = replay.getResponse(request);
+        assertNull(replayed.getResponseHeaderValue("Content-Encoding"));
+        assertEquals(css, replayed.getContentAsString());
+    }
+
+    @After
+    public void cleanup() {
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setRecordArchive(null);
+        engine.setReplayArchive(null);
+        setIgnoreFailingStatusCodes(false);
+    }
+
+}
@@ -25,10 +25,15 @@ import com.gargoylesoftware.htmlunit.WaitingRefreshHandler;
 import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
 import org.junit.Test;
 
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertRefreshCount;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
 import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
 import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
 import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static net.sourceforge.jwebunit.junit.JWebUnit.gotoPage;
 import static net.sourceforge.jwebunit.junit.JWebUnit.setBaseUrl;
+import static net.sourceforge.jwebunit.junit.JWebUnit.setRefreshLimits;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -47,17 +52,16 @@ public class RefreshHandlerTest extends JWebUnitAPITestCase {
 		if (getTestingEngine() instanceof HtmlUnitTestingEngineImpl) {
 			setBaseUrl(HOST_PATH + "/RefreshHandlerTest");
 			getTestContext().setResourceBundleName("RefreshHandlerTest");
+			// the page refreshes itself: the default handler gives up after 10 refreshes
+			long start = System.currentTimeMillis();
 			try {
 				beginAt("/testPage.html");
 				fail("expected exception b/c page refreshes, but received no exception");
 			} catch (RuntimeException re) {
-				String msg = re.getMessage();
-				assertTrue(
-						"msg was not as expected.\n[" + msg + "]",
-						msg.endsWith("aborted by HtmlUnit: Attempted to refresh a page using an ImmediateRefreshHandler which could have caused an OutOfMemoryError Please use WaitingRefreshHandler or ThreadedRefreshHandler instead."));
-			} catch (Exception e) {
-				throw new Exception("received unexpected Exception.", e);
+				assertTrue(re.getMessage(), re.getMessage().contains("10 refreshes already followed"));
 			}
+			assertTrue(System.currentTimeMillis() - start < 5000);
+			assertRefreshCount(10);
 		} else {
 			System.out
 					.println("[WARN] skipping test [testDefaultRefreshHandler] b/c it only applies to HtmlUnitTestEngineImpl");
@@ -112,8 +116,42 @@ public class RefreshHandlerTest extends JWebUnitAPITestCase {
 		}
 	}
     
+    @Test
+    public void testRefreshChain() {
+        setBaseUrl(HOST_PATH + "/RefreshHandlerTest");
+        setRefreshLimits(10, 50);
+        long start = System.currentTimeMillis();
+        beginAt("/chain1.html");
+        assertTitleEquals("target");
+        assertRefreshCount(2);
+        assertTrue(System.currentTimeMillis() - start < 3000);
+
+        gotoPage("/target.html");
+        assertRefreshCount(0);
+        BoundedRefreshHandler handler = (BoundedRefreshHandler) ((HtmlUnitTestingEngineImpl) getTestingEngine())
+                .getWebClient().getRefreshHandler();
+        assertEquals(2, handler.getLimiter().getTotalRefreshCount());
+    }
+
+    @Test
+    public void testRefreshLimit() {
+        setBaseUrl(HOST_PATH + "/RefreshHandlerTest");
+        setRefreshLimits(1, 0);
+        try {
+            beginAt("/chain1.html");
+            fail("The second refresh must fail the navigation");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("chain2.html"));
+        }
+        assertRefreshCount(1);
+        BoundedRefreshHandler handler = (BoundedRefreshHandler) ((HtmlUnitTestingEngineImpl) getTestingEngine())
+                .getWebClient().getRefreshHandler();
+        assertEquals(1, handler.getLimiter().getAbortedCount());
+    }
+
     @After
     public void cleanup() {
+        setRefreshLimits(10, 0);
         if (getTestingEngine() instanceof HtmlUnitTestingEngineImpl) {
             HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
             engine.setRefreshHandler(null);
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextNotPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAtWithSession;
+import static net.sourceforge.jwebunit.junit.JWebUnit.restoreSession;
+import static org.junit.Assert.assertEquals;
+
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+import net.sourceforge.jwebunit.util.SessionCache;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test that a session captured after a login is restored by the next browsers.
+ */
+public class SessionSnapshotTest extends JWebUnitAPITestCase {
+
+    private int logins;
+
+    @Test
+    public void testCookiesRestored() {
+        Runnable login = new Runnable() {
+            public void run() {
+                logins++;
+                // the server sets serveurCookie
+                beginAt("/cookies.jsp");
+            }
+        };
+        beginAtWithSession("/cookies.jsp?dont_set=1", "cookies", login);
+        assertTextPresent("serveurCookie=foo");
+        beginAtWithSession("/cookies.jsp?dont_set=1", "cookies", login);
+        assertTextPresent("serveurCookie=foo");
+        assertEquals(1, logins);
+
+        restoreSession(null);
+        beginAt("/cookies.jsp?dont_set=1");
+        assertTextNotPresent("serveurCookie");
+    }
+
+    @Test
+    public void testStorageRestored() {
+        Runnable login = new Runnable() {
+            public void run() {
+                logins++;
+                beginAt("/SessionTest/Storage.html?login");
+            }
+        };
+        beginAtWithSession("/SessionTest/Storage.html", "storage", login);
+        assertTextPresent("token=abc tab=1");
+        beginAtWithSession("/SessionTest/Storage.html", "storage", login);
+        assertTextPresent("token=abc tab=1");
+        assertEquals(1, logins);
+    }
+
+    @After
+    public void cleanup() {
+        restoreSession(null);
+        SessionCache.getInstance().clear();
+    }
+
+}
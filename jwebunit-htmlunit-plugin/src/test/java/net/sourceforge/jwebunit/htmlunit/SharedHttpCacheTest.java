@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTitleEquals;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestingEngine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test that static resources are shared between successive browsers.
+ */
+public class SharedHttpCacheTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testScriptIsRevalidated() {
+        getTestContext().clearAuthorizations();
+        SharedHttpCache cache = new SharedHttpCache(SharedHttpCache.DEFAULT_MAX_SIZE);
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setSharedCache(cache);
+
+        beginAt("/JavaScriptTest/prototype.html");
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(0, cache.getRevalidationCount());
+        closeBrowser();
+
+        beginAt("/JavaScriptTest/prototype.html");
+        assertEquals(1, cache.getRevalidationCount());
+        assertTitleEquals("prototype.js test");
+    }
+
+    @Test
+    public void testAuthenticatedResponseIsNotStored() throws Exception {
+        SharedHttpCache cache = new SharedHttpCache(SharedHttpCache.DEFAULT_MAX_SIZE);
+        HtmlUnitTestingEngineImpl engine = (HtmlUnitTestingEngineImpl) getTestingEngine();
+        engine.setSharedCache(cache);
+
+        // the test context has credentials
+        beginAt("/JavaScriptTest/prototype.html");
+        assertEquals(0, cache.getEntryCount());
+        assertTitleEquals("prototype.js test");
+
+        WebRequest request = new WebRequest(new URL("http://localhost/style.css"));
+        cache.process(request, "agent", true, null, response(request, "max-age=60", false, null));
+        assertEquals(0, cache.getEntryCount());
+        cache.process(request, "agent", true, null, response(request, "public, max-age=60", false, null));
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void testFreshHitOnGzippedResource() throws Exception {
+        SharedHttpCache cache = new SharedHttpCache(SharedHttpCache.DEFAULT_MAX_SIZE);
+        WebRequest request = new WebRequest(new URL("http://localhost/style.css"));
+        WebResponse response = cache.process(request, "agent", false, null, response(request, "max-age=60", true, null));
+        assertEquals(CSS, response.getContentAsString());
+        assertEquals(1, cache.getEntryCount());
+
+        WebResponse cached = cache.getFreshResponse(request, "agent");
+        assertNotNull(cached);
+        assertEquals(1, cache.getHitCount());
+        assertNull(cached.getResponseHeaderValue("Content-Encoding"));
+        assertEquals(CSS, cached.getContentAsString());
+    }
+
+    @Test
+    public void testVary() throws Exception {
+        SharedHttpCache cache = new SharedHttpCache(SharedHttpCache.DEFAULT_MAX_SIZE);
+        WebRequest request = new WebRequest(new URL("http://localhost/style.css"));
+        cache.process(request, "agent", false, null, response(request, "max-age=60", false, "User-Agent"));
+        assertNotNull(cache.getFreshResponse(request, "agent"));
+        assertNull(cache.getFreshResponse(request, "other agent"));
+    }
+
+    private static final String CSS = "body { color: red; }";
+
+    private static WebResponse response(WebRequest request, String cacheControl, boolean gzip, String vary)
+        throws Exception {
+        List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Content-Type", "text/css"));
+        headers.add(new NameValuePair("Cache-Control", cacheControl));
+        if (vary != null) {
+            headers.add(new NameValuePair("Vary", vary));
+        }
+        byte[] body = CSS.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GZIPOutputStream zip = new GZIPOutputStream(out);
+            zip.write(body);
+            zip.close();
+            body = out.toByteArray();
+            headers.add(new NameValuePair("Content-Encoding", "gzip"));
+            headers.add(new NameValuePair("Content-Length", String.valueOf(body.length)));
+        }
+        return new WebResponse(new WebResponseData(body, 200, "OK", headers), request, 0);
+    }
+
+    @After
+    public void cleanup() {
+        ((HtmlUnitTestingEngineImpl) getTestingEngine()).setSharedCache(null);
+        getTestContext().setAuthorization("admin", "admin");
+    }
+
+}
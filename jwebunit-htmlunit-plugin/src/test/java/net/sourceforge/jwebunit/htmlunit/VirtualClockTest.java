@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.htmlunit;
+
+import static net.sourceforge.jwebunit.junit.JWebUnit.advanceJavaScriptClock;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertElementNotPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertElementPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextNotPresentWithin;
+import static net.sourceforge.jwebunit.junit.JWebUnit.assertTextPresent;
+import static net.sourceforge.jwebunit.junit.JWebUnit.beginAt;
+import static net.sourceforge.jwebunit.junit.JWebUnit.getTestContext;
+import static org.junit.Assert.assertTrue;
+
+import net.sourceforge.jwebunit.tests.JWebUnitAPITestCase;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test that the JavaScript timers follow the virtual clock of the time warp.
+ */
+public class VirtualClockTest extends JWebUnitAPITestCase {
+
+    @Test
+    public void testAdvanceJavaScriptClock() throws Exception {
+        getTestContext().setJavaScriptTimeWarp(true);
+        long start = System.currentTimeMillis();
+        beginAt("/JavaScriptTest/Timers.html");
+
+        // the timers do not follow the wall clock
+        Thread.sleep(250);
+        assertTextPresent("Count: 0");
+
+        advanceJavaScriptClock(99);
+        assertTextPresent("Count: 0");
+        advanceJavaScriptClock(1);
+        assertTextPresent("Count: 1");
+        advanceJavaScriptClock(2900);
+        assertTextPresent("Count: 30");
+        assertTextPresent("first;second;");
+        assertElementPresent("toast");
+
+        advanceJavaScriptClock(7000);
+        assertTextPresent("Count: 100");
+        assertElementNotPresent("toast");
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    public void testEventualAssertionAdvancesClock() {
+        getTestContext().setJavaScriptTimeWarp(true);
+        long start = System.currentTimeMillis();
+        beginAt("/JavaScriptTest/Timers.html");
+        assertTextNotPresentWithin("Saved", 20000);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @After
+    public void cleanup() {
+        getTestContext().setJavaScriptTimeWarp(false);
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Results of a {@link LoadRunner} run: the latencies of the iterations and of each step of the
+ * scenario, in microseconds, and the errors.
+ *
+ * <p>Latencies are measured from the time an iteration should have started, not from the time it
+ * actually started: the time spent waiting for a free virtual user in the open model, or behind a
+ * late iteration in a paced closed model, is part of the latency of the iteration and of its first
+ * step. Only successful iterations and steps are in the histograms. The arrivals of the open model
+ * still waiting for a user at the end of the run are in their own histogram, with the time they
+ * had been waiting: a lower bound of the latency they would have had.</p>
+ */
+public class LoadReport {
+
+    private final LatencyHistogram iterations = new LatencyHistogram();
+
+    private final Map<String, LatencyHistogram> steps = new LinkedHashMap<String, LatencyHistogram>();
+
+    private final Map<String, Integer> stepErrors = new LinkedHashMap<String, Integer>();
+
+    private final LatencyHistogram missed = new LatencyHistogram();
+
+    private long errors;
+
+    private long elapsedNanos;
+
+    private Throwable firstError;
+
+    synchronized void add(VirtualUser user) {
+        iterations.add(user.getIterations());
+        for (Map.Entry<String, LatencyHistogram> step : user.getSteps().entrySet()) {
+            histogram(step.getKey()).add(step.getValue());
+        }
+        for (Map.Entry<String, Integer> step : user.getStepErrors().entrySet()) {
+            histogram(step.getKey());
+            Integer count = stepErrors.get(step.getKey());
+            stepErrors.put(step.getKey(), (count == null ? 0 : count) + step.getValue());
+        }
+        errors += user.getErrors();
+        if (firstError == null) {
+            firstError = user.getFirstError();
+        }
+    }
+
+    private LatencyHistogram histogram(String step) {
+        LatencyHistogram histogram = steps.get(step);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            steps.put(step, histogram);
+        }
+        return histogram;
+    }
+
+    synchronized void addMissed(long waitedNanos) {
+        missed.record(waitedNanos / 1000);
+    }
+
+    synchronized void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Return the latencies of the successful iterations.
+     */
+    public synchronized LatencyHistogram getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Return the latencies of the successful steps, by step name, in the order they were first run.
+     */
+    public synchronized Map<String, LatencyHistogram> getSteps() {
+        return Collections.unmodifiableMap(steps);
+    }
+
+    /**
+     * Return the number of iterations that failed in the given step.
+     *
+     * @param step name of the step
+     */
+    public synchronized int getStepErrors(String step) {
+        Integer count = stepErrors.get(step);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Return the number of failed iterations.
+     */
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Return the first error of the run, or null.
+     */
+    public synchronized Throwable getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * Return the number of arrivals of the open model that no virtual user could start before the
+     * end of the run.
+     */
+    public synchronized long getMissed() {
+        return missed.getTotalCount();
+    }
+
+    /**
+     * Return the time the missed arrivals had been waiting for a user at the end of the run.
+     */
+    public synchronized LatencyHistogram getMissedLatencies() {
+        return missed;
+    }
+
+    /**
+     * Return the duration of the run, in milliseconds.
+     */
+    public synchronized long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * Return the number of successful iterations per second.
+     */
+    public synchronized double getThroughput() {
+        return elapsedNanos == 0 ? 0 : iterations.getTotalCount() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Return a table of the latencies, in milliseconds.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%d iterations, %d errors, %d missed in %.1f s: %.1f/s%n",
+                iterations.getTotalCount(), errors, missed.getTotalCount(), elapsedNanos / 1e9, getThroughput()));
+        sb.append(String.format(Locale.ROOT, "%-20s %8s %7s %9s %9s %9s %9s %9s%n", "(ms)", "count", "errors",
+                "mean", "p50", "p90", "p99", "max"));
+        line(sb, "iteration", iterations, (int) errors);
+        for (Map.Entry<String, LatencyHistogram> step : steps.entrySet()) {
+            line(sb, step.getKey(), step.getValue(), getStepErrors(step.getKey()));
+        }
+        if (missed.getTotalCount() > 0) {
+            line(sb, "missed", missed, 0);
+        }
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String name, LatencyHistogram histogram, int errors) {
+        sb.append(String.format(Locale.ROOT, "%-20s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name,
+                histogram.getTotalCount(), errors, histogram.getMean() / 1000,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+    }
+
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.jwebunit.junit.TesterScope;
+import net.sourceforge.jwebunit.junit.WebTester;
+
+/**
+ * Runs a {@link Scenario} with concurrent virtual users, each with its own {@link WebTester} and
+ * testing engine, and reports the latencies of its steps.
+ *
+ * <p>Two workload models are supported:</p>
+ * <ul>
+ * <li>closed ({@link #runClosed(int, long)}): a fixed number of users run iterations one after
+ * the other, separated by a think time or started at a fixed pace;</li>
+ * <li>open ({@link #runOpen(double, long)}): iterations arrive at a constant rate, whatever the
+ * response times, and are run by the first free user of a pool.</li>
+ * </ul>
+ *
+ * <p>To avoid coordinated omission, latencies are measured from the time an iteration should have
+ * started: when the server slows down, the iterations that could not be started on time are not
+ * silently left out of the measures.</p>
+ *
+ * <pre>
+ * LoadRunner runner = new LoadRunner(scenario);
+ * runner.setBaseUrl("http://localhost:8080/app");
+ * LoadReport report = runner.runOpen(20, 60000);
+ * System.out.println(report);
+ * </pre>
+ */
+public class LoadRunner {
+
+    private final Scenario scenario;
+
+    private String baseUrl;
+
+    private String testingEngineKey;
+
+    private long thinkTime;
+
+    private long pacing;
+
+    private int maxIterations = Integer.MAX_VALUE;
+
+    private int maxUsers = 100;
+
+    /**
+     * Create a runner for a scenario.
+     *
+     * @param scenario the scenario run by the virtual users
+     */
+    public LoadRunner(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * Set the base URL of the testers of the virtual users.
+     *
+     * @param baseUrl the base URL
+     */
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Set the testing engine of the virtual users. By default the one of
+     * {@link net.sourceforge.jwebunit.util.TestingEngineRegistry} is used.
+     *
+     * @param testingEngineKey key of the testing engine
+     */
+    public void setTestingEngineKey(String testingEngineKey) {
+        this.testingEngineKey = testingEngineKey;
+    }
+
+    /**
+     * Set the pause of a user between two iterations of the closed model. Ignored when a pacing is set.
+     *
+     * @param millis think time in milliseconds
+     */
+    public void setThinkTime(long millis) {
+        this.thinkTime = millis;
+    }
+
+    /**
+     * Set the interval between the starts of two iterations of a user of the closed model. An
+     * iteration starting late because the previous one took longer is measured from its scheduled
+     * start.
+     *
+     * @param millis interval in milliseconds, or 0 to start the iterations after the think time
+     */
+    public void setPacing(long millis) {
+        this.pacing = millis;
+    }
+
+    /**
+     * Set the number of iterations after which a user of the closed model stops, even if the
+     * duration of the run is not elapsed.
+     *
+     * @param maxIterations number of iterations of each user
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Set the number of virtual users of the open model. The default is 100.
+     *
+     * @param maxUsers number of users available to run the arrivals
+     */
+    public void setMaxUsers(int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Run the closed model: the given number of users run iterations until the end of the run.
+     *
+     * @param users number of virtual users
+     * @param durationMillis duration of the run in milliseconds
+     * @return the results of the run
+     * @throws InterruptedException if the thread is interrupted while waiting for the users
+     */
+    public LoadReport runClosed(int users, long durationMillis) throws InterruptedException {
+        final LoadReport report = new LoadReport();
+        final long start = System.nanoTime();
+        final long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < users; i++) {
+            final VirtualUser user = new VirtualUser(i, newTester());
+            threads.add(new Thread("jwebunit-virtual-user-" + i) {
+                @Override
+                public void run() {
+                    TesterScope scope = TesterScope.open(user.getTester(), false);
+                    try {
+                        long next = start;
+                        for (int iteration = 0; iteration < maxIterations && System.nanoTime() - end < 0; iteration++) {
+                            long intendedStart = System.nanoTime();
+                            if (pacing > 0) {
+                                sleepUntil(next);
+                                intendedStart = next;
+                                next += TimeUnit.MILLISECONDS.toNanos(pacing);
+                            }
+                            user.run(scenario, iteration, intendedStart);
+                            if (pacing <= 0 && thinkTime > 0) {
+                                Thread.sleep(thinkTime);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        report.add(user);
+                        scope.close();
+                    }
+                }
+            });
+        }
+        run(threads);
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Run the open model: iterations arrive at a constant rate until the end of the run. Arrivals
+     * wait for a free user; the ones still waiting at the end are counted as
+     * {@link LoadReport#getMissed() missed}, with the time they had been waiting in
+     * {@link LoadReport#getMissedLatencies()}.
+     *
+     * @param arrivalsPerSecond rate of the arrivals
+     * @param durationMillis duration of the run in milliseconds
+     * @return the results of the run
+     * @throws InterruptedException if the thread is interrupted while scheduling the arrivals
+     */
+    public LoadReport runOpen(double arrivalsPerSecond, long durationMillis) throws InterruptedException {
+        final LoadReport report = new LoadReport();
+        final BlockingQueue<Long> arrivals = new LinkedBlockingQueue<Long>();
+        final boolean[] stopped = new boolean[1];
+        final int[] count = new int[1];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < maxUsers; i++) {
+            final VirtualUser user = new VirtualUser(i, newTester());
+            threads.add(new Thread("jwebunit-virtual-user-" + i) {
+                @Override
+                public void run() {
+                    TesterScope scope = TesterScope.open(user.getTester(), false);
+                    try {
+                        while (true) {
+                            Long intendedStart = arrivals.poll(10, TimeUnit.MILLISECONDS);
+                            if (intendedStart != null) {
+                                int iteration;
+                                synchronized (count) {
+                                    iteration = count[0]++;
+                                }
+                                user.run(scenario, iteration, intendedStart);
+                            } else {
+                                synchronized (stopped) {
+                                    if (stopped[0]) {
+                                        break;
+                                    }
+                                }
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        report.add(user);
+                        scope.close();
+                    }
+                }
+            });
+        }
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (long i = 0;; i++) {
+                long arrival = start + (long) (i * 1e9 / arrivalsPerSecond);
+                if (arrival - end >= 0) {
+                    break;
+                }
+                sleepUntil(arrival);
+                arrivals.put(arrival);
+            }
+        } finally {
+            List<Long> missed = new ArrayList<Long>();
+            arrivals.drainTo(missed);
+            long now = System.nanoTime();
+            for (Long arrival : missed) {
+                report.addMissed(now - arrival);
+            }
+            synchronized (stopped) {
+                stopped[0] = true;
+            }
+        }
+        join(threads);
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private WebTester newTester() {
+        WebTester tester = new WebTester();
+        if (testingEngineKey != null) {
+            tester.setTestingEngineKey(testingEngineKey);
+        }
+        if (baseUrl != null) {
+            tester.setBaseUrl(baseUrl);
+        }
+        return tester;
+    }
+
+    private static void run(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        join(threads);
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long delay;
+        while ((delay = nanoTime - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+}
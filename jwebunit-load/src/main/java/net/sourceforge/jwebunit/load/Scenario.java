@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+/**
+ * A functional scenario run repeatedly by the virtual users of a {@link LoadRunner}. Each run is an
+ * iteration; the scenario names its steps with {@link VirtualUser#step(String)} to get their latencies.
+ *
+ * <pre>
+ * public void run(VirtualUser user) {
+ *     WebTester tester = user.getTester();
+ *     user.step("home");
+ *     tester.beginAt("/home");
+ *     user.step("search");
+ *     tester.setTextField("q", "jwebunit");
+ *     tester.submit();
+ *     tester.assertTextPresent("Results");
+ * }
+ * </pre>
+ *
+ * <p>An exception or a failed assertion ends the iteration and counts as an error of the current step.</p>
+ */
+public interface Scenario {
+
+    /**
+     * Run one iteration of the scenario.
+     *
+     * @param user the virtual user running it, giving access to its own tester
+     * @throws Exception to report an error
+     */
+    void run(VirtualUser user) throws Exception;
+
+}
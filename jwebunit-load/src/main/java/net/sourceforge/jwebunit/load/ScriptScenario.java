@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+import net.sourceforge.jwebunit.util.Script;
+import net.sourceforge.jwebunit.util.ScriptPlayer;
+
+/**
+ * A scenario replaying a recorded {@link Script}, see
+ * {@link net.sourceforge.jwebunit.util.ScriptRecorder}. Each navigation of the script (
+ * <code>beginAt</code>, <code>gotoPage</code>, <code>click*</code>, <code>submit</code>...) starts
+ * a step named after the call, so the report gives the latency of every page of the script.
+ *
+ * <p>Assertions are skipped unless {@link #setAssertions(boolean)} is enabled. With
+ * {@link #setPaced(boolean)}, the recorded think times are waited for between the steps, outside
+ * of their latencies.</p>
+ */
+public class ScriptScenario implements Scenario {
+
+    private static final String[] NAVIGATIONS = {"beginAt", "gotoPage", "click", "submit", "reset", "gotoFrame",
+        "gotoWindow", "gotoRootWindow"};
+
+    private final Script script;
+
+    private boolean assertions;
+
+    private boolean paced;
+
+    /**
+     * @param script the script run by each iteration
+     */
+    public ScriptScenario(Script script) {
+        this.script = script;
+    }
+
+    /**
+     * Run the assertions of the script, failing the iteration when one of them fails.
+     *
+     * @param assertions true to run the assertions
+     */
+    public void setAssertions(boolean assertions) {
+        this.assertions = assertions;
+    }
+
+    /**
+     * Wait before each call the think time recorded before it.
+     *
+     * @param paced true to reproduce the think times of the recording
+     */
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+
+    public void run(VirtualUser user) throws Exception {
+        ScriptPlayer player = new ScriptPlayer();
+        player.setSkipAssertions(!assertions);
+        int index = 0;
+        for (Script.Call call : script.getCalls()) {
+            index++;
+            if (call.isAssertion() && !assertions) {
+                continue;
+            }
+            if (paced && call.getDelay() > 0) {
+                user.think(call.getDelay());
+            }
+            if (isNavigation(call.getMethod())) {
+                user.step(index + " " + call.getMethod());
+            }
+            player.play(call, user.getTester());
+        }
+    }
+
+    private static boolean isNavigation(String method) {
+        for (String navigation : NAVIGATIONS) {
+            if (method.startsWith(navigation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sourceforge.jwebunit.junit.WebTester;
+
+/**
+ * A virtual user of a {@link LoadRunner}: a thread with its own {@link WebTester}, and so its own
+ * testing engine, running iterations of a {@link Scenario}.
+ *
+ * <p>The tester is also the current one of the static {@link net.sourceforge.jwebunit.junit.JWebUnit}
+ * facade in the thread of the user, so scenarios written with the facade can be reused as is.</p>
+ */
+public final class VirtualUser {
+
+    private final int id;
+
+    private final WebTester tester;
+
+    private final Map<String, LatencyHistogram> steps = new LinkedHashMap<String, LatencyHistogram>();
+
+    private final Map<String, Integer> stepErrors = new LinkedHashMap<String, Integer>();
+
+    private final LatencyHistogram iterations = new LatencyHistogram();
+
+    private long errors;
+
+    private Throwable firstError;
+
+    private int iteration;
+
+    private String currentStep;
+
+    private long stepStart;
+
+    VirtualUser(int id, WebTester tester) {
+        this.id = id;
+        this.tester = tester;
+    }
+
+    /**
+     * Return the number of the user, from 0.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Return the number of the current iteration of the user, from 0.
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * Return the tester of the user.
+     */
+    public WebTester getTester() {
+        return tester;
+    }
+
+    /**
+     * End the current step, if any, and start a new one. The first step of an iteration is measured
+     * from the time the iteration should have started, so that it also accounts for the time the
+     * iteration waited for a free user or for a late previous iteration.
+     *
+     * @param name name of the step, under which its latencies are reported
+     */
+    public void step(String name) {
+        long now = System.nanoTime();
+        if (currentStep != null) {
+            histogram(currentStep).record((now - stepStart) / 1000);
+            stepStart = now;
+        }
+        currentStep = name;
+    }
+
+    /**
+     * End the current step, if any, and wait, so that the think time of the user is not part of
+     * the latency of a step.
+     *
+     * @param millis think time in milliseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void think(long millis) throws InterruptedException {
+        boolean ended = currentStep != null;
+        if (ended) {
+            histogram(currentStep).record((System.nanoTime() - stepStart) / 1000);
+            currentStep = null;
+        }
+        Thread.sleep(millis);
+        if (ended) {
+            stepStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Run an iteration of a scenario.
+     *
+     * @param scenario the scenario
+     * @param number number of the iteration
+     * @param intendedStart {@link System#nanoTime()} at which the iteration should have started
+     */
+    void run(Scenario scenario, int number, long intendedStart) {
+        this.iteration = number;
+        this.currentStep = null;
+        this.stepStart = intendedStart;
+        try {
+            scenario.run(this);
+        } catch (Exception e) {
+            fail(e);
+            return;
+        } catch (AssertionError e) {
+            fail(e);
+            return;
+        }
+        end(false);
+        iterations.record((System.nanoTime() - intendedStart) / 1000);
+    }
+
+    private void fail(Throwable error) {
+        end(true);
+        errors++;
+        if (firstError == null) {
+            firstError = error;
+        }
+    }
+
+    /**
+     * Record the last step of the iteration.
+     *
+     * @param failed true if the iteration ended with an error, counted against its current step
+     */
+    private void end(boolean failed) {
+        if (currentStep != null) {
+            if (failed) {
+                Integer errors = stepErrors.get(currentStep);
+                stepErrors.put(currentStep, errors == null ? 1 : errors + 1);
+            } else {
+                histogram(currentStep).record((System.nanoTime() - stepStart) / 1000);
+            }
+        }
+        currentStep = null;
+    }
+
+    private LatencyHistogram histogram(String step) {
+        LatencyHistogram histogram = steps.get(step);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            steps.put(step, histogram);
+        }
+        return histogram;
+    }
+
+    Map<String, LatencyHistogram> getSteps() {
+        return steps;
+    }
+
+    Map<String, Integer> getStepErrors() {
+        return stepErrors;
+    }
+
+    LatencyHistogram getIterations() {
+        return iterations;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    Throwable getFirstError() {
+        return firstError;
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.junit.WebTester;
+import net.sourceforge.jwebunit.util.TestContext;
+
+public class LoadRunnerTest extends TestCase {
+
+    /**
+     * Scenario with two steps, sleeping instead of browsing.
+     */
+    private static class SleepingScenario implements Scenario {
+
+        private final long sleep;
+
+        SleepingScenario(long sleep) {
+            this.sleep = sleep;
+        }
+
+        public void run(VirtualUser user) throws Exception {
+            user.step("first");
+            Thread.sleep(sleep);
+            user.step("second");
+            if (user.getIteration() % 2 == 1) {
+                throw new AssertionError("odd iteration");
+            }
+        }
+    }
+
+    public void testClosedModel() throws Exception {
+        LoadRunner runner = new LoadRunner(new SleepingScenario(5));
+        runner.setMaxIterations(4);
+        LoadReport report = runner.runClosed(3, 60000);
+        assertEquals(6, report.getIterations().getTotalCount());
+        assertEquals(6, report.getErrors());
+        assertEquals("odd iteration", report.getFirstError().getMessage());
+        assertEquals(12, report.getSteps().get("first").getTotalCount());
+        assertTrue(report.getSteps().get("first").getMin() >= 5000);
+        assertEquals(6, report.getSteps().get("second").getTotalCount());
+        assertEquals(6, report.getStepErrors("second"));
+        assertEquals(0, report.getStepErrors("first"));
+        assertTrue(report.toString(), report.toString().contains("second"));
+    }
+
+    public void testOpenModel() throws Exception {
+        LoadRunner runner = new LoadRunner(new SleepingScenario(1));
+        runner.setMaxUsers(5);
+        LoadReport report = runner.runOpen(100, 300);
+        long arrivals = report.getIterations().getTotalCount() + report.getErrors() + report.getMissed();
+        assertEquals(30, arrivals);
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    /**
+     * With a single user busy for 50 ms, arrivals every 10 ms queue up: their waiting time must
+     * show in the latencies.
+     */
+    public void testOpenModelIsCorrectedForCoordinatedOmission() throws Exception {
+        LoadRunner runner = new LoadRunner(new Scenario() {
+            public void run(VirtualUser user) throws Exception {
+                user.step("slow");
+                Thread.sleep(50);
+            }
+        });
+        runner.setMaxUsers(1);
+        LoadReport report = runner.runOpen(100, 500);
+        assertTrue(report.getMissed() > 0);
+        assertEquals(report.getMissed(), report.getMissedLatencies().getTotalCount());
+        // 50 arrivals for 10 iterations: the oldest missed arrival waited most of the run
+        assertTrue(report.getMissedLatencies().getMax() > 300000);
+        assertTrue(report.toString(), report.toString().contains("missed"));
+        assertTrue(report.getIterations().getMax() > 150000);
+        assertTrue(report.getSteps().get("slow").getValueAtPercentile(90) > 150000);
+    }
+
+    /**
+     * The testers of the users browse from the base URL of the runner, each with its own testing
+     * engine, closed at the end of the run.
+     */
+    public void testUsersDriveTheirTesters() throws Exception {
+        final List<ITestingEngine> engines = new ArrayList<ITestingEngine>();
+        LoadRunner runner = new LoadRunner(new Scenario() {
+            public void run(VirtualUser user) throws Exception {
+                WebTester tester = user.getTester();
+                if (user.getIteration() == 0) {
+                    ITestingEngine engine = mock(ITestingEngine.class);
+                    when(engine.getPageTitle()).thenReturn("Home");
+                    tester.setDialog(engine);
+                    synchronized (engines) {
+                        engines.add(engine);
+                    }
+                }
+                user.step("home");
+                tester.beginAt("/home.html");
+                tester.assertTitleEquals("Home");
+            }
+        });
+        runner.setBaseUrl("http://localhost:8080/app");
+        runner.setMaxIterations(3);
+        LoadReport report = runner.runClosed(2, 60000);
+        assertEquals(0, report.getErrors());
+        assertEquals(6, report.getSteps().get("home").getTotalCount());
+        assertEquals(2, engines.size());
+        assertNotSame(engines.get(0), engines.get(1));
+        for (ITestingEngine engine : engines) {
+            verify(engine, times(3)).beginAt(eq(new URL("http://localhost:8080/app/home.html")),
+                    any(TestContext.class));
+            verify(engine).closeBrowser();
+        }
+    }
+
+    public void testPacedClosedModel() throws Exception {
+        LoadRunner runner = new LoadRunner(new Scenario() {
+            public void run(VirtualUser user) throws Exception {
+                user.step("slow");
+                Thread.sleep(50);
+            }
+        });
+        runner.setPacing(10);
+        runner.setMaxIterations(5);
+        LoadReport report = runner.runClosed(1, 60000);
+        // the fifth iteration was scheduled 40 ms after the first, but started 200 ms after it
+        assertTrue(report.getIterations().getMax() > 150000);
+    }
+
+}
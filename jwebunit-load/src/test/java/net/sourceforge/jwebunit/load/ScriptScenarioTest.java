@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.load;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import junit.framework.TestCase;
+import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.junit.WebTester;
+import net.sourceforge.jwebunit.util.Script;
+
+public class ScriptScenarioTest extends TestCase {
+
+    private static final Script SCRIPT = Script.parse("0 gotoFrame \"main\"\n"
+            + "0 assertTitleEquals \"Search\"\n"
+            + "30 clickLinkWithText \"Next\" 0\n");
+
+    public void testRun() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.getPageTitle()).thenReturn("Results");
+        when(engine.hasLinkWithText("Next", 0)).thenReturn(true);
+        VirtualUser user = user(engine);
+
+        ScriptScenario scenario = new ScriptScenario(SCRIPT);
+        scenario.setPaced(true);
+        user.run(scenario, 0, System.nanoTime());
+
+        verify(engine).gotoFrame("main");
+        verify(engine, never()).getPageTitle();
+        verify(engine).clickLinkWithText("Next", 0);
+        assertEquals(0, user.getErrors());
+        assertEquals(1, user.getSteps().get("1 gotoFrame").getTotalCount());
+        // the think time is not part of the previous step
+        assertTrue(user.getSteps().get("1 gotoFrame").getMax() < 30000);
+        assertEquals(1, user.getSteps().get("3 clickLinkWithText").getTotalCount());
+        assertTrue(user.getIterations().getMax() >= 30000);
+    }
+
+    public void testRunWithAssertions() throws Exception {
+        ITestingEngine engine = mock(ITestingEngine.class);
+        when(engine.getPageTitle()).thenReturn("Results");
+        VirtualUser user = user(engine);
+
+        ScriptScenario scenario = new ScriptScenario(SCRIPT);
+        scenario.setAssertions(true);
+        user.run(scenario, 0, System.nanoTime());
+
+        assertEquals(1, user.getErrors());
+        assertEquals(1, user.getStepErrors().get("1 gotoFrame").intValue());
+        verify(engine, never()).clickLinkWithText("Next", 0);
+    }
+
+    private static VirtualUser user(ITestingEngine engine) {
+        WebTester tester = new WebTester();
+        tester.setDialog(engine);
+        return new VirtualUser(0, tester);
+    }
+
+}
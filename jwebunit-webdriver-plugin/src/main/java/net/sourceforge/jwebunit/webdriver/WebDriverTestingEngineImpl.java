@@ -18,9 +18,15 @@
  */
 package net.sourceforge.jwebunit.webdriver;
 
+import com.gargoylesoftware.htmlunit.HttpMethod;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
 import net.lightbody.bmp.core.har.Har;
+import net.lightbody.bmp.core.har.HarEntry;
 import net.lightbody.bmp.proxy.LegacyProxyServer;
 import net.lightbody.bmp.proxy.ProxyServer;
 import net.lightbody.bmp.proxy.http.BrowserMobHttpRequest;
@@ -31,6 +37,10 @@ import net.lightbody.bmp.proxy.jetty.util.MultiException;
 import net.sourceforge.jwebunit.api.HttpHeader;
 import net.sourceforge.jwebunit.api.IElement;
 import net.sourceforge.jwebunit.api.ITestingEngine;
+import net.sourceforge.jwebunit.api.PageMetrics;
+import net.sourceforge.jwebunit.api.ResponseSnapshot;
+import net.sourceforge.jwebunit.api.SelectOption;
+import net.sourceforge.jwebunit.api.SessionSnapshot;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptAlertException;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptConfirmException;
 import net.sourceforge.jwebunit.exception.ExpectedJavascriptPromptException;
@@ -45,8 +55,7 @@ import net.sourceforge.jwebunit.util.TestContext;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpStatus;
-import org.apache.regexp.RE;
-import org.apache.regexp.RESyntaxException;
+import org.apache.http.StatusLine;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Cookie;
 import org.openqa.selenium.JavascriptExecutor;
@@ -66,9 +75,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -93,7 +106,137 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
   private static final int TRY_COUNT = 50;
   private static final int DEFAULT_PORT = 8183;
   private static final Random RANDOM = new Random();
+  /**
+   * Number of proxy entries kept to measure the current page.
+   */
+  private static final int MAX_HAR_ENTRIES = 1000;
+
+  /**
+   * Counts the nodes of the document, not including the document itself.
+   */
+  private static final String COUNT_DOM_NODES_SCRIPT =
+      "var walker = document.createTreeWalker(document, NodeFilter.SHOW_ALL, null, false), count = 0;"
+    + "while (walker.nextNode()) {"
+    + "  count++;"
+    + "}"
+    + "return count;";
+
+  /**
+   * Sets the fields of a form in a single round trip. Arguments: the XPath of the form or an empty
+   * string, the names and the values of the fields. Fields not in the form are searched in the whole page.
+   * Returns the names of the fields that could not be set.
+   */
+  private static final String SET_FORM_FIELDS_SCRIPT =
+      "var root = arguments[0] ? document.evaluate(arguments[0], document, null, 9, null).singleNodeValue : document;"
+    + "var names = arguments[1], values = arguments[2];"
+    + "var wanted = {}, elements = {}, failed = [];"
+    + "for (var i = 0; i < names.length; i++) { wanted[names[i]] = true; }"
+    + "function collect(from, wanted) {"
+    + "  var all = from.getElementsByTagName('*');"
+    + "  for (var i = 0; i < all.length; i++) {"
+    + "    var e = all[i], tag = e.tagName.toLowerCase();"
+    + "    if ((tag == 'input' || tag == 'select' || tag == 'textarea') && wanted[e.name] === true) {"
+    + "      (elements[e.name] = elements[e.name] || []).push(e);"
+    + "    }"
+    + "  }"
+    + "}"
+    + "collect(root, wanted);"
+    + "if (root !== document) {"
+    + "  var missing = {};"
+    + "  for (var i = 0; i < names.length; i++) { if (!elements[names[i]]) { missing[names[i]] = true; } }"
+    + "  collect(document, missing);"
+    + "}"
+    + "function fire(e, type) {"
+    + "  var event = document.createEvent('HTMLEvents'); event.initEvent(type, true, true); e.dispatchEvent(event);"
+    + "}"
+    + "for (var i = 0; i < names.length; i++) {"
+    + "  var named = elements[names[i]], value = values[i], done = false;"
+    + "  if (!named) { failed.push(names[i]); continue; }"
+    + "  var first = named[0], type = (first.type || '').toLowerCase();"
+    + "  if (first.tagName.toLowerCase() == 'select') {"
+    + "    var option = null;"
+    + "    for (var j = 0; j < first.options.length && !option; j++) {"
+    + "      if (first.options[j].value == value) { option = first.options[j]; }"
+    + "    }"
+    + "    for (var j = 0; j < first.options.length && !option; j++) {"
+    + "      if (first.options[j].text == value) { option = first.options[j]; }"
+    + "    }"
+    + "    if (option) {"
+    + "      for (var j = 0; j < first.options.length; j++) { first.options[j].selected = first.options[j] === option; }"
+    + "      fire(first, 'change'); done = true;"
+    + "    }"
+    + "  } else if (type == 'checkbox') {"
+    + "    for (var j = 0; j < named.length; j++) {"
+    + "      if (named[j].checked != (value == 'true' || named[j].value == value)) { named[j].click(); }"
+    + "    }"
+    + "    done = true;"
+    + "  } else if (type == 'radio') {"
+    + "    for (var j = 0; j < named.length && !done; j++) {"
+    + "      if (named[j].value == value) { if (!named[j].checked) { named[j].click(); } done = true; }"
+    + "    }"
+    + "  } else {"
+    + "    first.value = value; fire(first, 'input'); fire(first, 'change'); done = true;"
+    + "  }"
+    + "  if (!done) { failed.push(names[i]); }"
+    + "}"
+    + "return failed;";
+
+  /**
+   * Reads the values of the controls of a form in a single round trip. Argument: the XPath of the
+   * form. Returns a list of [name, values] pairs in document order, or null if there is no such form.
+   */
+  private static final String GET_FORM_STATE_SCRIPT =
+      "var form = document.evaluate(arguments[0], document, null, 9, null).singleNodeValue;"
+    + "if (!form) { return null; }"
+    + "var state = [], values = {};"
+    + "var all = form.getElementsByTagName('*');"
+    + "for (var i = 0; i < all.length; i++) {"
+    + "  var e = all[i], tag = e.tagName.toLowerCase(), type = (e.type || '').toLowerCase();"
+    + "  if ((tag != 'input' && tag != 'select' && tag != 'textarea') || !e.name"
+    + "      || type == 'submit' || type == 'button' || type == 'reset' || type == 'image') { continue; }"
+    + "  if (!values.hasOwnProperty(e.name)) { values[e.name] = []; state.push([e.name, values[e.name]]); }"
+    + "  if (type == 'checkbox' || type == 'radio') {"
+    + "    if (e.checked) { values[e.name].push(e.value); }"
+    + "  } else if (tag == 'select') {"
+    + "    for (var j = 0; j < e.options.length; j++) {"
+    + "      if (e.options[j].selected) { values[e.name].push(e.options[j].value); }"
+    + "    }"
+    + "  } else {"
+    + "    values[e.name].push(e.value);"
+    + "  }"
+    + "}"
+    + "return state;";
+
+  /**
+   * Reads the options of a select box in a single round trip. Argument: the select element.
+   * Returns a list of [label, value, selected] triples.
+   */
+  private static final String GET_SELECT_OPTIONS_SCRIPT =
+      "var select = arguments[0], options = [];"
+    + "for (var i = 0; i < select.options.length; i++) {"
+    + "  var o = select.options[i];"
+    + "  options.push([o.text, o.value, o.selected]);"
+    + "}"
+    + "return options;";
+
   private BrowserMobHttpResponse response;
+  /**
+   * Snapshot of the last response asked for, and the proxy response it was captured from.
+   */
+  private ResponseSnapshot responseSnapshot;
+  private BrowserMobHttpResponse responseSnapshotSource;
+  /**
+   * Proxy entries of the last responses, oldest first.
+   */
+  private final LinkedList<HarEntry> harEntries = new LinkedList<HarEntry>();
+  /**
+   * Refresh handler of the client of the driver, null before the browser is started.
+   */
+  private BoundedRefreshHandler refreshHandler;
+  /**
+   * Client of the driver, null before the browser is started.
+   */
+  private WebClient webClient;
   // The xpath string that identifie the current form
   // ie : @name='myForm'
   private String formIdent;
@@ -118,13 +261,37 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     capabilities.setBrowserName("htmlunit");
     capabilities.setVersion("firefox");
 
-    driver = new HtmlUnitDriver(capabilities);
+    driver = new HtmlUnitDriver(capabilities) {
+      @Override
+      protected WebClient modifyWebClient(WebClient client) {
+        // Answer blocked URLs before they reach the proxy
+        client.setWebConnection(new WebConnectionWrapper(client.getWebConnection()) {
+          @Override
+          public WebResponse getResponse(WebRequest request) throws IOException {
+            if (testContext.getUrlFilter().block(request.getUrl().toExternalForm())) {
+              return getBlockedUrlResponse(request);
+            }
+            return super.getResponse(request);
+          }
+        });
+        refreshHandler = new BoundedRefreshHandler(testContext.getMaxRefreshes(), testContext.getMaxRefreshDelay());
+        client.setRefreshHandler(refreshHandler);
+        client.addWebWindowListener(refreshHandler);
+        webClient = client;
+        return client;
+      }
+    };
 
     // Reset form
     formIdent = null;
 
-    // Deal with cookies
-    for (javax.servlet.http.Cookie c : aTestContext.getCookies()) {
+    // Deal with cookies, web storage of a restored session is not supported
+    List<javax.servlet.http.Cookie> cookies = new ArrayList<javax.servlet.http.Cookie>();
+    if (aTestContext.getSessionSnapshot() != null) {
+      cookies.addAll(aTestContext.getSessionSnapshot().getCookies());
+    }
+    cookies.addAll(aTestContext.getCookies());
+    for (javax.servlet.http.Cookie c : cookies) {
       // FIXME Hack for BrowserMob
       String domain = c.getDomain();
       if ("localhost".equals(domain)) {
@@ -159,6 +326,12 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
           @Override
           public void process(BrowserMobHttpResponse response, Har har) {
             WebDriverTestingEngineImpl.this.response = response;
+            synchronized (harEntries) {
+              harEntries.add(response.getEntry());
+              if (harEntries.size() > MAX_HAR_ENTRIES) {
+                harEntries.removeFirst();
+              }
+            }
           }
         });
         if (testContext.getRequestHeaders() != null && !testContext.getRequestHeaders().isEmpty()) {
@@ -196,6 +369,20 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     throw new RuntimeException("Unable to start BrowserMob proxy after " + TRY_COUNT + " retries");
   }
 
+  private WebResponse getBlockedUrlResponse(WebRequest request) {
+    List<NameValuePair> headers = new ArrayList<NameValuePair>();
+    String contentType = testContext.getUrlFilter().getStubContentType();
+    WebResponseData data;
+    if (contentType == null) {
+      data = new WebResponseData(new byte[0], HttpStatus.SC_NO_CONTENT, "No Content", headers);
+    } else {
+      headers.add(new NameValuePair("Content-Type", contentType));
+      String content = StringUtils.defaultString(testContext.getUrlFilter().getStubContent());
+      data = new WebResponseData(content.getBytes(Charset.forName("UTF-8")), HttpStatus.SC_OK, "OK", headers);
+    }
+    return new WebResponse(data, request, 0);
+  }
+
   private static int getRandomPort() {
     synchronized (RANDOM) {
       return DEFAULT_PORT + RANDOM.nextInt(1000);
@@ -211,6 +398,7 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     if (driver != null) {
       driver.quit();
       driver = null;
+      webClient = null;
     }
     if (proxyServer != null) {
       try {
@@ -261,25 +449,67 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     List<javax.servlet.http.Cookie> result = new LinkedList<javax.servlet.http.Cookie>();
     Set<Cookie> cookies = driver.manage().getCookies();
     for (Cookie cookie : cookies) {
-      javax.servlet.http.Cookie c = new javax.servlet.http.Cookie(
-        cookie.getName(), cookie.getValue());
-      c.setDomain(cookie.getDomain());
-      Date expire = cookie.getExpiry();
-      if (expire == null) {
-        c.setMaxAge(-1);
-      } else {
-        Date now = Calendar.getInstance().getTime();
-        // Convert milli-second to second
-        Long second = Long.valueOf((expire.getTime() - now.getTime()) / 1000);
-        c.setMaxAge(second.intValue());
+      result.add(toServletCookie(cookie));
+    }
+    return result;
+  }
+
+  public javax.servlet.http.Cookie getCookie(String name) {
+    Cookie cookie = findCookie(name);
+    return cookie == null ? null : toServletCookie(cookie);
+  }
+
+  public List<javax.servlet.http.Cookie> getCookies(String name) {
+    List<javax.servlet.http.Cookie> result = new LinkedList<javax.servlet.http.Cookie>();
+    for (Cookie cookie : driver.manage().getCookies()) {
+      if (cookie.getName().equals(name)) {
+        result.add(toServletCookie(cookie));
       }
-      c.setPath(cookie.getPath());
-      c.setSecure(cookie.isSecure());
-      result.add(c);
     }
     return result;
   }
 
+  public boolean hasCookie(String name) {
+    return driver.manage().getCookieNamed(name) != null;
+  }
+
+  /**
+   * Find a cookie by name, the last one set winning, like the HtmlUnit engine.
+   * <code>getCookieNamed</code> gives the first one.
+   */
+  private Cookie findCookie(String name) {
+    Cookie found = null;
+    for (Cookie cookie : driver.manage().getCookies()) {
+      if (cookie.getName().equals(name)) {
+        found = cookie;
+      }
+    }
+    return found;
+  }
+
+  public SessionSnapshot getSessionSnapshot() {
+    return new SessionSnapshot(driver.getCurrentUrl(), getCookies(), Collections.<String, String>emptyMap(),
+      Collections.<String, String>emptyMap());
+  }
+
+  private javax.servlet.http.Cookie toServletCookie(Cookie cookie) {
+    javax.servlet.http.Cookie c = new javax.servlet.http.Cookie(
+      cookie.getName(), cookie.getValue());
+    c.setDomain(cookie.getDomain());
+    Date expire = cookie.getExpiry();
+    if (expire == null) {
+      c.setMaxAge(-1);
+    } else {
+      Date now = Calendar.getInstance().getTime();
+      // Convert milli-second to second
+      Long second = Long.valueOf((expire.getTime() - now.getTime()) / 1000);
+      c.setMaxAge(second.intValue());
+    }
+    c.setPath(cookie.getPath());
+    c.setSecure(cookie.isSecure());
+    return c;
+  }
+
   public boolean hasWindow(String windowName) {
     // Save current handle
     String current = driver.getWindowHandle();
@@ -471,6 +701,51 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     return e;
   }
 
+  @SuppressWarnings("unchecked")
+  public List<String> setFormFields(Map<String, String> fields) {
+    for (Map.Entry<String, String> field : fields.entrySet()) {
+      if (field.getValue() == null) {
+        throw new IllegalArgumentException("No value given for field [" + field.getKey() + "]");
+      }
+    }
+    String root = formIdent != null ? formSelector() : "";
+    List<String> names = new ArrayList<String>(fields.keySet());
+    List<String> values = new ArrayList<String>(fields.values());
+    List<Object> failed = (List<Object>) ((JavascriptExecutor) driver).executeScript(SET_FORM_FIELDS_SCRIPT, root,
+        names, values);
+    List<String> result = new ArrayList<String>();
+    for (Object name : failed) {
+      result.add(String.valueOf(name));
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  public Map<String, String[]> getFormState(String nameOrId) {
+    String form;
+    if (nameOrId != null) {
+      form = "//form[@name=" + escapeQuotes(nameOrId) + " or @id=" + escapeQuotes(nameOrId) + "]";
+    } else if (formIdent != null) {
+      form = formSelector();
+    } else {
+      form = "//form";
+    }
+    List<Object> pairs = (List<Object>) ((JavascriptExecutor) driver).executeScript(GET_FORM_STATE_SCRIPT, form);
+    if (pairs == null) {
+      throw new RuntimeException("No form with name or id [" + nameOrId + "] was found.");
+    }
+    Map<String, String[]> state = new LinkedHashMap<String, String[]>();
+    for (Object pair : pairs) {
+      List<Object> values = (List<Object>) ((List<Object>) pair).get(1);
+      String[] array = new String[values.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = String.valueOf(values.get(i));
+      }
+      state.put(String.valueOf(((List<Object>) pair).get(0)), array);
+    }
+    return state;
+  }
+
   public void setHiddenField(String inputName, String text) {
     WebElement e = getWebElementByXPath("//input[@type='hidden' and @name=" + escapeQuotes(inputName) + "]", false, true);
     ((JavascriptExecutor) driver).executeScript("arguments[0].value=" + escapeQuotes(text), e);
@@ -536,6 +811,25 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     return getSelectOptionLabelForValue(select, optionValue);
   }
 
+  public SelectOption[] getSelectOptions(String selectName) {
+    return getSelectOptions(selectName, 0);
+  }
+
+  public SelectOption[] getSelectOptions(String selectName, int index) {
+    WebElement select = getWebElementByXPath("//select[@name=" + escapeQuotes(selectName) + "][" + (index + 1) + "]", true, true);
+    if (select == null) {
+      throw new RuntimeException("Did not find select with name [" + selectName + "] at index " + index);
+    }
+    List<Object> triples = (List<Object>) ((JavascriptExecutor) driver).executeScript(GET_SELECT_OPTIONS_SCRIPT, select);
+    SelectOption[] result = new SelectOption[triples.size()];
+    for (int i = 0; i < result.length; i++) {
+      List<Object> triple = (List<Object>) triples.get(i);
+      result[i] = new SelectOption(String.valueOf(triple.get(0)), String.valueOf(triple.get(1)),
+        Boolean.TRUE.equals(triple.get(2)));
+    }
+    return result;
+  }
+
   public String getSelectOptionValueForLabel(String selectName, String optionLabel) {
     Select select = new Select(getWebElementByXPath("//select[@name=" + escapeQuotes(selectName) + "]", true, true));
     return getSelectOptionValueForLabel(select, optionLabel);
@@ -603,9 +897,8 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
   }
 
   public boolean hasSelectOption(String selectName, int index, String optionLabel) {
-    Select select = new Select(getWebElementByXPath("//select[@name=" + escapeQuotes(selectName) + "][" + (index + 1) + "]", true, true));
-    for (WebElement opt : select.getOptions()) {
-      if (opt.getText().equals(optionLabel)) {
+    for (SelectOption opt : getSelectOptions(selectName, index)) {
+      if (opt.getLabel().equals(optionLabel)) {
         return true;
       }
     }
@@ -791,6 +1084,10 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     }
   }
 
+  public boolean isTextInPage(String text) {
+    return getPageText().contains(text);
+  }
+
   public String getPageSource() {
     return driver.getPageSource();
     // Do not work when there are requests following loading of main page (like frames)
@@ -831,6 +1128,37 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     }
   }
 
+  /**
+   * The request is sent by the client of the driver, through the proxy. The response of the current
+   * page and the measures of the page are left as they were.
+   */
+  public ResponseSnapshot getHeadResponse(URL url) throws TestingEngineResponseException {
+    if (webClient == null) {
+      throw new IllegalStateException("No browser: call beginAt first");
+    }
+    BrowserMobHttpResponse current = response;
+    WebResponse head;
+    try {
+      head = webClient.loadWebResponse(new WebRequest(url, HttpMethod.HEAD));
+    } catch (IOException e) {
+      throw new TestingEngineResponseException(e);
+    } finally {
+      response = current;
+      synchronized (harEntries) {
+        for (Iterator<HarEntry> i = harEntries.iterator(); i.hasNext();) {
+          if ("HEAD".equals(i.next().getRequest().getMethod())) {
+            i.remove();
+          }
+        }
+      }
+    }
+    List<HttpHeader> headers = new ArrayList<HttpHeader>();
+    for (NameValuePair header : head.getResponseHeaders()) {
+      headers.add(new HttpHeader(header.getName(), header.getValue()));
+    }
+    return new ResponseSnapshot(url.toExternalForm(), head.getStatusCode(), head.getStatusMessage(), headers, null);
+  }
+
   public boolean hasTable(String tableSummaryNameOrId) {
     return getHtmlTable(tableSummaryNameOrId) != null;
   }
@@ -1018,16 +1346,7 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
    * @param regexp regexp to match.
    */
   private boolean isMatchInElement(WebElement element, String regexp) {
-    RE re = getRE(regexp);
-    return re.match(element.getText());
-  }
-
-  private RE getRE(String regexp) {
-    try {
-      return new RE(regexp, RE.MATCH_SINGLELINE);
-    } catch (RESyntaxException e) {
-      throw new RuntimeException(e);
-    }
+    return testContext.getRegexpEngine().find(regexp, element.getText());
   }
 
   public void setExpectedJavaScriptAlert(JavascriptAlert[] alerts) throws ExpectedJavascriptAlertException {
@@ -1068,16 +1387,16 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
   }
 
   public int getServerResponseCode() {
-    return response.getRawResponse().getStatusLine().getStatusCode();
+    return getResponseSnapshot().getStatusCode();
   }
 
   public String getHeader(String name) {
-    return response.getHeader(name);
+    return getResponseSnapshot().getHeader(name);
   }
 
   public Map<String, String> getAllHeaders() {
     Map<String, String> map = new java.util.HashMap<String, String>();
-    for (Header header : response.getRawResponse().getAllHeaders()) {
+    for (HttpHeader header : getResponseSnapshot().getHeaders()) {
       map.put(header.getName(), header.getValue());
     }
     return map;
@@ -1095,12 +1414,81 @@ public class WebDriverTestingEngineImpl implements ITestingEngine {
     throw new UnsupportedOperationException("Not supported yet.");
   }
 
+  /**
+   * Measured from the entries recorded by the proxy: the page is the last response for the URL of the
+   * current window, followed by every response received after it. Without JavaScript, only the elements
+   * of the page are counted as DOM nodes.
+   */
+  public PageMetrics getPageMetrics() {
+    if (driver == null) {
+      throw new IllegalStateException("No page to measure: the browser is not started");
+    }
+    String url = StringUtils.substringBefore(driver.getCurrentUrl(), "#");
+    List<HarEntry> entries;
+    synchronized (harEntries) {
+      entries = new ArrayList<HarEntry>(harEntries);
+    }
+    int start = entries.size() - 1;
+    while (start >= 0 && !url.equals(entries.get(start).getRequest().getUrl())) {
+      start--;
+    }
+    if (start < 0) {
+      throw new IllegalStateException("The proxy did not record the response of the current page " + url);
+    }
+    long bytes = 0;
+    for (HarEntry entry : entries.subList(start, entries.size())) {
+      bytes += Math.max(0, entry.getResponse().getBodySize());
+    }
+    int domNodeCount;
+    if (jsEnabled) {
+      domNodeCount = ((Number) ((JavascriptExecutor) driver).executeScript(COUNT_DOM_NODES_SCRIPT)).intValue();
+    } else {
+      domNodeCount = driver.findElements(By.xpath("//*")).size();
+    }
+    return new PageMetrics(entries.get(start).getTime(), bytes, entries.size() - start, domNodeCount);
+  }
+
+  public int waitForBackgroundJavaScript(long timeoutMillis) {
+    // WebDriver does not expose the pending jobs of the browser: just let it run
+    try {
+      Thread.sleep(timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    return -1;
+  }
+
+  public void advanceJavaScriptClock(long millis) {
+    // the clock of the browser cannot be driven: wait in real time
+    waitForBackgroundJavaScript(millis);
+  }
+
+  public int getRefreshCount() {
+    return refreshHandler == null ? 0 : refreshHandler.getLimiter().getRefreshCount();
+  }
+
   public List<HttpHeader> getResponseHeaders() {
-    List<HttpHeader> result = new LinkedList<HttpHeader>();
-    for (Header header : response.getRawResponse().getAllHeaders()) {
-      result.add(new HttpHeader(header.getName(), header.getValue()));
+    return new LinkedList<HttpHeader>(getResponseSnapshot().getHeaders());
+  }
+
+  /**
+   * The snapshot is captured the first time it is asked for after a response went through the proxy.
+   * The body is not available: the proxy does not keep it.
+   */
+  public ResponseSnapshot getResponseSnapshot() {
+    BrowserMobHttpResponse current = response;
+    if (current != responseSnapshotSource) {
+      List<HttpHeader> headers = new ArrayList<HttpHeader>();
+      for (Header header : current.getRawResponse().getAllHeaders()) {
+        headers.add(new HttpHeader(header.getName(), header.getValue()));
+      }
+      StatusLine status = current.getRawResponse().getStatusLine();
+      responseSnapshot = new ResponseSnapshot(current.getEntry().getRequest().getUrl(), status.getStatusCode(),
+        status.getReasonPhrase(), headers, null);
+      responseSnapshotSource = current;
     }
-    return result;
+    return responseSnapshot;
   }
 
   /**
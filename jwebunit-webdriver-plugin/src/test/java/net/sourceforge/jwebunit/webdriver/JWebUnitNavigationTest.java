@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2002-2015, JWebUnit team.
+ *
+ * This file is part of JWebUnit.
+ *
+ * JWebUnit is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JWebUnit is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JWebUnit.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.jwebunit.webdriver;
+
+import net.sourceforge.jwebunit.tests.ConcurrentJWebUnitTest;
+import net.sourceforge.jwebunit.tests.CustomTesterTest;
+import net.sourceforge.jwebunit.tests.FramesAndWindowsTest;
+import net.sourceforge.jwebunit.tests.ImageTest;
+import net.sourceforge.jwebunit.tests.JavaScriptEventsTest;
+import net.sourceforge.jwebunit.tests.JavaScriptTest;
+import net.sourceforge.jwebunit.tests.LinkCrawlerTest;
+import net.sourceforge.jwebunit.tests.NavigationTest;
+import net.sourceforge.jwebunit.tests.NonHtmlContentTest;
+import net.sourceforge.jwebunit.tests.RefreshLimitsTest;
+import net.sourceforge.jwebunit.tests.ResponseServletTest;
+import net.sourceforge.jwebunit.tests.TestContextTest;
+import net.sourceforge.jwebunit.tests.TesterScopeTest;
+import net.sourceforge.jwebunit.tests.UrlFilterTest;
+import net.sourceforge.jwebunit.tests.WebCookieTest;
+import net.sourceforge.jwebunit.tests.util.JettySetup;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+/**
+ * Test Suite for JWebUnit: the navigation, the windows, the scripts and the cookies.
+ * 
+ * @author Julien Henry
+ */
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+    FramesAndWindowsTest.class,
+    JavaScriptEventsTest.class,
+    JavaScriptTest.class,
+    WebCookieTest.class,
+    TestContextTest.class,
+    NavigationTest.class,
+    NonHtmlContentTest.class,
+    //RedirectionTest.class,
+    ImageTest.class,
+    ResponseServletTest.class,
+    CustomTesterTest.class,
+    ConcurrentJWebUnitTest.class,
+    UrlFilterTest.class,
+    LinkCrawlerTest.class,
+    TesterScopeTest.class,
+    RefreshLimitsTest.class
+})
+public class JWebUnitNavigationTest extends JettySetup {
+
+}